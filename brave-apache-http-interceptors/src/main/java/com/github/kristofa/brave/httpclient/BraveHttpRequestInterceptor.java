@@ -2,6 +2,7 @@ package com.github.kristofa.brave.httpclient;
 
 import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.ClientRequestInterceptor;
+import com.github.kristofa.brave.http.BraveHttpHeaders;
 import com.github.kristofa.brave.http.DefaultSpanNameProvider;
 import com.github.kristofa.brave.http.HttpClientRequestAdapter;
 import com.github.kristofa.brave.http.SpanNameProvider;
@@ -28,6 +29,7 @@ public class BraveHttpRequestInterceptor implements HttpRequestInterceptor {
     public static final class Builder {
         final Brave brave;
         SpanNameProvider spanNameProvider = new DefaultSpanNameProvider();
+        boolean b3SingleFormat;
 
         Builder(Brave brave) { // intentionally hidden
             this.brave = checkNotNull(brave, "brave");
@@ -38,6 +40,16 @@ public class BraveHttpRequestInterceptor implements HttpRequestInterceptor {
             return this;
         }
 
+        /**
+         * When true, ids are propagated in the single {@link BraveHttpHeaders#B3 b3} header,
+         * instead of the {@code X-B3-*} headers. Only use this when servers can read it. Defaults to
+         * false.
+         */
+        public Builder b3SingleFormat(boolean b3SingleFormat) {
+            this.b3SingleFormat = b3SingleFormat;
+            return this;
+        }
+
         public BraveHttpRequestInterceptor build() {
             return new BraveHttpRequestInterceptor(this);
         }
@@ -45,10 +57,12 @@ public class BraveHttpRequestInterceptor implements HttpRequestInterceptor {
 
     private final ClientRequestInterceptor requestInterceptor;
     private final SpanNameProvider spanNameProvider;
+    private final boolean b3SingleFormat;
 
     BraveHttpRequestInterceptor(Builder b) { // intentionally hidden
         this.requestInterceptor = b.brave.clientRequestInterceptor();
         this.spanNameProvider = b.spanNameProvider;
+        this.b3SingleFormat = b.b3SingleFormat;
     }
 
     /**
@@ -62,6 +76,7 @@ public class BraveHttpRequestInterceptor implements HttpRequestInterceptor {
     public BraveHttpRequestInterceptor(ClientRequestInterceptor requestInterceptor, SpanNameProvider spanNameProvider) {
         this.requestInterceptor = requestInterceptor;
         this.spanNameProvider = spanNameProvider;
+        this.b3SingleFormat = false;
     }
 
     /**
@@ -69,7 +84,7 @@ public class BraveHttpRequestInterceptor implements HttpRequestInterceptor {
      */
     @Override
     public void process(final HttpRequest request, final HttpContext context) {
-        HttpClientRequestAdapter adapter = new HttpClientRequestAdapter(new HttpClientRequestImpl(request), spanNameProvider);
+        HttpClientRequestAdapter adapter = new HttpClientRequestAdapter(new HttpClientRequestImpl(request), spanNameProvider, b3SingleFormat);
         requestInterceptor.handle(adapter);
     }
 }
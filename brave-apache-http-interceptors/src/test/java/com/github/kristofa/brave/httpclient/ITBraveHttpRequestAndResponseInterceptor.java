@@ -4,6 +4,7 @@ import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.ClientRequestInterceptor;
 import com.github.kristofa.brave.ClientResponseInterceptor;
 import com.github.kristofa.brave.ClientTracer;
+import com.github.kristofa.brave.IdConversion;
 import com.github.kristofa.brave.SpanId;
 import com.github.kristofa.brave.http.BraveHttpHeaders;
 import com.github.kristofa.test.http.DefaultHttpResponseProvider;
@@ -77,7 +78,7 @@ public class ITBraveHttpRequestAndResponseInterceptor {
         final HttpRequestImpl request = new HttpRequestImpl();
         request.method(Method.GET).path(FULL_PATH)
             .httpMessageHeader(BraveHttpHeaders.TraceId.getName(), TRACE_ID_STRING)
-            .httpMessageHeader(BraveHttpHeaders.SpanId.getName(), Long.toString(SPAN_ID, 16))
+            .httpMessageHeader(BraveHttpHeaders.SpanId.getName(), IdConversion.toLowerHex(SPAN_ID))
             .httpMessageHeader(BraveHttpHeaders.Sampled.getName(), "1");
         final HttpResponseImpl response = new HttpResponseImpl(200, null, null);
         responseProvider.set(request, response);
@@ -113,7 +114,7 @@ public class ITBraveHttpRequestAndResponseInterceptor {
         final HttpRequestImpl request = new HttpRequestImpl();
         request.method(Method.GET).path(FULL_PATH)
                 .httpMessageHeader(BraveHttpHeaders.TraceId.getName(), TRACE_ID_STRING)
-                .httpMessageHeader(BraveHttpHeaders.SpanId.getName(), Long.toString(SPAN_ID, 16))
+                .httpMessageHeader(BraveHttpHeaders.SpanId.getName(), IdConversion.toLowerHex(SPAN_ID))
                 .httpMessageHeader(BraveHttpHeaders.Sampled.getName(), "1");
         final HttpResponseImpl response = new HttpResponseImpl(400, null, null);
         responseProvider.set(request, response);
@@ -181,7 +182,7 @@ public class ITBraveHttpRequestAndResponseInterceptor {
         final HttpRequestImpl request = new HttpRequestImpl();
         request.method(Method.GET).path(FULL_PATH).queryParameter("x", "1").queryParameter("y", "2")
             .httpMessageHeader(BraveHttpHeaders.TraceId.getName(), TRACE_ID_STRING)
-            .httpMessageHeader(BraveHttpHeaders.SpanId.getName(), Long.toString(SPAN_ID, 16))
+            .httpMessageHeader(BraveHttpHeaders.SpanId.getName(), IdConversion.toLowerHex(SPAN_ID))
             .httpMessageHeader(BraveHttpHeaders.Sampled.getName(), "1");
         final HttpResponseImpl response = new HttpResponseImpl(200, null, null);
         responseProvider.set(request, response);
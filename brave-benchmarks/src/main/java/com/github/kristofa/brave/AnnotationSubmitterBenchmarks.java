@@ -0,0 +1,111 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures threads concurrently annotating the same span, as happens when a request is handed off
+ * between threads. Run with {@code -t1} to see the uncontended cost.
+ *
+ * <p>Each thread moves on to a fresh span every 1000 operations, so that spans don't grow without
+ * bound.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class AnnotationSubmitterBenchmarks {
+  static final Endpoint ENDPOINT =
+      Endpoint.builder().serviceName("frontend").ipv4(127 << 24 | 1).port(8080).build();
+
+  @State(Scope.Benchmark)
+  public static class SharedSpan {
+    final AtomicReference<Span> current = new AtomicReference<Span>(newSpan());
+
+    final AnnotationSubmitter submitter = AnnotationSubmitter.create(new SpanAndEndpoint() {
+      @Override public Span span() {
+        return current.get();
+      }
+
+      @Override public Endpoint endpoint() {
+        return ENDPOINT;
+      }
+    });
+  }
+
+  @State(Scope.Thread)
+  public static class Counter {
+    int count;
+  }
+
+  @Benchmark
+  public void submitAnnotation(SharedSpan shared, Counter counter) {
+    maybeRollover(shared, counter);
+    shared.submitter.submitAnnotation("foo", 1L);
+  }
+
+  @Benchmark
+  public void submitBinaryAnnotation(SharedSpan shared, Counter counter) {
+    maybeRollover(shared, counter);
+    shared.submitter.submitBinaryAnnotation("foo", "bar");
+  }
+
+  /** This is how annotations were added prior to the lock-free event log */
+  @Benchmark
+  public void compare_synchronizedAnnotation(SharedSpan shared, Counter counter) {
+    maybeRollover(shared, counter);
+    Span span = shared.current.get();
+    Annotation annotation = Annotation.create(1L, "foo", ENDPOINT);
+    synchronized (span) {
+      span.addToAnnotations(annotation);
+    }
+  }
+
+  /** This is how binary annotations were added prior to the lock-free event log */
+  @Benchmark
+  public void compare_synchronizedBinaryAnnotation(SharedSpan shared, Counter counter) {
+    maybeRollover(shared, counter);
+    Span span = shared.current.get();
+    BinaryAnnotation ba = BinaryAnnotation.create("foo", "bar", ENDPOINT);
+    synchronized (span) {
+      span.addToBinary_annotations(ba);
+    }
+  }
+
+  static void maybeRollover(SharedSpan shared, Counter counter) {
+    if (++counter.count % 1000 == 0) shared.current.set(newSpan());
+  }
+
+  static Span newSpan() {
+    return new Span().setName("get");
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + AnnotationSubmitterBenchmarks.class.getSimpleName() + ".*")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,138 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.http.BraveHttpHeaders;
+import com.github.kristofa.brave.http.HttpClientRequest;
+import com.github.kristofa.brave.http.HttpClientRequestAdapter;
+import com.github.kristofa.brave.http.HttpRequest;
+import com.github.kristofa.brave.http.HttpServerRequest;
+import com.github.kristofa.brave.http.HttpServerRequestAdapter;
+import com.github.kristofa.brave.http.SpanNameProvider;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares propagating a child span in the single {@code b3} header with the four {@code X-B3-*}
+ * headers. Requests are backed by a {@link LinkedHashMap}, so that the cost of each header lookup
+ * or write is included.
+ *
+ * <p>Run with {@code -prof gc} to see allocations per request.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+public class B3SingleFormatBenchmarks {
+  static final SpanId CHILD = SpanId.builder()
+      .traceId(0x463ac35c9f6413adL).parentId(0x463ac35c9f6413adL).spanId(0x72485a3953bb6124L)
+      .sampled(true).build();
+  static final SpanNameProvider NAME_PROVIDER = new SpanNameProvider() {
+    @Override public String spanName(HttpRequest request) {
+      return request.getHttpMethod();
+    }
+  };
+
+  @State(Scope.Thread)
+  public static class Headers implements HttpServerRequest, HttpClientRequest {
+    final Map<String, String> headers = new LinkedHashMap<String, String>();
+
+    @Override public void addHeader(String header, String value) {
+      headers.put(header, value);
+    }
+
+    @Override public String getHttpHeaderValue(String headerName) {
+      return headers.get(headerName);
+    }
+
+    @Override public URI getUri() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override public String getHttpMethod() {
+      return "GET";
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class SingleHeader extends Headers {
+    final HttpServerRequestAdapter serverAdapter = new HttpServerRequestAdapter(this, NAME_PROVIDER);
+    final HttpClientRequestAdapter clientAdapter =
+        new HttpClientRequestAdapter(this, NAME_PROVIDER, true);
+
+    public SingleHeader() {
+      clientAdapter.addSpanIdToRequest(CHILD);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class MultiHeader extends Headers {
+    final HttpServerRequestAdapter serverAdapter = new HttpServerRequestAdapter(this, NAME_PROVIDER);
+    final HttpClientRequestAdapter clientAdapter =
+        new HttpClientRequestAdapter(this, NAME_PROVIDER, false);
+
+    public MultiHeader() {
+      clientAdapter.addSpanIdToRequest(CHILD);
+    }
+  }
+
+  @Benchmark
+  public Object inject_b3SingleFormat(SingleHeader request) {
+    request.clientAdapter.addSpanIdToRequest(CHILD);
+    return request.headers;
+  }
+
+  @Benchmark
+  public Object inject_multiHeader(MultiHeader request) {
+    request.clientAdapter.addSpanIdToRequest(CHILD);
+    return request.headers;
+  }
+
+  @Benchmark
+  public TraceData extract_b3SingleFormat(SingleHeader request) {
+    return request.serverAdapter.getTraceData();
+  }
+
+  @Benchmark
+  public TraceData extract_multiHeader(MultiHeader request) {
+    return request.serverAdapter.getTraceData();
+  }
+
+  @Benchmark
+  public String writeB3SingleFormat() {
+    return B3SingleFormat.writeB3SingleFormat(CHILD);
+  }
+
+  static final String B3_VALUE = B3SingleFormat.writeB3SingleFormat(CHILD);
+
+  @Benchmark
+  public TraceData parseB3SingleFormat() {
+    return B3SingleFormat.parseB3SingleFormat(B3_VALUE);
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + B3SingleFormatBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,74 @@
+package com.github.kristofa.brave;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the default clock with {@link AnchoredClock}, for throughput and for precision.
+ *
+ * <p>The {@code currentTimeMicroseconds} benchmarks measure the cost of a timestamp. The {@code
+ * granularity} benchmarks read the clock until its value changes, so their average time is the
+ * smallest difference a clock can report between two annotations: about a millisecond for the
+ * default clock, and about a microsecond for the anchored one.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+@State(Scope.Benchmark)
+public class ClockBenchmarks {
+  final AnnotationSubmitter.Clock defaultClock = AnnotationSubmitter.DefaultClock.INSTANCE;
+  final AnnotationSubmitter.Clock anchoredClock = AnchoredClock.create();
+
+  @Benchmark
+  public long currentTimeMicroseconds_default() {
+    return defaultClock.currentTimeMicroseconds();
+  }
+
+  @Benchmark
+  public long currentTimeMicroseconds_anchored() {
+    return anchoredClock.currentTimeMicroseconds();
+  }
+
+  @Benchmark
+  public long granularity_default() {
+    return nextValue(defaultClock);
+  }
+
+  @Benchmark
+  public long granularity_anchored() {
+    return nextValue(anchoredClock);
+  }
+
+  static long nextValue(AnnotationSubmitter.Clock clock) {
+    long start = clock.currentTimeMicroseconds(), next;
+    while ((next = clock.currentTimeMicroseconds()) == start) {
+    }
+    return next;
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + ClockBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,124 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Span;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Measures the overhead of submitting a task through {@link BraveExecutorService} and {@link
+ * BraveExecutors}, compared with the executor they wrap.
+ *
+ * <p>Tasks run on the calling thread, so that the measurement is the cost of capturing, binding
+ * and restoring spans rather than of handing off between threads. The {@code traced} parameter
+ * controls whether a server span is active when the task is submitted.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+@State(Scope.Thread)
+public class ExecutorSubmitBenchmarks {
+  static final Runnable TASK = new Runnable() {
+    @Override public void run() {
+    }
+  };
+
+  @Param({"true", "false"})
+  boolean traced;
+
+  final Brave brave = new Brave.Builder("benchmark")
+      .reporter(new Reporter<zipkin.Span>() {
+        @Override public void report(zipkin.Span span) {
+        }
+      }).build();
+
+  final ExecutorService direct = new DirectExecutorService();
+  final ExecutorService braveExecutorService =
+      new BraveExecutorService(direct, brave.serverSpanThreadBinder());
+  final ExecutorService braveExecutors = BraveExecutors.wrap(direct, brave);
+
+  @Setup
+  public void setup() {
+    if (traced) {
+      brave.serverSpanThreadBinder().setCurrentSpan(ServerSpan.create(new Span().setName("get")));
+    }
+  }
+
+  @TearDown
+  public void clear() {
+    brave.serverTracer().clearCurrentSpan();
+  }
+
+  @Benchmark
+  public void execute_unwrapped() {
+    direct.execute(TASK);
+  }
+
+  @Benchmark
+  public void execute_braveExecutorService() {
+    braveExecutorService.execute(TASK);
+  }
+
+  @Benchmark
+  public void execute_braveExecutors() {
+    braveExecutors.execute(TASK);
+  }
+
+  static final class DirectExecutorService extends AbstractExecutorService {
+    @Override public void execute(Runnable command) {
+      command.run();
+    }
+
+    @Override public void shutdown() {
+    }
+
+    @Override public List<Runnable> shutdownNow() {
+      return Collections.emptyList();
+    }
+
+    @Override public boolean isShutdown() {
+      return false;
+    }
+
+    @Override public boolean isTerminated() {
+      return false;
+    }
+
+    @Override public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return false;
+    }
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + ExecutorSubmitBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
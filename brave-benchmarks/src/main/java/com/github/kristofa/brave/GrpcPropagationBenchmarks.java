@@ -0,0 +1,157 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.grpc.BraveGrpcClientInterceptor;
+import com.github.kristofa.brave.grpc.BraveGrpcServerInterceptor;
+import com.google.common.io.ByteStreams;
+import io.grpc.CallOptions;
+import io.grpc.ClientInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Measures the per-call overhead of the client and server interceptors, over gRPC's in-process
+ * transport. Each traced call propagates the trace context in one of three forms: four ASCII keys,
+ * the single {@code b3} key, or the binary {@code b3-bin} key.
+ *
+ * <p>Compare against {@link #unary_untraced} for the cost of tracing, and run with {@code -prof gc}
+ * to see allocations per call.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+@State(Scope.Benchmark)
+public class GrpcPropagationBenchmarks {
+  static final MethodDescriptor.Marshaller<byte[]> BYTES = new MethodDescriptor.Marshaller<byte[]>() {
+    @Override public InputStream stream(byte[] value) {
+      return new ByteArrayInputStream(value);
+    }
+
+    @Override public byte[] parse(InputStream stream) {
+      try {
+        return ByteStreams.toByteArray(stream);
+      } catch (IOException e) {
+        throw new AssertionError(e);
+      }
+    }
+  };
+  static final MethodDescriptor<byte[], byte[]> METHOD = MethodDescriptor.create(
+      MethodDescriptor.MethodType.UNARY,
+      MethodDescriptor.generateFullMethodName("helloworld.Greeter", "SayHello"),
+      BYTES, BYTES);
+  static final byte[] REQUEST = "brave".getBytes();
+
+  Brave brave;
+  Server untracedServer, tracedServer;
+  ManagedChannel untraced, multiKey, b3SingleFormat, b3Binary;
+
+  @Setup
+  public void start() throws IOException {
+    brave = new Brave.Builder("benchmark")
+        .reporter(new Reporter<zipkin.Span>() {
+          @Override public void report(zipkin.Span span) {
+          }
+        }).build();
+
+    untracedServer = startServer("untraced", null);
+    tracedServer = startServer("traced", BraveGrpcServerInterceptor.create(brave));
+
+    untraced = newChannel("untraced", null);
+    multiKey = newChannel("traced", BraveGrpcClientInterceptor.create(brave));
+    b3SingleFormat = newChannel("traced",
+        BraveGrpcClientInterceptor.builder(brave).b3SingleFormat(true).build());
+    b3Binary = newChannel("traced",
+        BraveGrpcClientInterceptor.builder(brave).b3Binary(true).build());
+  }
+
+  static Server startServer(String name, ServerInterceptor interceptor) throws IOException {
+    ServerServiceDefinition service = ServerServiceDefinition.builder("helloworld.Greeter")
+        .addMethod(METHOD, ServerCalls.asyncUnaryCall(new ServerCalls.UnaryMethod<byte[], byte[]>() {
+          @Override public void invoke(byte[] request, StreamObserver<byte[]> responseObserver) {
+            responseObserver.onNext(request);
+            responseObserver.onCompleted();
+          }
+        })).build();
+    return InProcessServerBuilder.forName(name)
+        .addService(interceptor != null ? ServerInterceptors.intercept(service, interceptor) : service)
+        .directExecutor()
+        .build().start();
+  }
+
+  static ManagedChannel newChannel(String name, ClientInterceptor interceptor) {
+    InProcessChannelBuilder builder = InProcessChannelBuilder.forName(name).directExecutor();
+    if (interceptor != null) builder.intercept(interceptor);
+    return builder.build();
+  }
+
+  @TearDown
+  public void close() {
+    for (ManagedChannel channel : new ManagedChannel[] {untraced, multiKey, b3SingleFormat, b3Binary}) {
+      channel.shutdownNow();
+    }
+    untracedServer.shutdownNow();
+    tracedServer.shutdownNow();
+  }
+
+  @Benchmark
+  public byte[] unary_untraced() {
+    return ClientCalls.blockingUnaryCall(untraced, METHOD, CallOptions.DEFAULT, REQUEST);
+  }
+
+  @Benchmark
+  public byte[] unary_traced_multiKey() {
+    return ClientCalls.blockingUnaryCall(multiKey, METHOD, CallOptions.DEFAULT, REQUEST);
+  }
+
+  @Benchmark
+  public byte[] unary_traced_b3SingleFormat() {
+    return ClientCalls.blockingUnaryCall(b3SingleFormat, METHOD, CallOptions.DEFAULT, REQUEST);
+  }
+
+  @Benchmark
+  public byte[] unary_traced_b3Binary() {
+    return ClientCalls.blockingUnaryCall(b3Binary, METHOD, CallOptions.DEFAULT, REQUEST);
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + GrpcPropagationBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,108 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.http.HttpRuleSampler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the cost of choosing a sampling rule for a request, as the count of rules grows.
+ *
+ * <p>{@link HttpRuleSampler} compiles rules into a trie, so its cost should stay the same as rules
+ * are added. This is compared against checking each rule in turn.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Threads(1)
+public class HttpRuleSamplerBenchmarks {
+    static final String MATCHED_PATH = "/api/v1/service0/users/42";
+    static final String UNMATCHED_PATH = "/static/js/app.min.js";
+
+    @Param({"1", "10", "100", "1000"})
+    int ruleCount;
+
+    HttpRuleSampler ruleSampler;
+    List<String> methods = new ArrayList<String>();
+    List<String> prefixes = new ArrayList<String>();
+    List<Sampler> samplers = new ArrayList<Sampler>();
+
+    @Setup
+    public void addRules() {
+        HttpRuleSampler.Builder builder = HttpRuleSampler.builder();
+        for (int i = 0; i < ruleCount; i++) {
+            String method = i % 2 == 0 ? "GET" : null;
+            String prefix = "/api/v1/service" + i + "/";
+            Sampler sampler = CountingSampler.create(0.5f);
+            builder.addRule(method, prefix, sampler);
+            methods.add(method);
+            prefixes.add(prefix);
+            samplers.add(sampler);
+        }
+        ruleSampler = builder.build();
+    }
+
+    @Benchmark
+    public Sampler ruleSampler_matched() {
+        return ruleSampler.sampler("GET", MATCHED_PATH);
+    }
+
+    @Benchmark
+    public Sampler ruleSampler_unmatched() {
+        return ruleSampler.sampler("GET", UNMATCHED_PATH);
+    }
+
+    /** Checks every rule, keeping the longest match */
+    @Benchmark
+    public Sampler compare_linearScan_matched() {
+        return linearScan("GET", MATCHED_PATH);
+    }
+
+    @Benchmark
+    public Sampler compare_linearScan_unmatched() {
+        return linearScan("GET", UNMATCHED_PATH);
+    }
+
+    Sampler linearScan(String method, String path) {
+        Sampler result = null;
+        int longest = -1;
+        for (int i = 0, length = prefixes.size(); i < length; i++) {
+            String ruleMethod = methods.get(i);
+            String prefix = prefixes.get(i);
+            if (ruleMethod != null && !ruleMethod.equals(method)) continue;
+            if (prefix.length() > longest && path.startsWith(prefix)) {
+                result = samplers.get(i);
+                longest = prefix.length();
+            }
+        }
+        return result;
+    }
+
+    // Convenience main entry-point
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(".*" + HttpRuleSamplerBenchmarks.class.getSimpleName() + ".*")
+            .build();
+
+        new Runner(opt).run();
+    }
+}
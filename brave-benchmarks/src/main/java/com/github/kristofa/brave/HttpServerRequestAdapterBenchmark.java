@@ -25,6 +25,14 @@ import com.github.kristofa.brave.http.HttpServerRequest;
 import com.github.kristofa.brave.http.HttpServerRequestAdapter;
 import com.github.kristofa.brave.http.SpanNameProvider;
 
+/**
+ * Measures extracting B3 headers from an incoming request. Half of the requests are explicitly
+ * unsampled, and the rest are either sampled or leave the decision to the server.
+ *
+ * <p>Run with {@code -prof gc} to see allocations per request. When trace ids are present, only the
+ * resulting {@link SpanId} and {@link TraceData} are allocated. Requests without ids allocate
+ * nothing, as they return a shared {@link TraceData} constant.
+ */
 @Measurement(iterations = 5, time = 1)
 @Warmup(iterations = 5, time = 1)
 @Fork(3)
@@ -83,6 +91,23 @@ public class HttpServerRequestAdapterBenchmark {
         };
 
         final HttpServerRequestAdapter adapter = new HttpServerRequestAdapter(request, nameProvider);
+
+        final HttpServerRequestAdapter untracedAdapter = new HttpServerRequestAdapter(new HttpServerRequest() {
+            @Override
+            public String getHttpHeaderValue(String headerName) {
+                return null;
+            }
+
+            @Override
+            public URI getUri() {
+                return URI;
+            }
+
+            @Override
+            public String getHttpMethod() {
+                return "GET";
+            }
+        }, nameProvider);
     }
 
     @Benchmark
@@ -90,10 +115,16 @@ public class HttpServerRequestAdapterBenchmark {
         return data.adapter.getTraceData();
     }
 
+    @Benchmark
+    public TraceData httpServerRequestAdapter_untraced(Data data) {
+        return data.untracedAdapter.getTraceData();
+    }
+
     // Convenience main entry-point
     public static void main(String[] args) throws RunnerException {
         Options opt = new OptionsBuilder()
                 .include(".*" + HttpServerRequestAdapterBenchmark.class.getSimpleName() + ".*")
+                .addProfiler("gc")
                 .build();
 
         new Runner(opt).run();
@@ -0,0 +1,70 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.LowerCaseNames;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Compares lowercasing a span name on each span with looking it up in {@link LowerCaseNames}, and
+ * measures starting a local span with a mixed-case name, as gRPC and http adapters produce.
+ *
+ * <p>Each invocation uses a new string instance, as a name read from a request would be. Run with
+ * {@code -prof gc} to see allocations per span.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+@State(Scope.Thread)
+public class LowerCaseNamesBenchmarks {
+  static final char[] NAME = "helloworld.Greeter/SayHello".toCharArray();
+
+  final LocalTracer tracer = new Brave.Builder("benchmark")
+      .reporter(new Reporter<zipkin.Span>() {
+        @Override public void report(zipkin.Span span) {
+        }
+      }).build().localTracer();
+
+  @Benchmark
+  public String lowerCase_toLowerCase() {
+    return new String(NAME).toLowerCase();
+  }
+
+  @Benchmark
+  public String lowerCase_cached() {
+    return LowerCaseNames.lowerCase(new String(NAME));
+  }
+
+  @Benchmark
+  public SpanId startLocalSpan() {
+    SpanId result = tracer.startNewSpan("grpc", new String(NAME));
+    tracer.spanAndEndpoint().state().setCurrentLocalSpan(null);
+    return result;
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + LowerCaseNamesBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,111 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.mysql.MySQLStatementInterceptor;
+import com.mysql.jdbc.Connection;
+import com.mysql.jdbc.Statement;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Measures the per-statement overhead of {@link MySQLStatementInterceptor}, against a stand-in
+ * {@link Connection} that answers the calls the interceptor makes without a server.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+@State(Scope.Thread)
+public class MySQLStatementInterceptorBenchmarks {
+  static final Statement STATEMENT = proxy(Statement.class, new InvocationHandler() {
+    @Override public Object invoke(Object proxy, Method method, Object[] args) {
+      return null;
+    }
+  });
+
+  final Brave brave = new Brave.Builder("benchmark")
+      .reporter(new Reporter<zipkin.Span>() {
+        @Override public void report(zipkin.Span span) {
+        }
+      }).build();
+  final MySQLStatementInterceptor interceptor = new MySQLStatementInterceptor();
+  final Connection connection = fakeConnection("127.0.0.1", "jdbc:mysql://127.0.0.1:3306/test");
+
+  @Setup
+  public void setup() {
+    MySQLStatementInterceptor.setClientTracer(brave.clientTracer());
+  }
+
+  @TearDown
+  public void clear() {
+    MySQLStatementInterceptor.setClientTracer(null);
+  }
+
+  @Benchmark
+  public void query() throws SQLException {
+    interceptor.preProcess("select 1", STATEMENT, connection);
+    interceptor.postProcess("select 1", STATEMENT, null, connection, 0, false, false, null);
+  }
+
+  static Connection fakeConnection(final String host, String url) {
+    final Properties properties = new Properties();
+    final DatabaseMetaData metaData = proxy(DatabaseMetaData.class, returning("getURL", url));
+    return proxy(Connection.class, new InvocationHandler() {
+      @Override public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        if (name.equals("getHost")) return host;
+        if (name.equals("getMetaData")) return metaData;
+        if (name.equals("getProperties")) return properties;
+        if (name.equals("getCatalog")) return "test";
+        if (name.equals("hashCode")) return System.identityHashCode(proxy);
+        if (name.equals("equals")) return proxy == args[0];
+        return null;
+      }
+    });
+  }
+
+  static InvocationHandler returning(final String methodName, final Object value) {
+    return new InvocationHandler() {
+      @Override public Object invoke(Object proxy, Method method, Object[] args) {
+        return method.getName().equals(methodName) ? value : null;
+      }
+    };
+  }
+
+  static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + MySQLStatementInterceptorBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
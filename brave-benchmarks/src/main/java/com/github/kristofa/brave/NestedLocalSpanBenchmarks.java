@@ -0,0 +1,77 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Measures nested local spans on {@link InheritableServerClientAndLocalSpanState}, the only state
+ * that allows nesting.
+ *
+ * <p>{@link #pushAndPop} isolates the cost of the local span stack, while {@link
+ * #nestedLocalSpans} starts and finishes three levels of local spans through the tracer. Run with
+ * {@code -prof gc} to see allocations per operation.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+@State(Scope.Thread)
+public class NestedLocalSpanBenchmarks {
+  static final Endpoint ENDPOINT = Endpoint.create("benchmark", 127 << 24 | 1);
+
+  final InheritableServerClientAndLocalSpanState state =
+      new InheritableServerClientAndLocalSpanState(ENDPOINT);
+  final LocalTracer tracer = new Brave.Builder(state)
+      .reporter(new Reporter<zipkin.Span>() {
+        @Override public void report(zipkin.Span span) {
+        }
+      }).build().localTracer();
+  final com.twitter.zipkin.gen.Span span = new com.twitter.zipkin.gen.Span();
+
+  @Benchmark
+  public void pushAndPop() {
+    state.setCurrentLocalSpan(span);
+    state.setCurrentLocalSpan(span);
+    state.setCurrentLocalSpan(span);
+    state.setCurrentLocalSpan(null);
+    state.setCurrentLocalSpan(null);
+    state.setCurrentLocalSpan(null);
+  }
+
+  @Benchmark
+  public void nestedLocalSpans() {
+    tracer.startNewSpan("benchmark", "outer");
+    tracer.startNewSpan("benchmark", "middle");
+    tracer.startNewSpan("benchmark", "inner");
+    tracer.finishSpan();
+    tracer.finishSpan();
+    tracer.finishSpan();
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + NestedLocalSpanBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
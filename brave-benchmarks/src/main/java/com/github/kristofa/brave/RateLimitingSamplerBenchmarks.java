@@ -0,0 +1,82 @@
+package com.github.kristofa.brave;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures how close {@link RateLimitingSampler} gets to its target, while many threads start
+ * traces as fast as they can.
+ *
+ * <p>The "sampled" counter is the count of traces sampled per second, summed across threads. It
+ * should be close to the {@code tracesPerSecond} parameter, regardless of thread count. Expect up
+ * to 10% more, as the bucket refills while JMH pauses between iterations. The "unsampled" counter
+ * shows how many decisions were made in the same time.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 2, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class RateLimitingSamplerBenchmarks {
+
+  @State(Scope.Benchmark)
+  public static class SharedSampler {
+    @Param({"10", "1000", "100000"})
+    int tracesPerSecond;
+
+    Sampler sampler;
+
+    @Setup
+    public void create() {
+      sampler = RateLimitingSampler.create(tracesPerSecond);
+    }
+  }
+
+  @AuxCounters
+  @State(Scope.Thread)
+  public static class Decisions {
+    public long sampled;
+    public long unsampled;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      sampled = unsampled = 0;
+    }
+  }
+
+  @Benchmark
+  public void accuracy(SharedSampler shared, Decisions decisions) {
+    if (shared.sampler.isSampled(1L)) {
+      decisions.sampled++;
+    } else {
+      decisions.unsampled++;
+    }
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + RateLimitingSamplerBenchmarks.class.getSimpleName() + ".*")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
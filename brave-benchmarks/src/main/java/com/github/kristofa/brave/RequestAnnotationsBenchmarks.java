@@ -0,0 +1,97 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.http.DefaultSpanNameProvider;
+import com.github.kristofa.brave.http.HttpServerRequest;
+import com.github.kristofa.brave.http.HttpServerRequestAdapter;
+import com.github.kristofa.brave.http.SpanNameProvider;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Measures handling a server request, when the server decides not to sample. Like a servlet
+ * adapter, the request creates a new {@link URI} each time it is asked.
+ *
+ * <p>Request annotations are only evaluated for sampled requests, so the unsampled path doesn't
+ * parse or format the url. Run with {@code -prof gc} to compare allocations per request against
+ * {@link #serverRequest_sampled}.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+@State(Scope.Thread)
+public class RequestAnnotationsBenchmarks {
+  static final SpanNameProvider NAME_PROVIDER = new DefaultSpanNameProvider();
+
+  static final HttpServerRequest REQUEST = new HttpServerRequest() {
+    @Override public String getHttpHeaderValue(String headerName) {
+      return null; // the server decides whether to sample
+    }
+
+    @Override public URI getUri() {
+      try {
+        return new URI("/api/users/1234?format=json");
+      } catch (URISyntaxException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    @Override public String getHttpMethod() {
+      return "GET";
+    }
+  };
+
+  final Brave unsampled = brave(Sampler.NEVER_SAMPLE);
+  final Brave sampled = brave(Sampler.ALWAYS_SAMPLE);
+
+  static Brave brave(Sampler sampler) {
+    return new Brave.Builder("benchmark").traceSampler(sampler)
+        .reporter(new Reporter<zipkin.Span>() {
+          @Override public void report(zipkin.Span span) {
+          }
+        }).build();
+  }
+
+  @Benchmark
+  public void serverRequest_unsampled() {
+    handle(unsampled);
+  }
+
+  @Benchmark
+  public void serverRequest_sampled() {
+    handle(sampled);
+  }
+
+  static void handle(Brave brave) {
+    brave.serverRequestInterceptor().handle(new HttpServerRequestAdapter(REQUEST, NAME_PROVIDER));
+    brave.serverTracer().clearCurrentSpan();
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + RequestAnnotationsBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
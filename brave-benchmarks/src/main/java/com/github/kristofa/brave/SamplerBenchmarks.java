@@ -1,5 +1,6 @@
 package com.github.kristofa.brave;
 
+import java.util.BitSet;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -30,6 +31,10 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
  * <p>While random sampling gives a better statistical average across all spans, it's less useful
  * than the ability to see end to end interrelated work, such as a from a specific user, or messages
  * blocking others in a queue. More sampling patterns are expected in OpenTracing and Zipkin v2.
+ *
+ * <p>Samplers with state, such as the counting sampler, are also measured at 8 and 32 threads, as
+ * every root request on a node goes through the same sampler. JMH only accepts one thread count
+ * per benchmark method, hence the method per thread count.
  */
 @Measurement(iterations = 5, time = 1)
 @Warmup(iterations = 10, time = 1)
@@ -85,8 +90,81 @@ public class SamplerBenchmarks {
     return TRACE_ID_SAMPLER_COUNTING.isSampled(args.traceId);
   }
 
+  @Benchmark @Threads(8)
+  public boolean sampler_counting_8threads(Args args) {
+    return TRACE_ID_SAMPLER_COUNTING.isSampled(args.traceId);
+  }
+
+  @Benchmark @Threads(32)
+  public boolean sampler_counting_32threads(Args args) {
+    return TRACE_ID_SAMPLER_COUNTING.isSampled(args.traceId);
+  }
+
   static final Sampler TRACE_ID_SAMPLER_COUNTING = CountingSampler.create(SAMPLE_RATE);
 
+  /**
+   * This measures the rate-limiting sampler provided with brave-core. See {@link
+   * RateLimitingSamplerBenchmarks} for how many traces it lets through.
+   */
+  @Benchmark
+  public boolean sampler_rateLimited(Args args) {
+    return TRACE_ID_SAMPLER_RATE_LIMITED.isSampled(args.traceId);
+  }
+
+  @Benchmark @Threads(8)
+  public boolean sampler_rateLimited_8threads(Args args) {
+    return TRACE_ID_SAMPLER_RATE_LIMITED.isSampled(args.traceId);
+  }
+
+  @Benchmark @Threads(32)
+  public boolean sampler_rateLimited_32threads(Args args) {
+    return TRACE_ID_SAMPLER_RATE_LIMITED.isSampled(args.traceId);
+  }
+
+  static final Sampler TRACE_ID_SAMPLER_RATE_LIMITED = RateLimitingSampler.create(1000);
+
+  /**
+   * This measures the adaptive sampler provided with brave-core, which checks if it is time to
+   * adjust its rate on each call.
+   */
+  @Benchmark
+  public boolean sampler_adaptive(Args args) {
+    return TRACE_ID_SAMPLER_ADAPTIVE.isSampled(args.traceId);
+  }
+
+  static final Sampler TRACE_ID_SAMPLER_ADAPTIVE = AdaptiveSampler.create(SAMPLE_RATE);
+
+  /**
+   * This measures the counting sampler prior to striping, which loops over decisions while holding
+   * a lock.
+   */
+  @Benchmark
+  public boolean compare_synchronizedCounting(Args args) {
+    return SYNCHRONIZED_COUNTING.isSampled(args.traceId);
+  }
+
+  @Benchmark @Threads(8)
+  public boolean compare_synchronizedCounting_8threads(Args args) {
+    return SYNCHRONIZED_COUNTING.isSampled(args.traceId);
+  }
+
+  @Benchmark @Threads(32)
+  public boolean compare_synchronizedCounting_32threads(Args args) {
+    return SYNCHRONIZED_COUNTING.isSampled(args.traceId);
+  }
+
+  static final Sampler SYNCHRONIZED_COUNTING = new Sampler() {
+    final BitSet sampleDecisions =
+        CountingSampler.randomBitSet(100, (int) (SAMPLE_RATE * 100.0f), new Random());
+    int i; // guarded by this
+
+    @Override public synchronized boolean isSampled(long traceIdIgnored) {
+      boolean result = sampleDecisions.get(i++);
+      if (i == 100) i = 0;
+      return result;
+    }
+  };
+
   /**
    * Finagle's scala sampler samples using modulo 10000 arithmetic, which allows a minimum sample
    * rate of 0.01%.
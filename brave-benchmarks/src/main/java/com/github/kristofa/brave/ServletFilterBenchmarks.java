@@ -0,0 +1,168 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.servlet.BraveServletFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.eclipse.jetty.servlet.FilterHolder;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Measures the throughput of requests to an embedded Jetty server, comparing servlets that respond
+ * on the request thread with servlets that respond from another thread, with and without {@link
+ * BraveServletFilter}.
+ *
+ * <p>Async requests are finished by the filter's listener once the response completes, so this
+ * shows the cost of tracing a request whose span outlives the request thread.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ServletFilterBenchmarks {
+
+  Server server;
+  ExecutorService asyncExecutor;
+  String baseUrl;
+
+  @Setup
+  public void start() throws Exception {
+    Brave brave = new Brave.Builder("benchmark")
+        .reporter(new Reporter<zipkin.Span>() {
+          @Override public void report(zipkin.Span span) {
+          }
+        }).build();
+    asyncExecutor = Executors.newFixedThreadPool(4);
+
+    server = new Server();
+    SelectChannelConnector connector = new SelectChannelConnector();
+    connector.setPort(0);
+    server.addConnector(connector);
+
+    ServletContextHandler context = new ServletContextHandler();
+    FilterHolder filter = new FilterHolder(BraveServletFilter.create(brave));
+    filter.setAsyncSupported(true);
+    context.addFilter(filter, "/traced/*", EnumSet.of(DispatcherType.REQUEST));
+    for (String prefix : new String[] {"/traced", "/untraced"}) {
+      context.addServlet(new ServletHolder(new SyncServlet()), prefix + "/sync");
+      ServletHolder async = new ServletHolder(new AsyncServlet(asyncExecutor));
+      async.setAsyncSupported(true);
+      context.addServlet(async, prefix + "/async");
+    }
+    server.setHandler(context);
+    server.start();
+    baseUrl = "http://127.0.0.1:" + connector.getLocalPort();
+  }
+
+  @TearDown
+  public void stop() throws Exception {
+    server.stop();
+    asyncExecutor.shutdownNow();
+  }
+
+  @Benchmark
+  public int sync_untraced() throws IOException {
+    return get("/untraced/sync");
+  }
+
+  @Benchmark
+  public int sync_traced() throws IOException {
+    return get("/traced/sync");
+  }
+
+  @Benchmark
+  public int async_untraced() throws IOException {
+    return get("/untraced/async");
+  }
+
+  @Benchmark
+  public int async_traced() throws IOException {
+    return get("/traced/async");
+  }
+
+  int get(String path) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+    InputStream in = connection.getInputStream();
+    try {
+      while (in.read() != -1) {
+        // drain the body, so the connection can be kept alive
+      }
+    } finally {
+      in.close();
+    }
+    return connection.getResponseCode();
+  }
+
+  static final class SyncServlet extends HttpServlet {
+    @Override protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+        throws IOException {
+      resp.getWriter().write("ok");
+    }
+  }
+
+  static final class AsyncServlet extends HttpServlet {
+    final ExecutorService executor;
+
+    AsyncServlet(ExecutorService executor) {
+      this.executor = executor;
+    }
+
+    @Override protected void doGet(HttpServletRequest req, HttpServletResponse resp) {
+      final AsyncContext asyncContext = req.startAsync();
+      executor.execute(new Runnable() {
+        @Override public void run() {
+          try {
+            asyncContext.getResponse().getWriter().write("ok");
+          } catch (IOException e) {
+            throw new AssertionError(e);
+          } finally {
+            asyncContext.complete();
+          }
+        }
+      });
+    }
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + ServletFilterBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
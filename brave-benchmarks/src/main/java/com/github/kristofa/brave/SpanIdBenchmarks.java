@@ -2,6 +2,7 @@ package com.github.kristofa.brave;
 
 import com.twitter.finagle.tracing.TraceId;
 import com.twitter.finagle.tracing.TraceId$;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -9,6 +10,8 @@ import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.runner.Runner;
@@ -22,6 +25,7 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 @BenchmarkMode(Mode.Throughput)
 @OutputTimeUnit(TimeUnit.MICROSECONDS)
 @Threads(1)
+@State(Scope.Thread)
 public class SpanIdBenchmarks {
   static final SpanId sampledRootSpan =
       new SpanId(1L, 1L, 1L, SpanId.FLAG_SAMPLED | SpanId.FLAG_SAMPLING_SET);
@@ -29,6 +33,32 @@ public class SpanIdBenchmarks {
   static final TraceId sampledRootSpanFinagle =
       TraceId$.MODULE$.deserialize(sampledRootSpanBytes).get();
 
+  /**
+   * Trace and span IDs are generated on request threads. These are run with 64 threads to show
+   * contention on a shared generator. Run with {@code -t1} to compare the uncontended cost.
+   */
+  @Benchmark @Threads(64)
+  public long nextId_threadLocal() {
+    return THREAD_LOCAL.nextId();
+  }
+
+  static final IdGenerator THREAD_LOCAL = IdGenerator.create();
+
+  /** This is how IDs were generated prior to {@link IdGenerator} */
+  @Benchmark @Threads(64)
+  public long nextId_sharedRandom() {
+    return SHARED_RANDOM.nextId();
+  }
+
+  static final IdGenerator SHARED_RANDOM = IdGenerator.create(new Random());
+
+  @Benchmark @Threads(64)
+  public long nextId_sharedRandom_prefetching() {
+    return SHARED_RANDOM_PREFETCHING.nextId();
+  }
+
+  static final IdGenerator SHARED_RANDOM_PREFETCHING = IdGenerator.prefetching(SHARED_RANDOM, 64);
+
   @Benchmark
   public SpanId fromBytes_brave() {
     return SpanId.fromBytes(sampledRootSpanBytes);
@@ -59,6 +89,61 @@ public class SpanIdBenchmarks {
     return sampledRootSpanFinagle.toString();
   }
 
+  static final SpanId localRoot = SpanId.builder()
+      .traceId(0x463ac35c9f6413adL).parentId(null).spanId(0x463ac35c9f6413adL).build();
+  static final SpanId parent = localRoot.toSpan().context;
+
+  static {
+    parent.traceIdString();
+    parent.spanIdString();
+  }
+
+  /**
+   * Compares the hex ids propagated by a client span, when the child shares cached strings with its
+   * parent, to when each id is formatted anew. Run with {@code -prof gc} to see the allocation.
+   */
+  @Benchmark
+  public SpanId childHexIds_shared() {
+    SpanId child = parent.newChild(0x72485a3953bb6124L);
+    child.traceIdString();
+    child.spanIdString();
+    child.parentIdString();
+    return child;
+  }
+
+  @Benchmark
+  public SpanId childHexIds_unshared() {
+    SpanId child = SpanId.builder()
+        .traceId(parent.traceId).parentId(parent.spanId).spanId(0x72485a3953bb6124L).build();
+    child.traceIdString();
+    child.spanIdString();
+    child.parentIdString();
+    return child;
+  }
+
+  @Benchmark
+  public String traceIdString_cached() {
+    return parent.traceIdString();
+  }
+
+  @Benchmark
+  public String toLowerHex() {
+    return IdConversion.toLowerHex(parent.traceId);
+  }
+
+  @Benchmark
+  public String convertToString() {
+    return IdConversion.convertToString(parent.traceId);
+  }
+
+  final char[] buffer = new char[16];
+
+  @Benchmark
+  public char[] writeLowerHex() {
+    IdConversion.writeLowerHex(parent.traceId, buffer, 0);
+    return buffer;
+  }
+
   // Convenience main entry-point
   public static void main(String[] args) throws RunnerException {
     Options opt = new OptionsBuilder()
@@ -0,0 +1,105 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures request threads contending to queue finished spans, while one thread drains them, as
+ * happens in {@link AsyncSpanReporter} and {@link FlushingSpanCollector}.
+ *
+ * <p>Each group has three producers and one consumer. Compare the {@code offer} results of
+ * {@link SpanQueue} with the {@link LinkedBlockingQueue} it replaced. As producers outpace the
+ * consumer, many offers are dropped: the {@code accepted} and {@code dropped} counters split them.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+public class SpanQueueBenchmarks {
+  static final Endpoint ENDPOINT =
+      Endpoint.builder().serviceName("frontend").ipv4(127 << 24 | 1).port(8080).build();
+  static final Span SPAN = new Span().setTrace_id(1L).setId(2L).setName("get")
+      .setTimestamp(1000L).setDuration(200L)
+      .addToAnnotations(Annotation.create(1000L, "sr", ENDPOINT))
+      .addToAnnotations(Annotation.create(1200L, "ss", ENDPOINT))
+      .addToBinary_annotations(BinaryAnnotation.create("http.path", "/api", ENDPOINT));
+
+  final SpanQueue spanQueue = new SpanQueue(1000, SpanQueue.onePercentOfMemory());
+  final BlockingQueue<Span> blockingQueue = new LinkedBlockingQueue<Span>(1000);
+  final List<Span> drained = new ArrayList<Span>(1000);
+
+  @AuxCounters
+  @State(Scope.Thread)
+  public static class OfferCounters {
+    public int accepted;
+    public int dropped;
+
+    void count(boolean offered) {
+      if (offered) {
+        accepted++;
+      } else {
+        dropped++;
+      }
+    }
+  }
+
+  @Benchmark @Group("spanQueue") @GroupThreads(3)
+  public void offer_spanQueue(OfferCounters counters) {
+    counters.count(spanQueue.offer(SPAN));
+  }
+
+  @Benchmark @Group("spanQueue") @GroupThreads(1)
+  public int drain_spanQueue() {
+    int result = spanQueue.drainTo(drained, Integer.MAX_VALUE);
+    drained.clear();
+    return result;
+  }
+
+  /** This is how spans were queued prior to {@link SpanQueue} */
+  @Benchmark @Group("linkedBlockingQueue") @GroupThreads(3)
+  public void offer_linkedBlockingQueue(OfferCounters counters) {
+    counters.count(blockingQueue.offer(SPAN));
+  }
+
+  @Benchmark @Group("linkedBlockingQueue") @GroupThreads(1)
+  public int drain_linkedBlockingQueue() {
+    int result = blockingQueue.drainTo(drained);
+    drained.clear();
+    return result;
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + SpanQueueBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
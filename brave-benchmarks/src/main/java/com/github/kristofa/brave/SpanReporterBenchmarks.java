@@ -0,0 +1,113 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Measures the cost on the request thread of recording and finishing a typical server span.
+ *
+ * <p>When a {@code Reporter<zipkin.Span>} is configured, the finished span is converted to a zipkin
+ * span before it is reported. When a {@code Reporter<Span>} is configured, the span is handed off
+ * as-is, for example to {@link AsyncSpanReporter}, which converts it on a separate thread.
+ *
+ * <p>Run with {@code -prof gc} to see the allocation saved per finished span.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+public class SpanReporterBenchmarks {
+  static final Endpoint ENDPOINT =
+      Endpoint.builder().serviceName("frontend").ipv4(127 << 24 | 1).port(8080).build();
+  static final Endpoint CLIENT =
+      Endpoint.builder().serviceName("unknown").ipv4(192 << 24 | 168 << 16 | 1).build();
+  static final SpanId SPAN_ID = SpanId.builder().traceId(1L).spanId(2L).parentId(1L).build();
+
+  @State(Scope.Benchmark)
+  public static class Tracers {
+    final ServerClientAndLocalSpanState state = new ThreadLocalServerClientAndLocalSpanState(ENDPOINT);
+
+    /** Converts to a zipkin span on the calling thread, then discards it */
+    final ServerTracer convertOnCaller = builder(state)
+        .reporter(new Reporter<zipkin.Span>() {
+          @Override public void report(zipkin.Span span) {
+          }
+        }).build();
+
+    /** Hands off the span as-is, then discards it */
+    final ServerTracer handOff = builder(state)
+        .spanReporter(new Reporter<Span>() {
+          @Override public void report(Span span) {
+          }
+        }).build();
+  }
+
+  static ServerTracer.Builder builder(ServerClientAndLocalSpanState state) {
+    return ServerTracer.builder()
+        .state(state)
+        .idGenerator(IdGenerator.create())
+        .traceSampler(Sampler.ALWAYS_SAMPLE)
+        .clock(AnnotationSubmitter.DefaultClock.INSTANCE)
+        .traceId128Bit(false);
+  }
+
+  @Benchmark
+  public void finishServerSpan_convertOnCaller(Tracers tracers) {
+    recordServerSpan(tracers.convertOnCaller);
+  }
+
+  @Benchmark
+  public void finishServerSpan_handOff(Tracers tracers) {
+    recordServerSpan(tracers.handOff);
+  }
+
+  /** This is the work deferred to the reporting thread by {@link AsyncSpanReporter} */
+  @Benchmark
+  public zipkin.Span toZipkin(Tracers tracers) {
+    tracers.handOff.setStateCurrentTrace(SPAN_ID, "get /api");
+    Span span = tracers.state.getCurrentServerSpan().getSpan();
+    populate(tracers.handOff);
+    return span.toZipkin();
+  }
+
+  static void recordServerSpan(ServerTracer tracer) {
+    tracer.setStateCurrentTrace(SPAN_ID, "get /api");
+    populate(tracer);
+    tracer.setServerSend();
+  }
+
+  static void populate(ServerTracer tracer) {
+    tracer.setServerReceived(CLIENT);
+    tracer.submitBinaryAnnotation("http.path", "/api");
+    tracer.submitBinaryAnnotation("http.status_code", "200");
+    tracer.submitAnnotation("wr");
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + SpanReporterBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,89 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Measures a server request that makes two client calls, for each implementation of {@link
+ * ServerClientAndLocalSpanState}. Each step of the lifecycle reads or writes the span state of the
+ * current thread.
+ *
+ * <p>Spans are reported to a no-op reporter, so the difference between implementations is the
+ * cost of their thread-local lookups and updates.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+@State(Scope.Thread)
+public class SpanStateBenchmarks {
+  static final Endpoint ENDPOINT = Endpoint.create("benchmark", 127 << 24 | 1);
+
+  @Param({"threadLocal", "threadContext", "inheritable"})
+  String state;
+
+  Brave brave;
+
+  @Setup
+  public void setup() {
+    ServerClientAndLocalSpanState state;
+    if ("threadLocal".equals(this.state)) {
+      state = new ThreadLocalServerClientAndLocalSpanState(ENDPOINT);
+    } else if ("threadContext".equals(this.state)) {
+      state = new ThreadContextServerClientAndLocalSpanState(ENDPOINT);
+    } else {
+      state = new InheritableServerClientAndLocalSpanState(ENDPOINT);
+    }
+    brave = new Brave.Builder(state)
+        .reporter(new Reporter<zipkin.Span>() {
+          @Override public void report(zipkin.Span span) {
+          }
+        }).build();
+  }
+
+  @Benchmark
+  public void serverRequestWithTwoClientCalls() {
+    ServerTracer serverTracer = brave.serverTracer();
+    ClientTracer clientTracer = brave.clientTracer();
+
+    serverTracer.setStateUnknown("get");
+    serverTracer.setServerReceived();
+
+    for (int i = 0; i < 2; i++) {
+      clientTracer.startNewSpan("get");
+      clientTracer.setClientSent();
+      clientTracer.setClientReceived();
+    }
+
+    serverTracer.setServerSend();
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + SpanStateBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,163 @@
+package com.github.kristofa.brave;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+import static zipkin.internal.Util.checkArgument;
+
+/**
+ * This sampler lowers the sample rate when spans are dropped downstream, and raises it again when
+ * they are not. This sheds work before spans are recorded, instead of paying to record and convert
+ * spans only for the reporter to drop them when its queue is full.
+ *
+ * <p>Drops are observed by wrapping the metrics handler of the collector or reporter:
+ *
+ * <pre>{@code
+ * sampler = AdaptiveSampler.create(0.5f);
+ * reporter = AsyncSpanReporter.builder(delegate)
+ *                             .metrics(sampler.metricsHandler(metrics))
+ *                             .build();
+ *
+ * brave = new Brave.Builder().traceSampler(sampler).spanReporter(reporter).build();
+ * }</pre>
+ *
+ * <h3>Implementation</h3>
+ *
+ * <p>The rate starts at the ceiling, and is adjusted at most once per interval, by the first
+ * request after the interval elapses. If any spans were dropped during the interval, the rate
+ * halves, but not below the floor. Otherwise, it increases by a tenth of the ceiling, but not
+ * above it. This means that after sustained drops, the ceiling is regained after 10 intervals
+ * without drops.
+ *
+ * <p>Like {@link BoundarySampler}, this uses modulo 10000 arithmetic on the trace id, salted to
+ * avoid nodes in the same cluster sampling the same subset of ids. The effective rate is visible
+ * via {@link #rate()}.
+ */
+public final class AdaptiveSampler extends Sampler {
+  static final long SALT = new Random().nextLong();
+
+  /** Returns a sampler which adjusts the rate between 0.0001 and the ceiling, once per second. */
+  public static AdaptiveSampler create(float ceiling) {
+    return builder().ceiling(ceiling).build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static final class Builder {
+    float ceiling = 1.0f;
+    float floor = 0.0001f;
+    long adjustIntervalNanos = TimeUnit.SECONDS.toNanos(1);
+    Ticker ticker = Ticker.SYSTEM;
+
+    /** The maximum sample rate, which is also the initial one. Defaults to 1.0 */
+    public Builder ceiling(float ceiling) {
+      checkArgument(ceiling > 0 && ceiling <= 1, "ceiling should be between 0 and 1: was %s",
+          ceiling);
+      this.ceiling = ceiling;
+      return this;
+    }
+
+    /** The minimum sample rate, when spans are continually dropped. Defaults to 0.0001 */
+    public Builder floor(float floor) {
+      checkArgument(floor >= 0 && floor <= 1, "floor should be between 0 and 1: was %s", floor);
+      this.floor = floor;
+      return this;
+    }
+
+    /** How often the rate can change. Defaults to 1 second. */
+    public Builder adjustInterval(long adjustInterval, TimeUnit unit) {
+      checkArgument(adjustInterval > 0, "adjustInterval should be positive: was %s",
+          adjustInterval);
+      this.adjustIntervalNanos = unit.toNanos(adjustInterval);
+      return this;
+    }
+
+    Builder ticker(Ticker ticker) {
+      this.ticker = checkNotNull(ticker, "ticker");
+      return this;
+    }
+
+    public AdaptiveSampler build() {
+      checkArgument(floor <= ceiling, "floor %s should not be greater than ceiling %s", floor,
+          ceiling);
+      return new AdaptiveSampler(this);
+    }
+  }
+
+  // rates are held in units of 0.0001, the same as the modulo arithmetic
+  private final int ceiling;
+  private final int floor;
+  private final int increment;
+  private final long adjustIntervalNanos;
+  private final Ticker ticker;
+  private final AtomicLong nextAdjust;
+  private final AtomicInteger droppedSinceAdjust = new AtomicInteger();
+  private volatile int boundary; // only written by the thread that wins nextAdjust
+
+  AdaptiveSampler(Builder builder) {
+    this.ceiling = Math.round(builder.ceiling * 10000);
+    this.floor = Math.round(builder.floor * 10000);
+    this.increment = Math.max(1, ceiling / 10);
+    this.adjustIntervalNanos = builder.adjustIntervalNanos;
+    this.ticker = builder.ticker;
+    this.nextAdjust = new AtomicLong(ticker.read() + adjustIntervalNanos);
+    this.boundary = ceiling;
+  }
+
+  /** Returns true when the salted trace id modulo 10000 is less than the current boundary. */
+  @Override
+  public boolean isSampled(long traceId) {
+    maybeAdjust();
+    long t = (traceId ^ SALT) & Long.MAX_VALUE; // positive, even for Long.MIN_VALUE
+    return t % 10000 < boundary;
+  }
+
+  /** Returns the current sample rate, which is between the floor and the ceiling. */
+  public float rate() {
+    return boundary / 10000f;
+  }
+
+  /**
+   * Returns a metrics handler which adjusts the rate according to drops, after passing events to
+   * the delegate. Use this in the span collector or reporter which traces sampled here are sent to.
+   */
+  public SpanCollectorMetricsHandler metricsHandler(final SpanCollectorMetricsHandler delegate) {
+    checkNotNull(delegate, "delegate");
+    return new SpanCollectorMetricsHandler() {
+      @Override public void incrementAcceptedSpans(int quantity) {
+        delegate.incrementAcceptedSpans(quantity);
+      }
+
+      @Override public void incrementDroppedSpans(int quantity) {
+        delegate.incrementDroppedSpans(quantity);
+        droppedSinceAdjust.addAndGet(quantity);
+      }
+
+      @Override public String toString() {
+        return "AdaptiveSampler.MetricsHandler(" + delegate + ")";
+      }
+    };
+  }
+
+  void maybeAdjust() {
+    long now = ticker.read();
+    long next = nextAdjust.get();
+    if (now - next < 0) return; // compare using subtraction, as nanoTime can overflow
+    if (!nextAdjust.compareAndSet(next, now + adjustIntervalNanos)) return; // another adjusted
+    if (droppedSinceAdjust.getAndSet(0) > 0) {
+      boundary = Math.max(floor, boundary / 2);
+    } else {
+      boundary = Math.min(ceiling, boundary + increment);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "AdaptiveSampler(" + rate() + ")";
+  }
+}
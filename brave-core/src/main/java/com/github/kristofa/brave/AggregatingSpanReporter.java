@@ -0,0 +1,373 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import zipkin.Constants;
+import zipkin.reporter.Reporter;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+import static zipkin.internal.Util.checkArgument;
+
+/**
+ * Folds repeated child spans into summary spans, so that loops such as N+1 queries don't report
+ * hundreds of near-identical spans.
+ *
+ * <p>Client and local spans are repeated when they have the same name, parent and remote service
+ * (the "sa" address, or the "lc" component of local spans). The first {@link Builder#keepFirst(int)
+ * few} of each are reported as-is. Later ones are folded into a summary, which is reported just
+ * before their parent span:
+ *
+ * <pre>{@code
+ * brave = new Brave.Builder()
+ *     .spanReporter(AggregatingSpanReporter.builder(AsyncSpanReporter.create(reporter)).build())
+ *     .build();
+ * }</pre>
+ *
+ * <p>A summary span has the name, parent and remote service of the spans it folds, and covers the
+ * time from the first one's start to the last one's end. Its tags, with durations in microseconds,
+ * are:
+ * <ul>
+ *   <li>{@code aggregate.count} - how many spans were folded</li>
+ *   <li>{@code aggregate.total}, {@code aggregate.min} and {@code aggregate.max} - of their
+ *   durations</li>
+ *   <li>{@code aggregate.histogram} - counts of durations under 100us, 1ms, 10ms, 100ms and 1s,
+ *   then over, like "100us:12,1ms:80,10ms:3,100ms:0,1s:0,+Inf:0"</li>
+ * </ul>
+ *
+ * <p>Spans tagged "error" and spans without a duration are never folded. Server spans are never
+ * folded either, as their parent is in another process. Children of a folded span are still
+ * reported, though their parent isn't.
+ *
+ * <h3>Memory</h3>
+ *
+ * <p>A summary is held until its parent is reported. At most {@link Builder#maxGroups(int)
+ * maxGroups} summaries are held: when full, the summaries of the oldest parent are reported early.
+ */
+public final class AggregatingSpanReporter implements Reporter<Span> {
+  static final long[] HISTOGRAM_BOUNDS = {100L, 1000L, 10000L, 100000L, 1000000L};
+  static final String[] HISTOGRAM_LABELS = {"100us", "1ms", "10ms", "100ms", "1s", "+Inf"};
+
+  public static Builder builder(Reporter<Span> delegate) {
+    return new Builder(delegate);
+  }
+
+  public static final class Builder {
+    final Reporter<Span> delegate;
+    int keepFirst = 3;
+    int maxGroups = 10000;
+
+    Builder(Reporter<Span> delegate) {
+      this.delegate = checkNotNull(delegate, "delegate");
+    }
+
+    /** Count of repeated spans to report as-is, before folding the rest. Defaults to 3. */
+    public Builder keepFirst(int keepFirst) {
+      checkArgument(keepFirst >= 0, "keepFirst should not be negative: was %s", keepFirst);
+      this.keepFirst = keepFirst;
+      return this;
+    }
+
+    /** Maximum count of repeated span groups waiting for their parent. Defaults to 10000. */
+    public Builder maxGroups(int maxGroups) {
+      checkArgument(maxGroups > 0, "maxGroups should be positive: was %s", maxGroups);
+      this.maxGroups = maxGroups;
+      return this;
+    }
+
+    public AggregatingSpanReporter build() {
+      return new AggregatingSpanReporter(this);
+    }
+  }
+
+  final Reporter<Span> delegate;
+  final int keepFirst;
+  final Stripe[] stripes;
+  final AtomicLong foldedSpans = new AtomicLong();
+  final AtomicLong summarySpans = new AtomicLong();
+
+  AggregatingSpanReporter(Builder builder) {
+    this.delegate = builder.delegate;
+    this.keepFirst = builder.keepFirst;
+    int stripeCount = CountingSampler.defaultStripes();
+    while (stripeCount > 1 && builder.maxGroups / stripeCount == 0) stripeCount >>= 1;
+    this.stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new Stripe(builder.maxGroups / stripeCount);
+    }
+  }
+
+  /**
+   * Folds the span if it repeats enough, or reports it. Summaries of the span's children are
+   * reported before it.
+   */
+  @Override
+  public void report(Span span) {
+    checkNotNull(span, "Null span");
+    long traceId = span.getTrace_id();
+    Stripe stripe = stripes[(int) (traceId ^ (traceId >>> 32)) & (stripes.length - 1)];
+    List<Span> summaries = stripe.removeChildren(traceId, span.getId());
+    for (int i = 0, length = summaries.size(); i < length; i++) {
+      delegate.report(summaries.get(i));
+    }
+    if (foldable(span) && stripe.fold(traceId, span)) return;
+    delegate.report(span);
+  }
+
+  /** Count of spans folded into summaries instead of being reported. */
+  public long foldedSpans() {
+    return foldedSpans.get();
+  }
+
+  /** Count of summary spans reported. */
+  public long summarySpans() {
+    return summarySpans.get();
+  }
+
+  @Override
+  public String toString() {
+    return "AggregatingSpanReporter(" + delegate + ")";
+  }
+
+  static boolean foldable(Span span) {
+    if (span.getParent_id() == null || span.getTimestamp() == null || span.getDuration() == null) {
+      return false;
+    }
+    List<Annotation> annotations = span.getAnnotations();
+    for (int i = 0, length = annotations.size(); i < length; i++) {
+      if (Constants.SERVER_RECV.equals(annotations.get(i).value)) return false;
+    }
+    List<BinaryAnnotation> binaryAnnotations = span.getBinary_annotations();
+    for (int i = 0, length = binaryAnnotations.size(); i < length; i++) {
+      if (Constants.ERROR.equals(binaryAnnotations.get(i).key)) return false;
+    }
+    return true;
+  }
+
+  /** The remote service of a client span, or the component of a local span, or null. */
+  static BinaryAnnotation remote(Span span) {
+    List<BinaryAnnotation> binaryAnnotations = span.getBinary_annotations();
+    for (int i = 0, length = binaryAnnotations.size(); i < length; i++) {
+      BinaryAnnotation b = binaryAnnotations.get(i);
+      if (Constants.SERVER_ADDR.equals(b.key) || Constants.LOCAL_COMPONENT.equals(b.key)) return b;
+    }
+    return null;
+  }
+
+  /** Identifies the spans of one parent that repeat each other. */
+  static final class GroupKey {
+    final String name;
+    final BinaryAnnotation remote; // nullable
+
+    GroupKey(String name, BinaryAnnotation remote) {
+      this.name = name;
+      this.remote = remote;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) return true;
+      if (!(o instanceof GroupKey)) return false;
+      GroupKey that = (GroupKey) o;
+      return (name == null ? that.name == null : name.equals(that.name))
+          && (remote == null ? that.remote == null : remote.equals(that.remote));
+    }
+
+    @Override
+    public int hashCode() {
+      int h = 1000003;
+      h ^= name == null ? 0 : name.hashCode();
+      h *= 1000003;
+      h ^= remote == null ? 0 : remote.hashCode();
+      return h;
+    }
+  }
+
+  /** Statistics of the spans folded so far, and how many of the group were reported as-is. */
+  static final class Group {
+    final BinaryAnnotation remote;
+    int kept;
+    int count;
+    Span first;
+    long start = Long.MAX_VALUE, end = Long.MIN_VALUE, total;
+    long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+    final int[] histogram = new int[HISTOGRAM_LABELS.length];
+
+    Group(BinaryAnnotation remote) {
+      this.remote = remote;
+    }
+
+    void add(Span span) {
+      if (first == null) first = span;
+      long timestamp = span.getTimestamp(), duration = span.getDuration();
+      count++;
+      total += duration;
+      if (duration < min) min = duration;
+      if (duration > max) max = duration;
+      if (timestamp < start) start = timestamp;
+      if (timestamp + duration > end) end = timestamp + duration;
+      int bucket = 0;
+      while (bucket < HISTOGRAM_BOUNDS.length && duration >= HISTOGRAM_BOUNDS[bucket]) bucket++;
+      histogram[bucket]++;
+    }
+
+    /** Returns a span with the identity of the first folded span, and the group's statistics. */
+    Span toSummary() {
+      Span summary = new Span()
+          .setTrace_id_high(first.getTrace_id_high())
+          .setTrace_id(first.getTrace_id())
+          .setId(first.getId())
+          .setParent_id(first.getParent_id())
+          .setName(first.getName())
+          .setDebug(first.isDebug())
+          .setTimestamp(start)
+          .setDuration(Math.max(1L, end - start));
+      Endpoint endpoint = localEndpoint(first);
+      if (remote != null) summary.addToBinary_annotations(remote);
+      if (endpoint != null) {
+        summary.addToBinary_annotations(tag("aggregate.count", count, endpoint));
+        summary.addToBinary_annotations(tag("aggregate.total", total, endpoint));
+        summary.addToBinary_annotations(tag("aggregate.min", min, endpoint));
+        summary.addToBinary_annotations(tag("aggregate.max", max, endpoint));
+        StringBuilder histogram = new StringBuilder();
+        for (int i = 0; i < HISTOGRAM_LABELS.length; i++) {
+          if (i > 0) histogram.append(',');
+          histogram.append(HISTOGRAM_LABELS[i]).append(':').append(this.histogram[i]);
+        }
+        summary.addToBinary_annotations(
+            BinaryAnnotation.create("aggregate.histogram", histogram.toString(), endpoint));
+      }
+      return summary;
+    }
+  }
+
+  static BinaryAnnotation tag(String key, long value, Endpoint endpoint) {
+    return BinaryAnnotation.create(key, String.valueOf(value), endpoint);
+  }
+
+  /** The endpoint that recorded the span, used to tag its summary. */
+  static Endpoint localEndpoint(Span span) {
+    List<Annotation> annotations = span.getAnnotations();
+    if (!annotations.isEmpty()) return annotations.get(0).host;
+    List<BinaryAnnotation> binaryAnnotations = span.getBinary_annotations();
+    for (int i = 0, length = binaryAnnotations.size(); i < length; i++) {
+      BinaryAnnotation b = binaryAnnotations.get(i);
+      if (!Constants.SERVER_ADDR.equals(b.key)) return b.host;
+    }
+    return null;
+  }
+
+  /** Groups of a parent span, which share its trace ID. */
+  static final class ParentKey {
+    final long traceId, parentId;
+
+    ParentKey(long traceId, long parentId) {
+      this.traceId = traceId;
+      this.parentId = parentId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) return true;
+      if (!(o instanceof ParentKey)) return false;
+      ParentKey that = (ParentKey) o;
+      return traceId == that.traceId && parentId == that.parentId;
+    }
+
+    @Override
+    public int hashCode() {
+      int h = 1000003;
+      h ^= (int) (traceId ^ (traceId >>> 32));
+      h *= 1000003;
+      h ^= (int) (parentId ^ (parentId >>> 32));
+      return h;
+    }
+  }
+
+  /** Parents in insertion order, so that the oldest is flushed first. */
+  final class Stripe {
+    final int maxGroups;
+    final LinkedHashMap<ParentKey, Map<GroupKey, Group>> parents =
+        new LinkedHashMap<ParentKey, Map<GroupKey, Group>>();
+    int groupCount; // guarded by this
+    final List<Span> evicted = new ArrayList<Span>(); // guarded by this
+
+    Stripe(int maxGroups) {
+      this.maxGroups = maxGroups;
+    }
+
+    /** Returns true if the span was folded, or false if it should be reported as-is. */
+    boolean fold(long traceId, Span span) {
+      List<Span> toReport;
+      boolean folded;
+      synchronized (this) {
+        ParentKey parentKey = new ParentKey(traceId, span.getParent_id());
+        BinaryAnnotation remote = remote(span);
+        GroupKey groupKey = new GroupKey(span.getName(), remote);
+        Map<GroupKey, Group> groups = parents.get(parentKey);
+        Group group = groups != null ? groups.get(groupKey) : null;
+        if (group == null) {
+          while (groupCount >= maxGroups) evictOldest();
+          groups = parents.get(parentKey); // in case it was the oldest
+          if (groups == null) parents.put(parentKey, groups = new LinkedHashMap<GroupKey, Group>());
+          groups.put(groupKey, group = new Group(remote));
+          groupCount++;
+        }
+        if (group.kept < keepFirst) {
+          group.kept++;
+          folded = false;
+        } else {
+          group.add(span);
+          folded = true;
+        }
+        toReport = drainEvicted();
+      }
+      if (folded) foldedSpans.incrementAndGet();
+      for (int i = 0, length = toReport.size(); i < length; i++) {
+        delegate.report(toReport.get(i));
+      }
+      return folded;
+    }
+
+    /** Removes the groups of the given parent, returning the summaries to report. */
+    synchronized List<Span> removeChildren(long traceId, long parentId) {
+      if (parents.isEmpty()) return Collections.emptyList();
+      Map<GroupKey, Group> groups = parents.remove(new ParentKey(traceId, parentId));
+      if (groups == null) return Collections.emptyList();
+      groupCount -= groups.size();
+      addSummaries(groups, evicted);
+      return drainEvicted();
+    }
+
+    void evictOldest() {
+      Iterator<Map<GroupKey, Group>> oldest = parents.values().iterator();
+      Map<GroupKey, Group> groups = oldest.next();
+      oldest.remove();
+      groupCount -= groups.size();
+      addSummaries(groups, evicted);
+    }
+
+    List<Span> drainEvicted() {
+      if (evicted.isEmpty()) return Collections.emptyList();
+      List<Span> result = new ArrayList<Span>(evicted);
+      evicted.clear();
+      return result;
+    }
+
+    void addSummaries(Map<GroupKey, Group> groups, List<Span> summaries) {
+      for (Group group : groups.values()) {
+        if (group.count == 0) continue;
+        summaries.add(group.toSummary());
+        summarySpans.incrementAndGet();
+      }
+    }
+  }
+}
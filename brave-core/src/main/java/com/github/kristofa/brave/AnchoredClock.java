@@ -0,0 +1,110 @@
+package com.github.kristofa.brave;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+import static zipkin.internal.Util.checkArgument;
+
+/**
+ * A clock with microsecond precision, which reads the wall clock about once a second instead of on
+ * every span.
+ *
+ * <p>{@link AnnotationSubmitter.DefaultClock} multiplies {@link System#currentTimeMillis()} by
+ * 1000, so root span timestamps are only precise to the millisecond. This clock instead anchors to
+ * the wall clock, and derives each timestamp from the {@link System#nanoTime()} elapsed since.
+ *
+ * <h3>Implementation</h3>
+ *
+ * <p>When created, the anchor is taken right as the wall clock ticks to the next millisecond, so
+ * that derived timestamps start aligned with it.
+ *
+ * <p>{@code nanoTime} and the wall clock drift apart, for example as NTP adjusts the latter. Once
+ * per resync interval, the derived timestamp is compared with the wall clock. As the wall clock is
+ * only precise to the millisecond, an aligned derived timestamp is within the millisecond after
+ * it. When it isn't, it is moved to the nearest edge of that millisecond, and the anchor is reset
+ * there. This corrects drift in small steps, and still follows the wall clock when it jumps.
+ *
+ * <p>The anchor is replaced with a volatile write, so reading the time never blocks. Durations of
+ * spans are unaffected, as they are always derived from {@code nanoTime}.
+ *
+ * @see Brave.Builder#clock(AnnotationSubmitter.Clock)
+ * @since 3.16
+ */
+public final class AnchoredClock implements AnnotationSubmitter.Clock {
+  static final long WALL_CLOCK_RESOLUTION_MICROS = 1000L;
+  /** Bounds how long {@link #create()} waits for the wall clock to tick. */
+  static final long MAX_ALIGN_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+  /** Returns a clock that compares itself with the wall clock once a second. */
+  public static AnchoredClock create() {
+    return create(1, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Returns a clock that compares itself with the wall clock once per interval. A shorter interval
+   * follows the wall clock more closely, at the cost of reading it more often.
+   */
+  public static AnchoredClock create(long resyncInterval, TimeUnit unit) {
+    checkArgument(resyncInterval > 0, "resyncInterval should be positive: was %s", resyncInterval);
+    AnchoredClock result = new AnchoredClock(AnnotationSubmitter.DefaultClock.INSTANCE,
+        Ticker.SYSTEM, checkNotNull(unit, "unit").toNanos(resyncInterval));
+    result.alignToWallClock(MAX_ALIGN_NANOS);
+    return result;
+  }
+
+  static final class Anchor {
+    final long epochMicros;
+    final long tick;
+
+    Anchor(long epochMicros, long tick) {
+      this.epochMicros = epochMicros;
+      this.tick = tick;
+    }
+  }
+
+  final AnnotationSubmitter.Clock wallClock;
+  final Ticker ticker;
+  final long resyncNanos;
+  volatile Anchor anchor;
+
+  AnchoredClock(AnnotationSubmitter.Clock wallClock, Ticker ticker, long resyncNanos) {
+    this.wallClock = checkNotNull(wallClock, "wallClock");
+    this.ticker = checkNotNull(ticker, "ticker");
+    this.resyncNanos = resyncNanos;
+    this.anchor = new Anchor(wallClock.currentTimeMicroseconds(), ticker.read());
+  }
+
+  /** Anchors when the wall clock next ticks, or after the timeout, whichever is first. */
+  void alignToWallClock(long timeoutNanos) {
+    long start = ticker.read(), tick = start;
+    long wall = wallClock.currentTimeMicroseconds(), next = wall;
+    while (next == wall && tick - start < timeoutNanos) {
+      next = wallClock.currentTimeMicroseconds();
+      tick = ticker.read();
+    }
+    anchor = new Anchor(next, tick);
+  }
+
+  @Override
+  public long currentTimeMicroseconds() {
+    Anchor anchor = this.anchor; // read before the tick, so that elapsed is rarely negative
+    long tick = ticker.read();
+    long elapsed = tick - anchor.tick; // compare using subtraction, as nanoTime can overflow
+    long result = anchor.epochMicros + elapsed / 1000;
+    if (elapsed < resyncNanos) return result;
+
+    long wall = wallClock.currentTimeMicroseconds();
+    if (result < wall) {
+      result = wall;
+    } else if (result >= wall + WALL_CLOCK_RESOLUTION_MICROS) {
+      result = wall + WALL_CLOCK_RESOLUTION_MICROS - 1;
+    }
+    this.anchor = new Anchor(result, tick);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "AnchoredClock(" + resyncNanos + "ns)";
+  }
+}
@@ -1,8 +1,6 @@
 package com.github.kristofa.brave;
 
 import com.github.kristofa.brave.internal.Nullable;
-import com.twitter.zipkin.gen.Annotation;
-import com.twitter.zipkin.gen.BinaryAnnotation;
 import com.twitter.zipkin.gen.Endpoint;
 import com.twitter.zipkin.gen.Span;
 import zipkin.reporter.Reporter;
@@ -34,11 +32,15 @@ public abstract class AnnotationSubmitter {
     }
 
     static AnnotationSubmitter create(SpanAndEndpoint spanAndEndpoint) {
-        return new AnnotationSubmitterImpl(spanAndEndpoint, DefaultClock.INSTANCE);
+        return new AnnotationSubmitterImpl(spanAndEndpoint, DefaultClock.INSTANCE, SpanLimits.UNLIMITED);
     }
 
     public static AnnotationSubmitter create(SpanAndEndpoint spanAndEndpoint, Clock clock) {
-        return new AnnotationSubmitterImpl(spanAndEndpoint, clock);
+        return new AnnotationSubmitterImpl(spanAndEndpoint, clock, SpanLimits.UNLIMITED);
+    }
+
+    static AnnotationSubmitter create(SpanAndEndpoint spanAndEndpoint, Clock clock, SpanLimits spanLimits) {
+        return new AnnotationSubmitterImpl(spanAndEndpoint, clock, spanLimits);
     }
 
     abstract SpanAndEndpoint spanAndEndpoint();
@@ -49,6 +51,9 @@ public abstract class AnnotationSubmitter {
      **/
     abstract Clock clock();
 
+    /** Caps the annotations and tags submitted to a span. */
+    abstract SpanLimits spanLimits();
+
     /**
      * Associates an event that explains latency with the current system time.
      *
@@ -57,18 +62,8 @@ public abstract class AnnotationSubmitter {
     public void submitAnnotation(String value) {
         Span span = spanAndEndpoint().span();
         if (span != null) {
-            Long startTimestamp;
-            Long startTick;
-            synchronized (span) {
-                startTimestamp = span.getTimestamp();
-                startTick = span.startTick;
-            }
-            Annotation annotation = Annotation.create(
-                currentTimeMicroseconds(startTimestamp, startTick),
-                value,
-                spanAndEndpoint().endpoint()
-            );
-            addAnnotation(span, annotation);
+            ExplicitTracer.annotate(span, ExplicitTracer.currentTimeMicroseconds(span, clock()), value,
+                spanAndEndpoint().endpoint(), spanLimits());
         }
     }
 
@@ -84,12 +79,7 @@ public abstract class AnnotationSubmitter {
     public void submitAnnotation(String value, long timestamp) {
         Span span = spanAndEndpoint().span();
         if (span != null) {
-            Annotation annotation = Annotation.create(
-                timestamp,
-                value,
-                spanAndEndpoint().endpoint()
-            );
-            addAnnotation(span, annotation);
+            ExplicitTracer.annotate(span, timestamp, value, spanAndEndpoint().endpoint(), spanLimits());
         }
     }
 
@@ -97,51 +87,40 @@ public abstract class AnnotationSubmitter {
     void submitStartAnnotation(String annotationName) {
         Span span = spanAndEndpoint().span();
         if (span != null) {
-            Annotation annotation = Annotation.create(
-                clock().currentTimeMicroseconds(),
-                annotationName,
-                spanAndEndpoint().endpoint()
-            );
-            synchronized (span) {
-                span.setTimestamp(annotation.timestamp);
-                span.addToAnnotations(annotation);
-                span.startTick = System.nanoTime(); // embezzle start tick into an internal field.
-            }
+            ExplicitTracer.start(span, annotationName, spanAndEndpoint().endpoint(), clock());
+        }
+    }
+
+    /** Like {@link #submitStartAnnotation(String)}, except at the given time in microseconds. */
+    void submitStartAnnotation(String annotationName, long timestamp) {
+        Span span = spanAndEndpoint().span();
+        if (span != null) {
+            ExplicitTracer.start(span, annotationName, timestamp, spanAndEndpoint().endpoint());
         }
     }
 
     /**
      * This adds an annotation that corresponds with {@link Span#getDuration()}, and sends the span
-     * for collection.
+     * for collection. The span is reported as-is: any conversion is the reporter's responsibility.
      *
      * @return true if a span was sent for collection.
      */
-    boolean submitEndAnnotation(String annotationName, Reporter<zipkin.Span> reporter) {
+    boolean submitEndAnnotation(String annotationName, Reporter<Span> reporter) {
         Span span = spanAndEndpoint().span();
         if (span == null) {
           return false;
         }
+        ExplicitTracer.finish(span, annotationName, spanAndEndpoint().endpoint(), clock(), reporter);
+        return true;
+    }
 
-        Long startTimestamp;
-        Long startTick;
-        synchronized (span) {
-            startTimestamp = span.getTimestamp();
-            startTick = span.startTick;
-        }
-        long endTimestamp = currentTimeMicroseconds(startTimestamp, startTick);
-
-        Annotation annotation = Annotation.create(
-            endTimestamp,
-            annotationName,
-            spanAndEndpoint().endpoint()
-        );
-        synchronized (span) {
-            span.addToAnnotations(annotation);
-            if (startTimestamp != null) {
-                span.setDuration(Math.max(1L, endTimestamp - startTimestamp));
-            }
+    /** Like {@link #submitEndAnnotation(String, Reporter)}, except at the given time in microseconds. */
+    boolean submitEndAnnotation(String annotationName, long timestamp, Reporter<Span> reporter) {
+        Span span = spanAndEndpoint().span();
+        if (span == null) {
+          return false;
         }
-        reporter.report(span.toZipkin());
+        ExplicitTracer.finish(span, annotationName, timestamp, spanAndEndpoint().endpoint(), reporter);
         return true;
     }
 
@@ -152,11 +131,7 @@ public abstract class AnnotationSubmitter {
     void submitAddress(String key, Endpoint endpoint) {
         Span span = spanAndEndpoint().span();
         if (span != null) {
-            if (endpoint.service_name == null) {
-                endpoint = endpoint.toBuilder().serviceName("unknown").build();
-            }
-            BinaryAnnotation ba = BinaryAnnotation.address(key, endpoint);
-            addBinaryAnnotation(span, ba);
+            ExplicitTracer.appendAddress(span, key, endpoint);
         }
     }
 
@@ -170,8 +145,7 @@ public abstract class AnnotationSubmitter {
     public void submitBinaryAnnotation(String key, String value) {
         Span span = spanAndEndpoint().span();
         if (span != null) {
-            BinaryAnnotation ba = BinaryAnnotation.create(key, value, spanAndEndpoint().endpoint());
-            addBinaryAnnotation(span, ba);
+            ExplicitTracer.tag(span, key, value, spanAndEndpoint().endpoint(), spanLimits());
         }
     }
 
@@ -187,21 +161,7 @@ public abstract class AnnotationSubmitter {
     }
 
     long currentTimeMicroseconds(@Nullable Long startTimestamp, @Nullable Long startTick) {
-        return startTimestamp != null && startTick != null
-            ? startTimestamp + (System.nanoTime() - startTick) / 1000
-            : clock().currentTimeMicroseconds();
-    }
-
-    private void addAnnotation(Span span, Annotation annotation) {
-        synchronized (span) {
-            span.addToAnnotations(annotation);
-        }
-    }
-
-    private void addBinaryAnnotation(Span span, BinaryAnnotation ba) {
-        synchronized (span) {
-            span.addToBinary_annotations(ba);
-        }
+        return ExplicitTracer.currentTimeMicroseconds(startTimestamp, startTick, clock());
     }
 
     AnnotationSubmitter() {
@@ -211,10 +171,12 @@ public abstract class AnnotationSubmitter {
 
         private final SpanAndEndpoint spanAndEndpoint;
         private final Clock clock;
+        private final SpanLimits spanLimits;
 
-        private AnnotationSubmitterImpl(SpanAndEndpoint spanAndEndpoint, Clock clock) {
+        private AnnotationSubmitterImpl(SpanAndEndpoint spanAndEndpoint, Clock clock, SpanLimits spanLimits) {
             this.spanAndEndpoint = checkNotNull(spanAndEndpoint, "Null spanAndEndpoint");
             this.clock = clock;
+            this.spanLimits = checkNotNull(spanLimits, "Null spanLimits");
         }
 
         @Override
@@ -227,6 +189,11 @@ public abstract class AnnotationSubmitter {
             return clock;
         }
 
+        @Override
+        SpanLimits spanLimits() {
+            return spanLimits;
+        }
+
     }
 
     static final class DefaultClock implements Clock {
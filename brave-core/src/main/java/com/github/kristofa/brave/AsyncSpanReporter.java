@@ -0,0 +1,194 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.Nullable;
+import com.twitter.zipkin.gen.Span;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.util.ArrayList;
+import java.util.List;
+import zipkin.reporter.AsyncReporter;
+import zipkin.reporter.Reporter;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static zipkin.internal.Util.checkArgument;
+
+/**
+ * Queues finished spans as-is, and converts them to zipkin spans on a separate thread.
+ *
+ * <p>When a {@code Reporter<zipkin.Span>} is configured directly, {@link Span#toZipkin()} runs on
+ * the request thread, copying every annotation, binary annotation and endpoint into a second object
+ * graph. This reporter defers that conversion, as well as any encoding done by the delegate, until
+ * the span is drained by the reporting thread.
+ *
+ * <p>For example, here's how to send spans via http, without converting them on the request
+ * thread:
+ *
+ * <pre>{@code
+ * reporter = AsyncReporter.builder(URLConnectionSender.create("http://localhost:9411/api/v1/spans"))
+ *                         .build();
+ *
+ * braveBuilder.spanReporter(AsyncSpanReporter.create(reporter));
+ * }</pre>
+ *
+ * <p>Spans are dropped when the queue is full, either by count or by their estimated size. Since
+ * spans are converted later, they must not be modified after they are finished.
+ *
+ * @see Brave.Builder#spanReporter(Reporter)
+ * @see AsyncReporter
+ */
+public final class AsyncSpanReporter implements Reporter<Span>, Flushable, Closeable {
+
+  /** Returns a reporter which converts spans on a daemon thread, before passing to the delegate. */
+  public static AsyncSpanReporter create(Reporter<zipkin.Span> delegate) {
+    return builder(delegate).build();
+  }
+
+  public static Builder builder(Reporter<zipkin.Span> delegate) {
+    return new Builder(delegate);
+  }
+
+  public static final class Builder {
+    final Reporter<zipkin.Span> delegate;
+    SpanCollectorMetricsHandler metrics = new EmptySpanCollectorMetricsHandler();
+    int queuedMaxSpans = 1000;
+    long queuedMaxBytes = SpanQueue.onePercentOfMemory();
+    int flushInterval = 1;
+
+    Builder(Reporter<zipkin.Span> delegate) {
+      this.delegate = checkNotNull(delegate, "delegate");
+    }
+
+    /** Notified when spans are accepted or dropped. Defaults to ignore events. */
+    public Builder metrics(SpanCollectorMetricsHandler metrics) {
+      this.metrics = checkNotNull(metrics, "metrics");
+      return this;
+    }
+
+    /** Maximum count of spans waiting to be converted. Defaults to 1000. */
+    public Builder queuedMaxSpans(int queuedMaxSpans) {
+      checkArgument(queuedMaxSpans > 0, "queuedMaxSpans should be positive: was %s", queuedMaxSpans);
+      this.queuedMaxSpans = queuedMaxSpans;
+      return this;
+    }
+
+    /**
+     * Maximum {@link SpanQueue#sizeInBytes(Span) estimated size} of spans waiting to be converted.
+     * Defaults to 1% of the heap.
+     */
+    public Builder queuedMaxBytes(long queuedMaxBytes) {
+      checkArgument(queuedMaxBytes > 0, "queuedMaxBytes should be positive: was %s", queuedMaxBytes);
+      this.queuedMaxBytes = queuedMaxBytes;
+      return this;
+    }
+
+    /**
+     * Maximum time in seconds the reporting thread waits for a span, before checking if it was
+     * closed. Defaults to 1. 0 implies spans are {@link #flush() flushed externally}.
+     */
+    public Builder flushInterval(int flushInterval) {
+      checkArgument(flushInterval >= 0, "flushInterval should not be negative: was %s", flushInterval);
+      this.flushInterval = flushInterval;
+      return this;
+    }
+
+    public AsyncSpanReporter build() {
+      return new AsyncSpanReporter(this);
+    }
+  }
+
+  final Reporter<zipkin.Span> delegate;
+  final SpanCollectorMetricsHandler metrics;
+  final SpanQueue pending;
+  @Nullable // when flushed externally
+  final Thread flusher;
+  volatile boolean closed;
+
+  AsyncSpanReporter(Builder builder) {
+    this.delegate = builder.delegate;
+    this.metrics = builder.metrics;
+    this.pending = new SpanQueue(builder.queuedMaxSpans, builder.queuedMaxBytes);
+    this.flusher = builder.flushInterval > 0 ? new Flusher(this, builder.flushInterval) : null;
+    if (flusher != null) flusher.start();
+  }
+
+  /**
+   * Queues the span for conversion, or drops it if the queue is full or this reporter is closed.
+   */
+  @Override
+  public void report(Span span) {
+    checkNotNull(span, "Null span");
+    metrics.incrementAcceptedSpans(1);
+    if (closed || !pending.offer(span)) {
+      metrics.incrementDroppedSpans(1);
+    }
+  }
+
+  /** Converts any pending spans and passes them to the delegate on the current thread. */
+  @Override
+  public void flush() {
+    drain();
+  }
+
+  /** Returns the count of spans drained. */
+  int drain() {
+    if (pending.isEmpty()) return 0;
+    List<Span> drained = new ArrayList<Span>(pending.size());
+    pending.drainTo(drained, Integer.MAX_VALUE);
+    for (int i = 0, length = drained.size(); i < length; i++) {
+      reportNow(drained.get(i));
+    }
+    return drained.size();
+  }
+
+  void reportNow(Span span) {
+    try {
+      delegate.report(span.toZipkin());
+    } catch (RuntimeException e) {
+      metrics.incrementDroppedSpans(1);
+    }
+  }
+
+  /** Stops the reporting thread, after passing any pending spans to the delegate. */
+  @Override
+  public void close() {
+    if (closed) return;
+    closed = true;
+    if (flusher != null) {
+      flusher.interrupt();
+      try {
+        flusher.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    flush();
+  }
+
+  @Override
+  public String toString() {
+    return "AsyncSpanReporter(" + delegate + ")";
+  }
+
+  /** Waits until a span is queued, then converts everything pending. */
+  static final class Flusher extends Thread {
+    final AsyncSpanReporter reporter;
+    final int flushInterval;
+
+    Flusher(AsyncSpanReporter reporter, int flushInterval) {
+      super("AsyncSpanReporter");
+      this.reporter = reporter;
+      this.flushInterval = flushInterval;
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      while (!reporter.closed) {
+        if (reporter.drain() == 0) {
+          reporter.pending.awaitNanos(SECONDS.toNanos(flushInterval)); // returns when interrupted
+        }
+      }
+    }
+  }
+}
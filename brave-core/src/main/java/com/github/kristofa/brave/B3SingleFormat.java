@@ -0,0 +1,158 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.Nullable;
+
+import static com.github.kristofa.brave.SpanId.FLAG_DEBUG;
+import static com.github.kristofa.brave.SpanId.FLAG_IS_ROOT;
+import static com.github.kristofa.brave.SpanId.FLAG_SAMPLED;
+import static com.github.kristofa.brave.SpanId.FLAG_SAMPLING_SET;
+import static com.github.kristofa.brave.SpanId.writeHexLong;
+
+/**
+ * Encodes and decodes the single-header form of B3 propagation: {@code
+ * traceid-spanid-sampled-parentid}.
+ *
+ * <p>For example, a sampled child span of a 64-bit trace is encoded as {@code
+ * 80f198ee56343ba8-e457b5a2e4d86bd1-1-05e3ac9a4f6e3b90}. The sampled and parent fields are optional,
+ * and an unsampled request can be propagated as just {@code 0}. Sampled is one of {@code 1}, {@code
+ * 0} or {@code d}, where {@code d} means debug.
+ *
+ * <p>Compared to the four {@code X-B3-*} headers, a caller writes one header value, and a server
+ * does one header lookup. Parsing is a single pass over the value, and writing fills one buffer.
+ *
+ * <p>See https://github.com/openzipkin/b3-propagation for details
+ */
+public final class B3SingleFormat {
+  /** 128-bit trace ID, span ID, sampled, parent ID, and the delimiters between them. */
+  static final int MAX_LENGTH = 32 + 1 + 16 + 2 + 17;
+
+  static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+    @Override protected char[] initialValue() {
+      return new char[MAX_LENGTH];
+    }
+  };
+
+  /**
+   * Returns the single-header encoding of the span ID, including its parent when present.
+   *
+   * <p>As IDs are only propagated for sampled traces, an ID without a sampling decision is written
+   * as sampled. This is the same as the multi-header form, which always sends {@code
+   * X-B3-Sampled: 1} along with IDs.
+   */
+  public static String writeB3SingleFormat(SpanId id) {
+    char[] buffer = BUFFER.get();
+    int length = writeB3SingleFormat(id, buffer, 0);
+    return new String(buffer, 0, length);
+  }
+
+  /** Writes the encoding into the buffer at the offset, returning the count of chars written. */
+  static int writeB3SingleFormat(SpanId id, char[] buffer, int offset) {
+    int pos = offset;
+    if (id.traceIdHigh != 0) {
+      writeHexLong(buffer, pos, id.traceIdHigh);
+      pos += 16;
+    }
+    writeHexLong(buffer, pos, id.traceId);
+    pos += 16;
+    buffer[pos++] = '-';
+    writeHexLong(buffer, pos, id.spanId);
+    pos += 16;
+    buffer[pos++] = '-';
+    if (id.debug()) {
+      buffer[pos++] = 'd';
+    } else {
+      buffer[pos++] = Boolean.FALSE.equals(id.sampled()) ? '0' : '1';
+    }
+    if (!id.root()) {
+      buffer[pos++] = '-';
+      writeHexLong(buffer, pos, id.parentId);
+      pos += 16;
+    }
+    return pos - offset;
+  }
+
+  /**
+   * Parses a single-header B3 value in one pass, or returns null if it is malformed.
+   *
+   * <p>Like the multi-header form, a sampling decision without IDs returns one of the shared
+   * constants: {@link TraceData#NOT_SAMPLED} for {@code 0}, or {@link TraceData#EMPTY} otherwise.
+   */
+  @Nullable
+  public static TraceData parseB3SingleFormat(CharSequence b3) {
+    int length = b3.length();
+    if (length == 1) {
+      switch (b3.charAt(0)) {
+        case '0':
+          return TraceData.NOT_SAMPLED;
+        case '1':
+        case 'd':
+          // Invalid: The caller requests the trace to be sampled, but didn't pass IDs
+          return TraceData.EMPTY;
+        default:
+          return null;
+      }
+    }
+
+    int pos = 0;
+    long traceIdHigh = 0, traceId = 0;
+    for (; pos < length && pos < 32; pos++) {
+      int digit = hexDigit(b3.charAt(pos));
+      if (digit == -1) break;
+      traceIdHigh = (traceIdHigh << 4) | (traceId >>> 60);
+      traceId = (traceId << 4) | digit;
+    }
+    if (pos == 0 || pos == length || b3.charAt(pos++) != '-') return null;
+
+    int start = pos;
+    long spanId = 0;
+    for (; pos < length && pos - start < 16; pos++) {
+      int digit = hexDigit(b3.charAt(pos));
+      if (digit == -1) break;
+      spanId = (spanId << 4) | digit;
+    }
+    if (pos == start) return null;
+
+    long flags = FLAG_IS_ROOT;
+    if (pos < length) {
+      if (b3.charAt(pos++) != '-' || pos == length) return null;
+      switch (b3.charAt(pos++)) {
+        case '0':
+          flags |= FLAG_SAMPLING_SET;
+          break;
+        case '1':
+          flags |= FLAG_SAMPLING_SET | FLAG_SAMPLED;
+          break;
+        case 'd':
+          flags |= FLAG_DEBUG | FLAG_SAMPLING_SET | FLAG_SAMPLED;
+          break;
+        default:
+          return null;
+      }
+    }
+
+    long parentId = 0;
+    if (pos < length) {
+      if (b3.charAt(pos++) != '-') return null;
+      start = pos;
+      for (; pos < length && pos - start < 16; pos++) {
+        int digit = hexDigit(b3.charAt(pos));
+        if (digit == -1) return null;
+        parentId = (parentId << 4) | digit;
+      }
+      if (pos == start || pos != length) return null;
+      flags &= ~FLAG_IS_ROOT;
+    }
+
+    return TraceData.create(SpanId.create(traceIdHigh, traceId, parentId, spanId, flags));
+  }
+
+  /** Returns the value of a lower-hex digit, or -1 if the character isn't one. */
+  static int hexDigit(char c) {
+    if (c >= '0' && c <= '9') return c - '0';
+    if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+    return -1;
+  }
+
+  private B3SingleFormat() { // no instances
+  }
+}
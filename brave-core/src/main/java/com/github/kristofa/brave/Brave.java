@@ -2,15 +2,16 @@ package com.github.kristofa.brave;
 
 import com.github.kristofa.brave.internal.Util;
 import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
 import java.net.UnknownHostException;
 import java.util.List;
-import java.util.Random;
 import zipkin.reporter.AsyncReporter;
 import zipkin.reporter.Reporter;
 import zipkin.reporter.Sender;
 
 import static com.github.kristofa.brave.InetAddressUtilities.getLocalHostLANAddress;
 import static com.github.kristofa.brave.InetAddressUtilities.toInt;
+import static zipkin.internal.Util.checkArgument;
 import static zipkin.internal.Util.checkNotNull;
 
 public class Brave {
@@ -18,6 +19,9 @@ public class Brave {
     private final ServerTracer serverTracer;
     private final ClientTracer clientTracer;
     private final LocalTracer localTracer;
+    private final ExplicitTracer explicitTracer;
+    private final SpanLimits spanLimits;
+    final ServerClientAndLocalSpanState state; // for BraveExecutors
     private final ServerRequestInterceptor serverRequestInterceptor;
     private final ServerResponseInterceptor serverResponseInterceptor;
     private final ClientRequestInterceptor clientRequestInterceptor;
@@ -39,13 +43,16 @@ public class Brave {
     public static class Builder {
 
         private final ServerClientAndLocalSpanState state;
-        private Reporter reporter = new LoggingReporter();
-        private Random random = new Random();
+        private Reporter<Span> spanReporter = new ZipkinReporterAdapter(new LoggingReporter());
+        private IdGenerator idGenerator = IdGenerator.create();
         // default added so callers don't need to check null.
         private Sampler sampler = Sampler.create(1.0f);
         private boolean allowNestedLocalSpans = false;
         private AnnotationSubmitter.Clock clock = AnnotationSubmitter.DefaultClock.INSTANCE;
         private boolean traceId128Bit = false;
+        private int maxAnnotations = Integer.MAX_VALUE;
+        private int maxBinaryAnnotations = Integer.MAX_VALUE;
+        private int maxTagValueLength = Integer.MAX_VALUE;
 
         /**
          * Builder which initializes with serviceName = "unknown".
@@ -139,7 +146,28 @@ public class Brave {
          * <p>See https://github.com/openzipkin/zipkin-reporter-java
          */
         public Builder reporter(Reporter<zipkin.Span> reporter) {
-            this.reporter = checkNotNull(reporter, "reporter");
+            this.spanReporter = new ZipkinReporterAdapter(reporter);
+            return this;
+        }
+
+        /**
+         * Like {@link #reporter(Reporter)}, except finished spans are reported as-is. This avoids
+         * {@link Span#toZipkin() converting} spans on the request thread.
+         *
+         * <p>For example, here's how to batch send spans via http, converting them on a separate
+         * thread:
+         *
+         * <pre>{@code
+         * reporter = AsyncReporter.builder(URLConnectionSender.create("http://localhost:9411/api/v1/spans"))
+         *                         .build();
+         *
+         * braveBuilder.spanReporter(AsyncSpanReporter.create(reporter));
+         * }</pre>
+         *
+         * @see AsyncSpanReporter
+         */
+        public Builder spanReporter(Reporter<Span> spanReporter) {
+            this.spanReporter = checkNotNull(spanReporter, "spanReporter");
             return this;
         }
 
@@ -148,21 +176,77 @@ public class Brave {
          */
         @Deprecated
         public Builder spanCollector(SpanCollector spanCollector) {
-            this.reporter = new SpanCollectorReporterAdapter(spanCollector);
+            this.spanReporter = new SpanCollectorReporterAdapter(spanCollector);
             return this;
         }
 
+        /**
+         * Sources the timestamps of spans and annotations. Defaults to the wall clock, which is
+         * only precise to the millisecond.
+         *
+         * <p>For microsecond precision, use {@link AnchoredClock}:
+         *
+         * <pre>{@code
+         * braveBuilder.clock(AnchoredClock.create());
+         * }</pre>
+         */
         public Builder clock(AnnotationSubmitter.Clock clock) {
             this.clock = clock;
             return this;
         }
 
+        /**
+         * Generates trace and span IDs. Defaults to {@link IdGenerator#create()}, which doesn't
+         * contend across threads.
+         */
+        public Builder idGenerator(IdGenerator idGenerator) {
+            this.idGenerator = checkNotNull(idGenerator, "idGenerator");
+            return this;
+        }
+
         /** When true, new root spans will have 128-bit trace IDs. Defaults to false (64-bit) */
         public Builder traceId128Bit(boolean traceId128Bit) {
             this.traceId128Bit = traceId128Bit;
             return this;
         }
 
+        /**
+         * Caps the annotations recorded per span, for example on a long-running local span.
+         * Annotations that start or finish a span are always recorded. Defaults to unlimited.
+         *
+         * @see SpanLimits
+         */
+        public Builder maxAnnotations(int maxAnnotations) {
+            checkArgument(maxAnnotations >= 0, "maxAnnotations < 0: %s", maxAnnotations);
+            this.maxAnnotations = maxAnnotations;
+            return this;
+        }
+
+        /**
+         * Caps the tags recorded per span. Addresses and the local component are always recorded.
+         * Defaults to unlimited.
+         *
+         * @see SpanLimits
+         */
+        public Builder maxBinaryAnnotations(int maxBinaryAnnotations) {
+            checkArgument(maxBinaryAnnotations >= 0, "maxBinaryAnnotations < 0: %s",
+                maxBinaryAnnotations);
+            this.maxBinaryAnnotations = maxBinaryAnnotations;
+            return this;
+        }
+
+        /**
+         * Cuts longer tag values, such as a multi-kilobyte sql query, to this length followed by
+         * "...". Defaults to unlimited.
+         *
+         * @see SpanLimits
+         */
+        public Builder maxTagValueLength(int maxTagValueLength) {
+            checkArgument(maxTagValueLength > 0, "maxTagValueLength <= 0: %s", maxTagValueLength);
+            this.maxTagValueLength = maxTagValueLength;
+            return this;
+        }
+
         public Brave build() {
             return new Brave(this);
         }
@@ -191,6 +275,16 @@ public class Brave {
         return localTracer;
     }
 
+    /**
+     * Returns a tracer that takes the trace context as a parameter instead of reading it from the
+     * current thread. Use it when a request hops between threads, such as on an event loop.
+     *
+     * @since 3.16
+     */
+    public ExplicitTracer explicitTracer() {
+        return explicitTracer;
+    }
+
     /**
      * Server Tracer.
      * <p>
@@ -260,40 +354,61 @@ public class Brave {
         return serverSpanAnnotationSubmitter;
     }
 
+    /**
+     * Limits on the size of spans, configured on the {@link Builder}, and counts of what they
+     * dropped.
+     */
+    public SpanLimits spanLimits() {
+        return spanLimits;
+    }
+
     private Brave(Builder builder) {
+        state = builder.state;
+        spanLimits = new SpanLimits(builder.maxAnnotations, builder.maxBinaryAnnotations,
+                builder.maxTagValueLength);
+
         serverTracer = ServerTracer.builder()
-                .randomGenerator(builder.random)
-                .reporter(builder.reporter)
+                .idGenerator(builder.idGenerator)
+                .spanReporter(builder.spanReporter)
                 .state(builder.state)
                 .traceSampler(builder.sampler)
                 .clock(builder.clock)
                 .traceId128Bit(builder.traceId128Bit)
+                .spanLimits(spanLimits)
                 .build();
 
         clientTracer = ClientTracer.builder()
-                .randomGenerator(builder.random)
-                .reporter(builder.reporter)
+                .idGenerator(builder.idGenerator)
+                .spanReporter(builder.spanReporter)
                 .state(builder.state)
                 .traceSampler(builder.sampler)
                 .clock(builder.clock)
                 .traceId128Bit(builder.traceId128Bit)
+                .spanLimits(spanLimits)
                 .build();
 
         localTracer = LocalTracer.builder()
-                .randomGenerator(builder.random)
-                .reporter(builder.reporter)
+                .idGenerator(builder.idGenerator)
+                .spanReporter(builder.spanReporter)
                 .allowNestedLocalSpans(builder.allowNestedLocalSpans)
                 .spanAndEndpoint(SpanAndEndpoint.LocalSpanAndEndpoint.create(builder.state))
                 .traceSampler(builder.sampler)
                 .clock(builder.clock)
                 .traceId128Bit(builder.traceId128Bit)
+                .spanLimits(spanLimits)
                 .build();
 
+        explicitTracer = new ExplicitTracer(builder.state.endpoint(), builder.idGenerator,
+                builder.sampler, builder.clock, builder.spanReporter, builder.traceId128Bit,
+                spanLimits);
+
         serverRequestInterceptor = new ServerRequestInterceptor(serverTracer);
         serverResponseInterceptor = new ServerResponseInterceptor(serverTracer);
         clientRequestInterceptor = new ClientRequestInterceptor(clientTracer);
         clientResponseInterceptor = new ClientResponseInterceptor(clientTracer);
-        serverSpanAnnotationSubmitter = AnnotationSubmitter.create(SpanAndEndpoint.ServerSpanAndEndpoint.create(builder.state));
+        serverSpanAnnotationSubmitter = AnnotationSubmitter.create(
+                SpanAndEndpoint.ServerSpanAndEndpoint.create(builder.state),
+                AnnotationSubmitter.DefaultClock.INSTANCE, spanLimits);
         serverSpanThreadBinder = new ServerSpanThreadBinder(builder.state);
         clientSpanThreadBinder = new ClientSpanThreadBinder(builder.state);
         localSpanThreadBinder = new LocalSpanThreadBinder(builder.state);
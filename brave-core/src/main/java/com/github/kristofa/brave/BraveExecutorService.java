@@ -18,6 +18,7 @@ import static com.github.kristofa.brave.internal.Util.checkNotNull;
  * in the same Span/Trace context as the the thread that invoked execution of the threads.
  * <p/>
  * It uses {@link ServerTracer} and {@link ServerSpanThreadBinder} to accomplish this in a transparent way for the user.
+ * To also propagate client and local spans, use {@link BraveExecutors}.
  * <p/>
  * It also implements {@link Closeable}, calling {@link BraveExecutorService#shutdown()}, so the executor service is
  * shut down properly when for example using Spring.
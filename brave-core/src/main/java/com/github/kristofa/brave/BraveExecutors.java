@@ -0,0 +1,225 @@
+package com.github.kristofa.brave;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * Wraps executors so that tasks run with the server, client and local span of the thread that
+ * submitted them.
+ *
+ * <p>Unlike {@link BraveExecutorService}, which only propagates the server span, the spans are
+ * captured together in one snapshot. Tasks submitted while no span is active are passed through
+ * without wrapping. After a task runs, the executing thread's previous spans are restored.
+ *
+ * <p>A {@link java.util.concurrent.ForkJoinPool} can be wrapped as an {@link ExecutorService}:
+ * runnables and callables submitted through the wrapper are propagated, but fork-join tasks forked
+ * from inside a task are not.
+ *
+ * <pre>{@code
+ * ExecutorService executor = BraveExecutors.wrap(Executors.newFixedThreadPool(4), brave);
+ * }</pre>
+ *
+ * @since 3.16
+ */
+public final class BraveExecutors {
+
+    public static ExecutorService wrap(ExecutorService delegate, Brave brave) {
+        return new TracingExecutorService(checkNotNull(delegate, "delegate"), brave.state);
+    }
+
+    public static ScheduledExecutorService wrap(ScheduledExecutorService delegate, Brave brave) {
+        return new TracingScheduledExecutorService(checkNotNull(delegate, "delegate"), brave.state);
+    }
+
+    public static <V> CompletionService<V> wrap(CompletionService<V> delegate, Brave brave) {
+        return new TracingCompletionService<V>(checkNotNull(delegate, "delegate"), brave.state);
+    }
+
+    static <T> Collection<? extends Callable<T>> wrap(ServerClientAndLocalSpanState state,
+        Collection<? extends Callable<T>> tasks) {
+        SpanStateSnapshot snapshot = SpanStateSnapshot.capture(state);
+        if (snapshot == null) return tasks;
+        List<Callable<T>> result = new ArrayList<Callable<T>>(tasks.size());
+        for (Callable<T> task : tasks) {
+            result.add(snapshot.wrap(task));
+        }
+        return result;
+    }
+
+    static class TracingExecutorService implements ExecutorService {
+        final ExecutorService delegate;
+        final ServerClientAndLocalSpanState state;
+
+        TracingExecutorService(ExecutorService delegate, ServerClientAndLocalSpanState state) {
+            this.delegate = delegate;
+            this.state = state;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            delegate.execute(SpanStateSnapshot.wrap(state, task));
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> task) {
+            return delegate.submit(SpanStateSnapshot.wrap(state, task));
+        }
+
+        @Override
+        public Future<?> submit(Runnable task) {
+            return delegate.submit(SpanStateSnapshot.wrap(state, task));
+        }
+
+        @Override
+        public <T> Future<T> submit(Runnable task, T result) {
+            return delegate.submit(SpanStateSnapshot.wrap(state, task), result);
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks)
+            throws InterruptedException {
+            return delegate.invokeAll(wrap(state, tasks));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout,
+            TimeUnit unit) throws InterruptedException {
+            return delegate.invokeAll(wrap(state, tasks), timeout, unit);
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+            throws InterruptedException, ExecutionException {
+            return delegate.invokeAny(wrap(state, tasks));
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+            return delegate.invokeAny(wrap(state, tasks), timeout, unit);
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+
+    /** Periodic tasks run with the spans captured when they were scheduled. */
+    static final class TracingScheduledExecutorService extends TracingExecutorService
+        implements ScheduledExecutorService {
+        final ScheduledExecutorService delegate;
+
+        TracingScheduledExecutorService(ScheduledExecutorService delegate,
+            ServerClientAndLocalSpanState state) {
+            super(delegate, state);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+            return delegate.schedule(SpanStateSnapshot.wrap(state, task), delay, unit);
+        }
+
+        @Override
+        public <V> ScheduledFuture<V> schedule(Callable<V> task, long delay, TimeUnit unit) {
+            return delegate.schedule(SpanStateSnapshot.wrap(state, task), delay, unit);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period,
+            TimeUnit unit) {
+            return delegate.scheduleAtFixedRate(SpanStateSnapshot.wrap(state, task), initialDelay,
+                period, unit);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long initialDelay,
+            long delay, TimeUnit unit) {
+            return delegate.scheduleWithFixedDelay(SpanStateSnapshot.wrap(state, task), initialDelay,
+                delay, unit);
+        }
+    }
+
+    static final class TracingCompletionService<V> implements CompletionService<V> {
+        final CompletionService<V> delegate;
+        final ServerClientAndLocalSpanState state;
+
+        TracingCompletionService(CompletionService<V> delegate,
+            ServerClientAndLocalSpanState state) {
+            this.delegate = delegate;
+            this.state = state;
+        }
+
+        @Override
+        public Future<V> submit(Callable<V> task) {
+            return delegate.submit(SpanStateSnapshot.wrap(state, task));
+        }
+
+        @Override
+        public Future<V> submit(Runnable task, V result) {
+            return delegate.submit(SpanStateSnapshot.wrap(state, task), result);
+        }
+
+        @Override
+        public Future<V> take() throws InterruptedException {
+            return delegate.take();
+        }
+
+        @Override
+        public Future<V> poll() {
+            return delegate.poll();
+        }
+
+        @Override
+        public Future<V> poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.poll(timeout, unit);
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+
+    private BraveExecutors() {
+        // no instances
+    }
+}
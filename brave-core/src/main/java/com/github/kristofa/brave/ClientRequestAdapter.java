@@ -34,6 +34,9 @@ public interface ClientRequestAdapter {
      * Can be used to indicate more details about request next to span name.
      * For example for http requests an annotation containing the uri path could be added.
      *
+     * <p>This is only invoked for sampled requests, and at most once per request. Defer expensive
+     * work, such as formatting a url, to this method, so that unsampled requests don't pay for it.
+     *
      * @return Collection of annotations.
      */
     Collection<KeyValueAnnotation> requestAnnotations();
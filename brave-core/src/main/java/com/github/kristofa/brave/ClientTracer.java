@@ -28,16 +28,18 @@ import zipkin.reporter.Reporter;
 public abstract class ClientTracer extends AnnotationSubmitter {
 
     public static Builder builder() {
-        return new AutoValue_ClientTracer.Builder();
+        return new AutoValue_ClientTracer.Builder().spanLimits(SpanLimits.UNLIMITED);
     }
 
     @Override
     abstract ClientSpanAndEndpoint spanAndEndpoint();
-    abstract Random randomGenerator();
-    abstract Reporter<zipkin.Span> reporter();
+    abstract IdGenerator idGenerator();
+    abstract Reporter<Span> spanReporter();
     abstract Sampler traceSampler();
     @Override
     abstract AnnotationSubmitter.Clock clock();
+    @Override
+    abstract SpanLimits spanLimits();
     abstract boolean traceId128Bit();
 
     @AutoValue.Builder
@@ -51,23 +53,49 @@ public abstract class ClientTracer extends AnnotationSubmitter {
 
         /**
          * Used to generate new trace/span ids.
+         *
+         * @deprecated use {@link #idGenerator(IdGenerator)}, as a shared {@link Random} is a
+         * point of contention.
          */
-        public abstract Builder randomGenerator(Random randomGenerator);
+        @Deprecated
+        public final Builder randomGenerator(Random randomGenerator) {
+            return idGenerator(IdGenerator.create(randomGenerator));
+        }
 
-        public abstract Builder reporter(Reporter<zipkin.Span> reporter);
+        /**
+         * Used to generate new trace/span ids.
+         */
+        public abstract Builder idGenerator(IdGenerator idGenerator);
+
+        /**
+         * Finished spans are converted to zipkin spans on the calling thread before being reported.
+         *
+         * @see #spanReporter(Reporter)
+         */
+        public final Builder reporter(Reporter<zipkin.Span> reporter) {
+            return spanReporter(new ZipkinReporterAdapter(reporter));
+        }
+
+        /**
+         * Finished spans are reported as-is, for example to an {@link AsyncSpanReporter} which
+         * converts them on a separate thread.
+         */
+        public abstract Builder spanReporter(Reporter<Span> spanReporter);
 
         /**
          * @deprecated use {@link #reporter(Reporter)}
          */
         @Deprecated
         public final Builder spanCollector(SpanCollector spanCollector) {
-            return reporter(new SpanCollectorReporterAdapter(spanCollector));
+            return spanReporter(new SpanCollectorReporterAdapter(spanCollector));
         }
 
         public abstract Builder traceSampler(Sampler sampler);
         public abstract Builder clock(AnnotationSubmitter.Clock clock);
         abstract Builder traceId128Bit(boolean traceId128Bit);
 
+        abstract Builder spanLimits(SpanLimits spanLimits);
+
         public abstract ClientTracer build();
     }
 
@@ -89,6 +117,29 @@ public abstract class ClientTracer extends AnnotationSubmitter {
         submitStartAnnotation(Constants.CLIENT_SEND);
     }
 
+    /**
+     * Like {@link #setClientSent()}, except the request was sent at the given time. Use this with
+     * {@link #setClientReceived(long)} to record a span after the fact, for example only when a
+     * request turned out to be slow.
+     *
+     * @param timestamp microseconds from epoch when the request was sent
+     */
+    public void setClientSent(long timestamp) {
+        submitStartAnnotation(Constants.CLIENT_SEND, timestamp);
+    }
+
+    /**
+     * Like {@link #setClientSent(long)}, except you can log the network context of the destination.
+     *
+     * @param server represents the server (peer). Set {@link Endpoint#service_name} to
+     * "unknown" if unknown.
+     * @param timestamp microseconds from epoch when the request was sent
+     */
+    public void setClientSent(Endpoint server, long timestamp) {
+        submitAddress(Constants.SERVER_ADDR, server);
+        submitStartAnnotation(Constants.CLIENT_SEND, timestamp);
+    }
+
     /**
      * Like {@link #setClientSent()}, except you can log the network context of the destination.
      *
@@ -110,11 +161,43 @@ public abstract class ClientTracer extends AnnotationSubmitter {
      * event means this span is finished.
      */
     public void setClientReceived() {
-        if (submitEndAnnotation(Constants.CLIENT_RECV, reporter())) {
+        if (submitEndAnnotation(Constants.CLIENT_RECV, spanReporter())) {
             spanAndEndpoint().state().setCurrentClientSpan(null);
         }
     }
 
+    /**
+     * Like {@link #setClientReceived()}, except the response was received at the given time. The
+     * duration is the difference from the {@link #setClientSent(long) client sent} timestamp.
+     *
+     * @param timestamp microseconds from epoch when the response was received
+     */
+    public void setClientReceived(long timestamp) {
+        if (submitEndAnnotation(Constants.CLIENT_RECV, timestamp, spanReporter())) {
+            spanAndEndpoint().state().setCurrentClientSpan(null);
+        }
+    }
+
+    /**
+     * Records 'client sent' and 'client received' for a request that already finished, and reports
+     * the span. The response is received now, according to the {@link #clock() clock}, and the
+     * request was sent {@code elapsedNanos} before. Use this after {@link #startNewSpan(String)} to
+     * record a span after the fact, for example only when a request turned out to be slow.
+     *
+     * @param server represents the server (peer), or null if unknown
+     * @param elapsedNanos how long the request took, such as a difference of {@link System#nanoTime()}
+     */
+    public void setClientSentAndReceived(@Nullable Endpoint server, long elapsedNanos) {
+        long received = clock().currentTimeMicroseconds();
+        long sent = received - elapsedNanos / 1000;
+        if (server != null) {
+            setClientSent(server, sent);
+        } else {
+            setClientSent(sent);
+        }
+        setClientReceived(received);
+    }
+
     /**
      * Start a new span for a new client request that will be bound to current thread. The ClientTracer can decide to return
      * <code>null</code> in case this request should not be traced (eg sampling).
@@ -123,46 +206,40 @@ public abstract class ClientTracer extends AnnotationSubmitter {
      * @return Span id for new request or <code>null</code> in case we should not trace this new client request.
      */
     public SpanId startNewSpan(String requestName) {
+        ServerClientAndLocalSpanState state =
+            ThreadContextServerClientAndLocalSpanState.bind(spanAndEndpoint().state());
 
-        Boolean sample = spanAndEndpoint().state().sample();
+        Boolean sample = state.sample();
         if (Boolean.FALSE.equals(sample)) {
-            spanAndEndpoint().state().setCurrentClientSpan(null);
+            state.setCurrentClientSpan(null);
             return null;
         }
 
-        SpanId newSpanId = getNewSpanId();
+        SpanId newSpanId = getNewSpanId(state);
         if (sample == null) {
             // No sample indication is present.
             if (!traceSampler().isSampled(newSpanId.traceId)) {
-                spanAndEndpoint().state().setCurrentClientSpan(null);
+                state.setCurrentClientSpan(null);
                 return null;
             }
         }
 
         Span newSpan = newSpanId.toSpan();
         newSpan.setName(requestName);
-        spanAndEndpoint().state().setCurrentClientSpan(newSpan);
+        state.setCurrentClientSpan(newSpan);
         return newSpanId;
     }
 
-    private SpanId getNewSpanId() {
-        Span parentSpan = spanAndEndpoint().state().getCurrentLocalSpan();
+    private SpanId getNewSpanId(ServerClientAndLocalSpanState state) {
+        Span parentSpan = state.getCurrentLocalSpan();
         if (parentSpan == null) {
-            ServerSpan serverSpan = spanAndEndpoint().state().getCurrentServerSpan();
+            ServerSpan serverSpan = state.getCurrentServerSpan();
             if (serverSpan != null) {
                 parentSpan = serverSpan.getSpan();
             }
         }
 
-        long newSpanId = randomGenerator().nextLong();
-        SpanId.Builder builder = SpanId.builder().spanId(newSpanId);
-        if (parentSpan == null) { // new trace
-            if (traceId128Bit()) builder.traceIdHigh(randomGenerator().nextLong());
-            return builder.build();
-        }
-        return builder.traceIdHigh(parentSpan.getTrace_id_high())
-            .traceId(parentSpan.getTrace_id())
-            .parentId(parentSpan.getId()).build();
+        return ExplicitTracer.nextContext(parentSpan, idGenerator(), traceId128Bit());
     }
 
     ClientTracer() {
@@ -2,6 +2,7 @@ package com.github.kristofa.brave;
 
 import java.util.BitSet;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import static zipkin.internal.Util.checkArgument;
 
@@ -12,38 +13,71 @@ import static zipkin.internal.Util.checkArgument;
  *
  * <h3>Implementation</h3>
  *
- * <p>This initializes a random bitset of size 100 (corresponding to 1% granularity). This means
- * that it is accurate in units of 100 traces. At runtime, this loops through the bitset, returning
- * the value according to a counter.
+ * <p>This initializes a random bitset of size 100, 1000 or 10000, whichever is the smallest that
+ * can represent the rate exactly (ex. 0.25 needs 100, 0.001 needs 1000). This means that it is
+ * accurate in units of that many traces. At runtime, this loops through the bitset, returning the
+ * value according to a counter.
+ *
+ * <p>So that concurrent requests don't contend on a lock, the counter is striped: each thread
+ * advances the counter of its stripe with a compare-and-set. There are as many stripes as
+ * available processors, rounded up to a power of two. Every stripe loops over the same bitset,
+ * starting at a random position, so the rate is exact over each window of decisions made on the
+ * same stripe.
+ *
+ * <p>With several stripes, the overall rate is no longer exact: each stripe can be part way
+ * through its window, so the count of sampled traces can be off by up to one window's worth per
+ * stripe. With a single stripe, as on a machine with one processor, it is exact.
  */
 public final class CountingSampler extends Sampler {
+  static final int MAX_STRIPES = 64;
+  /** Count of ints in a 64-byte cache line, so that stripes aren't falsely shared. */
+  static final int PADDING = 16;
 
   /**
-   * @param rate 0 means never sample, 1 means always sample. Otherwise minimum sample rate is 0.01,
-   * or 1% of traces
+   * @param rate 0 means never sample, 1 means always sample. Otherwise minimum sample rate is
+   * 0.0001, or 0.01% of traces. Rates are rounded to the nearest 0.0001.
    */
   public static Sampler create(final float rate) {
+    return create(rate, defaultStripes());
+  }
+
+  static Sampler create(float rate, int stripes) {
     if (rate == 0) return NEVER_SAMPLE;
     if (rate == 1.0) return ALWAYS_SAMPLE;
-    checkArgument(rate >= 0.01f && rate < 1, "rate should be between 0.01 and 1: was %s", rate);
-    return new CountingSampler(rate);
+    checkArgument(rate >= 0.0001f && rate < 1, "rate should be between 0.0001 and 1: was %s", rate);
+    return new CountingSampler(rate, stripes);
   }
 
-  private int i; // guarded by this
   private final BitSet sampleDecisions;
+  private final int window;
+  private final int stripeMask;
+  private final AtomicIntegerArray positions; // one padded position per stripe
 
   /** Fills a bitset with decisions according to the supplied rate. */
-  CountingSampler(float rate) {
-    int outOf100 = (int) (rate * 100.0f);
-    this.sampleDecisions = randomBitSet(100, outOf100, new Random());
+  CountingSampler(float rate, int stripes) {
+    checkArgument(Integer.bitCount(stripes) == 1, "stripes should be a power of two: was %s",
+        stripes);
+    Random random = new Random();
+    this.window = windowSize(rate);
+    int outOfWindow = (int) Math.round((double) rate * window);
+    this.sampleDecisions = randomBitSet(window, outOfWindow, random);
+    this.stripeMask = stripes - 1;
+    this.positions = new AtomicIntegerArray(stripes * PADDING);
+    for (int i = 0; i < stripes; i++) {
+      positions.set(i * PADDING, random.nextInt(window));
+    }
   }
 
   /** loops over the pre-canned decisions, resetting to zero when it gets to the end. */
   @Override
-  public synchronized boolean isSampled(long traceIdIgnored) {
-    boolean result = sampleDecisions.get(i++);
-    if (i == 100) i = 0;
-    return result;
+  public boolean isSampled(long traceIdIgnored) {
+    int stripe = ((int) Thread.currentThread().getId() & stripeMask) * PADDING;
+    int i, next;
+    do {
+      i = positions.get(stripe);
+      next = i + 1 == window ? 0 : i + 1;
+    } while (!positions.compareAndSet(stripe, i, next));
+    return sampleDecisions.get(i);
   }
 
   @Override
@@ -51,6 +85,22 @@ public final class CountingSampler extends Sampler {
     return "CountingSampler()";
   }
 
+  /** Returns the smallest of 100, 1000 or 10000 which holds a whole number of sampled traces. */
+  static int windowSize(float rate) {
+    for (int window = 100; window < 10000; window *= 10) {
+      double outOfWindow = (double) rate * window;
+      if (Math.abs(outOfWindow - Math.round(outOfWindow)) < 0.001) return window;
+    }
+    return 10000;
+  }
+
+  static int defaultStripes() {
+    int processors = Runtime.getRuntime().availableProcessors();
+    int stripes = 1;
+    while (stripes < processors && stripes < MAX_STRIPES) stripes <<= 1;
+    return stripes;
+  }
+
   /**
    * Reservoir sampling algorithm borrowed from Stack Overflow.
    *
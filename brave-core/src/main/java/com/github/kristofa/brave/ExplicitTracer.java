@@ -0,0 +1,281 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.Nullable;
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import zipkin.Constants;
+import zipkin.reporter.Reporter;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+import static zipkin.Constants.LOCAL_COMPONENT;
+
+/**
+ * Creates, annotates and finishes spans whose trace context is passed explicitly, instead of read
+ * from {@link ServerClientAndLocalSpanState}.
+ *
+ * <p>{@link ServerTracer}, {@link ClientTracer} and {@link LocalTracer} bind the current span to
+ * the thread, so asynchronous code has to move it between threads with a span thread binder at
+ * every hop. On event loops and reactive streams, it is simpler to carry the context along with the
+ * request, and this api never touches thread-local state.
+ *
+ * <p>The trace context is an immutable {@link SpanId}. The span handle is a {@link Span}, which
+ * can be passed between threads, and whose {@link Span#context} is the context it was created
+ * from. Here's an example of tracing a client request that completes on another thread:
+ *
+ * <pre>{@code
+ * SpanId context = parent != null ? tracer.newChild(parent) : tracer.newTrace();
+ * Span span = tracer.newSpan(context, "get"); // null when not sampled
+ * // add trace headers to the request using context
+ * if (span != null) tracer.start(span, Constants.CLIENT_SEND);
+ *
+ * // when the response arrives
+ * if (span != null) tracer.finish(span, Constants.CLIENT_RECV);
+ * }</pre>
+ *
+ * <p>The thread-bound tracers are implemented on the same code, so spans are recorded the same
+ * way by both apis.
+ *
+ * @see Brave#explicitTracer()
+ * @since 3.16
+ */
+public final class ExplicitTracer {
+  /** Flags that children inherit from their parent's context. */
+  static final long INHERITED_FLAGS =
+      SpanId.FLAG_DEBUG | SpanId.FLAG_SAMPLING_SET | SpanId.FLAG_SAMPLED;
+
+  final Endpoint endpoint;
+  final IdGenerator idGenerator;
+  final Sampler sampler;
+  final AnnotationSubmitter.Clock clock;
+  final Reporter<Span> reporter;
+  final boolean traceId128Bit;
+  final SpanLimits spanLimits;
+
+  ExplicitTracer(Endpoint endpoint, IdGenerator idGenerator, Sampler sampler,
+      AnnotationSubmitter.Clock clock, Reporter<Span> reporter, boolean traceId128Bit,
+      SpanLimits spanLimits) {
+    this.endpoint = checkNotNull(endpoint, "endpoint");
+    this.idGenerator = checkNotNull(idGenerator, "idGenerator");
+    this.sampler = checkNotNull(sampler, "sampler");
+    this.clock = checkNotNull(clock, "clock");
+    this.reporter = checkNotNull(reporter, "reporter");
+    this.traceId128Bit = traceId128Bit;
+    this.spanLimits = checkNotNull(spanLimits, "spanLimits");
+  }
+
+  /** Returns the context of a new trace, including the sampler's decision. */
+  public SpanId newTrace() {
+    long traceId = idGenerator.nextId();
+    return newTrace(traceId, sampler.isSampled(traceId), idGenerator, traceId128Bit);
+  }
+
+  /**
+   * Returns the context extracted from an incoming request, deciding whether to sample it if the
+   * caller didn't.
+   */
+  public SpanId joinTrace(SpanId extracted) {
+    if (extracted.sampled() != null) return extracted;
+    return extracted.toBuilder().sampled(sampler.isSampled(extracted.traceId)).build();
+  }
+
+  /** Returns the context of a child span, which keeps the parent's sampling decision. */
+  public SpanId newChild(SpanId parent) {
+    return parent.newChild(idGenerator.nextId(), parent.flags & INHERITED_FLAGS);
+  }
+
+  /**
+   * Returns an unstarted span for the context, or null if the context isn't sampled.
+   *
+   * @param name lowercase name of the span, like an http method or rpc method name.
+   */
+  @Nullable
+  public Span newSpan(SpanId context, String name) {
+    Boolean sampled = context.sampled();
+    if (sampled == null) sampled = sampler.isSampled(context.traceId);
+    if (!sampled) return null;
+    return context.toSpan().setName(name);
+  }
+
+  /**
+   * Starts the span now, with an annotation like {@link Constants#CLIENT_SEND} or {@link
+   * Constants#SERVER_RECV}.
+   */
+  public void start(Span span, String annotation) {
+    start(span, annotation, endpoint, clock);
+  }
+
+  /** Like {@link #newSpan}, except the span is a local span of the component, started now. */
+  @Nullable
+  public Span startLocalSpan(SpanId context, String component, String operation) {
+    Span span = newSpan(context, operation);
+    if (span == null) return null;
+    startLocal(span, component, clock.currentTimeMicroseconds(), endpoint);
+    span.startTick = System.nanoTime();
+    return span;
+  }
+
+  /** Associates an event that explains latency with the current time. */
+  public void annotate(Span span, String value) {
+    annotate(span, currentTimeMicroseconds(span, clock), value, endpoint, spanLimits);
+  }
+
+  /** Associates an event that explains latency with a timestamp in epoch microseconds. */
+  public void annotate(Span span, String value, long timestamp) {
+    annotate(span, timestamp, value, endpoint, spanLimits);
+  }
+
+  /** Tags the span with a key, like "http.path", and its value. */
+  public void tag(Span span, String key, String value) {
+    tag(span, key, value, endpoint, spanLimits);
+  }
+
+  /**
+   * Records the network context of the remote side, with a key like {@link
+   * Constants#SERVER_ADDR}.
+   */
+  public void address(Span span, String key, Endpoint endpoint) {
+    appendAddress(span, key, endpoint);
+  }
+
+  /**
+   * Finishes the span now, with an annotation like {@link Constants#CLIENT_RECV} or {@link
+   * Constants#SERVER_SEND}, and reports it.
+   */
+  public void finish(Span span, String annotation) {
+    finish(span, annotation, endpoint, clock, reporter);
+  }
+
+  /** Finishes a local span, assigning the most precise duration possible, and reports it. */
+  public void finishLocalSpan(Span span) {
+    finishLocal(span, localDuration(span, clock), reporter);
+  }
+
+  /** Finishes a local span, which took {@code duration} microseconds, and reports it. */
+  public void finishLocalSpan(Span span, long duration) {
+    finishLocal(span, duration, reporter);
+  }
+
+  @Override
+  public String toString() {
+    return "ExplicitTracer{endpoint=" + endpoint + ", sampler=" + sampler + "}";
+  }
+
+  // The code below is shared with the thread-bound tracers, which pass their own configuration.
+
+  static SpanId newTrace(long traceId, @Nullable Boolean sampled, IdGenerator idGenerator,
+      boolean traceId128Bit) {
+    return SpanId.builder()
+        .traceIdHigh(traceId128Bit ? idGenerator.nextId() : 0L)
+        .traceId(traceId)
+        .spanId(traceId)
+        .sampled(sampled)
+        .build();
+  }
+
+  /** Returns the context of a child of the span, or of a new trace when there's no parent. */
+  static SpanId nextContext(@Nullable Span parentSpan, IdGenerator idGenerator,
+      boolean traceId128Bit) {
+    long newSpanId = idGenerator.nextId();
+    SpanId.Builder builder = SpanId.builder().spanId(newSpanId);
+    if (parentSpan == null) { // new trace
+      if (traceId128Bit) builder.traceIdHigh(idGenerator.nextId());
+      return builder.traceId(newSpanId).build();
+    }
+    SpanId parent = parentSpan.context;
+    if (parent != null) return parent.newChild(newSpanId); // shares hex ids with the parent
+    return builder.traceIdHigh(parentSpan.getTrace_id_high())
+        .traceId(parentSpan.getTrace_id())
+        .parentId(parentSpan.getId()).build();
+  }
+
+  static long currentTimeMicroseconds(Span span, AnnotationSubmitter.Clock clock) {
+    return currentTimeMicroseconds(span.getTimestamp(), span.startTick, clock);
+  }
+
+  /** Derives the time from the span's start tick, so that it is consistent with its duration. */
+  static long currentTimeMicroseconds(@Nullable Long startTimestamp, @Nullable Long startTick,
+      AnnotationSubmitter.Clock clock) {
+    return startTimestamp != null && startTick != null
+        ? startTimestamp + (System.nanoTime() - startTick) / 1000
+        : clock.currentTimeMicroseconds();
+  }
+
+  /** Adds an annotation that corresponds with {@link Span#getTimestamp()}. */
+  static void start(Span span, String annotationName, Endpoint endpoint,
+      AnnotationSubmitter.Clock clock) {
+    Annotation annotation =
+        Annotation.create(clock.currentTimeMicroseconds(), annotationName, endpoint);
+    span.setTimestamp(annotation.timestamp);
+    span.appendAnnotation(annotation);
+    span.startTick = System.nanoTime(); // embezzle start tick into an internal field.
+  }
+
+  /** Like {@link #start(Span, String, Endpoint, AnnotationSubmitter.Clock)}, at a given time. */
+  static void start(Span span, String annotationName, long timestamp, Endpoint endpoint) {
+    span.setTimestamp(timestamp);
+    span.appendAnnotation(Annotation.create(timestamp, annotationName, endpoint));
+  }
+
+  static void startLocal(Span span, String component, long timestamp, Endpoint endpoint) {
+    span.setTimestamp(timestamp);
+    span.addToBinary_annotations(BinaryAnnotation.create(LOCAL_COMPONENT, component, endpoint));
+  }
+
+  static void annotate(Span span, long timestamp, String value, Endpoint endpoint,
+      SpanLimits spanLimits) {
+    spanLimits.annotate(span, timestamp, value, endpoint);
+  }
+
+  static void tag(Span span, String key, String value, Endpoint endpoint,
+      SpanLimits spanLimits) {
+    spanLimits.tag(span, key, value, endpoint);
+  }
+
+  /**
+   * Until a naming function is added, this coerces null {@code serviceName} to "unknown", as
+   * that's zipkin's convention.
+   */
+  static void appendAddress(Span span, String key, Endpoint endpoint) {
+    if (endpoint.service_name == null) {
+      endpoint = endpoint.toBuilder().serviceName("unknown").build();
+    }
+    span.appendBinaryAnnotation(BinaryAnnotation.address(key, endpoint));
+  }
+
+  /**
+   * Adds an annotation that corresponds with {@link Span#getDuration()}, and reports the span
+   * as-is: any conversion is the reporter's responsibility.
+   */
+  static void finish(Span span, String annotationName, Endpoint endpoint,
+      AnnotationSubmitter.Clock clock, Reporter<Span> reporter) {
+    long endTimestamp = currentTimeMicroseconds(span.getTimestamp(), span.startTick, clock);
+    finish(span, annotationName, endTimestamp, endpoint, reporter);
+  }
+
+  /** Like {@link #finish(Span, String, Endpoint, AnnotationSubmitter.Clock, Reporter)}, at a given time. */
+  static void finish(Span span, String annotationName, long timestamp, Endpoint endpoint,
+      Reporter<Span> reporter) {
+    Long startTimestamp = span.getTimestamp();
+    span.appendAnnotation(Annotation.create(timestamp, annotationName, endpoint));
+    if (startTimestamp != null) {
+      span.setDuration(Math.max(1L, timestamp - startTimestamp));
+    }
+    reporter.report(span);
+  }
+
+  static long localDuration(Span span, AnnotationSubmitter.Clock clock) {
+    long endTick = System.nanoTime();
+    Long startTick = span.startTick;
+    if (startTick != null) {
+      return Math.max(1L, (endTick - startTick) / 1000L);
+    }
+    return Math.max(1L, clock.currentTimeMicroseconds() - span.getTimestamp());
+  }
+
+  static void finishLocal(Span span, long duration, Reporter<Span> reporter) {
+    span.setDuration(duration);
+    reporter.report(span);
+  }
+}
@@ -6,11 +6,8 @@ import java.io.Closeable;
 import java.io.Flushable;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 
@@ -26,7 +23,7 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 public abstract class FlushingSpanCollector implements SpanCollector, Flushable, Closeable {
 
   private final SpanCollectorMetricsHandler metrics;
-  private final BlockingQueue<Span> pending = new LinkedBlockingQueue<Span>(1000);
+  private final SpanQueue pending = new SpanQueue(1000, SpanQueue.onePercentOfMemory());
   @Nullable // for testing
   private final Flusher flusher;
 
@@ -39,7 +36,8 @@ public abstract class FlushingSpanCollector implements SpanCollector, Flushable,
   }
 
   /**
-   * Queues the span for collection, or drops it if the queue is full.
+   * Queues the span for collection, or drops it if the queue is full, either by count or by the
+   * estimated size of its spans.
    *
    * @param span Span, should not be <code>null</code>.
    */
@@ -58,7 +56,7 @@ public abstract class FlushingSpanCollector implements SpanCollector, Flushable,
   public void flush() {
     if (pending.isEmpty()) return;
     List<Span> drained = new ArrayList<Span>(pending.size());
-    pending.drainTo(drained);
+    pending.drainTo(drained, Integer.MAX_VALUE);
     if (drained.isEmpty()) return;
 
     int spanCount = drained.size();
@@ -115,7 +113,7 @@ public abstract class FlushingSpanCollector implements SpanCollector, Flushable,
   public void close() {
     if (flusher != null) flusher.scheduler.shutdown();
     // throw any outstanding spans on the floor
-    int dropped = pending.drainTo(new LinkedList<Span>());
+    int dropped = pending.clear();
     metrics.incrementDroppedSpans(dropped);
   }
 }
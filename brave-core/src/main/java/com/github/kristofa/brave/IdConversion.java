@@ -30,6 +30,35 @@ public class IdConversion {
     return Long.toHexString(id);
   }
 
+  /**
+   * Returns the 16 character lower-hex representation of the id, padded with leading zeros, as
+   * zipkin does.
+   *
+   * @since 3.16
+   * @see SpanId#spanIdString()
+   */
+  public static String toLowerHex(long id) {
+    char[] result = new char[16];
+    SpanId.writeHexLong(result, 0, id);
+    return new String(result);
+  }
+
+  /**
+   * Writes the 16 character lower-hex representation of the id into the buffer at the offset,
+   * padded with leading zeros. Use this to build a larger value, such as a log line, without
+   * allocating a string per id.
+   *
+   * @throws ArrayIndexOutOfBoundsException if fewer than 16 characters remain after the offset
+   * @since 3.16
+   */
+  public static void writeLowerHex(long id, char[] buffer, int offset) {
+    if (offset < 0 || offset + 16 > buffer.length) {
+      throw new ArrayIndexOutOfBoundsException(
+          "16 characters needed at offset " + offset + " of buffer.length " + buffer.length);
+    }
+    SpanId.writeHexLong(buffer, offset, id);
+  }
+
   /**
    * Parses a 1 to 32 character lower-hex string with no prefix into an unsigned long, tossing any
    * bits higher than 64.
@@ -0,0 +1,147 @@
+package com.github.kristofa.brave;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+import static zipkin.internal.Util.checkArgument;
+
+/**
+ * Generates the random 64-bit numbers used as trace and span IDs.
+ *
+ * <p>A root span needs one ID for a 64-bit trace, and two for a 128-bit trace. Every child span
+ * needs one. As these are generated on every request thread, the {@link #create() default
+ * generator} keeps its state per-thread, so that threads never contend.
+ *
+ * @see Brave.Builder#idGenerator(IdGenerator)
+ */
+// abstract, not an interface, so that it can hold the static factory methods on Java 6
+public abstract class IdGenerator {
+
+  /** Returns a random number to use as a trace or span ID. */
+  public abstract long nextId();
+
+  /**
+   * Returns the default generator, which keeps a separate SplitMix64 sequence per thread. IDs are
+   * never zero.
+   *
+   * <p>Unlike a shared {@link Random}, generating an ID never compares-and-sets a shared seed.
+   */
+  public static IdGenerator create() {
+    return ThreadLocalIdGenerator.INSTANCE;
+  }
+
+  /**
+   * Returns a generator that calls {@link Random#nextLong()}. This is how IDs were generated prior
+   * to 3.16. Note that a shared {@link Random} is a point of contention for concurrent requests.
+   */
+  public static IdGenerator create(Random random) {
+    return new RandomIdGenerator(random);
+  }
+
+  /**
+   * Returns a generator that takes IDs from the delegate in batches, buffering them per-thread.
+   * This amortizes the cost of a generator that is expensive or contended per call, such as one
+   * backed by a {@link java.security.SecureRandom}.
+   *
+   * @param batchSize count of IDs to take from the delegate at a time.
+   */
+  public static IdGenerator prefetching(IdGenerator delegate, int batchSize) {
+    checkArgument(batchSize > 0, "batchSize should be positive: was %s", batchSize);
+    return new PrefetchingIdGenerator(delegate, batchSize);
+  }
+
+  static final class RandomIdGenerator extends IdGenerator {
+    final Random random;
+
+    RandomIdGenerator(Random random) {
+      this.random = checkNotNull(random, "random");
+    }
+
+    @Override public long nextId() {
+      return random.nextLong();
+    }
+
+    @Override public String toString() {
+      return "RandomIdGenerator(" + random + ")";
+    }
+  }
+
+  /**
+   * Each thread has its own SplitMix64 state, seeded from a shared sequence only when the thread
+   * first generates an ID. This is the same approach as {@code java.util.SplittableRandom}, and
+   * {@code java.util.concurrent.ThreadLocalRandom}, which aren't available on Java 6.
+   */
+  static final class ThreadLocalIdGenerator extends IdGenerator {
+    static final IdGenerator INSTANCE = new ThreadLocalIdGenerator();
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /** Spreads thread seeds apart, so sequences of different threads don't overlap. */
+    static final AtomicLong SEEDER =
+        new AtomicLong(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime())
+            ^ new Random().nextLong());
+
+    static final ThreadLocal<long[]> STATE = new ThreadLocal<long[]>() {
+      @Override protected long[] initialValue() {
+        return new long[] {mix64(SEEDER.getAndAdd(GOLDEN_GAMMA << 1))};
+      }
+    };
+
+    @Override public long nextId() {
+      long[] state = STATE.get();
+      long result;
+      do {
+        result = mix64(state[0] += GOLDEN_GAMMA);
+      } while (result == 0L);
+      return result;
+    }
+
+    /** Stafford's variant 13 of the MurmurHash3 64-bit finalizer, as used in SplitMix64. */
+    static long mix64(long z) {
+      z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+      z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+      return z ^ (z >>> 31);
+    }
+
+    @Override public String toString() {
+      return "ThreadLocalIdGenerator";
+    }
+  }
+
+  static final class PrefetchingIdGenerator extends IdGenerator {
+    final IdGenerator delegate;
+    final int batchSize;
+    final ThreadLocal<Batch> batch = new ThreadLocal<Batch>();
+
+    PrefetchingIdGenerator(IdGenerator delegate, int batchSize) {
+      this.delegate = checkNotNull(delegate, "delegate");
+      this.batchSize = batchSize;
+    }
+
+    @Override public long nextId() {
+      Batch current = batch.get();
+      if (current == null) batch.set(current = new Batch(batchSize));
+      if (current.position == current.ids.length) {
+        for (int i = 0; i < current.ids.length; i++) {
+          current.ids[i] = delegate.nextId();
+        }
+        current.position = 0;
+      }
+      return current.ids[current.position++];
+    }
+
+    @Override public String toString() {
+      return "PrefetchingIdGenerator(" + delegate + ", " + batchSize + ")";
+    }
+
+    static final class Batch {
+      final long[] ids;
+      int position;
+
+      Batch(int batchSize) {
+        this.ids = new long[batchSize];
+        this.position = batchSize; // empty until first use
+      }
+    }
+  }
+}
@@ -1,8 +1,5 @@
 package com.github.kristofa.brave;
 
-import java.util.Deque;
-import java.util.concurrent.LinkedBlockingDeque;
-
 import com.github.kristofa.brave.internal.Util;
 import com.twitter.zipkin.gen.Endpoint;
 import com.twitter.zipkin.gen.Span;
@@ -28,11 +25,17 @@ public final class InheritableServerClientAndLocalSpanState implements ServerCli
 
     private final InheritableThreadLocal<Span> currentClientSpan = new InheritableThreadLocal<Span>();
 
-    private final InheritableThreadLocal<Deque<Span>> currentLocalSpan =
-            new InheritableThreadLocal<Deque<Span>>() {
+    private final InheritableThreadLocal<LocalSpanStack> currentLocalSpan =
+            new InheritableThreadLocal<LocalSpanStack>() {
+                @Override
+                protected LocalSpanStack initialValue() {
+                    return new LocalSpanStack();
+                }
+
+                /** Child threads start from a copy, so they can't pop the parent's spans. */
                 @Override
-                protected Deque<Span> initialValue() {
-                    return new LinkedBlockingDeque<Span>();
+                protected LocalSpanStack childValue(LocalSpanStack parentValue) {
+                    return parentValue.copy();
                 }
             };
 
@@ -81,7 +84,7 @@ public final class InheritableServerClientAndLocalSpanState implements ServerCli
 
     @Override
     public Span getCurrentLocalSpan() {
-        return currentLocalSpan.get().peekFirst();
+        return currentLocalSpan.get().peek();
     }
 
     /**
@@ -92,12 +95,11 @@ public final class InheritableServerClientAndLocalSpanState implements ServerCli
      */
     @Override
     public void setCurrentLocalSpan(Span span) {
-        Deque<Span> deque = currentLocalSpan.get();
+        LocalSpanStack stack = currentLocalSpan.get();
         if (span == null) {
-            // pop to remove
-            deque.pollFirst();
+            stack.pop();
         } else {
-            deque.addFirst(span);
+            stack.push(span);
         }
     }
 
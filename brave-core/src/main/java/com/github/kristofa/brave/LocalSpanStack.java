@@ -0,0 +1,63 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.Nullable;
+import com.twitter.zipkin.gen.Span;
+
+/**
+ * Stack of nested local spans, confined to a single thread.
+ *
+ * <p>Spans are kept in an array that grows as needed, so nesting doesn't allocate once the thread
+ * has reached its usual depth. A child thread gets a {@link #copy() copy}, so that neither thread
+ * can pop the other's spans.
+ */
+final class LocalSpanStack {
+    static final int INITIAL_CAPACITY = 4;
+
+    private Span[] spans;
+    private int size;
+
+    LocalSpanStack() {
+        this(new Span[INITIAL_CAPACITY], 0);
+    }
+
+    private LocalSpanStack(Span[] spans, int size) {
+        this.spans = spans;
+        this.size = size;
+    }
+
+    @Nullable
+    Span peek() {
+        return size == 0 ? null : spans[size - 1];
+    }
+
+    void push(Span span) {
+        if (size == spans.length) {
+            Span[] grown = new Span[spans.length * 2];
+            System.arraycopy(spans, 0, grown, 0, size);
+            spans = grown;
+        }
+        spans[size++] = span;
+    }
+
+    /** Removes the top of the stack, if any. */
+    void pop() {
+        if (size == 0) return;
+        spans[--size] = null; // don't retain finished spans
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Returns an independent stack holding the same spans. */
+    LocalSpanStack copy() {
+        Span[] copy = new Span[Math.max(INITIAL_CAPACITY, size)];
+        System.arraycopy(spans, 0, copy, 0, size);
+        return new LocalSpanStack(copy, size);
+    }
+
+    @Override
+    public String toString() {
+        return "LocalSpanStack{size=" + size + "}";
+    }
+}
@@ -3,15 +3,12 @@ package com.github.kristofa.brave;
 import com.github.kristofa.brave.SpanAndEndpoint.LocalSpanAndEndpoint;
 import com.github.kristofa.brave.internal.Nullable;
 import com.google.auto.value.AutoValue;
-import com.twitter.zipkin.gen.BinaryAnnotation;
 import com.twitter.zipkin.gen.Span;
 import zipkin.Constants;
 
 import java.util.Random;
 import zipkin.reporter.Reporter;
 
-import static zipkin.Constants.LOCAL_COMPONENT;
-
 /**
  * Local tracer is designed for in-process activity that explains latency.
  *
@@ -38,7 +35,7 @@ import static zipkin.Constants.LOCAL_COMPONENT;
 public abstract class LocalTracer extends AnnotationSubmitter {
 
     static Builder builder() {
-        return new AutoValue_LocalTracer.Builder();
+        return new AutoValue_LocalTracer.Builder().spanLimits(SpanLimits.UNLIMITED);
     }
 
     // visible for testing
@@ -49,9 +46,9 @@ public abstract class LocalTracer extends AnnotationSubmitter {
     @Override
     abstract LocalSpanAndEndpoint spanAndEndpoint();
 
-    abstract Random randomGenerator();
+    abstract IdGenerator idGenerator();
 
-    abstract Reporter<zipkin.Span> reporter();
+    abstract Reporter<Span> spanReporter();
 
     abstract boolean allowNestedLocalSpans();
 
@@ -60,6 +57,9 @@ public abstract class LocalTracer extends AnnotationSubmitter {
     @Override
     abstract AnnotationSubmitter.Clock clock();
 
+    @Override
+    abstract SpanLimits spanLimits();
+
     abstract boolean traceId128Bit();
 
     @AutoValue.Builder
@@ -67,9 +67,17 @@ public abstract class LocalTracer extends AnnotationSubmitter {
 
         abstract Builder spanAndEndpoint(LocalSpanAndEndpoint spanAndEndpoint);
 
-        abstract Builder randomGenerator(Random randomGenerator);
+        final Builder randomGenerator(Random randomGenerator) {
+            return idGenerator(IdGenerator.create(randomGenerator));
+        }
+
+        abstract Builder idGenerator(IdGenerator idGenerator);
 
-        abstract Builder reporter(Reporter<zipkin.Span> reporter);
+        final Builder reporter(Reporter<zipkin.Span> reporter) {
+            return spanReporter(new ZipkinReporterAdapter(reporter));
+        }
+
+        abstract Builder spanReporter(Reporter<Span> spanReporter);
 
         abstract Builder allowNestedLocalSpans(boolean allowNestedLocalSpans);
 
@@ -79,6 +87,8 @@ public abstract class LocalTracer extends AnnotationSubmitter {
 
         abstract Builder traceId128Bit(boolean traceId128Bit);
 
+        abstract Builder spanLimits(SpanLimits spanLimits);
+
         abstract LocalTracer build();
 
     }
@@ -94,24 +104,12 @@ public abstract class LocalTracer extends AnnotationSubmitter {
     public SpanId startNewSpan(String component, String operation) {
         SpanId spanId = startNewSpan(component, operation, clock().currentTimeMicroseconds());
         if (spanId == null) return null;
-        Span span = spanAndEndpoint().span();
-        synchronized (span) {
-            span.startTick = System.nanoTime(); // embezzle start tick into an internal field.
-        }
+        spanAndEndpoint().span().startTick = System.nanoTime(); // embezzle start tick into an internal field.
         return spanId;
     }
 
-    private SpanId getNewSpanId() {
-        Span parentSpan = getNewSpanParent();
-        long newSpanId = randomGenerator().nextLong();
-        SpanId.Builder builder = SpanId.builder().spanId(newSpanId);
-        if (parentSpan == null) { // new trace
-            if (traceId128Bit()) builder.traceIdHigh(randomGenerator().nextLong());
-            return builder.traceId(newSpanId).build();
-        }
-        return builder.traceIdHigh(parentSpan.getTrace_id_high())
-            .traceId(parentSpan.getTrace_id())
-            .parentId(parentSpan.getId()).build();
+    private SpanId getNewSpanId(ServerClientAndLocalSpanState state) {
+        return ExplicitTracer.nextContext(getNewSpanParent(state), idGenerator(), traceId128Bit());
     }
 
     /**
@@ -127,7 +125,11 @@ public abstract class LocalTracer extends AnnotationSubmitter {
      */
     @Nullable
     Span getNewSpanParent() {
-        ServerClientAndLocalSpanState state = spanAndEndpoint().state();
+        return getNewSpanParent(spanAndEndpoint().state());
+    }
+
+    @Nullable
+    private Span getNewSpanParent(ServerClientAndLocalSpanState state) {
         Span parentSpan = null;
         if (allowNestedLocalSpans()) {
             parentSpan = state.getCurrentLocalSpan();
@@ -154,27 +156,28 @@ public abstract class LocalTracer extends AnnotationSubmitter {
      */
     public SpanId startNewSpan(String component, String operation, long timestamp) {
 
-        Boolean sample = spanAndEndpoint().state().sample();
+        ServerClientAndLocalSpanState state =
+            ThreadContextServerClientAndLocalSpanState.bind(spanAndEndpoint().state());
+
+        Boolean sample = state.sample();
         if (Boolean.FALSE.equals(sample)) {
-            spanAndEndpoint().state().setCurrentLocalSpan(null);
+            state.setCurrentLocalSpan(null);
             return null;
         }
 
-        SpanId newSpanId = getNewSpanId();
+        SpanId newSpanId = getNewSpanId(state);
         if (sample == null) {
             // No sample indication is present.
             if (!traceSampler().isSampled(newSpanId.traceId)) {
-                spanAndEndpoint().state().setCurrentLocalSpan(null);
+                state.setCurrentLocalSpan(null);
                 return null;
             }
         }
 
         Span newSpan = newSpanId.toSpan();
         newSpan.setName(operation);
-        newSpan.setTimestamp(timestamp);
-        newSpan.addToBinary_annotations(
-            BinaryAnnotation.create(LOCAL_COMPONENT, component, spanAndEndpoint().endpoint()));
-        spanAndEndpoint().state().setCurrentLocalSpan(newSpan);
+        ExplicitTracer.startLocal(newSpan, component, timestamp, spanAndEndpoint().endpoint());
+        state.setCurrentLocalSpan(newSpan);
         return newSpanId;
     }
 
@@ -182,22 +185,10 @@ public abstract class LocalTracer extends AnnotationSubmitter {
      * Completes the span, assigning the most precise duration possible.
      */
     public void finishSpan() {
-        long endTick = System.nanoTime();
-
         Span span = spanAndEndpoint().span();
         if (span == null) return;
 
-        Long startTick;
-        synchronized (span) {
-            startTick = span.startTick;
-        }
-        final long duration;
-        if (startTick != null) {
-            duration = Math.max(1L, (endTick - startTick) / 1000L);
-        } else {
-            duration = Math.max(1L, clock().currentTimeMicroseconds() - span.getTimestamp());
-        }
-        internalFinishSpan(span, duration);
+        internalFinishSpan(span, ExplicitTracer.localDuration(span, clock()));
     }
 
     /**
@@ -211,10 +202,7 @@ public abstract class LocalTracer extends AnnotationSubmitter {
     }
 
     private void internalFinishSpan(Span span, long duration) {
-        synchronized (span) {
-            span.setDuration(duration);
-        }
-        reporter().report(span.toZipkin());
+        ExplicitTracer.finishLocal(span, duration, spanReporter());
         spanAndEndpoint().state().setCurrentLocalSpan(null);
     }
 
@@ -0,0 +1,87 @@
+package com.github.kristofa.brave;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+import static zipkin.internal.Util.checkArgument;
+
+/**
+ * This sampler caps the count of new traces per second, regardless of how much traffic the node
+ * receives. This is appropriate when traffic varies a lot, as a fixed rate either sends too much
+ * data at peak, or too little when idle.
+ *
+ * <p>Like {@link CountingSampler}, the decision doesn't consider the trace id, so it is only
+ * appropriate where the decision is made once, ex. {@link ServerTracer#setStateUnknown(String)}.
+ *
+ * <h3>Implementation</h3>
+ *
+ * <p>This is a token bucket, implemented as the Generic Cell Rate Algorithm: instead of counting
+ * tokens, it tracks the time when the bucket would next be full, and advances that by one interval
+ * ({@code 1s / tracesPerSecond}) for each trace sampled. A trace is sampled when that time is no
+ * further ahead than the burst the bucket allows. The time is updated with a compare-and-set, so
+ * concurrent requests never block.
+ *
+ * <p>The bucket holds a tenth of the per-second budget (at least one trace). This smooths sampling
+ * within the second: a burst of requests can't use the whole second's budget and leave nothing for
+ * requests that follow. Over any period, at most {@code tracesPerSecond} traces per second are
+ * sampled, plus one bucket.
+ */
+public final class RateLimitingSampler extends Sampler {
+  static final long NANOS_PER_SECOND = 1000000000L;
+
+  /**
+   * @param tracesPerSecond 0 means never sample. Otherwise, the maximum count of new traces to
+   * sample per second.
+   */
+  public static Sampler create(int tracesPerSecond) {
+    return create(tracesPerSecond, Ticker.SYSTEM);
+  }
+
+  static Sampler create(int tracesPerSecond, Ticker ticker) {
+    checkArgument(tracesPerSecond >= 0, "tracesPerSecond should not be negative: was %s",
+        tracesPerSecond);
+    if (tracesPerSecond == 0) return NEVER_SAMPLE;
+    return new RateLimitingSampler(tracesPerSecond, ticker);
+  }
+
+  private final int tracesPerSecond;
+  private final Ticker ticker;
+  /** Nanoseconds consumed by each sampled trace */
+  private final long interval;
+  /** How far ahead of now the full time can be, while still accepting a trace */
+  private final long tolerance;
+  /** The ticker value when the bucket will be full, were nothing else sampled. */
+  private final AtomicLong fullAt;
+
+  RateLimitingSampler(int tracesPerSecond, Ticker ticker) {
+    this.tracesPerSecond = tracesPerSecond;
+    this.ticker = checkNotNull(ticker, "ticker");
+    this.interval = NANOS_PER_SECOND / tracesPerSecond;
+    int burst = Math.max(1, tracesPerSecond / 10);
+    this.tolerance = interval * (burst - 1);
+    this.fullAt = new AtomicLong(ticker.read());
+  }
+
+  @Override
+  public boolean isSampled(long traceIdIgnored) {
+    long now = ticker.read();
+    while (true) {
+      long current = fullAt.get();
+      // compare using subtraction, as nanoTime can overflow
+      long ahead = current - now;
+      if (ahead > tolerance) return false; // bucket is empty
+      long next = (ahead < 0 ? now : current) + interval;
+      if (fullAt.compareAndSet(current, next)) return true;
+    }
+  }
+
+  /** Returns the maximum count of new traces sampled per second. */
+  public int tracesPerSecond() {
+    return tracesPerSecond;
+  }
+
+  @Override
+  public String toString() {
+    return "RateLimitingSampler(" + tracesPerSecond + ")";
+  }
+}
@@ -1,5 +1,6 @@
 package com.github.kristofa.brave;
 
+import com.github.kristofa.brave.internal.Nullable;
 import com.twitter.zipkin.gen.Span;
 import java.util.logging.Logger;
 
@@ -30,6 +31,19 @@ public class ServerRequestInterceptor {
      * @param adapter The adapter translates implementation specific details.
      */
     public void handle(ServerRequestAdapter adapter) {
+        handle(adapter, null);
+    }
+
+    /**
+     * Like {@link #handle(ServerRequestAdapter)}, except the sampler is specific to the request. For
+     * example, a sampler chosen by a rule matching the request path.
+     *
+     * @param adapter The adapter translates implementation specific details.
+     * @param sampler decides whether to trace when the caller didn't. If null, the {@link
+     * Brave.Builder#traceSampler(Sampler) trace sampler} decides.
+     */
+    public void handle(ServerRequestAdapter adapter, @Nullable Sampler sampler) {
+        if (sampler == null) sampler = serverTracer.traceSampler();
         serverTracer.clearCurrentSpan();
         final TraceData traceData = adapter.getTraceData();
 
@@ -43,12 +57,9 @@ public class ServerRequestInterceptor {
             boolean clientOriginatedTrace = spanId != null && Boolean.TRUE.equals(sample);
             if (spanId != null) {
                 // If the sampled flag was left unset, we need to make the decision here
-                if (spanId.sampled() == null) {
-                    spanId = spanId.toBuilder()
-                        .sampled(serverTracer.traceSampler().isSampled(spanId.traceId))
-                        .build();
-                }
-                if (!spanId.sampled()) {
+                Boolean sampled = spanId.sampled();
+                if (sampled == null) sampled = sampler.isSampled(spanId.traceId);
+                if (!sampled) {
                     LOGGER.fine("Received span information as part of request, but didn't sample.");
                     serverTracer.setStateNoTracing();
                 } else {
@@ -57,22 +68,20 @@ public class ServerRequestInterceptor {
                 }
             } else {
                 LOGGER.fine("Received no span state.");
-                serverTracer.setStateUnknown(adapter.getSpanName());
+                serverTracer.setStateUnknown(adapter.getSpanName(), sampler);
             }
             serverTracer.setServerReceived();
+            Span span = serverTracer.spanAndEndpoint().span();
+            if (span == null) return; // unsampled: don't evaluate request annotations
             // In the RPC span model, the client owns the timestamp and duration of the span. If we
             // were propagated an id, we can assume that we shouldn't report timestamp or duration,
             // rather let the client do that. Worst case we were propagated an unreported ID and
             // Zipkin backfills timestamp and duration.
             if (clientOriginatedTrace) {
-                Span span = serverTracer.spanAndEndpoint().span();
-                synchronized (span) {
-                    span.setTimestamp(null);
-                    span.startTick = null;
-                }
+                span.setTimestamp(null);
+                span.startTick = null;
             }
-            for(KeyValueAnnotation annotation : adapter.requestAnnotations())
-            {
+            for (KeyValueAnnotation annotation : adapter.requestAnnotations()) {
                 serverTracer.submitBinaryAnnotation(annotation.getKey(), annotation.getValue());
             }
         }
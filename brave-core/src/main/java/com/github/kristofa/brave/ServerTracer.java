@@ -4,6 +4,7 @@ import com.github.kristofa.brave.SpanAndEndpoint.ServerSpanAndEndpoint;
 import com.github.kristofa.brave.internal.Nullable;
 import com.google.auto.value.AutoValue;
 import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
 import java.util.Random;
 import zipkin.Constants;
 import zipkin.reporter.Reporter;
@@ -29,16 +30,18 @@ import static com.github.kristofa.brave.internal.Util.checkNotBlank;
 public abstract class ServerTracer extends AnnotationSubmitter {
 
     public static Builder builder() {
-        return new AutoValue_ServerTracer.Builder();
+        return new AutoValue_ServerTracer.Builder().spanLimits(SpanLimits.UNLIMITED);
     }
 
     @Override
     abstract ServerSpanAndEndpoint spanAndEndpoint();
-    abstract Random randomGenerator();
-    abstract Reporter<zipkin.Span> reporter();
+    abstract IdGenerator idGenerator();
+    abstract Reporter<Span> spanReporter();
     abstract Sampler traceSampler();
     @Override
     abstract AnnotationSubmitter.Clock clock();
+    @Override
+    abstract SpanLimits spanLimits();
     abstract boolean traceId128Bit();
 
     @AutoValue.Builder
@@ -52,17 +55,41 @@ public abstract class ServerTracer extends AnnotationSubmitter {
 
         /**
          * Used to generate new trace/span ids.
+         *
+         * @deprecated use {@link #idGenerator(IdGenerator)}, as a shared {@link Random} is a
+         * point of contention.
+         */
+        @Deprecated
+        public final Builder randomGenerator(Random randomGenerator) {
+            return idGenerator(IdGenerator.create(randomGenerator));
+        }
+
+        /**
+         * Used to generate new trace/span ids.
+         */
+        public abstract Builder idGenerator(IdGenerator idGenerator);
+
+        /**
+         * Finished spans are converted to zipkin spans on the calling thread before being reported.
+         *
+         * @see #spanReporter(Reporter)
          */
-        public abstract Builder randomGenerator(Random randomGenerator);
+        public final Builder reporter(Reporter<zipkin.Span> reporter) {
+            return spanReporter(new ZipkinReporterAdapter(reporter));
+        }
 
-        public abstract Builder reporter(Reporter<zipkin.Span> reporter);
+        /**
+         * Finished spans are reported as-is, for example to an {@link AsyncSpanReporter} which
+         * converts them on a separate thread.
+         */
+        public abstract Builder spanReporter(Reporter<Span> spanReporter);
 
         /**
          * @deprecated use {@link #reporter(Reporter)}
          */
         @Deprecated
         public final Builder spanCollector(SpanCollector spanCollector) {
-            return reporter(new SpanCollectorReporterAdapter(spanCollector));
+            return spanReporter(new SpanCollectorReporterAdapter(spanCollector));
         }
 
         public abstract Builder traceSampler(Sampler sampler);
@@ -71,6 +98,8 @@ public abstract class ServerTracer extends AnnotationSubmitter {
 
         abstract Builder traceId128Bit(boolean traceId128Bit);
 
+        abstract Builder spanLimits(SpanLimits spanLimits);
+
         public abstract ServerTracer build();
     }
 
@@ -123,17 +152,18 @@ public abstract class ServerTracer extends AnnotationSubmitter {
      * @param spanName The name of our current request/span.
      */
     public void setStateUnknown(String spanName) {
+        setStateUnknown(spanName, traceSampler());
+    }
+
+    /** Like {@link #setStateUnknown(String)}, except the sampler is specific to the request. */
+    void setStateUnknown(String spanName, Sampler sampler) {
         checkNotBlank(spanName, "Null or blank span name");
-        long newTraceId = randomGenerator().nextLong();
-        if (!traceSampler().isSampled(newTraceId)) {
+        long newTraceId = idGenerator().nextId();
+        if (!sampler.isSampled(newTraceId)) {
             spanAndEndpoint().state().setCurrentServerSpan(ServerSpan.NOT_SAMPLED);
             return;
         }
-        SpanId spanId = SpanId.builder()
-            .traceIdHigh(traceId128Bit() ? randomGenerator().nextLong() : 0L)
-            .traceId(newTraceId)
-            .spanId(newTraceId)
-            .build();
+        SpanId spanId = ExplicitTracer.newTrace(newTraceId, null, idGenerator(), traceId128Bit());
         setStateCurrentTrace(spanId, spanName);
     }
 
@@ -179,7 +209,7 @@ public abstract class ServerTracer extends AnnotationSubmitter {
      * Sets the server sent event for current thread.
      */
     public void setServerSend() {
-        if (submitEndAnnotation(Constants.SERVER_SEND, reporter())) {
+        if (submitEndAnnotation(Constants.SERVER_SEND, spanReporter())) {
             spanAndEndpoint().state().setCurrentServerSpan(null);
         }
     }
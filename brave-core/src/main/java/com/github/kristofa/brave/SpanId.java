@@ -54,12 +54,32 @@ public final class SpanId {
         spanId, flags);
   }
 
+  /**
+   * Creates a span id from primitives, such as ids parsed from propagated headers. Unlike {@link
+   * Builder}, this doesn't box the ids.
+   *
+   * @param parentId ignored when {@link #FLAG_IS_ROOT} is set
+   * @param flags for example {@link #FLAG_SAMPLING_SET} and {@link #FLAG_SAMPLED}
+   * @since 3.16
+   */
+  public static SpanId create(long traceIdHigh, long traceId, long parentId, long spanId,
+      long flags) {
+    if ((flags & FLAG_IS_ROOT) == FLAG_IS_ROOT || parentId == spanId) parentId = traceId;
+    return new SpanId(traceIdHigh, traceId, parentId, spanId, flags);
+  }
+
   SpanId(long traceIdHigh, long traceId, long parentId, long spanId, long flags) {
+    this(traceIdHigh, traceId, parentId, spanId, flags, null);
+  }
+
+  SpanId(long traceIdHigh, long traceId, long parentId, long spanId, long flags,
+      @Nullable SpanId parent) {
     this.traceIdHigh = traceIdHigh;
     this.traceId = traceId;
     this.parentId = parentId;
     this.spanId = spanId;
     this.flags = flags;
+    this.parent = parent;
   }
 
   /** Deserializes this from a big-endian byte array */
@@ -183,6 +203,12 @@ public final class SpanId {
   /** Raw flags encoded in {@link #bytes()} */
   public final long flags;
 
+  /** The context of the parent span, when created in-process. Used to share its hex ids. */
+  @Nullable final SpanId parent;
+
+  // Lazily computed hex ids. These are racy single-check: a thread that sees null recomputes.
+  String traceIdString, spanIdString, parentIdString;
+
   /** Serializes this into a big-endian byte array */
   public byte[] bytes() {
     boolean traceHi = traceIdHigh != 0;
@@ -256,20 +282,69 @@ public final class SpanId {
   }
 
   /**
-   * Returns the hex representation of the span's trace ID
+   * Returns the lower-hex representation of the span's trace ID: 32 characters when {@link
+   * #traceIdHigh} is set, otherwise 16. The result is computed once, and shared with child spans
+   * created in-process.
    *
    * @since 3.15
    */
   public String traceIdString() {
-    if (traceIdHigh != 0) {
-      char[] result = new char[32];
-      writeHexLong(result, 0, traceIdHigh);
-      writeHexLong(result, 16, traceId);
-      return new String(result);
+    String result = traceIdString;
+    if (result != null) return result;
+    if (parent != null && parent.traceIdHigh == traceIdHigh && parent.traceId == traceId) {
+      result = parent.traceIdString();
+    } else if (traceIdHigh != 0) {
+      char[] buffer = new char[32];
+      writeHexLong(buffer, 0, traceIdHigh);
+      writeHexLong(buffer, 16, traceId);
+      result = new String(buffer);
+    } else {
+      result = IdConversion.toLowerHex(traceId);
     }
-    char[] result = new char[16];
-    writeHexLong(result, 0, traceId);
-    return new String(result);
+    return traceIdString = result;
+  }
+
+  /**
+   * Returns the 16 character lower-hex representation of {@link #spanId}. The result is computed
+   * once.
+   *
+   * @since 3.16
+   */
+  public String spanIdString() {
+    String result = spanIdString;
+    if (result != null) return result;
+    return spanIdString = IdConversion.toLowerHex(spanId);
+  }
+
+  /**
+   * Returns the 16 character lower-hex representation of {@link #parentId}, or null if this is the
+   * root span. The result is computed once, and shared with the parent span when created
+   * in-process.
+   *
+   * @since 3.16
+   */
+  @Nullable
+  public String parentIdString() {
+    if (root()) return null;
+    String result = parentIdString;
+    if (result != null) return result;
+    if (parent != null && parent.spanId == parentId) {
+      result = parent.spanIdString();
+    } else {
+      result = IdConversion.toLowerHex(parentId);
+    }
+    return parentIdString = result;
+  }
+
+  /** Returns a child of this context, which shares its hex ids. Like the builder, no flags are set. */
+  SpanId newChild(long spanId) {
+    return newChild(spanId, 0L);
+  }
+
+  /** Like {@link #newChild(long)}, except the child has the given flags. */
+  SpanId newChild(long spanId, long flags) {
+    long parentId = this.spanId == spanId ? traceId : this.spanId;
+    return new SpanId(traceIdHigh, traceId, parentId, spanId, flags & ~FLAG_IS_ROOT, this);
   }
 
   /** Preferred way to create spans, as it properly deals with the parent id */
@@ -281,6 +356,7 @@ public final class SpanId {
     result.setParent_id(nullableParentId());
     result.setName(""); // avoid NPE on equals
     if (debug()) result.setDebug(debug());
+    result.context = this;
     return result;
   }
 
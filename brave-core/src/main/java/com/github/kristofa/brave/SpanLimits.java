@@ -0,0 +1,117 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the annotations, tags and tag value length of each span, so that a long-running span or a
+ * huge tag value can't grow a span without bound.
+ *
+ * <p>Limits apply when annotations are recorded, for example via {@link
+ * AnnotationSubmitter#submitAnnotation(String)} or {@link ExplicitTracer#tag(Span, String,
+ * String)}. Annotations that start or finish a span, addresses and the local component are always
+ * recorded. When an annotation or tag is dropped, the span is tagged once with {@link #TRUNCATED}.
+ * Tag values longer than the limit are cut, and end with "...".
+ *
+ * <p>Counts of what was dropped or cut are available as metrics.
+ *
+ * @see Brave.Builder#maxAnnotations(int)
+ * @see Brave#spanLimits()
+ * @since 3.16
+ */
+public final class SpanLimits {
+  /** Tag added to a span the first time one of its annotations or tags is dropped. */
+  public static final String TRUNCATED = "brave.truncated";
+  static final String ELLIPSIS = "...";
+
+  /** Default limits, which never drop or cut anything. */
+  static final SpanLimits UNLIMITED =
+      new SpanLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+  final int maxAnnotations;
+  final int maxBinaryAnnotations;
+  final int maxTagValueLength;
+
+  final AtomicLong droppedAnnotations = new AtomicLong();
+  final AtomicLong droppedBinaryAnnotations = new AtomicLong();
+  final AtomicLong truncatedTagValues = new AtomicLong();
+
+  SpanLimits(int maxAnnotations, int maxBinaryAnnotations, int maxTagValueLength) {
+    this.maxAnnotations = maxAnnotations;
+    this.maxBinaryAnnotations = maxBinaryAnnotations;
+    this.maxTagValueLength = maxTagValueLength;
+  }
+
+  /** Maximum annotations recorded per span. */
+  public int maxAnnotations() {
+    return maxAnnotations;
+  }
+
+  /** Maximum tags recorded per span. */
+  public int maxBinaryAnnotations() {
+    return maxBinaryAnnotations;
+  }
+
+  /** Maximum length of a tag value, not counting the "..." added when it is cut. */
+  public int maxTagValueLength() {
+    return maxTagValueLength;
+  }
+
+  /** Count of annotations dropped, as their span already had the maximum annotations. */
+  public long droppedAnnotations() {
+    return droppedAnnotations.get();
+  }
+
+  /** Count of tags dropped, as their span already had the maximum tags. */
+  public long droppedBinaryAnnotations() {
+    return droppedBinaryAnnotations.get();
+  }
+
+  /** Count of tag values cut to the maximum length. */
+  public long truncatedTagValues() {
+    return truncatedTagValues.get();
+  }
+
+  void annotate(Span span, long timestamp, String value, Endpoint endpoint) {
+    if (!span.appendAnnotation(Annotation.create(timestamp, value, endpoint), maxAnnotations)) {
+      droppedAnnotations.incrementAndGet();
+      markTruncated(span, endpoint);
+    }
+  }
+
+  void tag(Span span, String key, String value, Endpoint endpoint) {
+    if (value.length() > maxTagValueLength) {
+      value = truncate(value);
+      truncatedTagValues.incrementAndGet();
+    }
+    BinaryAnnotation tag = BinaryAnnotation.create(key, value, endpoint);
+    if (!span.appendBinaryAnnotation(tag, maxBinaryAnnotations)) {
+      droppedBinaryAnnotations.incrementAndGet();
+      markTruncated(span, endpoint);
+    }
+  }
+
+  /** Cuts the value to the maximum length, without splitting a surrogate pair. */
+  String truncate(String value) {
+    int end = maxTagValueLength;
+    if (end > 0 && Character.isHighSurrogate(value.charAt(end - 1))) end--;
+    return value.substring(0, end) + ELLIPSIS;
+  }
+
+  /** The marker is added regardless of the limit, so that it is never itself dropped. */
+  static void markTruncated(Span span, Endpoint endpoint) {
+    if (span.markTruncated()) {
+      span.appendBinaryAnnotation(BinaryAnnotation.create(TRUNCATED, "true", endpoint));
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "SpanLimits{maxAnnotations=" + maxAnnotations
+        + ", maxBinaryAnnotations=" + maxBinaryAnnotations
+        + ", maxTagValueLength=" + maxTagValueLength + "}";
+  }
+}
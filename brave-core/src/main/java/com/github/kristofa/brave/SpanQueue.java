@@ -0,0 +1,214 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+import static zipkin.internal.Util.checkArgument;
+
+/**
+ * A bounded queue of finished spans, which many threads offer to, and one thread drains.
+ *
+ * <p>The queue is bounded both by count and by the estimated encoded size of its spans, so that a
+ * few huge spans can't use unbounded memory. {@link #offer(Span)} is wait-free: it never locks or
+ * retries, and doesn't allocate a node per span, so it is safe to call on the request path. Spans
+ * are stored in a ring buffer, and {@link #drainTo(List, int) drained} in batches.
+ *
+ * <p>Draining is serialized, so {@link #drainTo(List, int)} can be called from a flushing thread and
+ * externally at the same time.
+ *
+ * @see AsyncSpanReporter
+ * @see FlushingSpanCollector
+ * @since 3.16
+ */
+public final class SpanQueue {
+  /** Defaults to 1% of the heap, like {@link zipkin.reporter.AsyncReporter}. */
+  static long onePercentOfMemory() {
+    return Math.max(1L, Runtime.getRuntime().maxMemory() / 100);
+  }
+
+  /** How long to wait for a span being offered, before checking again. */
+  static final long OFFER_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  final int maxSpans;
+  final long maxBytes;
+  final int mask;
+  final AtomicReferenceArray<Span> spans;
+  /** Estimated size of the span in the same slot, written before the span is. */
+  final int[] sizes;
+
+  /** Spans queued, or being offered. Released after their slot is cleared. */
+  final AtomicLong count = new AtomicLong();
+  final AtomicLong bytes = new AtomicLong();
+  /** Index of the next slot to offer into. */
+  final AtomicLong tail = new AtomicLong();
+  /** Index of the next slot to drain, written while holding this. */
+  volatile long head;
+  /** Last thread that waited for spans, unparked when the queue stops being empty. */
+  volatile Thread consumer;
+
+  /**
+   * @param maxSpans maximum count of spans queued
+   * @param maxBytes maximum sum of {@link #sizeInBytes(Span) estimated sizes} of spans queued
+   */
+  public SpanQueue(int maxSpans, long maxBytes) {
+    checkArgument(maxSpans > 0, "maxSpans should be positive: was %s", maxSpans);
+    checkArgument(maxSpans <= 1 << 30, "maxSpans should be at most 2^30: was %s", maxSpans);
+    checkArgument(maxBytes > 0, "maxBytes should be positive: was %s", maxBytes);
+    this.maxSpans = maxSpans;
+    this.maxBytes = maxBytes;
+    int capacity = Integer.highestOneBit(maxSpans);
+    if (capacity < maxSpans) capacity <<= 1;
+    this.mask = capacity - 1;
+    this.spans = new AtomicReferenceArray<Span>(capacity);
+    this.sizes = new int[capacity];
+  }
+
+  /**
+   * Queues the span, or returns false if that would exceed the maximum count or bytes.
+   *
+   * <p>Capacity is reserved by incrementing counters, instead of looping on compare-and-set. As
+   * at most {@code maxSpans} are reserved at once, the slot claimed afterwards is always free.
+   */
+  public boolean offer(Span span) {
+    checkNotNull(span, "Null span");
+    if (count.get() >= maxSpans) return false; // full: don't contend on the counter
+    long previousCount = count.getAndIncrement();
+    boolean accepted = false;
+    if (previousCount < maxSpans) {
+      int size = sizeInBytes(span);
+      if (bytes.getAndAdd(size) + size <= maxBytes) {
+        int index = (int) tail.getAndIncrement() & mask;
+        sizes[index] = size;
+        spans.lazySet(index, span);
+        accepted = true;
+      } else {
+        bytes.getAndAdd(-size);
+      }
+    }
+    if (!accepted) count.getAndDecrement();
+    if (previousCount == 0) {
+      Thread consumer = this.consumer;
+      if (consumer != null) LockSupport.unpark(consumer);
+    }
+    return accepted;
+  }
+
+  /**
+   * Moves up to {@code maxSpans} queued spans to the sink, in the order they were offered, and
+   * returns how many were moved.
+   */
+  public synchronized int drainTo(List<? super Span> sink, int maxSpans) {
+    long head = this.head;
+    int drained = 0;
+    long drainedBytes = 0;
+    while (drained < maxSpans) {
+      int index = (int) head & mask;
+      Span span = spans.get(index);
+      if (span == null) break; // empty, or the next span is still being offered
+      drainedBytes += sizes[index];
+      spans.lazySet(index, null);
+      sink.add(span);
+      head++;
+      drained++;
+    }
+    this.head = head;
+    if (drained > 0) {
+      bytes.getAndAdd(-drainedBytes);
+      count.getAndAdd(-drained); // after the slots are cleared, so they can be reused
+    }
+    return drained;
+  }
+
+  /**
+   * Parks the calling thread until a span is offered, or the timeout elapses. This returns
+   * immediately if the next span can be drained, or the thread is interrupted.
+   *
+   * <p>The count includes spans still being offered, so it can be positive while there is nothing
+   * to drain yet. In that case, this parks briefly instead of returning, so that a caller looping
+   * on {@link #drainTo} doesn't spin while the offering thread finishes.
+   */
+  public void awaitNanos(long nanos) {
+    consumer = Thread.currentThread();
+    if (count.get() == 0) {
+      LockSupport.parkNanos(this, nanos);
+    } else if (spans.get((int) head & mask) == null) {
+      LockSupport.parkNanos(this, Math.min(nanos, OFFER_BACKOFF_NANOS));
+    }
+  }
+
+  /** Discards all queued spans, returning how many were discarded. */
+  public int clear() {
+    return drainTo(new DiscardingList(), Integer.MAX_VALUE);
+  }
+
+  /** Count of spans queued, including those being offered. */
+  public int size() {
+    return (int) Math.min(count.get(), maxSpans);
+  }
+
+  public boolean isEmpty() {
+    return count.get() == 0;
+  }
+
+  /** Sum of the estimated sizes of spans queued, including those being offered. */
+  public long sizeInBytes() {
+    return bytes.get();
+  }
+
+  /**
+   * Estimates the size of the span when encoded as thrift, without encoding it. Json is usually
+   * larger, but in proportion.
+   */
+  public static int sizeInBytes(Span span) {
+    long result = 64; // ids, timestamp, duration and field headers
+    String name = span.getName();
+    if (name != null) result += name.length();
+    List<Annotation> annotations = span.getAnnotations();
+    for (int i = 0, length = annotations.size(); i < length; i++) {
+      Annotation a = annotations.get(i);
+      result += 24 + a.value.length() + sizeInBytes(a.host);
+    }
+    List<BinaryAnnotation> binaryAnnotations = span.getBinary_annotations();
+    for (int i = 0, length = binaryAnnotations.size(); i < length; i++) {
+      BinaryAnnotation b = binaryAnnotations.get(i);
+      result += 32 + b.key.length() + b.value.length + sizeInBytes(b.host);
+    }
+    return (int) Math.min(result, Integer.MAX_VALUE);
+  }
+
+  static int sizeInBytes(Endpoint endpoint) {
+    if (endpoint == null) return 0;
+    int result = 24; // ipv4, port and field headers
+    if (endpoint.service_name != null) result += endpoint.service_name.length();
+    if (endpoint.ipv6 != null) result += 19;
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "SpanQueue{maxSpans=" + maxSpans + ", maxBytes=" + maxBytes + "}";
+  }
+
+  static final class DiscardingList extends AbstractList<Span> {
+    @Override public boolean add(Span span) {
+      return true;
+    }
+
+    @Override public Span get(int index) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    @Override public int size() {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.Nullable;
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * The server, client and local span of a thread, captured at once so that a task can run with them
+ * on another thread.
+ *
+ * <p>While a wrapped task runs, the spans it was submitted with replace those of the executing
+ * thread. Afterwards, the executing thread's spans are restored, so a pooled thread doesn't keep
+ * the spans of the last task it ran.
+ */
+final class SpanStateSnapshot {
+
+    /** Returns a snapshot of the current thread's spans, or null if there are none. */
+    @Nullable
+    static SpanStateSnapshot capture(ServerClientAndLocalSpanState state) {
+        ServerSpan serverSpan = state.getCurrentServerSpan();
+        Span clientSpan = state.getCurrentClientSpan();
+        Span localSpan = state.getCurrentLocalSpan();
+        if (isEmpty(serverSpan) && clientSpan == null && localSpan == null) return null;
+        return new SpanStateSnapshot(state, serverSpan, clientSpan, localSpan);
+    }
+
+    /** Returns the task, wrapped if the current thread has spans. */
+    static Runnable wrap(ServerClientAndLocalSpanState state, Runnable task) {
+        SpanStateSnapshot snapshot = capture(state);
+        return snapshot != null ? snapshot.wrap(task) : task;
+    }
+
+    /** Returns the task, wrapped if the current thread has spans. */
+    static <T> Callable<T> wrap(ServerClientAndLocalSpanState state, Callable<T> task) {
+        SpanStateSnapshot snapshot = capture(state);
+        return snapshot != null ? snapshot.wrap(task) : task;
+    }
+
+    // ServerSpan.NOT_SAMPLED isn't empty: the decision not to sample should propagate.
+    static boolean isEmpty(@Nullable ServerSpan serverSpan) {
+        return serverSpan == null || serverSpan.getSpan() == null && serverSpan.getSample() == null;
+    }
+
+    final ServerClientAndLocalSpanState state;
+    @Nullable final ServerSpan serverSpan;
+    @Nullable final Span clientSpan;
+    @Nullable final Span localSpan;
+
+    SpanStateSnapshot(ServerClientAndLocalSpanState state, @Nullable ServerSpan serverSpan,
+        @Nullable Span clientSpan, @Nullable Span localSpan) {
+        this.state = state;
+        this.serverSpan = serverSpan;
+        this.clientSpan = clientSpan;
+        this.localSpan = localSpan;
+    }
+
+    Runnable wrap(final Runnable task) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                ServerSpan previousServerSpan = state.getCurrentServerSpan();
+                Span previousClientSpan = state.getCurrentClientSpan();
+                Span previousLocalSpan = state.getCurrentLocalSpan();
+                List<Span> poppedLocalSpans = attach();
+                try {
+                    task.run();
+                } finally {
+                    detach(previousServerSpan, previousClientSpan, previousLocalSpan,
+                        poppedLocalSpans);
+                }
+            }
+
+            @Override
+            public String toString() {
+                return task.toString();
+            }
+        };
+    }
+
+    <T> Callable<T> wrap(final Callable<T> task) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                ServerSpan previousServerSpan = state.getCurrentServerSpan();
+                Span previousClientSpan = state.getCurrentClientSpan();
+                Span previousLocalSpan = state.getCurrentLocalSpan();
+                List<Span> poppedLocalSpans = attach();
+                try {
+                    return task.call();
+                } finally {
+                    detach(previousServerSpan, previousClientSpan, previousLocalSpan,
+                        poppedLocalSpans);
+                }
+            }
+
+            @Override
+            public String toString() {
+                return task.toString();
+            }
+        };
+    }
+
+    /**
+     * Binds the captured spans to the current thread. Setting a local span pushes it on states that
+     * keep a stack of local spans, and setting null pops. Without a captured local span, the whole
+     * stack is popped, so the task doesn't see any of the executing thread's local spans.
+     *
+     * @return the local spans popped, top first, for {@link #detach} to push back
+     */
+    List<Span> attach() {
+        state.setCurrentServerSpan(serverSpan);
+        state.setCurrentClientSpan(clientSpan);
+        if (localSpan != null) {
+            state.setCurrentLocalSpan(localSpan);
+            return Collections.emptyList();
+        }
+        List<Span> popped = Collections.emptyList();
+        for (Span current; (current = state.getCurrentLocalSpan()) != null; ) {
+            if (popped.isEmpty()) popped = new ArrayList<Span>();
+            popped.add(current);
+            state.setCurrentLocalSpan(null);
+        }
+        return popped;
+    }
+
+    void detach(@Nullable ServerSpan previousServerSpan, @Nullable Span previousClientSpan,
+        @Nullable Span previousLocalSpan, List<Span> poppedLocalSpans) {
+        state.setCurrentServerSpan(previousServerSpan);
+        state.setCurrentClientSpan(previousClientSpan);
+        if (localSpan != null) state.setCurrentLocalSpan(null); // pops what attach pushed
+        for (int i = poppedLocalSpans.size() - 1; i >= 0; i--) {
+            state.setCurrentLocalSpan(poppedLocalSpans.get(i));
+        }
+        // states that hold a single local span lost it when attach set the captured one
+        if (state.getCurrentLocalSpan() != previousLocalSpan) {
+            state.setCurrentLocalSpan(previousLocalSpan);
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.Nullable;
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import zipkin.Constants;
+import zipkin.TraceKeys;
+import zipkin.reporter.Reporter;
+
+import static com.github.kristofa.brave.internal.Util.UTF_8;
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+import static zipkin.internal.Util.checkArgument;
+
+/**
+ * Buffers the finished spans of each trace, and decides whether to report them once the local
+ * root of the trace finishes. This keeps slow and failed requests, which head sampling would
+ * mostly drop, without reporting every request.
+ *
+ * <p>To use this, sample every request up front, and report spans through this:
+ *
+ * <pre>{@code
+ * tailSampler = TailSamplingReporter.builder(AsyncSpanReporter.create(reporter))
+ *                                   .keepSlowerThan(500, TimeUnit.MILLISECONDS)
+ *                                   .build();
+ *
+ * brave = new Brave.Builder()
+ *     .traceSampler(Sampler.ALWAYS_SAMPLE)
+ *     .spanReporter(tailSampler).build();
+ * }</pre>
+ *
+ * <p>The decision is made when a local root finishes: a server span (at server send), or a span
+ * without a parent. It covers the local root and the buffered spans beneath it, so a nested server
+ * span, such as a loopback request, is decided separately from the request that contains it. A
+ * trace is kept when any of the following are true:
+ * <ul>
+ *   <li>The root span took at least {@link Builder#keepSlowerThan(long, TimeUnit) the threshold}</li>
+ *   <li>A span has one of the {@link Builder#keepTagged(String) error tags}, by default "error"
+ *   and "grpc.status_code"</li>
+ *   <li>A span has an "http.status_code" of 500 or more</li>
+ *   <li>The {@link Builder#baseline(Sampler) baseline sampler} keeps it</li>
+ * </ul>
+ *
+ * <p>Decisions only apply to spans recorded in this process. Callees are still sent a sampled
+ * flag, so they record and report their spans as usual.
+ *
+ * <h3>Memory</h3>
+ *
+ * <p>At most {@link Builder#maxSpans(int) maxSpans} spans are buffered, whose {@link
+ * SpanQueue#sizeInBytes(Span) estimated size} is at most {@link Builder#maxBytes(long) maxBytes}.
+ * Traces are held in stripes by trace ID, each large enough for {@link
+ * Builder#maxSpansPerTrace(int) maxSpansPerTrace}. When a stripe is full, its oldest trace is
+ * evicted, and that trace is discarded when its local root finishes, rather than reported
+ * incomplete. Spans beyond maxSpansPerTrace are dropped.
+ *
+ * <p>Each stripe remembers the decisions for recently decided spans. A span that finishes after
+ * its local root, such as an asynchronous client call, is reported or dropped immediately, as its
+ * parent was, instead of being buffered.
+ */
+public final class TailSamplingReporter implements Reporter<Span> {
+
+  public static Builder builder(Reporter<Span> delegate) {
+    return new Builder(delegate);
+  }
+
+  public static final class Builder {
+    final Reporter<Span> delegate;
+    long keepSlowerThanMicros = Long.MAX_VALUE;
+    final Set<String> keepTagged = new LinkedHashSet<String>();
+    Sampler baseline = Sampler.NEVER_SAMPLE;
+    int maxSpans = 10000;
+    long maxBytes = SpanQueue.onePercentOfMemory();
+    int maxSpansPerTrace = 1000;
+
+    Builder(Reporter<Span> delegate) {
+      this.delegate = checkNotNull(delegate, "delegate");
+      keepTagged.add(Constants.ERROR);
+      keepTagged.add("grpc.status_code"); // only added when the status isn't OK
+    }
+
+    /** Keeps traces whose root span took at least this long. Defaults to never. */
+    public Builder keepSlowerThan(long duration, TimeUnit unit) {
+      checkArgument(duration >= 0, "duration should not be negative: was %s", duration);
+      this.keepSlowerThanMicros = unit.toMicros(duration);
+      return this;
+    }
+
+    /** Keeps traces where any span has a binary annotation with this key. */
+    public Builder keepTagged(String key) {
+      keepTagged.add(checkNotNull(key, "key"));
+      return this;
+    }
+
+    /**
+     * Decides, by trace ID, whether to keep traces that aren't slow or failed. Defaults to
+     * {@link Sampler#NEVER_SAMPLE}.
+     */
+    public Builder baseline(Sampler baseline) {
+      this.baseline = checkNotNull(baseline, "baseline");
+      return this;
+    }
+
+    /** Maximum count of spans waiting for a decision. Defaults to 10000. */
+    public Builder maxSpans(int maxSpans) {
+      checkArgument(maxSpans > 0, "maxSpans should be positive: was %s", maxSpans);
+      this.maxSpans = maxSpans;
+      return this;
+    }
+
+    /**
+     * Maximum {@link SpanQueue#sizeInBytes(Span) estimated size} of spans waiting for a decision.
+     * Defaults to 1% of the heap.
+     */
+    public Builder maxBytes(long maxBytes) {
+      checkArgument(maxBytes > 0, "maxBytes should be positive: was %s", maxBytes);
+      this.maxBytes = maxBytes;
+      return this;
+    }
+
+    /** Maximum count of spans buffered for one trace. Defaults to 1000. */
+    public Builder maxSpansPerTrace(int maxSpansPerTrace) {
+      checkArgument(maxSpansPerTrace > 0, "maxSpansPerTrace should be positive: was %s",
+          maxSpansPerTrace);
+      this.maxSpansPerTrace = maxSpansPerTrace;
+      return this;
+    }
+
+    public TailSamplingReporter build() {
+      return new TailSamplingReporter(this);
+    }
+  }
+
+  final Reporter<Span> delegate;
+  final long keepSlowerThanMicros;
+  final String[] keepTagged;
+  final Sampler baseline;
+  final int maxSpansPerTrace;
+  final Stripe[] stripes;
+  final AtomicLong keptTraces = new AtomicLong();
+  final AtomicLong discardedTraces = new AtomicLong();
+  final AtomicLong evictedTraces = new AtomicLong();
+  final AtomicLong droppedSpans = new AtomicLong();
+
+  TailSamplingReporter(Builder builder) {
+    this(builder, CountingSampler.defaultStripes());
+  }
+
+  /** Uses at most {@code stripeCount} stripes, fewer if a stripe couldn't hold a whole trace. */
+  TailSamplingReporter(Builder builder, int stripeCount) {
+    this.delegate = builder.delegate;
+    this.keepSlowerThanMicros = builder.keepSlowerThanMicros;
+    this.keepTagged = builder.keepTagged.toArray(new String[0]);
+    this.baseline = builder.baseline;
+    this.maxSpansPerTrace = builder.maxSpansPerTrace;
+    while (stripeCount > 1 && builder.maxSpans / stripeCount < builder.maxSpansPerTrace) {
+      stripeCount >>= 1;
+    }
+    this.stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new Stripe(builder.maxSpans / stripeCount,
+          Math.max(1L, builder.maxBytes / stripeCount));
+    }
+  }
+
+  /**
+   * Buffers the span, or decides whether to report it and the spans beneath it, if it is a local
+   * root.
+   */
+  @Override
+  public void report(Span span) {
+    checkNotNull(span, "Null span");
+    long traceId = span.getTrace_id();
+    Stripe stripe = stripes[(int) (traceId ^ (traceId >>> 32)) & (stripes.length - 1)];
+    if (!isLocalRoot(span)) {
+      if (Boolean.TRUE.equals(stripe.add(traceId, span))) delegate.report(span); // late span
+      return;
+    }
+    List<Span> buffered = stripe.remove(traceId, span.getId());
+    if (buffered == null) { // spans were evicted, so don't report an incomplete trace
+      discardedTraces.incrementAndGet();
+      return;
+    }
+    boolean keep = keep(span, buffered);
+    stripe.decided(span.getId(), buffered, keep);
+    if (keep) {
+      keptTraces.incrementAndGet();
+      for (int i = 0, length = buffered.size(); i < length; i++) {
+        delegate.report(buffered.get(i));
+      }
+      delegate.report(span);
+    } else {
+      discardedTraces.incrementAndGet();
+    }
+  }
+
+  /** Count of traces reported, as they were slow, failed or sampled by the baseline. */
+  public long keptTraces() {
+    return keptTraces.get();
+  }
+
+  /**
+   * Count of traces not reported, as they were neither slow, failed or sampled by the baseline, or
+   * were evicted.
+   */
+  public long discardedTraces() {
+    return discardedTraces.get();
+  }
+
+  /** Count of traces discarded before a decision, to stay under the maximum buffered spans. */
+  public long evictedTraces() {
+    return evictedTraces.get();
+  }
+
+  /**
+   * Count of spans discarded as their trace already had the maximum spans per trace, or as they
+   * were larger than a stripe.
+   */
+  public long droppedSpans() {
+    return droppedSpans.get();
+  }
+
+  /** Count of spans waiting for a decision. */
+  public int bufferedSpans() {
+    int result = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        result += stripe.spanCount;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "TailSamplingReporter(" + delegate + ")";
+  }
+
+  static boolean isLocalRoot(Span span) {
+    return span.getParent_id() == null || annotationTimestamp(span, Constants.SERVER_SEND) != null;
+  }
+
+  boolean keep(Span root, List<Span> buffered) {
+    if (durationMicros(root) >= keepSlowerThanMicros) return true;
+    if (failed(root)) return true;
+    for (int i = 0, length = buffered.size(); i < length; i++) {
+      if (failed(buffered.get(i))) return true;
+    }
+    return baseline.isSampled(root.getTrace_id());
+  }
+
+  boolean failed(Span span) {
+    List<BinaryAnnotation> binaryAnnotations = span.getBinary_annotations();
+    for (int i = 0, length = binaryAnnotations.size(); i < length; i++) {
+      BinaryAnnotation b = binaryAnnotations.get(i);
+      for (String key : keepTagged) {
+        if (key.equals(b.key)) return true;
+      }
+      if (TraceKeys.HTTP_STATUS_CODE.equals(b.key)) {
+        String status = new String(b.value, UTF_8);
+        if (status.length() == 3 && status.charAt(0) >= '5') return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Client-originated server spans have no duration, as the client owns it. In that case, this
+   * uses the time between server receive and server send.
+   */
+  static long durationMicros(Span span) {
+    Long duration = span.getDuration();
+    if (duration != null) return duration;
+    Long sr = annotationTimestamp(span, Constants.SERVER_RECV);
+    Long ss = annotationTimestamp(span, Constants.SERVER_SEND);
+    return sr != null && ss != null ? ss - sr : 0L;
+  }
+
+  static Long annotationTimestamp(Span span, String value) {
+    List<Annotation> annotations = span.getAnnotations();
+    for (int i = 0, length = annotations.size(); i < length; i++) {
+      Annotation a = annotations.get(i);
+      if (value.equals(a.value)) return a.timestamp;
+    }
+    return null;
+  }
+
+  /** Traces in insertion order, so that the oldest is evicted first. */
+  final class Stripe {
+    final int maxSpans;
+    final long maxBytes;
+    final LinkedHashMap<Long, List<Buffered>> traces = new LinkedHashMap<Long, List<Buffered>>();
+    /** IDs of the most recently evicted traces. */
+    final Set<Long> evicted;
+    /** Whether recently decided spans were kept, by span ID, for spans that finish later. */
+    final Map<Long, Boolean> decisions;
+    int spanCount; // guarded by this
+    long bytes; // guarded by this
+
+    /** Up to as many traces and decisions are remembered as spans buffered, or at least 1024. */
+    Stripe(int maxSpans, long maxBytes) {
+      this.maxSpans = maxSpans;
+      this.maxBytes = maxBytes;
+      int maxRemembered = Math.max(maxSpans, 1024);
+      this.evicted = Collections.newSetFromMap(new BoundedMap<Boolean>(maxRemembered));
+      this.decisions = new BoundedMap<Boolean>(maxRemembered);
+    }
+
+    /**
+     * Buffers the span until its local root finishes. If the span's parent was already decided,
+     * this returns that decision instead, and remembers it for the span's own children.
+     */
+    @Nullable synchronized Boolean add(long traceId, Span span) {
+      Long parentId = span.getParent_id();
+      Boolean decision = parentId != null ? decisions.get(parentId) : null;
+      if (decision != null) {
+        decisions.put(span.getId(), decision);
+        return decision;
+      }
+      List<Buffered> spans = traces.get(traceId);
+      if (spans != null && spans.size() >= maxSpansPerTrace) {
+        droppedSpans.incrementAndGet();
+        return null;
+      }
+      int size = SpanQueue.sizeInBytes(span);
+      if (size > maxBytes) {
+        droppedSpans.incrementAndGet();
+        return null;
+      }
+      while (spanCount >= maxSpans || bytes + size > maxBytes) evictOldest();
+      spans = traces.get(traceId); // in case it was the oldest
+      if (spans == null) traces.put(traceId, spans = new ArrayList<Buffered>());
+      spans.add(new Buffered(span, size));
+      spanCount++;
+      bytes += size;
+      return null;
+    }
+
+    /**
+     * Removes the spans beneath the local root, in the order they finished. Returns null if spans
+     * of the trace were evicted, as they may have been beneath it, after deciding to discard them.
+     */
+    @Nullable synchronized List<Span> remove(long traceId, long localRootId) {
+      List<Buffered> spans = traces.get(traceId);
+      List<Span> result = Collections.emptyList();
+      if (spans != null) {
+        List<Buffered> removed = removeDescendants(spans, localRootId);
+        if (spans.isEmpty()) traces.remove(traceId);
+        if (!removed.isEmpty()) result = new ArrayList<Span>(removed.size());
+        for (int i = 0, length = removed.size(); i < length; i++) {
+          Buffered b = removed.get(i);
+          result.add(b.span);
+          bytes -= b.size;
+        }
+        spanCount -= removed.size();
+      }
+      if (!evicted.contains(traceId)) return result;
+      decided(localRootId, result, false);
+      return null;
+    }
+
+    /** Remembers the decision for the local root and the spans beneath it. */
+    synchronized void decided(long localRootId, List<Span> buffered, boolean keep) {
+      decisions.put(localRootId, keep);
+      for (int i = 0, length = buffered.size(); i < length; i++) {
+        decisions.put(buffered.get(i).getId(), keep);
+      }
+    }
+
+    void evictOldest() {
+      Iterator<Map.Entry<Long, List<Buffered>>> oldest = traces.entrySet().iterator();
+      Map.Entry<Long, List<Buffered>> entry = oldest.next();
+      List<Buffered> spans = entry.getValue();
+      for (int i = 0, length = spans.size(); i < length; i++) {
+        bytes -= spans.get(i).size;
+      }
+      spanCount -= spans.size();
+      evicted.add(entry.getKey());
+      oldest.remove();
+      evictedTraces.incrementAndGet();
+    }
+  }
+
+  /** A buffered span, with its size when it was added. */
+  static final class Buffered {
+    final Span span;
+    final int size;
+
+    Buffered(Span span, int size) {
+      this.span = span;
+      this.size = size;
+    }
+  }
+
+  /** Keeps the most recently added entries, by span or trace ID. */
+  static final class BoundedMap<V> extends LinkedHashMap<Long, V> {
+    final int maxSize;
+
+    BoundedMap(int maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    @Override protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+      return size() > maxSize;
+    }
+  }
+
+  /**
+   * Moves spans whose parents lead to the local root out of the trace's buffer. Children usually
+   * finish before their parents, so this repeats until no more spans are found.
+   */
+  static List<Buffered> removeDescendants(List<Buffered> spans, long localRootId) {
+    Set<Long> ancestors = new LinkedHashSet<Long>();
+    ancestors.add(localRootId);
+    boolean[] descendant = new boolean[spans.size()];
+    int found = 0;
+    for (boolean changed = true; changed; ) {
+      changed = false;
+      for (int i = 0, length = spans.size(); i < length; i++) {
+        if (descendant[i]) continue;
+        Long parentId = spans.get(i).span.getParent_id();
+        if (parentId != null && ancestors.contains(parentId)) {
+          descendant[i] = changed = true;
+          ancestors.add(spans.get(i).span.getId());
+          found++;
+        }
+      }
+    }
+    if (found == 0) return Collections.emptyList();
+    List<Buffered> result = new ArrayList<Buffered>(found);
+    int kept = 0;
+    for (int i = 0, length = spans.size(); i < length; i++) {
+      if (descendant[i]) {
+        result.add(spans.get(i));
+      } else {
+        spans.set(kept++, spans.get(i));
+      }
+    }
+    spans.subList(kept, spans.size()).clear();
+    return result;
+  }
+}
@@ -0,0 +1,163 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.Util;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+
+/**
+ * {@link ServerClientAndLocalSpanState} implementation that keeps the server, client and local span
+ * of the current thread in one holder.
+ *
+ * <p>{@link ThreadLocalServerClientAndLocalSpanState} keeps a {@link ThreadLocal} per span, so a
+ * thread's trace state is spread over three entries of its thread-local map, and clearing a span
+ * removes its entry only for the next span to insert it again. This implementation looks up a
+ * single entry, and sets or clears spans by updating fields of the holder it finds. A pooled thread
+ * reuses its holder from one request to the next: it is kept after spans are cleared, and only
+ * released with the thread.
+ *
+ * <p>Like {@link ThreadLocalServerClientAndLocalSpanState}, state is bound to the thread, not to
+ * the instance: instances on the same thread see the same spans.
+ */
+public final class ThreadContextServerClientAndLocalSpanState
+    implements ServerClientAndLocalSpanState {
+
+    /** Mutable, as it is only accessed by its own thread. */
+    static final class Context {
+        ServerSpan serverSpan = ServerSpan.EMPTY;
+        Span clientSpan;
+        Span localSpan;
+    }
+
+    private static final ThreadLocal<Context> currentContext = new ThreadLocal<Context>() {
+        @Override
+        protected Context initialValue() {
+            return new Context();
+        }
+    };
+
+    /**
+     * Returns the state as seen by the current thread, for a tracer to read and write several times
+     * during one operation. For this type, that looks up the thread's holder once, rather than on
+     * each call. Other states are returned as-is.
+     */
+    static ServerClientAndLocalSpanState bind(ServerClientAndLocalSpanState state) {
+        if (!(state instanceof ThreadContextServerClientAndLocalSpanState)) return state;
+        return new Bound(currentContext.get(), state.endpoint());
+    }
+
+    private final Endpoint endpoint;
+
+    /**
+     * @param ip Int representation of ipv4 address.
+     * @param port port on which current process is listening.
+     * @param serviceName Name of the local service being traced. Should be lowercase and not <code>null</code> or empty.
+     */
+    public ThreadContextServerClientAndLocalSpanState(int ip, int port, String serviceName) {
+        this(Endpoint.builder().ipv4(ip).port(port).serviceName(serviceName).build());
+    }
+
+    /**
+     * @param endpoint Endpoint of the local service being traced.
+     */
+    public ThreadContextServerClientAndLocalSpanState(Endpoint endpoint) {
+        Util.checkNotNull(endpoint, "endpoint must be specified.");
+        Util.checkNotBlank(endpoint.service_name, "Service name must be specified.");
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public ServerSpan getCurrentServerSpan() {
+        return currentContext.get().serverSpan;
+    }
+
+    @Override
+    public void setCurrentServerSpan(final ServerSpan span) {
+        currentContext.get().serverSpan = span != null ? span : ServerSpan.EMPTY;
+    }
+
+    @Override
+    public Endpoint endpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public Span getCurrentClientSpan() {
+        return currentContext.get().clientSpan;
+    }
+
+    @Override
+    public void setCurrentClientSpan(final Span span) {
+        currentContext.get().clientSpan = span;
+    }
+
+    @Override
+    public Boolean sample() {
+        return currentContext.get().serverSpan.getSample();
+    }
+
+    @Override
+    public Span getCurrentLocalSpan() {
+        return currentContext.get().localSpan;
+    }
+
+    @Override
+    public void setCurrentLocalSpan(Span span) {
+        currentContext.get().localSpan = span;
+    }
+
+    @Override
+    public String toString() {
+        return "ThreadContextServerClientAndLocalSpanState{endpoint=" + endpoint + "}";
+    }
+
+    /** Reads and writes the holder of the thread that bound it. */
+    static final class Bound implements ServerClientAndLocalSpanState {
+        final Context context;
+        final Endpoint endpoint;
+
+        Bound(Context context, Endpoint endpoint) {
+            this.context = context;
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public ServerSpan getCurrentServerSpan() {
+            return context.serverSpan;
+        }
+
+        @Override
+        public void setCurrentServerSpan(ServerSpan span) {
+            context.serverSpan = span != null ? span : ServerSpan.EMPTY;
+        }
+
+        @Override
+        public Endpoint endpoint() {
+            return endpoint;
+        }
+
+        @Override
+        public Span getCurrentClientSpan() {
+            return context.clientSpan;
+        }
+
+        @Override
+        public void setCurrentClientSpan(Span span) {
+            context.clientSpan = span;
+        }
+
+        @Override
+        public Boolean sample() {
+            return context.serverSpan.getSample();
+        }
+
+        @Override
+        public Span getCurrentLocalSpan() {
+            return context.localSpan;
+        }
+
+        @Override
+        public void setCurrentLocalSpan(Span span) {
+            context.localSpan = span;
+        }
+    }
+}
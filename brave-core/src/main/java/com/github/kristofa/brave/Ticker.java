@@ -0,0 +1,12 @@
+package com.github.kristofa.brave;
+
+/** Source of {@link System#nanoTime()}, replaceable in tests. */
+interface Ticker {
+  Ticker SYSTEM = new Ticker() {
+    @Override public long read() {
+      return System.nanoTime();
+    }
+  };
+
+  long read();
+}
@@ -0,0 +1,30 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Span;
+import zipkin.reporter.Reporter;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * Converts brave spans to zipkin spans on the calling thread, before passing them to the delegate.
+ *
+ * <p>This is what happens when a {@code Reporter<zipkin.Span>} is configured directly. Wrap the
+ * delegate with {@link AsyncSpanReporter} to move conversion off the request thread.
+ */
+final class ZipkinReporterAdapter implements Reporter<Span> {
+
+  final Reporter<zipkin.Span> delegate;
+
+  ZipkinReporterAdapter(Reporter<zipkin.Span> delegate) {
+    this.delegate = checkNotNull(delegate, "reporter");
+  }
+
+  @Override public void report(Span span) {
+    checkNotNull(span, "Null span");
+    delegate.report(span.toZipkin());
+  }
+
+  @Override public String toString() {
+    return delegate.toString();
+  }
+}
@@ -0,0 +1,47 @@
+package com.github.kristofa.brave.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the lowercase form of span and service names, so that a route name like "GET" or
+ * "helloworld.Greeter/SayHello" is lowercased once instead of on every span.
+ *
+ * <p>Names are normally low cardinality, but instrumentation can be misconfigured, for example to
+ * name spans after a url including ids. To bound memory, once {@link #MAX_SIZE} names are cached,
+ * new names are lowercased without being cached. Names that are already lowercase are returned
+ * as-is and never take a slot.
+ */
+public final class LowerCaseNames {
+  /** The cardinality cap of the shared cache. */
+  static final int MAX_SIZE = 1000;
+
+  static final LowerCaseNames SHARED = new LowerCaseNames(MAX_SIZE);
+
+  /**
+   * Returns the same as {@link String#toLowerCase()}, but without allocating for names that were
+   * already seen.
+   */
+  @Nullable
+  public static String lowerCase(@Nullable String name) {
+    return name != null ? SHARED.get(name) : null;
+  }
+
+  final ConcurrentMap<String, String> cache = new ConcurrentHashMap<String, String>();
+  final int maxSize;
+
+  LowerCaseNames(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  String get(String name) {
+    String result = cache.get(name);
+    if (result != null) return result;
+    result = name.toLowerCase();
+    if (!result.equals(name) && cache.size() < maxSize) {
+      String race = cache.putIfAbsent(name, result);
+      if (race != null) result = race;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,101 @@
+package com.github.kristofa.brave.internal;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * Matches an input to the value of its longest prefix, for example when picking a sampling rule
+ * for a request path.
+ *
+ * <p>Prefixes are compiled into a trie, so the cost of a match is proportional to the length of
+ * the input, regardless of how many prefixes there are. Matching doesn't allocate.
+ */
+public final class PrefixMatcher<T> {
+
+  public static <T> Builder<T> builder() {
+    return new Builder<T>();
+  }
+
+  public static final class Builder<T> {
+    final MutableNode<T> root = new MutableNode<T>();
+
+    Builder() {
+    }
+
+    /** Associates a value with a prefix. If the prefix was already added, the first value wins. */
+    public Builder<T> put(String prefix, T value) {
+      checkNotNull(prefix, "prefix");
+      checkNotNull(value, "value");
+      MutableNode<T> node = root;
+      for (int i = 0, length = prefix.length(); i < length; i++) {
+        char c = prefix.charAt(i);
+        MutableNode<T> child = node.children.get(c);
+        if (child == null) node.children.put(c, child = new MutableNode<T>());
+        node = child;
+      }
+      if (node.value == null) node.value = value;
+      return this;
+    }
+
+    public PrefixMatcher<T> build() {
+      return new PrefixMatcher<T>(root.compile());
+    }
+  }
+
+  final Node<T> root;
+
+  PrefixMatcher(Node<T> root) {
+    this.root = root;
+  }
+
+  /** Returns the value of the longest prefix of the input, or null if no prefix matches. */
+  @Nullable
+  public T longestMatch(String input) {
+    Node<T> node = root;
+    T result = node.value;
+    for (int i = 0, length = input.length(); i < length; i++) {
+      node = node.child(input.charAt(i));
+      if (node == null) break;
+      if (node.value != null) result = node.value;
+    }
+    return result;
+  }
+
+  static final class MutableNode<T> {
+    final TreeMap<Character, MutableNode<T>> children = new TreeMap<Character, MutableNode<T>>();
+    T value;
+
+    Node<T> compile() {
+      char[] keys = new char[children.size()];
+      @SuppressWarnings("unchecked")
+      Node<T>[] nodes = new Node[keys.length];
+      int i = 0;
+      for (Map.Entry<Character, MutableNode<T>> entry : children.entrySet()) {
+        keys[i] = entry.getKey();
+        nodes[i++] = entry.getValue().compile();
+      }
+      return new Node<T>(keys, nodes, value);
+    }
+  }
+
+  /** Children are held in parallel arrays, sorted by character. */
+  static final class Node<T> {
+    final char[] keys;
+    final Node<T>[] children;
+    final T value;
+
+    Node(char[] keys, Node<T>[] children, T value) {
+      this.keys = keys;
+      this.children = children;
+      this.value = value;
+    }
+
+    @Nullable Node<T> child(char c) {
+      int i = keys.length == 1 ? (keys[0] == c ? 0 : -1) : Arrays.binarySearch(keys, c);
+      return i >= 0 ? children[i] : null;
+    }
+  }
+}
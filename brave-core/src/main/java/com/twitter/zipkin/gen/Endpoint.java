@@ -1,5 +1,6 @@
 package com.twitter.zipkin.gen;
 
+import com.github.kristofa.brave.internal.LowerCaseNames;
 import com.github.kristofa.brave.internal.Nullable;
 import java.io.Serializable;
 import java.util.Arrays;
@@ -72,12 +73,7 @@ public class Endpoint implements Serializable {
     this.ipv4 = ipv4;
     this.ipv6 = ipv6;
     this.port = port;
-    if (service_name != null) {
-      service_name = service_name.toLowerCase();
-    } else {
-      service_name = "";
-    }
-    this.service_name = service_name;
+    this.service_name = service_name != null ? LowerCaseNames.lowerCase(service_name) : "";
   }
 
   public Endpoint.Builder toBuilder() {
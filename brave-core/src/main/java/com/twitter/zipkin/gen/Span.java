@@ -1,10 +1,16 @@
 package com.twitter.zipkin.gen;
 
+import com.github.kristofa.brave.SpanId;
+import com.github.kristofa.brave.internal.LowerCaseNames;
 import com.github.kristofa.brave.internal.Util;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import static com.github.kristofa.brave.internal.Util.equal;
 
@@ -14,6 +20,12 @@ import static com.github.kristofa.brave.internal.Util.equal;
  * The root span is where trace_id = id and parent_id = Nil. The root span is
  * usually the longest interval in the trace, starting with a SERVER_RECV
  * annotation and ending with a SERVER_SEND.
+ *
+ * <p>Methods that add annotations, such as {@link #addToAnnotations}, are for the
+ * thread that owns the span, for example while building it. Annotations recorded
+ * after the span is shared, possibly from other threads, should use the lock-free
+ * {@link #appendAnnotation} and {@link #appendBinaryAnnotation} instead. These are
+ * published into the annotation lists when they are next read.
  */
 public class Span implements Serializable {
 
@@ -24,16 +36,41 @@ public class Span implements Serializable {
    */
   public volatile Long startTick;
 
+  /**
+   * Internal field, the context this span was created from. Child spans use it to share hex ids.
+   */
+  public transient volatile SpanId context;
+
   private long trace_id; // required
   private long trace_id_high; // optional (default to zero)
   private String name; // required
   private long id; // required
   private Long parent_id; // optional
-  private List<Annotation> annotations = Collections.emptyList(); // required
-  private List<BinaryAnnotation> binary_annotations = Collections.emptyList(); // required
+  private volatile List<Annotation> annotations = Collections.emptyList(); // required
+  private volatile List<BinaryAnnotation> binary_annotations = Collections.emptyList(); // required
   private Boolean debug; // optional
-  private Long timestamp; // optional
-  private Long duration; // optional
+  private volatile Long timestamp; // optional
+  private volatile Long duration; // optional
+
+  /** Appended annotations and binary annotations not yet published, newest first. */
+  private transient volatile Event events;
+
+  /** Set to 1 while events are being published. */
+  private transient volatile int publishing;
+
+  /** Set to 1 when the span is first marked truncated. */
+  private transient volatile int truncated;
+
+  static final AtomicIntegerFieldUpdater<Span> TRUNCATED =
+      AtomicIntegerFieldUpdater.newUpdater(Span.class, "truncated");
+  static final AtomicReferenceFieldUpdater<Span, Event> EVENTS =
+      AtomicReferenceFieldUpdater.newUpdater(Span.class, Event.class, "events");
+  @SuppressWarnings("rawtypes")
+  static final AtomicReferenceFieldUpdater<Span, List> ANNOTATIONS =
+      AtomicReferenceFieldUpdater.newUpdater(Span.class, List.class, "annotations");
+  @SuppressWarnings("rawtypes")
+  static final AtomicReferenceFieldUpdater<Span, List> BINARY_ANNOTATIONS =
+      AtomicReferenceFieldUpdater.newUpdater(Span.class, List.class, "binary_annotations");
 
   public long getTrace_id() {
     return this.trace_id;
@@ -74,10 +111,7 @@ public class Span implements Serializable {
    * Conventionally, when the span name isn't known, name = "unknown".
    */
   public Span setName(String name) {
-    if (name != null) {
-      name = name.toLowerCase();
-    }
-    this.name = name;
+    this.name = LowerCaseNames.lowerCase(name);
     return this;
   }
 
@@ -100,39 +134,198 @@ public class Span implements Serializable {
   }
 
   public Span addToAnnotations(Annotation elem) {
-    if (this.annotations == Collections.EMPTY_LIST) {
-      this.annotations = new ArrayList<Annotation>();
-    }
-    this.annotations.add(elem);
+    List<Annotation> added = new ArrayList<Annotation>(4);
+    added.add(elem);
+    publish(ANNOTATIONS, added);
     return this;
   }
 
+  /**
+   * Like {@link #addToAnnotations}, except this is safe to call from any thread, without
+   * locking. The annotation is published when annotations are next read.
+   */
+  public Span appendAnnotation(Annotation elem) {
+    append(elem, Integer.MAX_VALUE);
+    return this;
+  }
+
+  /**
+   * Like {@link #appendAnnotation(Annotation)}, except the annotation is dropped if the span
+   * already has {@code maxAnnotations}.
+   *
+   * @return false if the annotation was dropped.
+   */
+  public boolean appendAnnotation(Annotation elem, int maxAnnotations) {
+    return append(elem, maxAnnotations);
+  }
+
   public List<Annotation> getAnnotations() {
+    publishEvents();
     return this.annotations;
   }
 
   public Span setAnnotations(List<Annotation> annotations) {
+    publishEvents();
     this.annotations = annotations;
     return this;
   }
 
   public Span addToBinary_annotations(BinaryAnnotation elem) {
-    if (this.binary_annotations == Collections.EMPTY_LIST) {
-      this.binary_annotations = new ArrayList<BinaryAnnotation>();
-    }
-    this.binary_annotations.add(elem);
+    List<BinaryAnnotation> added = new ArrayList<BinaryAnnotation>(4);
+    added.add(elem);
+    publish(BINARY_ANNOTATIONS, added);
     return this;
   }
 
+  /**
+   * Like {@link #addToBinary_annotations}, except this is safe to call from any thread, without
+   * locking. The binary annotation is published when binary annotations are next read.
+   */
+  public Span appendBinaryAnnotation(BinaryAnnotation elem) {
+    append(elem, Integer.MAX_VALUE);
+    return this;
+  }
+
+  /**
+   * Like {@link #appendBinaryAnnotation(BinaryAnnotation)}, except the binary annotation is dropped
+   * if the span already has {@code maxBinaryAnnotations}.
+   *
+   * @return false if the binary annotation was dropped.
+   */
+  public boolean appendBinaryAnnotation(BinaryAnnotation elem, int maxBinaryAnnotations) {
+    return append(elem, maxBinaryAnnotations);
+  }
+
+  /**
+   * Internal method, which returns true only the first time it is called. This lets the caller
+   * record once that annotations were dropped from this span.
+   */
+  public boolean markTruncated() {
+    return truncated == 0 && TRUNCATED.compareAndSet(this, 0, 1);
+  }
+
   public List<BinaryAnnotation> getBinary_annotations() {
+    publishEvents();
     return this.binary_annotations;
   }
 
   public Span setBinaryAnnotations(List<BinaryAnnotation> binary_annotations) {
+    publishEvents();
     this.binary_annotations = binary_annotations;
     return this;
   }
 
+  /**
+   * Pushes the value onto the event log, retrying only when another thread appended first. Returns
+   * false instead when there are already {@code max} values of its type.
+   *
+   * <p>The count is read from the published list and the event log's running totals, so it never
+   * requires publishing. Values being published by another thread at the same time may be missed,
+   * so concurrent readers can let the count briefly exceed {@code max}.
+   */
+  private boolean append(Object value, int max) {
+    if (value == null) throw new NullPointerException("elem == null");
+    boolean isAnnotation = value instanceof Annotation;
+    Event next = new Event(value);
+    Event head;
+    do {
+      // Read the published list before the log: values move from the log to the list, so a
+      // concurrent publish can make the count low, but never count a value twice.
+      List<?> published = isAnnotation ? annotations : binary_annotations;
+      head = events;
+      if (max != Integer.MAX_VALUE) {
+        int count = published != null ? published.size() : 0;
+        if (head != null) count += isAnnotation ? head.annotationCount : head.binaryAnnotationCount;
+        if (count >= max) return false;
+      }
+      next.next = head;
+      next.annotationCount = (head != null ? head.annotationCount : 0) + (isAnnotation ? 1 : 0);
+      next.binaryAnnotationCount =
+          (head != null ? head.binaryAnnotationCount : 0) + (isAnnotation ? 0 : 1);
+    } while (!EVENTS.compareAndSet(this, head, next));
+    return true;
+  }
+
+  /**
+   * Swaps the event log for an empty one, and publishes its contents in arrival order by replacing
+   * the annotation lists with copies. Concurrent readers never see a list being modified.
+   *
+   * <p>Appending stays lock-free, but publishing is exclusive: a reader waits for any publish in
+   * progress, so it sees every value appended before its read, and batches are published in the
+   * order they were appended. When nothing is pending or being published, which is usual, reading
+   * doesn't lock.
+   */
+  private void publishEvents() {
+    // The log is swapped only while publishing is set, so checking in this order can't miss a
+    // publish that took values appended before this read.
+    if (events == null && publishing == 0) return;
+    synchronized (this) {
+      publishing = 1;
+      try {
+        publishEvents(EVENTS.getAndSet(this, null));
+      } finally {
+        publishing = 0;
+      }
+    }
+  }
+
+  private void publishEvents(Event head) {
+    if (head == null) return;
+
+    List<Annotation> newAnnotations = null;
+    List<BinaryAnnotation> newBinaryAnnotations = null;
+    Event reversed = null;
+    while (head != null) {
+      Event next = head.next;
+      head.next = reversed;
+      reversed = head;
+      head = next;
+    }
+    for (Event e = reversed; e != null; e = e.next) {
+      if (e.value instanceof Annotation) {
+        if (newAnnotations == null) newAnnotations = new ArrayList<Annotation>(4);
+        newAnnotations.add((Annotation) e.value);
+      } else {
+        if (newBinaryAnnotations == null) newBinaryAnnotations = new ArrayList<BinaryAnnotation>(4);
+        newBinaryAnnotations.add((BinaryAnnotation) e.value);
+      }
+    }
+    if (newAnnotations != null) publish(ANNOTATIONS, newAnnotations);
+    if (newBinaryAnnotations != null) publish(BINARY_ANNOTATIONS, newBinaryAnnotations);
+  }
+
+  /**
+   * Replaces the list with one that also has the appended values. Lists are never modified once
+   * installed, so the appended list itself is installed when there were no values before.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private void publish(AtomicReferenceFieldUpdater<Span, List> field, List appended) {
+    List current;
+    List updated;
+    do {
+      current = field.get(this);
+      if (current == null || current.isEmpty()) {
+        updated = appended;
+      } else {
+        updated = new ArrayList(current.size() + appended.size());
+        updated.addAll(current);
+        updated.addAll(appended);
+      }
+    } while (!field.compareAndSet(this, current, updated));
+  }
+
+  /** Node in the lock-free event log. */
+  static final class Event {
+    final Object value;
+    Event next;
+    /** Count of each type in the log, up to and including this event. */
+    int annotationCount, binaryAnnotationCount;
+
+    Event(Object value) {
+      this.value = value;
+    }
+  }
+
   public Boolean isDebug() {
     return this.debug;
   }
@@ -236,8 +429,8 @@ public class Span implements Serializable {
           && equal(this.parent_id, that.parent_id)
           && equal(this.timestamp, that.timestamp)
           && equal(this.duration, that.duration)
-          && equal(this.annotations, that.annotations)
-          && equal(this.binary_annotations, that.binary_annotations)
+          && equal(this.getAnnotations(), that.getAnnotations())
+          && equal(this.getBinary_annotations(), that.getBinary_annotations())
           && equal(this.debug, that.debug);
     }
     return false;
@@ -261,8 +454,10 @@ public class Span implements Serializable {
     h *= 1000003;
     h ^= (duration == null) ? 0 : duration.hashCode();
     h *= 1000003;
+    List<Annotation> annotations = getAnnotations();
     h ^= (annotations == null) ? 0 : annotations.hashCode();
     h *= 1000003;
+    List<BinaryAnnotation> binary_annotations = getBinary_annotations();
     h ^= (binary_annotations == null) ? 0 : binary_annotations.hashCode();
     h *= 1000003;
     h ^= (debug == null) ? 0 : debug.hashCode();
@@ -299,6 +494,11 @@ public class Span implements Serializable {
     return result.build();
   }
 
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    publishEvents();
+    out.defaultWriteObject();
+  }
+
   private static zipkin.Endpoint from(Endpoint host) {
     if (host == null) return null;
     return zipkin.Endpoint.builder()
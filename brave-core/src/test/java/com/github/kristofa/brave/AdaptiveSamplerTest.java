@@ -0,0 +1,163 @@
+package com.github.kristofa.brave;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Percentage.withPercentage;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class AdaptiveSamplerTest {
+  static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  long nanoTime = 0L;
+  Ticker ticker = new Ticker() {
+    @Override public long read() {
+      return nanoTime;
+    }
+  };
+
+  SpanCollectorMetricsHandler delegate = mock(SpanCollectorMetricsHandler.class);
+
+  AdaptiveSampler.Builder builder() {
+    return AdaptiveSampler.builder().ticker(ticker);
+  }
+
+  @Test
+  public void startsAtCeiling() {
+    AdaptiveSampler sampler = builder().ceiling(0.5f).build();
+
+    assertThat(sampler.rate()).isEqualTo(0.5f);
+  }
+
+  @Test
+  public void retainsPerRate() {
+    AdaptiveSampler sampler = builder().ceiling(0.3f).build();
+
+    Random random = new Random();
+    int passed = 0;
+    for (int i = 0; i < 100000; i++) {
+      if (sampler.isSampled(random.nextLong())) passed++;
+    }
+    assertThat((long) passed).isCloseTo(30000L, withPercentage(3));
+  }
+
+  @Test
+  public void ceilingOfOneSamplesEverything() {
+    AdaptiveSampler sampler = builder().build();
+
+    assertThat(sampler.isSampled(Long.MIN_VALUE)).isTrue();
+    assertThat(sampler.isSampled(Long.MAX_VALUE)).isTrue();
+    assertThat(sampler.isSampled(0L)).isTrue();
+  }
+
+  @Test
+  public void dropsHalveRate() {
+    AdaptiveSampler sampler = builder().ceiling(0.8f).build();
+    SpanCollectorMetricsHandler metrics = sampler.metricsHandler(delegate);
+
+    metrics.incrementDroppedSpans(5);
+    nanoTime += SECOND;
+    sampler.isSampled(1L);
+
+    assertThat(sampler.rate()).isEqualTo(0.4f);
+  }
+
+  @Test
+  public void adjustsAtMostOncePerInterval() {
+    AdaptiveSampler sampler = builder().ceiling(0.8f).build();
+    SpanCollectorMetricsHandler metrics = sampler.metricsHandler(delegate);
+
+    metrics.incrementDroppedSpans(5);
+    nanoTime += SECOND;
+    sampler.isSampled(1L);
+    metrics.incrementDroppedSpans(5);
+    sampler.isSampled(1L);
+
+    assertThat(sampler.rate()).isEqualTo(0.4f);
+  }
+
+  @Test
+  public void dropsDontGoBelowFloor() {
+    AdaptiveSampler sampler = builder().ceiling(0.8f).floor(0.3f).build();
+    SpanCollectorMetricsHandler metrics = sampler.metricsHandler(delegate);
+
+    for (int i = 0; i < 5; i++) {
+      metrics.incrementDroppedSpans(1);
+      nanoTime += SECOND;
+      sampler.isSampled(1L);
+    }
+
+    assertThat(sampler.rate()).isEqualTo(0.3f);
+  }
+
+  @Test
+  public void recoversToCeilingWithoutDrops() {
+    AdaptiveSampler sampler = builder().ceiling(0.8f).floor(0f).build();
+    SpanCollectorMetricsHandler metrics = sampler.metricsHandler(delegate);
+
+    for (int i = 0; i < 20; i++) {
+      metrics.incrementDroppedSpans(1);
+      nanoTime += SECOND;
+      sampler.isSampled(1L);
+    }
+    assertThat(sampler.rate()).isZero();
+
+    for (int i = 0; i < 9; i++) {
+      nanoTime += SECOND;
+      sampler.isSampled(1L);
+    }
+    assertThat(sampler.rate()).isEqualTo(0.72f);
+
+    for (int i = 0; i < 5; i++) {
+      nanoTime += SECOND;
+      sampler.isSampled(1L);
+    }
+    assertThat(sampler.rate()).isEqualTo(0.8f);
+  }
+
+  @Test
+  public void customInterval() {
+    AdaptiveSampler sampler = builder().adjustInterval(100, TimeUnit.MILLISECONDS).build();
+    SpanCollectorMetricsHandler metrics = sampler.metricsHandler(delegate);
+
+    metrics.incrementDroppedSpans(1);
+    nanoTime += TimeUnit.MILLISECONDS.toNanos(100);
+    sampler.isSampled(1L);
+
+    assertThat(sampler.rate()).isEqualTo(0.5f);
+  }
+
+  @Test
+  public void metricsHandlerForwards() {
+    AdaptiveSampler sampler = builder().build();
+    SpanCollectorMetricsHandler metrics = sampler.metricsHandler(delegate);
+
+    metrics.incrementAcceptedSpans(3);
+    metrics.incrementDroppedSpans(2);
+
+    verify(delegate).incrementAcceptedSpans(3);
+    verify(delegate).incrementDroppedSpans(2);
+  }
+
+  @Test
+  public void floorCantExceedCeiling() {
+    thrown.expect(IllegalArgumentException.class);
+
+    builder().ceiling(0.1f).floor(0.2f).build();
+  }
+
+  @Test
+  public void ceilingCantBeZero() {
+    thrown.expect(IllegalArgumentException.class);
+
+    builder().ceiling(0f);
+  }
+}
@@ -0,0 +1,151 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import zipkin.Constants;
+import zipkin.reporter.Reporter;
+
+import static com.github.kristofa.brave.internal.Util.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AggregatingSpanReporterTest {
+  static final Endpoint ENDPOINT = Endpoint.create("frontend", 127 << 24 | 1);
+  static final Endpoint DB = Endpoint.create("mysql", 127 << 24 | 2, 3306);
+
+  List<Span> reported = new ArrayList<>();
+  Reporter<Span> delegate = reported::add;
+  AggregatingSpanReporter reporter = AggregatingSpanReporter.builder(delegate)
+      .keepFirst(2)
+      .build();
+
+  @Test
+  public void foldsRepeatedSpansIntoSummary() {
+    for (long id = 10; id < 15; id++) {
+      reporter.report(clientSpan(id, DB, 1000L * id, (id - 9) * 1000L));
+    }
+    Span server = serverSpan();
+    reporter.report(server);
+
+    assertThat(reported).extracting(Span::getId).containsExactly(10L, 11L, 12L, 2L);
+    assertThat(reporter.foldedSpans()).isEqualTo(3);
+    assertThat(reporter.summarySpans()).isEqualTo(1);
+
+    Span summary = reported.get(2);
+    assertThat(summary.getName()).isEqualTo("query");
+    assertThat(summary.getParent_id()).isEqualTo(2L);
+    assertThat(summary.getTimestamp()).isEqualTo(12000L);
+    assertThat(summary.getDuration()).isEqualTo(14000L + 5000L - 12000L);
+    assertThat(tags(summary))
+        .containsEntry("aggregate.count", "3")
+        .containsEntry("aggregate.total", "12000")
+        .containsEntry("aggregate.min", "3000")
+        .containsEntry("aggregate.max", "5000")
+        .containsEntry("aggregate.histogram", "100us:0,1ms:0,10ms:3,100ms:0,1s:0,+Inf:0");
+    assertThat(summary.getBinary_annotations())
+        .contains(BinaryAnnotation.address(Constants.SERVER_ADDR, DB));
+  }
+
+  @Test
+  public void doesntFoldSpansToDifferentServices() {
+    Endpoint cache = Endpoint.create("redis", 127 << 24 | 3, 6379);
+    for (long id = 10; id < 13; id++) {
+      reporter.report(clientSpan(id, DB, 1000L, 1000L));
+      reporter.report(clientSpan(id + 10, cache, 1000L, 1000L));
+    }
+
+    assertThat(reporter.foldedSpans()).isEqualTo(2);
+    assertThat(reported).hasSize(4);
+  }
+
+  @Test
+  public void doesntFoldUnderDifferentParents() {
+    for (long id = 10; id < 13; id++) {
+      reporter.report(clientSpan(id, DB, 1000L, 1000L).setParent_id(id));
+    }
+
+    assertThat(reporter.foldedSpans()).isZero();
+    assertThat(reported).hasSize(3);
+  }
+
+  @Test
+  public void doesntFoldErrors() {
+    for (long id = 10; id < 15; id++) {
+      reporter.report(clientSpan(id, DB, 1000L, 1000L)
+          .appendBinaryAnnotation(BinaryAnnotation.create(Constants.ERROR, "timeout", ENDPOINT)));
+    }
+
+    assertThat(reporter.foldedSpans()).isZero();
+    assertThat(reported).hasSize(5);
+  }
+
+  @Test
+  public void foldsLocalSpansByComponent() {
+    for (long id = 10; id < 15; id++) {
+      reporter.report(localSpan(id, "cache"));
+    }
+    reporter.report(localSpan(20L, "codec"));
+    reporter.report(serverSpan());
+
+    assertThat(reported).extracting(Span::getId).containsExactly(10L, 11L, 20L, 12L, 2L);
+    assertThat(tags(reported.get(3))).containsEntry(Constants.LOCAL_COMPONENT, "cache");
+  }
+
+  @Test
+  public void evictsOldestParentWhenFull() {
+    reporter = AggregatingSpanReporter.builder(delegate).keepFirst(0).maxGroups(1).build();
+
+    reporter.report(clientSpan(10L, DB, 1000L, 1000L));
+    reporter.report(clientSpan(11L, DB, 1000L, 1000L).setParent_id(3L));
+
+    assertThat(reported).extracting(Span::getId).containsExactly(10L);
+    assertThat(tags(reported.get(0))).containsEntry("aggregate.count", "1");
+  }
+
+  @Test
+  public void reportsServerSpansAsIs() {
+    Span server = serverSpan().setParent_id(1L);
+
+    reporter.report(server);
+    reporter.report(server);
+    reporter.report(server);
+
+    assertThat(reported).containsExactly(server, server, server);
+  }
+
+  static Span serverSpan() {
+    return new Span().setTrace_id(1L).setId(2L).setName("get")
+        .setTimestamp(1000L).setDuration(100000L)
+        .addToAnnotations(Annotation.create(1000L, Constants.SERVER_RECV, ENDPOINT))
+        .addToAnnotations(Annotation.create(101000L, Constants.SERVER_SEND, ENDPOINT));
+  }
+
+  static Span clientSpan(long id, Endpoint server, long timestamp, long duration) {
+    return new Span().setTrace_id(1L).setId(id).setParent_id(2L).setName("query")
+        .setTimestamp(timestamp).setDuration(duration)
+        .addToAnnotations(Annotation.create(timestamp, Constants.CLIENT_SEND, ENDPOINT))
+        .addToAnnotations(Annotation.create(timestamp + duration, Constants.CLIENT_RECV, ENDPOINT))
+        .addToBinary_annotations(BinaryAnnotation.address(Constants.SERVER_ADDR, server));
+  }
+
+  static Span localSpan(long id, String component) {
+    return new Span().setTrace_id(1L).setId(id).setParent_id(2L).setName("get")
+        .setTimestamp(1000L).setDuration(10L)
+        .addToBinary_annotations(
+            BinaryAnnotation.create(Constants.LOCAL_COMPONENT, component, ENDPOINT));
+  }
+
+  static Map<String, String> tags(Span span) {
+    Map<String, String> result = new LinkedHashMap<>();
+    for (BinaryAnnotation b : span.getBinary_annotations()) {
+      result.put(b.key, new String(b.value, UTF_8));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,137 @@
+package com.github.kristofa.brave;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnchoredClockTest {
+  static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+  static final long EPOCH_MICROS = 1476000000000000L;
+
+  long nanoTime = 0L;
+  Ticker ticker = new Ticker() {
+    @Override public long read() {
+      return nanoTime;
+    }
+  };
+
+  long wallMicros = EPOCH_MICROS;
+  int wallReads;
+  AnnotationSubmitter.Clock wallClock = new AnnotationSubmitter.Clock() {
+    @Override public long currentTimeMicroseconds() {
+      wallReads++;
+      return wallMicros;
+    }
+  };
+
+  AnchoredClock clock = new AnchoredClock(wallClock, ticker, SECOND);
+
+  @Test
+  public void derivesMicrosecondsFromTicker() {
+    nanoTime += 1234567; // 1234.567 micros
+
+    assertThat(clock.currentTimeMicroseconds())
+        .isEqualTo(EPOCH_MICROS + 1234);
+  }
+
+  @Test
+  public void readsWallClockOnlyOnResync() {
+    wallReads = 0;
+    for (int i = 0; i < 1000; i++) {
+      nanoTime += 1000;
+      clock.currentTimeMicroseconds();
+    }
+
+    assertThat(wallReads).isZero();
+  }
+
+  @Test
+  public void toleratesTickerOverflow() {
+    nanoTime = Long.MAX_VALUE - 500;
+    clock = new AnchoredClock(wallClock, ticker, SECOND);
+
+    nanoTime += 2000; // overflows
+
+    assertThat(clock.currentTimeMicroseconds())
+        .isEqualTo(EPOCH_MICROS + 2);
+  }
+
+  @Test
+  public void resync_keepsTimestampWithinWallClockMillisecond() {
+    nanoTime += SECOND + 500000; // 1000.5ms
+    wallMicros += 1000000; // wall clock rounded down to 1000ms
+
+    assertThat(clock.currentTimeMicroseconds())
+        .isEqualTo(EPOCH_MICROS + 1000500);
+    assertThat(clock.anchor.tick)
+        .isEqualTo(nanoTime);
+  }
+
+  @Test
+  public void resync_correctsWhenBehindWallClock() {
+    nanoTime += SECOND;
+    wallMicros += 1005000; // the ticker ran 5ms slower
+
+    assertThat(clock.currentTimeMicroseconds())
+        .isEqualTo(wallMicros);
+
+    nanoTime += 10000; // later timestamps derive from the corrected anchor
+    assertThat(clock.currentTimeMicroseconds())
+        .isEqualTo(wallMicros + 10);
+  }
+
+  @Test
+  public void resync_correctsWhenAheadOfWallClock() {
+    nanoTime += SECOND;
+    wallMicros += 995000; // the ticker ran 5ms faster
+
+    assertThat(clock.currentTimeMicroseconds())
+        .isEqualTo(wallMicros + 999);
+  }
+
+  @Test
+  public void alignToWallClock_anchorsWhenWallClockTicks() {
+    ticker = new Ticker() {
+      @Override public long read() {
+        nanoTime += 100000; // 100us between each read
+        if (nanoTime == 500000) wallMicros += 1000;
+        return nanoTime;
+      }
+    };
+    clock = new AnchoredClock(wallClock, ticker, SECOND);
+
+    clock.alignToWallClock(SECOND);
+
+    assertThat(clock.anchor.epochMicros)
+        .isEqualTo(EPOCH_MICROS + 1000);
+    assertThat(clock.anchor.tick)
+        .isEqualTo(600000); // the tick read after the wall clock changed
+  }
+
+  @Test
+  public void alignToWallClock_givesUpAfterTimeout() {
+    ticker = new Ticker() {
+      @Override public long read() {
+        return nanoTime += 100000;
+      }
+    };
+    clock = new AnchoredClock(wallClock, ticker, SECOND);
+
+    clock.alignToWallClock(1000000);
+
+    assertThat(clock.anchor.epochMicros)
+        .isEqualTo(EPOCH_MICROS);
+  }
+
+  @Test
+  public void create_tracksSystemClock() {
+    AnchoredClock clock = AnchoredClock.create();
+
+    long before = System.currentTimeMillis() * 1000;
+    long timestamp = clock.currentTimeMicroseconds();
+    long after = (System.currentTimeMillis() + 1) * 1000;
+
+    assertThat(timestamp).isBetween(before, after);
+  }
+}
@@ -16,7 +16,7 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @RunWith(PowerMockRunner.class)
-@PrepareForTest(AnnotationSubmitter.class)
+@PrepareForTest({AnnotationSubmitter.class, ExplicitTracer.class})
 public class AnnotationSubmitterTest {
 
     private final static long CURRENT_TIME_MICROSECONDS = System.currentTimeMillis() * 1000;
@@ -123,8 +123,8 @@ public class AnnotationSubmitterTest {
     public void doesntSetDurationWhenTimestampUnset() {
         annotationSubmitter.submitAnnotation("sr");
         annotationSubmitter.submitEndAnnotation("ss", span -> {
-            assertThat(span.timestamp).isNull();
-            assertThat(span.duration).isNull();
+            assertThat(span.getTimestamp()).isNull();
+            assertThat(span.getDuration()).isNull();
         });
     }
 
@@ -134,7 +134,7 @@ public class AnnotationSubmitterTest {
 
         annotationSubmitter.submitAnnotation("sr");
         annotationSubmitter.submitEndAnnotation("ss", span -> {
-            assertThat(span.duration).isEqualTo(1);
+            assertThat(span.getDuration()).isEqualTo(1L);
         });
     }
 
@@ -147,7 +147,7 @@ public class AnnotationSubmitterTest {
 
         annotationSubmitter.submitAnnotation("sr");
         annotationSubmitter.submitEndAnnotation("ss", span -> {
-            assertThat(span.duration).isEqualTo(1L);
+            assertThat(span.getDuration()).isEqualTo(1L);
         });
     }
 }
@@ -0,0 +1,120 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Span;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class AsyncSpanReporterTest {
+  List<zipkin.Span> reported = new CopyOnWriteArrayList<>();
+  SpanCollectorMetricsHandler metrics = mock(SpanCollectorMetricsHandler.class);
+  AsyncSpanReporter reporter;
+
+  @After
+  public void close() {
+    if (reporter != null) reporter.close();
+  }
+
+  @Test
+  public void convertsOnFlush() {
+    reporter = AsyncSpanReporter.builder(reported::add).flushInterval(0).build();
+    Span span = span(1L);
+
+    reporter.report(span);
+    assertThat(reported).isEmpty();
+
+    reporter.flush();
+    assertThat(reported).containsExactly(span.toZipkin());
+  }
+
+  @Test
+  public void dropsWhenQueueIsFull() {
+    reporter = AsyncSpanReporter.builder(reported::add)
+        .metrics(metrics)
+        .queuedMaxSpans(1)
+        .flushInterval(0).build();
+
+    reporter.report(span(1L));
+    reporter.report(span(2L));
+    reporter.flush();
+
+    assertThat(reported).extracting(s -> s.id).containsExactly(1L);
+    verify(metrics).incrementDroppedSpans(1);
+  }
+
+  @Test
+  public void dropsWhenQueueIsFullOfBytes() {
+    reporter = AsyncSpanReporter.builder(reported::add)
+        .metrics(metrics)
+        .queuedMaxBytes(SpanQueue.sizeInBytes(span(1L)))
+        .flushInterval(0).build();
+
+    reporter.report(span(1L));
+    reporter.report(span(2L));
+    reporter.flush();
+
+    assertThat(reported).extracting(s -> s.id).containsExactly(1L);
+    verify(metrics).incrementDroppedSpans(1);
+  }
+
+  @Test
+  public void dropsWhenDelegateFails() {
+    reporter = AsyncSpanReporter.builder(s -> {
+      throw new IllegalStateException();
+    }).metrics(metrics).flushInterval(0).build();
+
+    reporter.report(span(1L));
+    reporter.flush();
+
+    verify(metrics).incrementAcceptedSpans(1);
+    verify(metrics).incrementDroppedSpans(1);
+  }
+
+  @Test
+  public void convertsOnReportingThread() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    Thread[] reportingThread = new Thread[1];
+    reporter = AsyncSpanReporter.create(s -> {
+      reportingThread[0] = Thread.currentThread();
+      latch.countDown();
+    });
+
+    reporter.report(span(1L));
+
+    assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(reportingThread[0]).isNotSameAs(Thread.currentThread());
+  }
+
+  @Test
+  public void close_flushesPendingSpans() {
+    reporter = AsyncSpanReporter.builder(reported::add).flushInterval(0).build();
+
+    reporter.report(span(1L));
+    reporter.close();
+
+    assertThat(reported).extracting(s -> s.id).containsExactly(1L);
+  }
+
+  @Test
+  public void close_dropsLaterSpans() {
+    reporter = AsyncSpanReporter.builder(reported::add).metrics(metrics).build();
+    reporter.close();
+
+    reporter.report(span(1L));
+    reporter.flush();
+
+    assertThat(reported).isEmpty();
+    verify(metrics).incrementDroppedSpans(1);
+  }
+
+  static Span span(long id) {
+    return SpanId.builder().spanId(id).build().toSpan().setName("get");
+  }
+}
@@ -0,0 +1,137 @@
+package com.github.kristofa.brave;
+
+import org.junit.Test;
+
+import static com.github.kristofa.brave.B3SingleFormat.parseB3SingleFormat;
+import static com.github.kristofa.brave.B3SingleFormat.writeB3SingleFormat;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class B3SingleFormatTest {
+  String traceId = "463ac35c9f6413ad";
+  String parentId = "463ac35c9f6413ab";
+  String spanId = "48485a3953bb6124";
+
+  @Test public void writeB3SingleFormat_notYetSampled() {
+    SpanId id = SpanId.builder().traceId(1L).parentId(null).spanId(3L).build();
+
+    assertThat(writeB3SingleFormat(id))
+        .isEqualTo("0000000000000001-0000000000000003-1");
+  }
+
+  @Test public void writeB3SingleFormat_parent() {
+    SpanId id = SpanId.builder().traceId(1L).parentId(2L).spanId(3L).sampled(true).build();
+
+    assertThat(writeB3SingleFormat(id))
+        .isEqualTo("0000000000000001-0000000000000003-1-0000000000000002");
+  }
+
+  @Test public void writeB3SingleFormat_unsampled() {
+    SpanId id = SpanId.builder().traceId(1L).parentId(2L).spanId(3L).sampled(false).build();
+
+    assertThat(writeB3SingleFormat(id))
+        .isEqualTo("0000000000000001-0000000000000003-0-0000000000000002");
+  }
+
+  @Test public void writeB3SingleFormat_debug() {
+    SpanId id = SpanId.builder().traceId(1L).parentId(null).spanId(3L).debug(true).build();
+
+    assertThat(writeB3SingleFormat(id))
+        .isEqualTo("0000000000000001-0000000000000003-d");
+  }
+
+  @Test public void writeB3SingleFormat_128() {
+    SpanId id = SpanId.builder().traceIdHigh(9L).traceId(1L).parentId(2L).spanId(3L).build();
+
+    assertThat(writeB3SingleFormat(id))
+        .isEqualTo("00000000000000090000000000000001-0000000000000003-1-0000000000000002");
+  }
+
+  @Test public void writeB3SingleFormat_intoBuffer() {
+    SpanId id = SpanId.builder().traceIdHigh(9L).traceId(1L).parentId(2L).spanId(3L).build();
+    char[] buffer = new char[B3SingleFormat.MAX_LENGTH + 2];
+
+    int length = B3SingleFormat.writeB3SingleFormat(id, buffer, 2);
+
+    assertThat(length).isEqualTo(B3SingleFormat.MAX_LENGTH);
+    assertThat(new String(buffer, 2, length)).isEqualTo(writeB3SingleFormat(id));
+  }
+
+  @Test public void parseB3SingleFormat_roundTrip() {
+    SpanId id = SpanId.builder().traceIdHigh(9L).traceId(1L).parentId(2L).spanId(3L)
+        .sampled(true).build();
+
+    assertThat(parseB3SingleFormat(writeB3SingleFormat(id)).getSpanId())
+        .isEqualToComparingFieldByField(id);
+  }
+
+  @Test public void parseB3SingleFormat_idsNotYetSampled() {
+    TraceData data = parseB3SingleFormat(traceId + "-" + spanId);
+
+    assertThat(data.getSample()).isNull();
+    assertThat(data.getSpanId()).isEqualToComparingFieldByField(SpanId.builder()
+        .traceId(IdConversion.convertToLong(traceId))
+        .parentId(null)
+        .spanId(IdConversion.convertToLong(spanId)).build());
+  }
+
+  @Test public void parseB3SingleFormat_parent() {
+    TraceData data = parseB3SingleFormat(traceId + "-" + spanId + "-1-" + parentId);
+
+    assertThat(data.getSample()).isTrue();
+    assertThat(data.getSpanId()).isEqualToComparingFieldByField(SpanId.builder()
+        .traceId(IdConversion.convertToLong(traceId))
+        .parentId(IdConversion.convertToLong(parentId))
+        .spanId(IdConversion.convertToLong(spanId))
+        .sampled(true).build());
+  }
+
+  @Test public void parseB3SingleFormat_unsampledIds() {
+    TraceData data = parseB3SingleFormat(traceId + "-" + spanId + "-0");
+
+    assertThat(data.getSample()).isFalse();
+    assertThat(data.getSpanId().nullableParentId()).isNull();
+  }
+
+  @Test public void parseB3SingleFormat_debug() {
+    TraceData data = parseB3SingleFormat(traceId + "-" + spanId + "-d");
+
+    assertThat(data.getSample()).isTrue();
+    assertThat(data.getSpanId().debug()).isTrue();
+  }
+
+  @Test public void parseB3SingleFormat_128() {
+    TraceData data = parseB3SingleFormat(parentId + traceId + "-" + spanId);
+
+    assertThat(data.getSpanId().traceIdHigh).isEqualTo(IdConversion.convertToLong(parentId));
+    assertThat(data.getSpanId().traceId).isEqualTo(IdConversion.convertToLong(traceId));
+  }
+
+  @Test public void parseB3SingleFormat_shortIds() {
+    TraceData data = parseB3SingleFormat("a-b-1-c");
+
+    assertThat(data.getSpanId().traceId).isEqualTo(0xaL);
+    assertThat(data.getSpanId().spanId).isEqualTo(0xbL);
+    assertThat(data.getSpanId().parentId).isEqualTo(0xcL);
+  }
+
+  @Test public void parseB3SingleFormat_samplingOnly() {
+    assertThat(parseB3SingleFormat("0")).isSameAs(TraceData.NOT_SAMPLED);
+    assertThat(parseB3SingleFormat("1")).isSameAs(TraceData.EMPTY);
+    assertThat(parseB3SingleFormat("d")).isSameAs(TraceData.EMPTY);
+  }
+
+  @Test public void parseB3SingleFormat_malformed() {
+    assertThat(parseB3SingleFormat("")).isNull();
+    assertThat(parseB3SingleFormat("x")).isNull();
+    assertThat(parseB3SingleFormat(traceId)).isNull();
+    assertThat(parseB3SingleFormat(traceId + "-")).isNull();
+    assertThat(parseB3SingleFormat(traceId + "-" + spanId + "-")).isNull();
+    assertThat(parseB3SingleFormat(traceId + "-" + spanId + "-2")).isNull();
+    assertThat(parseB3SingleFormat(traceId + "-" + spanId + "-1-")).isNull();
+    assertThat(parseB3SingleFormat(traceId + "-" + spanId + "-1-" + parentId + "0")).isNull();
+    assertThat(parseB3SingleFormat(traceId + "-" + spanId + "0-1")).isNull();
+    assertThat(parseB3SingleFormat(traceId + traceId + "0-" + spanId)).isNull();
+    assertThat(parseB3SingleFormat(traceId.toUpperCase() + "-" + spanId)).isNull();
+    assertThat(parseB3SingleFormat("-" + spanId)).isNull();
+  }
+}
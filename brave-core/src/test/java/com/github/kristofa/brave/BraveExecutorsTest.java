@@ -0,0 +1,213 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class BraveExecutorsTest {
+  static final Endpoint ENDPOINT = Endpoint.create("service", 127 << 24 | 1);
+
+  ThreadLocalServerClientAndLocalSpanState state =
+      new ThreadLocalServerClientAndLocalSpanState(ENDPOINT);
+  Brave brave = new Brave.Builder(state).build();
+  ScheduledExecutorService delegate = Executors.newSingleThreadScheduledExecutor();
+
+  ServerSpan serverSpan = ServerSpan.create(new Span().setName("server"));
+  Span clientSpan = new Span().setName("client");
+  Span localSpan = new Span().setName("local");
+
+  @After
+  public void tearDown() throws Exception {
+    clearState();
+    delegate.shutdownNow();
+  }
+
+  void clearState() {
+    state.setCurrentServerSpan(null);
+    state.setCurrentClientSpan(null);
+    state.setCurrentLocalSpan(null);
+  }
+
+  void setState() {
+    state.setCurrentServerSpan(serverSpan);
+    state.setCurrentClientSpan(clientSpan);
+    state.setCurrentLocalSpan(localSpan);
+  }
+
+  Callable<Object[]> readState = new Callable<Object[]>() {
+    @Override public Object[] call() {
+      return new Object[] {
+          state.getCurrentServerSpan(), state.getCurrentClientSpan(), state.getCurrentLocalSpan()
+      };
+    }
+  };
+
+  @Test
+  public void executorService_propagatesAllSpans() throws Exception {
+    ExecutorService executor = BraveExecutors.wrap((ExecutorService) delegate, brave);
+    setState();
+
+    assertThat(executor.submit(readState).get())
+        .containsExactly(serverSpan, clientSpan, localSpan);
+  }
+
+  @Test
+  public void executorService_restoresPreviousSpans() throws Exception {
+    ExecutorService executor = BraveExecutors.wrap((ExecutorService) delegate, brave);
+    final Span workerSpan = new Span().setName("worker");
+    delegate.submit(new Runnable() {
+      @Override public void run() {
+        state.setCurrentLocalSpan(workerSpan);
+      }
+    }).get();
+
+    setState();
+    executor.submit(readState).get();
+
+    assertThat(delegate.submit(readState).get())
+        .containsExactly(ServerSpan.EMPTY, null, workerSpan);
+  }
+
+  @Test
+  public void executorService_doesntWrapWhenNoSpans() {
+    ExecutorService mock = mock(ExecutorService.class);
+    Runnable task = mock(Runnable.class);
+
+    BraveExecutors.wrap(mock, brave).execute(task);
+
+    verify(mock).execute(task);
+  }
+
+  @Test
+  public void executorService_propagatesNotSampled() throws Exception {
+    ExecutorService executor = BraveExecutors.wrap((ExecutorService) delegate, brave);
+    state.setCurrentServerSpan(ServerSpan.NOT_SAMPLED);
+
+    assertThat(executor.submit(readState).get()[0])
+        .isEqualTo(ServerSpan.NOT_SAMPLED);
+  }
+
+  @Test
+  public void executorService_invokeAll() throws Exception {
+    ExecutorService executor = BraveExecutors.wrap((ExecutorService) delegate, brave);
+    setState();
+
+    assertThat(executor.invokeAll(Arrays.asList(readState, readState)).get(1).get())
+        .containsExactly(serverSpan, clientSpan, localSpan);
+  }
+
+  @Test
+  public void scheduledExecutorService_propagatesAllSpans() throws Exception {
+    ScheduledExecutorService executor = BraveExecutors.wrap(delegate, brave);
+    setState();
+
+    assertThat(executor.schedule(readState, 1, TimeUnit.MILLISECONDS).get())
+        .containsExactly(serverSpan, clientSpan, localSpan);
+  }
+
+  @Test
+  public void scheduledExecutorService_periodicTaskRunsWithCapturedSpans() throws Exception {
+    ScheduledExecutorService executor = BraveExecutors.wrap(delegate, brave);
+    setState();
+
+    final AtomicReference<Span> seen = new AtomicReference<Span>();
+    executor.scheduleAtFixedRate(new Runnable() {
+      @Override public void run() {
+        seen.set(state.getCurrentLocalSpan());
+      }
+    }, 0, 1, TimeUnit.MILLISECONDS);
+    clearState();
+
+    while (seen.get() == null) Thread.sleep(1);
+    assertThat(seen.get()).isSameAs(localSpan);
+  }
+
+  @Test
+  public void completionService_propagatesAllSpans() throws Exception {
+    CompletionService<Object[]> completionService =
+        BraveExecutors.wrap(new ExecutorCompletionService<Object[]>(delegate), brave);
+    setState();
+
+    completionService.submit(readState);
+
+    assertThat(completionService.take().get())
+        .containsExactly(serverSpan, clientSpan, localSpan);
+  }
+
+  @Test
+  public void inheritableState_restoresLocalSpanStack() throws Exception {
+    final InheritableServerClientAndLocalSpanState state =
+        new InheritableServerClientAndLocalSpanState(ENDPOINT);
+    final Span parent = new Span().setName("parent");
+    state.setCurrentLocalSpan(parent);
+    try {
+      SpanStateSnapshot snapshot = SpanStateSnapshot.capture(state);
+      state.setCurrentLocalSpan(null);
+      final Span worker = new Span().setName("worker");
+      state.setCurrentLocalSpan(worker);
+
+      final AtomicReference<Span> seen = new AtomicReference<Span>();
+      snapshot.wrap(new Runnable() {
+        @Override public void run() {
+          seen.set(state.getCurrentLocalSpan());
+        }
+      }).run();
+
+      assertThat(seen.get()).isSameAs(parent);
+      assertThat(state.getCurrentLocalSpan()).isSameAs(worker);
+      state.setCurrentLocalSpan(null);
+      assertThat(state.getCurrentLocalSpan()).isNull();
+    } finally {
+      state.setCurrentLocalSpan(null);
+    }
+  }
+
+  /** A task captured without local spans sees none, even with several inherited by the thread. */
+  @Test
+  public void inheritableState_hidesAndRestoresDeepLocalSpanStack() throws Exception {
+    final InheritableServerClientAndLocalSpanState state =
+        new InheritableServerClientAndLocalSpanState(ENDPOINT);
+    state.setCurrentServerSpan(serverSpan);
+    SpanStateSnapshot snapshot = SpanStateSnapshot.capture(state);
+    state.setCurrentServerSpan(null);
+    ServerSpan previousServerSpan = state.getCurrentServerSpan();
+
+    Span[] stack = new Span[5];
+    for (int i = 0; i < stack.length; i++) {
+      stack[i] = new Span().setName("local" + i);
+      state.setCurrentLocalSpan(stack[i]);
+    }
+    try {
+      final AtomicReference<Span> seen = new AtomicReference<Span>(localSpan);
+      snapshot.wrap(new Runnable() {
+        @Override public void run() {
+          seen.set(state.getCurrentLocalSpan());
+        }
+      }).run();
+
+      assertThat(seen.get()).isNull();
+      for (int i = stack.length - 1; i >= 0; i--) {
+        assertThat(state.getCurrentLocalSpan()).isSameAs(stack[i]);
+        state.setCurrentLocalSpan(null);
+      }
+      assertThat(state.getCurrentLocalSpan()).isNull();
+      assertThat(state.getCurrentServerSpan()).isSameAs(previousServerSpan);
+    } finally {
+      for (int i = 0; i < stack.length; i++) state.setCurrentLocalSpan(null);
+    }
+  }
+}
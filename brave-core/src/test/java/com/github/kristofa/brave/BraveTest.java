@@ -31,7 +31,7 @@ public class BraveTest {
         assertNotNull(clientTracer);
         assertTrue("We expect instance of ClientTracer", clientTracer instanceof ClientTracer);
         assertSame("ClientTracer should be configured with the reporter we submitted.", fakeReporter,
-            clientTracer.reporter());
+            ((ZipkinReporterAdapter) clientTracer.spanReporter()).delegate);
         assertSame("ClientTracer should be configured with the traceSampler we submitted.",
             mockSampler, clientTracer.traceSampler());
 
@@ -45,7 +45,7 @@ public class BraveTest {
     public void testGetServerTracer() {
         final ServerTracer serverTracer = brave.serverTracer();
         assertNotNull(serverTracer);
-        assertSame(fakeReporter, serverTracer.reporter());
+        assertSame(fakeReporter, ((ZipkinReporterAdapter) serverTracer.spanReporter()).delegate);
         assertSame("ServerTracer should be configured with the traceSampler we submitted.",
             mockSampler, serverTracer
             .traceSampler());
@@ -72,7 +72,7 @@ public class BraveTest {
     public void testGetLocalTracer() {
         final LocalTracer localTracer = brave.localTracer();
         assertNotNull(localTracer);
-        assertSame(fakeReporter, localTracer.reporter());
+        assertSame(fakeReporter, ((ZipkinReporterAdapter) localTracer.spanReporter()).delegate);
         assertSame("LocalTracer should be configured with the traceSampler we submitted.",
                 mockSampler, localTracer
                         .traceSampler());
@@ -83,6 +83,17 @@ public class BraveTest {
                 localTracer.spanAndEndpoint().state(), secondLocalTracer.spanAndEndpoint().state());
     }
 
+    @Test
+    public void spanReporterIsSharedAsIs() {
+        Reporter<com.twitter.zipkin.gen.Span> spanReporter = span -> {
+        };
+        brave = new Brave.Builder(-1062731775, 8080, "unknown").spanReporter(spanReporter).build();
+
+        assertSame(spanReporter, brave.serverTracer().spanReporter());
+        assertSame(spanReporter, brave.clientTracer().spanReporter());
+        assertSame(spanReporter, brave.localTracer().spanReporter());
+    }
+
     @Test
     public void testGetServerSpanAnnotationSubmitter() {
         assertNotNull(brave.serverSpanAnnotationSubmitter());
@@ -17,13 +17,14 @@ import zipkin.Constants;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(PowerMockRunner.class)
-@PrepareForTest(AnnotationSubmitter.class)
+@PrepareForTest({AnnotationSubmitter.class, ExplicitTracer.class})
 public class ClientTracerTest {
 
     private static final long CURRENT_TIME_MICROSECONDS = System.currentTimeMillis() * 1000;
@@ -148,6 +149,52 @@ public class ClientTracerTest {
         assertEquals(expectedAnnotation, clientRecv.getAnnotations().get(0));
     }
 
+    @Test
+    public void setClientSentAndReceived_atGivenTimes() {
+        Span span = new Span().setName("foo");
+        state.setCurrentClientSpan(span);
+
+        clientTracer.setClientSent(Endpoint.builder()
+            .ipv4(1 << 24 | 2 << 16 | 3 << 8 | 4).port(9999).serviceName("foobar").build(), 1000L);
+        clientTracer.setClientReceived(6000L);
+
+        assertNull(state.getCurrentClientSpan());
+        verify(mockCollector).collect(span);
+        assertEquals(1000L, span.getTimestamp().longValue());
+        assertEquals(5000L, span.getDuration().longValue());
+        assertEquals(Annotation.create(1000L, Constants.CLIENT_SEND, state.endpoint()),
+            span.getAnnotations().get(0));
+        assertEquals(Annotation.create(6000L, Constants.CLIENT_RECV, state.endpoint()),
+            span.getAnnotations().get(1));
+        assertEquals(Constants.SERVER_ADDR, span.getBinary_annotations().get(0).getKey());
+    }
+
+    @Test
+    public void setClientSentAndReceived_backdatesFromClock() {
+        clientTracer = ClientTracer.builder()
+            .state(state)
+            .randomGenerator(mockRandom)
+            .spanCollector(mockCollector)
+            .traceSampler(mockSampler)
+            .clock(() -> 9000L)
+            .traceId128Bit(false)
+            .build();
+        Span span = new Span().setName("foo");
+        state.setCurrentClientSpan(span);
+
+        clientTracer.setClientSentAndReceived(null, 5000000L);
+
+        assertNull(state.getCurrentClientSpan());
+        verify(mockCollector).collect(span);
+        assertEquals(4000L, span.getTimestamp().longValue());
+        assertEquals(5000L, span.getDuration().longValue());
+        assertEquals(Annotation.create(4000L, Constants.CLIENT_SEND, state.endpoint()),
+            span.getAnnotations().get(0));
+        assertEquals(Annotation.create(9000L, Constants.CLIENT_RECV, state.endpoint()),
+            span.getAnnotations().get(1));
+        assertEquals(0, span.getBinary_annotations().size());
+    }
+
     @Test
     public void testStartNewSpanSampleFalse() {
         state.setCurrentServerSpan(ServerSpan.NOT_SAMPLED);
@@ -200,6 +247,17 @@ public class ClientTracerTest {
         verifyNoMoreInteractions(mockCollector, mockSampler);
     }
 
+    @Test
+    public void startNewSpan_sharesHexIdsWithParent() {
+        SpanId parent = SpanId.builder().traceId(TRACE_ID).spanId(103).build();
+        state.setCurrentServerSpan(ServerSpan.create(parent.toSpan().setName("name")));
+        when(mockRandom.nextLong()).thenReturn(1L);
+
+        final SpanId newSpanId = clientTracer.startNewSpan(REQUEST_NAME);
+        assertSame(parent.traceIdString(), newSpanId.traceIdString());
+        assertSame(parent.spanIdString(), newSpanId.parentIdString());
+    }
+
     @Test
     public void testSamplerFalse() {
         state.setCurrentServerSpan(ServerSpan.EMPTY);
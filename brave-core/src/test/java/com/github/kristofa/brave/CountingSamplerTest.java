@@ -1,26 +1,121 @@
 package com.github.kristofa.brave;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongPredicate;
 import org.assertj.core.data.Percentage;
 import org.junit.Test;
-import org.junit.rules.ExpectedException;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 import static org.assertj.core.data.Percentage.withPercentage;
 
 public class CountingSamplerTest extends SamplerTest {
+  /** A single stripe, as the inherited tests expect the rate to be exact across threads. */
   @Override Sampler newSampler(float rate) {
-    return CountingSampler.create(rate);
+    return CountingSampler.create(rate, 1);
   }
 
   @Override Percentage expectedErrorRate() {
     return withPercentage(0);
   }
 
-
   @Test
-  public void sampleRateMinimumOnePercent() throws Exception {
+  public void sampleRateMinimumOneHundredthOfAPercent() throws Exception {
     thrown.expect(IllegalArgumentException.class);
-    newSampler(0.0001f);
+    newSampler(0.00009f);
+  }
+
+  @Test
+  public void windowSize_smallestThatIsExact() {
+    assertThat(CountingSampler.windowSize(0.5f)).isEqualTo(100);
+    assertThat(CountingSampler.windowSize(0.01f)).isEqualTo(100);
+    assertThat(CountingSampler.windowSize(0.005f)).isEqualTo(1000);
+    assertThat(CountingSampler.windowSize(0.001f)).isEqualTo(1000);
+    assertThat(CountingSampler.windowSize(0.0001f)).isEqualTo(10000);
+    assertThat(CountingSampler.windowSize(0.1234f)).isEqualTo(10000);
+  }
+
+  @Test
+  public void oneInTenThousand_exactPerWindow() {
+    Sampler sampler = CountingSampler.create(0.0001f);
+
+    for (int window = 0; window < 5; window++) {
+      int sampled = 0;
+      for (int i = 0; i < 10000; i++) {
+        if (sampler.isSampled(i)) sampled++;
+      }
+      assertThat(sampled).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void defaultStripesArePowerOfTwo() {
+    int stripes = CountingSampler.defaultStripes();
+
+    assertThat(Integer.bitCount(stripes)).isEqualTo(1);
+    assertThat(stripes).isBetween(1, CountingSampler.MAX_STRIPES);
+  }
+
+  /** Each stripe sees a whole number of windows, when each thread does. */
+  @Test
+  public void striped_exactWhenEachThreadCompletesWindows() throws Exception {
+    final Sampler sampler = CountingSampler.create(0.003f, 8);
+    int threadCount = 16;
+    ExecutorService exec = Executors.newFixedThreadPool(threadCount);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int t = 0; t < threadCount; t++) {
+        futures.add(exec.submit(new Callable<Integer>() {
+          @Override public Integer call() {
+            int sampled = 0;
+            for (int i = 0; i < 3 * 1000; i++) {
+              if (sampler.isSampled(i)) sampled++;
+            }
+            return sampled;
+          }
+        }));
+      }
+      int sampled = 0;
+      for (Future<Integer> future : futures) {
+        sampled += future.get();
+      }
+      assertThat(sampled).isEqualTo(threadCount * 3 * 3);
+    } finally {
+      exec.shutdownNow();
+    }
   }
 
+  /**
+   * With several stripes, each is exact only over its own windows. Globally, each stripe can be
+   * off by at most the sampled traces of one window.
+   */
+  @Test
+  public void striped_globalRatioWithinOneWindowPerStripe() {
+    int stripes = 8;
+    for (float rate : SAMPLE_RATES) {
+      final Sampler sampler = CountingSampler.create(rate, stripes);
+
+      long passed = new Random().longs(INPUT_SIZE).parallel().filter(new LongPredicate() {
+        @Override public boolean test(long traceId) {
+          return sampler.isSampled(traceId);
+        }
+      }).count();
 
+      long sampledPerWindow = Math.round((double) rate * CountingSampler.windowSize(rate));
+      assertThat(passed)
+          .isCloseTo((long) (INPUT_SIZE * rate), within(stripes * sampledPerWindow));
+    }
+  }
+
+  @Test
+  public void stripesMustBePowerOfTwo() {
+    thrown.expect(IllegalArgumentException.class);
+    CountingSampler.create(0.5f, 3);
+  }
 }
@@ -0,0 +1,174 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+import zipkin.Constants;
+import zipkin.reporter.Reporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExplicitTracerTest {
+  static final Endpoint ENDPOINT = Endpoint.create("service", 127 << 24 | 1);
+
+  List<zipkin.Span> spans = new ArrayList<zipkin.Span>();
+  ThreadLocalServerClientAndLocalSpanState state =
+      new ThreadLocalServerClientAndLocalSpanState(ENDPOINT);
+  Brave brave = braveBuilder().build();
+  ExplicitTracer tracer = brave.explicitTracer();
+
+  Brave.Builder braveBuilder() {
+    return new Brave.Builder(state).reporter(new Reporter<zipkin.Span>() {
+      @Override public void report(zipkin.Span span) {
+        spans.add(span);
+      }
+    });
+  }
+
+  @After
+  public void clearState() {
+    brave.serverTracer().clearCurrentSpan();
+    state.setCurrentClientSpan(null);
+    state.setCurrentLocalSpan(null);
+  }
+
+  @Test
+  public void newTrace_recordsSamplingDecision() {
+    assertThat(tracer.newTrace().sampled()).isTrue();
+
+    tracer = braveBuilder().traceSampler(Sampler.NEVER_SAMPLE).build().explicitTracer();
+    assertThat(tracer.newTrace().sampled()).isFalse();
+  }
+
+  @Test
+  public void newTrace_isRoot() {
+    SpanId context = tracer.newTrace();
+
+    assertThat(context.root()).isTrue();
+    assertThat(context.traceId).isEqualTo(context.spanId);
+  }
+
+  @Test
+  public void newTrace_128Bit() {
+    tracer = braveBuilder().traceId128Bit(true).build().explicitTracer();
+
+    assertThat(tracer.newTrace().traceIdHigh).isNotZero();
+  }
+
+  @Test
+  public void joinTrace_keepsCallersDecision() {
+    SpanId extracted = SpanId.builder().traceId(1L).spanId(2L).sampled(false).build();
+
+    assertThat(tracer.joinTrace(extracted)).isSameAs(extracted);
+  }
+
+  @Test
+  public void joinTrace_decidesWhenCallerDidnt() {
+    SpanId extracted = SpanId.builder().traceId(1L).spanId(2L).build();
+
+    SpanId joined = tracer.joinTrace(extracted);
+    assertThat(joined.sampled()).isTrue();
+    assertThat(joined.toBuilder().sampled(null).build()).isEqualTo(extracted);
+  }
+
+  @Test
+  public void newChild_inheritsSamplingAndSharesIds() {
+    SpanId parent = tracer.newTrace();
+
+    SpanId child = tracer.newChild(parent);
+
+    assertThat(child.traceId).isEqualTo(parent.traceId);
+    assertThat(child.parentId).isEqualTo(parent.spanId);
+    assertThat(child.sampled()).isTrue();
+    assertThat(child.root()).isFalse();
+    assertThat(child.parentIdString()).isSameAs(parent.spanIdString());
+  }
+
+  @Test
+  public void newSpan_nullWhenNotSampled() {
+    SpanId context = SpanId.builder().traceId(1L).spanId(1L).sampled(false).build();
+
+    assertThat(tracer.newSpan(context, "get")).isNull();
+  }
+
+  @Test
+  public void newSpan_samplesWhenUndecided() {
+    tracer = braveBuilder().traceSampler(Sampler.NEVER_SAMPLE).build().explicitTracer();
+    SpanId context = SpanId.builder().traceId(1L).spanId(1L).build();
+
+    assertThat(tracer.newSpan(context, "get")).isNull();
+  }
+
+  @Test
+  public void clientSpan() {
+    SpanId context = tracer.newTrace();
+    Span span = tracer.newSpan(context, "GET");
+    tracer.address(span, Constants.SERVER_ADDR, Endpoint.create("backend", 127 << 24 | 2));
+    tracer.start(span, Constants.CLIENT_SEND);
+    tracer.annotate(span, "retry");
+    tracer.tag(span, "http.path", "/users");
+    tracer.finish(span, Constants.CLIENT_RECV);
+
+    assertThat(spans).hasSize(1);
+    zipkin.Span reported = spans.get(0);
+    assertThat(reported.id).isEqualTo(context.spanId);
+    assertThat(reported.name).isEqualTo("get");
+    assertThat(reported.timestamp).isEqualTo(reported.annotations.get(0).timestamp);
+    assertThat(reported.duration).isPositive();
+    assertThat(reported.annotations).extracting(a -> a.value)
+        .containsExactly(Constants.CLIENT_SEND, "retry", Constants.CLIENT_RECV);
+    assertThat(reported.binaryAnnotations).extracting(b -> b.key)
+        .containsOnly(Constants.SERVER_ADDR, "http.path");
+    assertThat(reported.binaryAnnotations).filteredOn(b -> b.key.equals(Constants.SERVER_ADDR))
+        .extracting(b -> b.endpoint.serviceName).containsExactly("backend");
+  }
+
+  @Test
+  public void localSpan() {
+    Span span = tracer.startLocalSpan(tracer.newTrace(), "codec", "encode");
+    tracer.finishLocalSpan(span);
+
+    assertThat(spans).hasSize(1);
+    assertThat(spans.get(0).duration).isPositive();
+    assertThat(spans.get(0).binaryAnnotations).extracting(b -> b.key)
+        .containsExactly(Constants.LOCAL_COMPONENT);
+  }
+
+  @Test
+  public void localSpan_explicitDuration() {
+    Span span = tracer.startLocalSpan(tracer.newTrace(), "codec", "encode");
+    tracer.finishLocalSpan(span, 500L);
+
+    assertThat(spans.get(0).duration).isEqualTo(500L);
+  }
+
+  @Test
+  public void doesntTouchThreadState() {
+    SpanId context = tracer.newTrace();
+    Span span = tracer.newSpan(context, "get");
+    tracer.start(span, Constants.SERVER_RECV);
+    Span local = tracer.startLocalSpan(tracer.newChild(context), "codec", "encode");
+
+    assertThat(state.getCurrentServerSpan()).isEqualTo(ServerSpan.EMPTY);
+    assertThat(state.getCurrentClientSpan()).isNull();
+    assertThat(state.getCurrentLocalSpan()).isNull();
+
+    tracer.finishLocalSpan(local);
+    tracer.finish(span, Constants.SERVER_SEND);
+    assertThat(spans).hasSize(2);
+  }
+
+  @Test
+  public void childOfThreadBoundSpan() {
+    brave.serverTracer().setStateUnknown("get");
+    ServerSpan serverSpan = state.getCurrentServerSpan();
+
+    SpanId child = tracer.newChild(serverSpan.getSpan().context);
+
+    assertThat(child.traceId).isEqualTo(serverSpan.getSpan().getTrace_id());
+    assertThat(child.parentId).isEqualTo(serverSpan.getSpan().getId());
+  }
+}
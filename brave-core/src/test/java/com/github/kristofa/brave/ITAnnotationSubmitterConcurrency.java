@@ -4,14 +4,18 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Annotation;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.After;
 import org.junit.Before;
@@ -19,6 +23,7 @@ import org.junit.Test;
 
 import com.github.kristofa.brave.SpanAndEndpoint.StaticSpanAndEndpoint;
 import com.twitter.zipkin.gen.Span;
+import zipkin.reporter.Reporter;
 
 /**
  * This isSampled proves that we have proper synchronisation when submitted annotations for the same span. Without proper
@@ -36,7 +41,7 @@ public class ITAnnotationSubmitterConcurrency {
 
     @Before
     public void setup() {
-        executorService = Executors.newFixedThreadPool(4);
+        executorService = Executors.newFixedThreadPool(5);
         span = new Span();
     }
 
@@ -72,6 +77,142 @@ public class ITAnnotationSubmitterConcurrency {
 
     }
 
+    /**
+     * Annotations are appended without locking, while other threads read the span. Each reader sees
+     * a consistent snapshot, and nothing appended is lost once all writers complete.
+     */
+    @Test
+    public void testSubmitAnnotationsWhileReading() throws Exception {
+        span.setName("get");
+        final AnnotationSubmitter annotationSubmitter = AnnotationSubmitter.create(StaticSpanAndEndpoint.create(span, endpoint));
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        final List<Future<?>> writers = new ArrayList<Future<?>>();
+        for (int i = 0; i < 4; i++) {
+            final AnnotationSubmitThread writer = new AnnotationSubmitThread(i * 1000 + 1, (i + 1) * 1000, annotationSubmitter);
+            writers.add(executorService.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    return writer.call();
+                }
+            }));
+        }
+
+        Future<Integer> reader = executorService.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                start.await();
+                int reads = 0;
+                while (writing.get()) {
+                    // toZipkin iterates over both lists, which fails if they are modified concurrently
+                    int size = span.toZipkin().annotations.size();
+                    assertTrue(size <= 4000);
+                    reads++;
+                }
+                return reads;
+            }
+        });
+
+        start.countDown();
+        for (final Future<?> result : writers) {
+            result.get();
+        }
+        writing.set(false);
+        assertTrue(reader.get() > 0);
+
+        assertEquals(4000, span.getAnnotations().size());
+        assertEquals(4000, span.getBinary_annotations().size());
+        assertEquals(4000, new HashSet<Annotation>(span.getAnnotations()).size());
+    }
+
+    /**
+     * Each thread reads the span right after appending to it, while other threads append and read
+     * too. Every read sees the thread's own annotations so far, in the order they were appended.
+     */
+    @Test
+    public void testReadsSeeEarlierAppendsWhileOthersAppend() throws Exception {
+        span.setName("get");
+        final CountDownLatch start = new CountDownLatch(1);
+
+        final List<Future<?>> resultList = new ArrayList<Future<?>>();
+        for (int i = 0; i < 4; i++) {
+            final String prefix = "thread" + i + "-";
+            resultList.add(executorService.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    for (int index = 0; index < 500; index++) {
+                        span.appendAnnotation(Annotation.create(index, prefix + index, endpoint));
+                        int seen = 0;
+                        for (Annotation annotation : span.getAnnotations()) {
+                            if (!annotation.value.startsWith(prefix)) continue;
+                            assertEquals(prefix + seen, annotation.value);
+                            seen++;
+                        }
+                        assertEquals(index + 1, seen);
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        start.countDown();
+        for (final Future<?> result : resultList) {
+            result.get();
+        }
+        assertEquals(2000, span.getAnnotations().size());
+    }
+
+    /** A span started on one thread and finished on another keeps annotations from both. */
+    @Test
+    public void testFinishOnAnotherThread() throws Exception {
+        final ServerClientAndLocalSpanState state = new ThreadLocalServerClientAndLocalSpanState(endpoint);
+        final List<Span> reported = new ArrayList<Span>();
+        final ServerTracer serverTracer = new Brave.Builder(state).spanReporter(new Reporter<Span>() {
+            @Override public void report(Span span) {
+                reported.add(span);
+            }
+        }).build().serverTracer();
+
+        serverTracer.setStateUnknown("get");
+        serverTracer.setServerReceived();
+        final ServerSpan serverSpan = state.getCurrentServerSpan();
+
+        final List<Future<?>> resultList = new ArrayList<Future<?>>();
+        for (int i = 0; i < 4; i++) {
+            final int offset = i * 100;
+            resultList.add(executorService.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    state.setCurrentServerSpan(serverSpan);
+                    for (int index = offset + 1; index <= offset + 100; index++) {
+                        serverTracer.submitAnnotation("annotation" + index);
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (final Future<?> result : resultList) {
+            result.get();
+        }
+
+        executorService.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                state.setCurrentServerSpan(serverSpan);
+                serverTracer.setServerSend();
+                return null;
+            }
+        }).get();
+
+        assertEquals(1, reported.size());
+        // sr + 400 + ss
+        assertEquals(402, reported.get(0).getAnnotations().size());
+        assertTrue(reported.get(0).getDuration() != null);
+    }
+
     private final class AnnotationSubmitThread implements Callable<Void> {
 
         private final int from;
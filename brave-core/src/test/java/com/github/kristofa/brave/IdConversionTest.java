@@ -83,4 +83,27 @@ public class IdConversionTest {
     assertThat(IdConversion.convertToLong("463ac35c9f6413ad48485a3953bb6124", 0))
         .isEqualTo(IdConversion.convertToLong("463ac35c9f6413ad"));
   }
+
+  @Test
+  public void toLowerHex_padsToSixteenCharacters() {
+    assertThat(IdConversion.toLowerHex(0xa3L))
+        .isEqualTo("00000000000000a3");
+    assertThat(IdConversion.toLowerHex(-1L))
+        .isEqualTo("ffffffffffffffff");
+  }
+
+  @Test
+  public void writeLowerHex_atOffset() {
+    char[] buffer = "trace=XXXXXXXXXXXXXXXX!".toCharArray();
+
+    IdConversion.writeLowerHex(0x463ac35c9f6413adL, buffer, 6);
+
+    assertThat(new String(buffer))
+        .isEqualTo("trace=463ac35c9f6413ad!");
+  }
+
+  @Test(expected = ArrayIndexOutOfBoundsException.class)
+  public void writeLowerHex_bufferTooSmall() {
+    IdConversion.writeLowerHex(1L, new char[20], 5);
+  }
 }
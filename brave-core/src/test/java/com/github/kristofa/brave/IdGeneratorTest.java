@@ -0,0 +1,79 @@
+package com.github.kristofa.brave;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IdGeneratorTest {
+
+  @Test
+  public void create_doesntRepeatOrReturnZero() {
+    IdGenerator generator = IdGenerator.create();
+    Set<Long> ids = new LinkedHashSet<>();
+    for (int i = 0; i < 100000; i++) {
+      ids.add(generator.nextId());
+    }
+    assertThat(ids).hasSize(100000).doesNotContain(0L);
+  }
+
+  @Test
+  public void create_threadsHaveDifferentSequences() throws Exception {
+    IdGenerator generator = IdGenerator.create();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Callable<List<Long>> task = () -> IntStream.range(0, 1000)
+          .mapToObj(i -> generator.nextId()).collect(Collectors.toList());
+      List<Future<List<Long>>> futures = executor.invokeAll(Collections.nCopies(4, task));
+
+      Set<Long> ids = new LinkedHashSet<>();
+      for (Future<List<Long>> future : futures) {
+        ids.addAll(future.get());
+      }
+      assertThat(ids).hasSize(4000);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void create_random() {
+    Random random = mock(Random.class);
+    when(random.nextLong()).thenReturn(555L);
+
+    assertThat(IdGenerator.create(random).nextId()).isEqualTo(555L);
+  }
+
+  @Test
+  public void prefetching_takesBatchesFromDelegate() {
+    Random random = mock(Random.class);
+    when(random.nextLong()).thenReturn(1L, 2L, 3L, 4L);
+    IdGenerator generator = IdGenerator.prefetching(IdGenerator.create(random), 2);
+
+    assertThat(generator.nextId()).isEqualTo(1L);
+    verify(random, times(2)).nextLong();
+    assertThat(generator.nextId()).isEqualTo(2L);
+    verify(random, times(2)).nextLong();
+    assertThat(generator.nextId()).isEqualTo(3L);
+    verify(random, times(4)).nextLong();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void prefetching_batchSizeMustBePositive() {
+    IdGenerator.prefetching(IdGenerator.create(), 0);
+  }
+}
@@ -115,6 +115,41 @@ public class InheritableServerClientAndLocalSpanStateTest {
         assertThat(currentParentSpan(state)).isNull();
     }
 
+    @Test
+    public void testLocalSpanNesting() {
+        Span parent = new Span(), child = new Span();
+
+        state.setCurrentLocalSpan(parent);
+        state.setCurrentLocalSpan(child);
+        assertSame(child, state.getCurrentLocalSpan());
+
+        state.setCurrentLocalSpan(null);
+        assertSame(parent, state.getCurrentLocalSpan());
+    }
+
+    @Test
+    public void testChildThreadInheritsCopyOfLocalSpans() throws Exception {
+        state.setCurrentLocalSpan(mockSpan);
+
+        final Span[] seenByChild = new Span[2];
+        Thread child = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                seenByChild[0] = state.getCurrentLocalSpan();
+                state.setCurrentLocalSpan(null); // pops only the child's copy
+                seenByChild[1] = state.getCurrentLocalSpan();
+                state.setCurrentLocalSpan(new Span());
+            }
+        });
+        child.start();
+        child.join();
+
+        assertSame(mockSpan, seenByChild[0]);
+        assertNull(seenByChild[1]);
+        assertSame("Child thread should not modify the parent's stack", mockSpan,
+                state.getCurrentLocalSpan());
+    }
+
     @Test
     public void testToString() throws Exception {
         assertThat(state.toString()).startsWith("InheritableServerClientAndLocalSpanState");
@@ -0,0 +1,49 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Span;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LocalSpanStackTest {
+  LocalSpanStack stack = new LocalSpanStack();
+
+  @Test
+  public void emptyStack() {
+    assertThat(stack.peek()).isNull();
+
+    stack.pop(); // no-op
+
+    assertThat(stack.size()).isZero();
+  }
+
+  @Test
+  public void growsBeyondInitialCapacity() {
+    Span[] spans = new Span[LocalSpanStack.INITIAL_CAPACITY * 2 + 1];
+    for (int i = 0; i < spans.length; i++) {
+      stack.push(spans[i] = new Span());
+    }
+
+    for (int i = spans.length - 1; i >= 0; i--) {
+      assertThat(stack.peek()).isSameAs(spans[i]);
+      stack.pop();
+    }
+    assertThat(stack.peek()).isNull();
+  }
+
+  @Test
+  public void copyIsIndependent() {
+    Span parent = new Span(), child = new Span();
+    stack.push(parent);
+
+    LocalSpanStack copy = stack.copy();
+    copy.push(child);
+    stack.pop();
+
+    assertThat(stack.peek()).isNull();
+    assertThat(copy.size()).isEqualTo(2);
+    assertThat(copy.peek()).isSameAs(child);
+    copy.pop();
+    assertThat(copy.peek()).isSameAs(parent);
+  }
+}
@@ -23,7 +23,7 @@ import com.twitter.zipkin.gen.Span;
 import zipkin.reporter.Reporter;
 
 @RunWith(PowerMockRunner.class)
-@PrepareForTest({AnnotationSubmitter.class, LocalTracer.class})
+@PrepareForTest({AnnotationSubmitter.class, ExplicitTracer.class, LocalTracer.class})
 public class LocalTracerTest {
     private static final long TRACE_ID = 105;
     private static final SpanId PARENT_SPAN_ID = SpanId.builder().traceId(TRACE_ID).spanId(103).build();
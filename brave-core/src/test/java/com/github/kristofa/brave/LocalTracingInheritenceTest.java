@@ -69,7 +69,7 @@ public class LocalTracingInheritenceTest {
         assertNotNull(clientTracer);
         assertTrue("We expect instance of ClientTracer", clientTracer instanceof ClientTracer);
         assertSame("ClientTracer should be configured with the spanreportor we submitted.", reporter,
-                clientTracer.reporter());
+                ((ZipkinReporterAdapter) clientTracer.spanReporter()).delegate);
         assertSame("ClientTracer should be configured with the traceSampler we submitted.",
                 sampler, clientTracer.traceSampler());
 
@@ -82,7 +82,7 @@ public class LocalTracingInheritenceTest {
     public void testGetServerTracer() {
         final ServerTracer serverTracer = brave.serverTracer();
         assertNotNull(serverTracer);
-        assertSame(reporter, serverTracer.reporter());
+        assertSame(reporter, ((ZipkinReporterAdapter) serverTracer.spanReporter()).delegate);
         assertSame("ServerTracer should be configured with the traceSampler we submitted.",
                 sampler, serverTracer.traceSampler());
 
@@ -95,7 +95,7 @@ public class LocalTracingInheritenceTest {
     public void testGetLocalTracer() {
         final LocalTracer localTracer = brave.localTracer();
         assertNotNull(localTracer);
-        assertSame(reporter, localTracer.reporter());
+        assertSame(reporter, ((ZipkinReporterAdapter) localTracer.spanReporter()).delegate);
         assertSame("LocalTracer should be configured with the traceSampler we submitted.",
                 sampler, localTracer.traceSampler());
 
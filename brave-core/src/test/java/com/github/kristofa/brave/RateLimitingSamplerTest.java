@@ -0,0 +1,124 @@
+package com.github.kristofa.brave;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitingSamplerTest {
+  static final long MILLIS = 1000000L;
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  long nanoTime = 0L;
+  Ticker ticker = new Ticker() {
+    @Override public long read() {
+      return nanoTime;
+    }
+  };
+
+  @Test
+  public void zeroMeansDropAllTraces() {
+    assertThat(RateLimitingSampler.create(0)).isSameAs(Sampler.NEVER_SAMPLE);
+  }
+
+  @Test
+  public void tracesPerSecondCantBeNegative() {
+    thrown.expect(IllegalArgumentException.class);
+
+    RateLimitingSampler.create(-1);
+  }
+
+  @Test
+  public void burstIsATenthOfTheSecond() {
+    Sampler sampler = RateLimitingSampler.create(100, ticker);
+
+    assertThat(countSampled(sampler, 1000)).isEqualTo(10);
+  }
+
+  @Test
+  public void burstIsAtLeastOne() {
+    Sampler sampler = RateLimitingSampler.create(5, ticker);
+
+    assertThat(countSampled(sampler, 1000)).isEqualTo(1);
+
+    nanoTime += 199 * MILLIS;
+    assertThat(sampler.isSampled(1L)).isFalse();
+    nanoTime += 1 * MILLIS;
+    assertThat(sampler.isSampled(1L)).isTrue();
+  }
+
+  @Test
+  public void refillsOneTraceEachInterval() {
+    Sampler sampler = RateLimitingSampler.create(100, ticker);
+    countSampled(sampler, 1000); // empty the bucket
+
+    nanoTime += 10 * MILLIS;
+    assertThat(countSampled(sampler, 1000)).isEqualTo(1);
+  }
+
+  @Test
+  public void idleTimeDoesntExceedTheBurst() {
+    Sampler sampler = RateLimitingSampler.create(100, ticker);
+
+    nanoTime += 60 * 1000 * MILLIS;
+    assertThat(countSampled(sampler, 1000)).isEqualTo(10);
+  }
+
+  /** Once the initial burst is spent, a steady stream is capped at the rate */
+  @Test
+  public void steadyTraffic_capsAtRate() {
+    Sampler sampler = RateLimitingSampler.create(100, ticker);
+    for (int i = 0; i < 1000; i++, nanoTime += MILLIS) {
+      sampler.isSampled(1L);
+    }
+
+    int sampled = 0;
+    for (int i = 0; i < 1000; i++, nanoTime += MILLIS) {
+      if (sampler.isSampled(1L)) sampled++;
+    }
+    assertThat(sampled).isEqualTo(100);
+  }
+
+  @Test
+  public void nanoTimeOverflow() {
+    nanoTime = Long.MAX_VALUE - 5 * MILLIS;
+    Sampler sampler = RateLimitingSampler.create(100, ticker);
+    countSampled(sampler, 1000); // empty the bucket
+
+    nanoTime += 10 * MILLIS; // overflows
+    assertThat(countSampled(sampler, 1000)).isEqualTo(1);
+  }
+
+  @Test
+  public void concurrentRequestsDontExceedTheBurst() throws Exception {
+    final Sampler sampler = RateLimitingSampler.create(1000, ticker);
+    final AtomicInteger sampled = new AtomicInteger();
+    ExecutorService exec = Executors.newFixedThreadPool(8);
+    for (int t = 0; t < 8; t++) {
+      exec.execute(new Runnable() {
+        @Override public void run() {
+          sampled.addAndGet(countSampled(sampler, 1000));
+        }
+      });
+    }
+    exec.shutdown();
+    assertThat(exec.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(sampled.get()).isEqualTo(100);
+  }
+
+  static int countSampled(Sampler sampler, int requests) {
+    int sampled = 0;
+    for (int i = 0; i < requests; i++) {
+      if (sampler.isSampled(i)) sampled++;
+    }
+    return sampled;
+  }
+}
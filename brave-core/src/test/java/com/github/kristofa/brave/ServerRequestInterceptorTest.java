@@ -10,6 +10,8 @@ import zipkin.reporter.Reporter;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ServerRequestInterceptorTest {
@@ -23,7 +25,7 @@ public class ServerRequestInterceptorTest {
 
     InheritableServerClientAndLocalSpanState state =
         new InheritableServerClientAndLocalSpanState(mock(Endpoint.class));
-    ServerTracer serverTracer = new AutoValue_ServerTracer.Builder()
+    ServerTracer serverTracer = ServerTracer.builder()
         .state(state)
         .randomGenerator(mock(Random.class))
         .reporter(Reporter.NOOP)
@@ -132,4 +134,58 @@ public class ServerRequestInterceptorTest {
         assertThat(serverTracer.spanAndEndpoint().state().getCurrentServerSpan())
             .isEqualTo(ServerSpan.NOT_SAMPLED);
     }
+
+    @Test
+    public void handleNoState_requestSamplerOverridesTraceSampler() {
+        when(adapter.getTraceData()).thenReturn(TraceData.EMPTY);
+        when(adapter.getSpanName()).thenReturn(SPAN_NAME);
+
+        interceptor.handle(adapter, Sampler.NEVER_SAMPLE);
+
+        assertThat(serverTracer.spanAndEndpoint().state().getCurrentServerSpan())
+            .isEqualTo(ServerSpan.NOT_SAMPLED);
+        verify(adapter, never()).requestAnnotations();
+    }
+
+    @Test
+    public void handle_externallyProvisionedIds_requestSamplerOverridesTraceSampler() {
+        SpanId spanId = SpanId.builder().traceId(TRACE_ID).spanId(SPAN_ID).parentId(null).build();
+
+        when(adapter.getTraceData()).thenReturn(TraceData.create(spanId));
+        interceptor.handle(adapter, Sampler.NEVER_SAMPLE);
+
+        assertThat(serverTracer.spanAndEndpoint().state().getCurrentServerSpan())
+            .isEqualTo(ServerSpan.NOT_SAMPLED);
+        verify(adapter, never()).requestAnnotations();
+    }
+
+    @Test
+    public void handle_nullRequestSamplerUsesTraceSampler() {
+        when(adapter.getTraceData()).thenReturn(TraceData.EMPTY);
+        when(adapter.getSpanName()).thenReturn(SPAN_NAME);
+        when(adapter.requestAnnotations()).thenReturn(Collections.EMPTY_LIST);
+
+        interceptor.handle(adapter, null);
+
+        assertThat(state.getCurrentServerSpan().getSample())
+            .isTrue();
+    }
+
+    @Test
+    public void handleSampleFalse_doesntEvaluateAnnotations() {
+        when(adapter.getTraceData()).thenReturn(TraceData.NOT_SAMPLED);
+        interceptor.handle(adapter);
+
+        verify(adapter, never()).getSpanName();
+        verify(adapter, never()).requestAnnotations();
+    }
+
+    @Test
+    public void handleSampleFalse_ignoresRequestSampler() {
+        when(adapter.getTraceData()).thenReturn(TraceData.NOT_SAMPLED);
+        interceptor.handle(adapter, Sampler.ALWAYS_SAMPLE);
+
+        assertThat(serverTracer.spanAndEndpoint().state().getCurrentServerSpan())
+            .isEqualTo(ServerSpan.NOT_SAMPLED);
+    }
 }
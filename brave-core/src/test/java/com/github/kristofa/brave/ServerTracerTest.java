@@ -24,7 +24,7 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(PowerMockRunner.class)
-@PrepareForTest(AnnotationSubmitter.class)
+@PrepareForTest({AnnotationSubmitter.class, ExplicitTracer.class})
 public class ServerTracerTest {
 
     private static final long CURRENT_TIME_MICROSECONDS = System.currentTimeMillis() * 1000;
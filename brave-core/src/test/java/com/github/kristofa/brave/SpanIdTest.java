@@ -207,6 +207,53 @@ public class SpanIdTest {
   }
 
 
+  @Test
+  public void traceIdString_cached() {
+    SpanId id = SpanId.builder().traceId(1).spanId(1).build();
+
+    assertThat(id.traceIdString())
+        .isSameAs(id.traceIdString());
+  }
+
+  @Test
+  public void spanIdString() {
+    SpanId id = SpanId.builder().traceId(1).spanId(0xa3L).build();
+
+    assertThat(id.spanIdString())
+        .isEqualTo("00000000000000a3")
+        .isSameAs(id.spanIdString());
+  }
+
+  @Test
+  public void parentIdString() {
+    SpanId id = SpanId.builder().traceId(1).parentId(2L).spanId(3).build();
+
+    assertThat(id.parentIdString())
+        .isEqualTo("0000000000000002")
+        .isSameAs(id.parentIdString());
+  }
+
+  @Test
+  public void parentIdString_nullWhenRoot() {
+    SpanId id = SpanId.builder().traceId(1).parentId(null).spanId(3).build();
+
+    assertThat(id.parentIdString())
+        .isNull();
+  }
+
+  @Test
+  public void newChild_sharesHexIds() {
+    SpanId parent = SpanId.builder().traceIdHigh(1).traceId(2).parentId(null).spanId(3).build();
+    SpanId child = parent.toSpan().context.newChild(4);
+
+    assertThat(child)
+        .isEqualTo(SpanId.builder().traceIdHigh(1).traceId(2).parentId(3L).spanId(4).build());
+    assertThat(child.traceIdString())
+        .isSameAs(parent.traceIdString());
+    assertThat(child.parentIdString())
+        .isSameAs(parent.spanIdString());
+  }
+
   @Test
   public void serializeRoundTrip_128() {
     SpanId id = SpanId.builder().traceIdHigh(1).traceId(2).spanId(3).parentId(2L).build();
@@ -225,4 +272,27 @@ public class SpanIdTest {
     assertThat(span.getId()).isEqualTo(id.spanId);
     assertThat(span.getParent_id()).isEqualTo(id.parentId);
   }
+
+  @Test
+  public void create_sameAsBuilder() {
+    assertThat(SpanId.create(1, 2, 3, 4, SpanId.FLAG_SAMPLING_SET | SpanId.FLAG_SAMPLED))
+        .isEqualToComparingFieldByField(SpanId.builder()
+            .traceIdHigh(1).traceId(2).parentId(3L).spanId(4).sampled(true).build());
+  }
+
+  @Test
+  public void create_root() {
+    SpanId id = SpanId.create(0, 2, 0, 3, SpanId.FLAG_IS_ROOT);
+
+    assertThat(id.root()).isTrue();
+    assertThat(id.nullableParentId()).isNull();
+    assertThat(id)
+        .isEqualToComparingFieldByField(SpanId.builder().traceId(2).parentId(null).spanId(3).build());
+  }
+
+  @Test
+  public void create_parentIdSameAsSpanId() {
+    assertThat(SpanId.create(0, 2, 3, 3, 0))
+        .isEqualToComparingFieldByField(SpanId.builder().traceId(2).parentId(3L).spanId(3).build());
+  }
 }
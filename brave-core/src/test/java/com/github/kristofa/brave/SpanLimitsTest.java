@@ -0,0 +1,145 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import zipkin.Constants;
+import zipkin.TraceKeys;
+import zipkin.reporter.Reporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class SpanLimitsTest {
+  static final Endpoint ENDPOINT = Endpoint.create("service", 127 << 24 | 1);
+
+  List<zipkin.Span> spans = new ArrayList<zipkin.Span>();
+  ThreadLocalServerClientAndLocalSpanState state =
+      new ThreadLocalServerClientAndLocalSpanState(ENDPOINT);
+  Brave brave = new Brave.Builder(state)
+      .maxAnnotations(3)
+      .maxBinaryAnnotations(2)
+      .maxTagValueLength(5)
+      .reporter(new Reporter<zipkin.Span>() {
+        @Override public void report(zipkin.Span span) {
+          spans.add(span);
+        }
+      }).build();
+  SpanLimits limits = brave.spanLimits();
+
+  @After
+  public void clearState() {
+    brave.serverTracer().clearCurrentSpan();
+    state.setCurrentLocalSpan(null);
+  }
+
+  @Test
+  public void unlimitedByDefault() {
+    SpanLimits limits = new Brave.Builder("service").build().spanLimits();
+
+    assertThat(limits.maxAnnotations()).isEqualTo(Integer.MAX_VALUE);
+    assertThat(limits.maxBinaryAnnotations()).isEqualTo(Integer.MAX_VALUE);
+    assertThat(limits.maxTagValueLength()).isEqualTo(Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void dropsAnnotationsOverLimit_butKeepsStartAndFinish() {
+    brave.serverTracer().setStateUnknown("get");
+    brave.serverTracer().setServerReceived();
+    for (int i = 0; i < 5; i++) {
+      brave.serverTracer().submitAnnotation("retry" + i);
+    }
+    brave.serverTracer().setServerSend();
+
+    assertThat(spans.get(0).annotations).extracting(a -> a.value)
+        .containsExactly(Constants.SERVER_RECV, "retry0", "retry1", Constants.SERVER_SEND);
+    assertThat(limits.droppedAnnotations()).isEqualTo(3);
+  }
+
+  @Test
+  public void dropsTagsOverLimit_andMarksTruncatedOnce() {
+    brave.serverTracer().setStateUnknown("get");
+    brave.serverTracer().setServerReceived();
+    for (int i = 0; i < 4; i++) {
+      brave.serverTracer().submitBinaryAnnotation("key" + i, "value");
+    }
+    brave.serverTracer().submitAnnotation("a");
+    brave.serverTracer().submitAnnotation("b");
+    brave.serverTracer().submitAnnotation("c");
+    brave.serverTracer().setServerSend();
+
+    assertThat(spans.get(0).binaryAnnotations).extracting(b -> b.key)
+        .containsOnly("key0", "key1", SpanLimits.TRUNCATED);
+    assertThat(limits.droppedBinaryAnnotations()).isEqualTo(2);
+    assertThat(limits.droppedAnnotations()).isEqualTo(1);
+  }
+
+  @Test
+  public void truncatesLongTagValues() {
+    Span span = brave.explicitTracer().newSpan(brave.explicitTracer().newTrace(), "query");
+    brave.explicitTracer().tag(span, TraceKeys.SQL_QUERY, "select * from users");
+    brave.explicitTracer().tag(span, TraceKeys.HTTP_PATH, "/api");
+
+    assertThat(span.getBinary_annotations()).extracting(b -> b.key, b -> new String(b.value))
+        .containsExactly(tuple(TraceKeys.SQL_QUERY, "selec..."), tuple(TraceKeys.HTTP_PATH, "/api"));
+    assertThat(limits.truncatedTagValues()).isEqualTo(1);
+  }
+
+  @Test
+  public void truncate_doesntSplitSurrogatePairs() {
+    assertThat(limits.truncate("abcd😀"))
+        .isEqualTo("abcd...");
+  }
+
+  @Test
+  public void keepsLocalComponent() {
+    brave.localTracer().startNewSpan("jdbc", "query");
+    brave.localTracer().submitBinaryAnnotation("a", "1");
+    brave.localTracer().submitBinaryAnnotation("b", "2");
+    brave.localTracer().submitBinaryAnnotation("c", "3");
+    brave.localTracer().finishSpan();
+
+    assertThat(spans.get(0).binaryAnnotations).extracting(b -> b.key)
+        .containsOnly(Constants.LOCAL_COMPONENT, "a", SpanLimits.TRUNCATED);
+  }
+
+  @Test
+  public void concurrentAppends_neverExceedLimit() throws Exception {
+    final Span span = brave.explicitTracer().newSpan(brave.explicitTracer().newTrace(), "get");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    final CountDownLatch start = new CountDownLatch(1);
+    try {
+      for (int i = 0; i < 4; i++) {
+        executor.execute(() -> {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          for (int j = 0; j < 100; j++) {
+            brave.explicitTracer().annotate(span, "event");
+          }
+        });
+      }
+      start.countDown();
+    } finally {
+      executor.shutdown();
+      assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    assertThat(span.getAnnotations()).hasSize(3);
+    assertThat(limits.droppedAnnotations()).isEqualTo(397);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void maxTagValueLength_mustBePositive() {
+    new Brave.Builder("service").maxTagValueLength(0);
+  }
+}
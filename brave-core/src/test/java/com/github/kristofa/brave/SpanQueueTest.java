@@ -0,0 +1,195 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpanQueueTest {
+  static final Endpoint ENDPOINT = Endpoint.create("service", 127 << 24 | 1);
+
+  List<Span> drained = new ArrayList<>();
+
+  @Test
+  public void drainsInOfferOrder() {
+    SpanQueue queue = new SpanQueue(10, Long.MAX_VALUE);
+    for (long i = 1; i <= 5; i++) {
+      assertThat(queue.offer(span(i))).isTrue();
+    }
+
+    assertThat(queue.drainTo(drained, Integer.MAX_VALUE)).isEqualTo(5);
+    assertThat(drained).extracting(Span::getId).containsExactly(1L, 2L, 3L, 4L, 5L);
+    assertThat(queue.isEmpty()).isTrue();
+    assertThat(queue.sizeInBytes()).isZero();
+  }
+
+  @Test
+  public void drainsInBatches() {
+    SpanQueue queue = new SpanQueue(10, Long.MAX_VALUE);
+    for (long i = 1; i <= 5; i++) {
+      queue.offer(span(i));
+    }
+
+    assertThat(queue.drainTo(drained, 2)).isEqualTo(2);
+    assertThat(queue.size()).isEqualTo(3);
+    assertThat(queue.drainTo(drained, 2)).isEqualTo(2);
+    assertThat(queue.drainTo(drained, 2)).isEqualTo(1);
+    assertThat(drained).extracting(Span::getId).containsExactly(1L, 2L, 3L, 4L, 5L);
+  }
+
+  @Test
+  public void dropsWhenFullByCount() {
+    SpanQueue queue = new SpanQueue(3, Long.MAX_VALUE);
+    for (long i = 1; i <= 3; i++) {
+      assertThat(queue.offer(span(i))).isTrue();
+    }
+
+    assertThat(queue.offer(span(4L))).isFalse();
+    assertThat(queue.size()).isEqualTo(3);
+  }
+
+  @Test
+  public void dropsWhenFullByBytes() {
+    Span small = span(1L);
+    Span large = span(2L).addToBinary_annotations(
+        BinaryAnnotation.create("sql.query", new String(new char[10000]), ENDPOINT));
+    SpanQueue queue = new SpanQueue(1000, SpanQueue.sizeInBytes(small) * 2);
+
+    assertThat(queue.offer(large)).isFalse();
+    assertThat(queue.offer(small)).isTrue();
+    assertThat(queue.offer(small)).isTrue();
+    assertThat(queue.offer(small)).isFalse();
+    assertThat(queue.sizeInBytes()).isEqualTo(SpanQueue.sizeInBytes(small) * 2);
+  }
+
+  @Test
+  public void reusesSlotsAfterDraining() {
+    SpanQueue queue = new SpanQueue(3, Long.MAX_VALUE); // rounds up to 4 slots
+    for (long i = 1; i <= 20; i++) {
+      assertThat(queue.offer(span(i))).isTrue();
+      if (i % 2 == 0) queue.drainTo(drained, Integer.MAX_VALUE);
+    }
+
+    assertThat(drained).extracting(Span::getId).hasSize(20).doesNotHaveDuplicates();
+  }
+
+  @Test
+  public void clear() {
+    SpanQueue queue = new SpanQueue(10, Long.MAX_VALUE);
+    queue.offer(span(1L));
+    queue.offer(span(2L));
+
+    assertThat(queue.clear()).isEqualTo(2);
+    assertThat(queue.isEmpty()).isTrue();
+    assertThat(queue.sizeInBytes()).isZero();
+  }
+
+  @Test
+  public void sizeInBytes_growsWithAnnotations() {
+    Span span = span(1L);
+    int empty = SpanQueue.sizeInBytes(span);
+
+    span.addToAnnotations(Annotation.create(1L, "foo", ENDPOINT));
+    int withAnnotation = SpanQueue.sizeInBytes(span);
+    assertThat(withAnnotation).isGreaterThan(empty + "foo".length());
+
+    span.addToBinary_annotations(BinaryAnnotation.create("key", "value", ENDPOINT));
+    assertThat(SpanQueue.sizeInBytes(span))
+        .isGreaterThan(withAnnotation + "key".length() + "value".length());
+  }
+
+  @Test
+  public void awaitNanos_returnsWhenOffered() throws Exception {
+    SpanQueue queue = new SpanQueue(10, Long.MAX_VALUE);
+    CountDownLatch awaited = new CountDownLatch(1);
+    Thread consumer = new Thread(() -> {
+      queue.awaitNanos(TimeUnit.SECONDS.toNanos(30));
+      awaited.countDown();
+    });
+    consumer.start();
+
+    while (queue.consumer == null) Thread.sleep(1);
+    queue.offer(span(1L));
+
+    assertThat(awaited.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  /** While a span is still being offered, the count is positive but there's nothing to drain. */
+  @Test
+  public void awaitNanos_backsOffWhileSpanIsBeingOffered() {
+    SpanQueue queue = new SpanQueue(10, Long.MAX_VALUE);
+    queue.count.incrementAndGet(); // reserved, but not yet stored
+
+    long start = System.nanoTime();
+    for (int i = 0; i < 10; i++) {
+      queue.awaitNanos(TimeUnit.SECONDS.toNanos(30));
+    }
+    long elapsed = System.nanoTime() - start;
+
+    assertThat(elapsed)
+        .isGreaterThanOrEqualTo(SpanQueue.OFFER_BACKOFF_NANOS)
+        .isLessThan(TimeUnit.SECONDS.toNanos(10));
+  }
+
+  @Test
+  public void awaitNanos_returnsImmediatelyWhenDrainable() {
+    SpanQueue queue = new SpanQueue(10, Long.MAX_VALUE);
+    queue.offer(span(1L));
+
+    long start = System.nanoTime();
+    queue.awaitNanos(TimeUnit.SECONDS.toNanos(30));
+
+    assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(10));
+  }
+
+  @Test
+  public void concurrentProducers_neverLoseOrDuplicateSpans() throws Exception {
+    SpanQueue queue = new SpanQueue(64, Long.MAX_VALUE);
+    int producers = 4, spansPerProducer = 10000;
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    AtomicInteger accepted = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      for (int p = 0; p < producers; p++) {
+        long base = p * (long) spansPerProducer;
+        executor.execute(() -> {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          for (long i = 1; i <= spansPerProducer; i++) {
+            if (queue.offer(span(base + i))) accepted.incrementAndGet();
+          }
+        });
+      }
+      start.countDown();
+      executor.shutdown();
+      while (!executor.isTerminated()) {
+        queue.drainTo(drained, 16);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    queue.drainTo(drained, Integer.MAX_VALUE);
+
+    assertThat(drained).hasSize(accepted.get()).extracting(Span::getId).doesNotHaveDuplicates();
+    assertThat(queue.isEmpty()).isTrue();
+    assertThat(queue.sizeInBytes()).isZero();
+  }
+
+  static Span span(long id) {
+    return new Span().setTrace_id(id).setId(id).setName("get")
+        .addToAnnotations(Annotation.create(1L, "sr", ENDPOINT));
+  }
+}
@@ -0,0 +1,378 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import zipkin.Constants;
+import zipkin.TraceKeys;
+import zipkin.reporter.Reporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TailSamplingReporterTest {
+  static final Endpoint ENDPOINT = Endpoint.create("frontend", 127 << 24 | 1);
+
+  List<Span> reported = new ArrayList<>();
+  Reporter<Span> delegate = reported::add;
+  TailSamplingReporter reporter = TailSamplingReporter.builder(delegate)
+      .keepSlowerThan(100, TimeUnit.MILLISECONDS)
+      .build();
+
+  @Test
+  public void discardsFastSuccessfulTrace() {
+    Span child = childSpan(1L, 3L);
+    Span server = serverSpan(1L, 2L, 1000L);
+
+    reporter.report(child);
+    reporter.report(server);
+
+    assertThat(reported).isEmpty();
+    assertThat(reporter.discardedTraces()).isEqualTo(1);
+    assertThat(reporter.bufferedSpans()).isZero();
+  }
+
+  @Test
+  public void keepsSlowTrace() {
+    Span child = childSpan(1L, 3L);
+    Span server = serverSpan(1L, 2L, 100000L);
+
+    reporter.report(child);
+    reporter.report(server);
+
+    assertThat(reported).containsExactly(child, server);
+    assertThat(reporter.keptTraces()).isEqualTo(1);
+    assertThat(reporter.bufferedSpans()).isZero();
+  }
+
+  @Test
+  public void keepsTraceWithErrorTag() {
+    Span child = childSpan(1L, 3L)
+        .appendBinaryAnnotation(BinaryAnnotation.create(Constants.ERROR, "timeout", ENDPOINT));
+    Span server = serverSpan(1L, 2L, 1000L);
+
+    reporter.report(child);
+    reporter.report(server);
+
+    assertThat(reported).containsExactly(child, server);
+  }
+
+  @Test
+  public void keepsTraceWithCustomTag() {
+    reporter = TailSamplingReporter.builder(delegate).keepTagged("sql.query").build();
+    Span child = childSpan(1L, 3L)
+        .appendBinaryAnnotation(BinaryAnnotation.create("sql.query", "select 1", ENDPOINT));
+    Span server = serverSpan(1L, 2L, 1000L);
+
+    reporter.report(child);
+    reporter.report(server);
+
+    assertThat(reported).containsExactly(child, server);
+  }
+
+  @Test
+  public void keepsServerError() {
+    Span server = serverSpan(1L, 2L, 1000L)
+        .appendBinaryAnnotation(BinaryAnnotation.create(TraceKeys.HTTP_STATUS_CODE, "503", ENDPOINT));
+
+    reporter.report(server);
+
+    assertThat(reported).containsExactly(server);
+  }
+
+  @Test
+  public void discardsClientError() {
+    Span server = serverSpan(1L, 2L, 1000L)
+        .appendBinaryAnnotation(BinaryAnnotation.create(TraceKeys.HTTP_STATUS_CODE, "404", ENDPOINT));
+
+    reporter.report(server);
+
+    assertThat(reported).isEmpty();
+  }
+
+  /** When the client originated the span, it owns the duration */
+  @Test
+  public void clientOriginatedSpan_usesServerAnnotationsForDuration() {
+    Span server = serverSpan(1L, 2L, 200000L).setDuration(null);
+
+    reporter.report(server);
+
+    assertThat(reported).containsExactly(server);
+  }
+
+  @Test
+  public void baselineKeepsOtherTraces() {
+    reporter = TailSamplingReporter.builder(delegate).baseline(Sampler.ALWAYS_SAMPLE).build();
+    Span server = serverSpan(1L, 2L, 1000L);
+
+    reporter.report(server);
+
+    assertThat(reported).containsExactly(server);
+  }
+
+  @Test
+  public void spanWithoutParentIsLocalRoot() {
+    reporter = TailSamplingReporter.builder(delegate).baseline(Sampler.ALWAYS_SAMPLE).build();
+    Span child = childSpan(1L, 3L).setParent_id(1L);
+    Span local = new Span().setTrace_id(1L).setId(1L).setName("batch").setDuration(10L);
+
+    reporter.report(child);
+    reporter.report(local);
+
+    assertThat(reported).containsExactly(child, local);
+  }
+
+  @Test
+  public void tracesAreIndependent() {
+    Span slowChild = childSpan(1L, 3L);
+    Span fastChild = childSpan(5L, 7L);
+
+    reporter.report(slowChild);
+    reporter.report(fastChild);
+    reporter.report(serverSpan(5L, 6L, 1000L));
+
+    assertThat(reported).isEmpty();
+    assertThat(reporter.bufferedSpans()).isEqualTo(1);
+
+    reporter.report(serverSpan(1L, 2L, 100000L));
+    assertThat(reported).hasSize(2).startsWith(slowChild);
+  }
+
+  @Test
+  public void dropsSpansOverMaxPerTrace() {
+    reporter = TailSamplingReporter.builder(delegate)
+        .baseline(Sampler.ALWAYS_SAMPLE)
+        .maxSpansPerTrace(2)
+        .build();
+
+    for (long i = 3; i < 6; i++) {
+      reporter.report(childSpan(1L, i));
+    }
+    reporter.report(serverSpan(1L, 2L, 1000L));
+
+    assertThat(reporter.droppedSpans()).isEqualTo(1);
+    assertThat(reported).extracting(Span::getId).containsExactly(3L, 4L, 2L);
+  }
+
+  @Test
+  public void evictsOldestTraceWhenFull() {
+    reporter = TailSamplingReporter.builder(delegate)
+        .baseline(Sampler.ALWAYS_SAMPLE)
+        .maxSpans(1)
+        .build();
+
+    reporter.report(childSpan(1L, 3L));
+    reporter.report(childSpan(5L, 7L));
+
+    assertThat(reporter.evictedTraces()).isEqualTo(1);
+    assertThat(reporter.bufferedSpans()).isEqualTo(1);
+
+    reporter.report(serverSpan(5L, 6L, 1000L));
+    assertThat(reported).extracting(Span::getId).containsExactly(7L, 6L);
+  }
+
+  /** A trace missing evicted spans is discarded, even if it would otherwise be kept. */
+  @Test
+  public void discardsTraceThatLostSpansToEviction() {
+    reporter = TailSamplingReporter.builder(delegate)
+        .baseline(Sampler.ALWAYS_SAMPLE)
+        .maxSpans(1)
+        .build();
+
+    reporter.report(childSpan(1L, 3L));
+    reporter.report(childSpan(5L, 7L)); // evicts trace 1
+    reporter.report(childSpan(1L, 4L)); // evicts trace 5
+
+    reporter.report(serverSpan(1L, 2L, 1000L));
+
+    assertThat(reported).isEmpty();
+    assertThat(reporter.discardedTraces()).isEqualTo(1);
+    assertThat(reporter.bufferedSpans()).isZero();
+  }
+
+  /** Each stripe holds a whole trace, even when more stripes are requested than fit. */
+  @Test
+  public void moreStripesThanFit_keepsWholeTraces() {
+    reporter = new TailSamplingReporter(TailSamplingReporter.builder(delegate)
+        .baseline(Sampler.ALWAYS_SAMPLE)
+        .maxSpans(400)
+        .maxSpansPerTrace(100), 16);
+
+    assertThat(reporter.stripes).hasSize(4);
+    for (long traceId = 1; traceId <= 4; traceId++) {
+      for (long id = 10; id < 110; id++) {
+        reporter.report(childSpan(traceId, traceId * 1000 + id));
+      }
+    }
+    assertThat(reporter.bufferedSpans()).isEqualTo(400);
+
+    for (long traceId = 1; traceId <= 4; traceId++) {
+      reporter.report(serverSpan(traceId, traceId + 1, 1000L));
+    }
+    assertThat(reported).hasSize(404);
+    assertThat(reporter.evictedTraces()).isZero();
+    assertThat(reporter.droppedSpans()).isZero();
+  }
+
+  @Test
+  public void moreStripesThanFit_neverReportsPartialTraces() {
+    reporter = new TailSamplingReporter(TailSamplingReporter.builder(delegate)
+        .baseline(Sampler.ALWAYS_SAMPLE)
+        .maxSpans(100)
+        .maxSpansPerTrace(10), 16);
+
+    for (long traceId = 1; traceId < 1000; traceId++) {
+      for (long id = 10; id < 20; id++) {
+        reporter.report(childSpan(traceId, traceId * 1000 + id));
+      }
+      if (traceId % 3 == 0) reporter.report(serverSpan(traceId, traceId + 1, 1000L));
+      assertThat(reporter.bufferedSpans()).isLessThanOrEqualTo(100);
+    }
+
+    assertThat(reported).hasSize((int) reporter.keptTraces() * 11);
+    assertThat(reporter.keptTraces() + reporter.discardedTraces()).isEqualTo(333);
+  }
+
+  /**
+   * A nested server span, such as a loopback request, is decided on its own, without taking the
+   * spans of the request that contains it.
+   */
+  @Test
+  public void nestedServerSpan_decidesOnlyItsOwnSpans() {
+    Span outerChild = childSpan(1L, 3L); // parent 2
+    Span client = new Span().setTrace_id(1L).setId(4L).setParent_id(2L).setName("get")
+        .setTimestamp(1L).setDuration(1000L);
+    Span innerServer = serverSpan(1L, 5L, 1000L).setParent_id(4L);
+    Span innerChild = new Span().setTrace_id(1L).setId(6L).setParent_id(5L).setName("child")
+        .setTimestamp(1L).setDuration(10L);
+    Span outerServer = serverSpan(1L, 2L, 100000L);
+
+    reporter.report(outerChild);
+    reporter.report(innerChild);
+    reporter.report(innerServer);
+
+    assertThat(reported).isEmpty();
+    assertThat(reporter.discardedTraces()).isEqualTo(1);
+    assertThat(reporter.bufferedSpans()).isEqualTo(1);
+
+    reporter.report(client);
+    reporter.report(outerServer);
+
+    assertThat(reported).containsExactly(outerChild, client, outerServer);
+    assertThat(reporter.bufferedSpans()).isZero();
+  }
+
+  @Test
+  public void collectsDescendantsFinishedInAnyOrder() {
+    reporter = TailSamplingReporter.builder(delegate).baseline(Sampler.ALWAYS_SAMPLE).build();
+    Span child = childSpan(1L, 3L); // parent 2
+    Span grandchild = new Span().setTrace_id(1L).setId(4L).setParent_id(3L).setName("child");
+    Span unrelated = new Span().setTrace_id(1L).setId(5L).setParent_id(9L).setName("child");
+
+    reporter.report(child);
+    reporter.report(unrelated);
+    reporter.report(grandchild);
+    reporter.report(serverSpan(1L, 2L, 1000L));
+
+    assertThat(reported).extracting(Span::getId).containsExactly(3L, 4L, 2L);
+    assertThat(reporter.bufferedSpans()).isEqualTo(1);
+  }
+
+  @Test
+  public void neverBuffersMoreThanMaxSpans() {
+    reporter = TailSamplingReporter.builder(delegate).maxSpans(100).build();
+
+    for (long traceId = 1; traceId < 1000; traceId++) {
+      reporter.report(childSpan(traceId, traceId + 1000));
+      reporter.report(childSpan(traceId, traceId + 2000));
+      assertThat(reporter.bufferedSpans()).isLessThanOrEqualTo(100);
+    }
+  }
+
+  @Test
+  public void lateSpansOfKeptTrace_reportedImmediately() {
+    reporter.report(childSpan(1L, 3L));
+    reporter.report(serverSpan(1L, 2L, 100000L));
+    reported.clear();
+
+    Span lateChild = childSpan(1L, 4L); // parent 2, like an async call that outlived the request
+    Span lateGrandchild = new Span().setTrace_id(1L).setId(5L).setParent_id(4L).setName("child");
+    reporter.report(lateChild);
+    reporter.report(lateGrandchild);
+
+    assertThat(reported).containsExactly(lateChild, lateGrandchild);
+    assertThat(reporter.bufferedSpans()).isZero();
+  }
+
+  @Test
+  public void lateSpansOfDiscardedTrace_droppedImmediately() {
+    reporter.report(childSpan(1L, 3L));
+    reporter.report(serverSpan(1L, 2L, 1000L));
+
+    reporter.report(childSpan(1L, 4L));
+    reporter.report(new Span().setTrace_id(1L).setId(5L).setParent_id(4L).setName("child"));
+
+    assertThat(reported).isEmpty();
+    assertThat(reporter.bufferedSpans()).isZero();
+    assertThat(reporter.discardedTraces()).isEqualTo(1);
+  }
+
+  @Test
+  public void lateSpans_dontEvictUndecidedTraces() {
+    reporter = TailSamplingReporter.builder(delegate)
+        .baseline(Sampler.ALWAYS_SAMPLE)
+        .maxSpans(1)
+        .build();
+    reporter.report(serverSpan(1L, 2L, 1000L));
+    reporter.report(childSpan(5L, 7L));
+
+    reporter.report(childSpan(1L, 3L)); // late
+
+    assertThat(reporter.evictedTraces()).isZero();
+    reporter.report(serverSpan(5L, 6L, 1000L));
+    assertThat(reported).extracting(Span::getId).containsExactly(2L, 3L, 7L, 6L);
+  }
+
+  @Test
+  public void evictsOldestTraceWhenFullOfBytes() {
+    Span child = childSpan(1L, 3L);
+    reporter = TailSamplingReporter.builder(delegate)
+        .baseline(Sampler.ALWAYS_SAMPLE)
+        .maxBytes(SpanQueue.sizeInBytes(child) * 2)
+        .build();
+
+    reporter.report(child);
+    reporter.report(childSpan(5L, 7L));
+    assertThat(reporter.evictedTraces()).isZero();
+
+    reporter.report(childSpan(9L, 11L));
+    assertThat(reporter.evictedTraces()).isEqualTo(1);
+    assertThat(reporter.bufferedSpans()).isEqualTo(2);
+  }
+
+  @Test
+  public void dropsSpanLargerThanMaxBytes() {
+    reporter = TailSamplingReporter.builder(delegate).maxBytes(10).build();
+
+    reporter.report(childSpan(1L, 3L));
+
+    assertThat(reporter.droppedSpans()).isEqualTo(1);
+    assertThat(reporter.bufferedSpans()).isZero();
+  }
+
+  static Span childSpan(long traceId, long id) {
+    return new Span().setTrace_id(traceId).setId(id).setParent_id(traceId + 1).setName("child")
+        .setTimestamp(1L).setDuration(10L);
+  }
+
+  static Span serverSpan(long traceId, long id, long durationMicros) {
+    return new Span().setTrace_id(traceId).setId(id).setParent_id(traceId).setName("get")
+        .setTimestamp(1L).setDuration(durationMicros)
+        .appendAnnotation(Annotation.create(1L, Constants.SERVER_RECV, ENDPOINT))
+        .appendAnnotation(Annotation.create(1L + durationMicros, Constants.SERVER_SEND, ENDPOINT));
+  }
+}
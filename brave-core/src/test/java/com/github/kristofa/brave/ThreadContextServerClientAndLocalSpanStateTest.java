@@ -0,0 +1,164 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ThreadContextServerClientAndLocalSpanStateTest {
+  // -1062731775 = 192.168.0.1
+  ThreadContextServerClientAndLocalSpanState state =
+      new ThreadContextServerClientAndLocalSpanState(-1062731775, 80, "service");
+  ServerSpan serverSpan = mock(ServerSpan.class);
+  Span clientSpan = new Span();
+  Span localSpan = new Span();
+
+  @After
+  public void tearDown() {
+    state.setCurrentServerSpan(null);
+    state.setCurrentClientSpan(null);
+    state.setCurrentLocalSpan(null);
+  }
+
+  @Test
+  public void getAndSetCurrentServerSpan() {
+    assertThat(state.getCurrentServerSpan()).isEqualTo(ServerSpan.EMPTY);
+
+    state.setCurrentServerSpan(serverSpan);
+
+    assertThat(state.getCurrentServerSpan()).isSameAs(serverSpan);
+    assertThat(state.getCurrentClientSpan()).isNull();
+    assertThat(state.getCurrentLocalSpan()).isNull();
+  }
+
+  @Test
+  public void setCurrentServerSpan_nullClearsToEmpty() {
+    state.setCurrentServerSpan(serverSpan);
+    state.setCurrentServerSpan(null);
+
+    assertThat(state.getCurrentServerSpan()).isEqualTo(ServerSpan.EMPTY);
+    assertThat(state.sample()).isNull();
+  }
+
+  @Test
+  public void getAndSetCurrentClientSpan() {
+    state.setCurrentClientSpan(clientSpan);
+
+    assertThat(state.getCurrentClientSpan()).isSameAs(clientSpan);
+    assertThat(state.getCurrentServerSpan()).isEqualTo(ServerSpan.EMPTY);
+    assertThat(state.getCurrentLocalSpan()).isNull();
+  }
+
+  @Test
+  public void getAndSetCurrentLocalSpan() {
+    state.setCurrentLocalSpan(localSpan);
+
+    assertThat(state.getCurrentLocalSpan()).isSameAs(localSpan);
+    assertThat(state.getCurrentClientSpan()).isNull();
+  }
+
+  @Test
+  public void sample_readsServerSpan() {
+    state.setCurrentServerSpan(ServerSpan.NOT_SAMPLED);
+
+    assertThat(state.sample()).isFalse();
+  }
+
+  @Test
+  public void stateIsSharedAcrossInstancesOnTheSameThread() {
+    state.setCurrentLocalSpan(localSpan);
+
+    assertThat(new ThreadContextServerClientAndLocalSpanState(0, 0, "other").getCurrentLocalSpan())
+        .isSameAs(localSpan);
+  }
+
+  @Test
+  public void stateIsNotSharedAcrossThreads() throws Exception {
+    state.setCurrentServerSpan(serverSpan);
+    state.setCurrentClientSpan(clientSpan);
+    state.setCurrentLocalSpan(localSpan);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Object[] otherThread = executor.submit(new Callable<Object[]>() {
+        @Override public Object[] call() {
+          return new Object[] {
+              state.getCurrentServerSpan(), state.getCurrentClientSpan(), state.getCurrentLocalSpan()
+          };
+        }
+      }).get();
+      assertThat(otherThread).containsExactly(ServerSpan.EMPTY, null, null);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** A pooled thread reuses its holder, instead of allocating one per request. */
+  @Test
+  public void clearingAllSpans_keepsHolder() {
+    state.setCurrentServerSpan(serverSpan);
+    state.setCurrentLocalSpan(localSpan);
+    ThreadContextServerClientAndLocalSpanState.Bound bound =
+        (ThreadContextServerClientAndLocalSpanState.Bound)
+            ThreadContextServerClientAndLocalSpanState.bind(state);
+
+    state.setCurrentServerSpan(null);
+    state.setCurrentLocalSpan(null);
+    state.setCurrentClientSpan(clientSpan);
+
+    assertThat(((ThreadContextServerClientAndLocalSpanState.Bound)
+        ThreadContextServerClientAndLocalSpanState.bind(state)).context).isSameAs(bound.context);
+  }
+
+  @Test
+  public void bind_writesThroughToCurrentThread() {
+    ServerClientAndLocalSpanState bound = ThreadContextServerClientAndLocalSpanState.bind(state);
+    assertThat(bound.endpoint()).isSameAs(state.endpoint());
+
+    bound.setCurrentClientSpan(clientSpan);
+    assertThat(state.getCurrentClientSpan()).isSameAs(clientSpan);
+
+    bound.setCurrentClientSpan(null);
+    assertThat(state.getCurrentClientSpan()).isNull();
+
+    bound.setCurrentServerSpan(null);
+    assertThat(state.getCurrentServerSpan()).isEqualTo(ServerSpan.EMPTY);
+  }
+
+  @Test
+  public void bind_readsCurrentThread() {
+    state.setCurrentServerSpan(ServerSpan.NOT_SAMPLED);
+    state.setCurrentLocalSpan(localSpan);
+
+    ServerClientAndLocalSpanState bound = ThreadContextServerClientAndLocalSpanState.bind(state);
+    assertThat(bound.getCurrentServerSpan()).isSameAs(ServerSpan.NOT_SAMPLED);
+    assertThat(bound.sample()).isFalse();
+    assertThat(bound.getCurrentLocalSpan()).isSameAs(localSpan);
+    assertThat(bound.getCurrentClientSpan()).isNull();
+  }
+
+  @Test
+  public void bind_returnsOtherStatesAsIs() {
+    ServerClientAndLocalSpanState other = new ThreadLocalServerClientAndLocalSpanState(0, 0, "other");
+
+    assertThat(ThreadContextServerClientAndLocalSpanState.bind(other)).isSameAs(other);
+  }
+
+  @Test
+  public void tracersStartSpansUnderServerSpan() {
+    Brave brave = new Brave.Builder(state).build();
+    brave.serverTracer().setStateUnknown("get");
+    Span server = state.getCurrentServerSpan().getSpan();
+
+    assertThat(brave.clientTracer().startNewSpan("call").parentId).isEqualTo(server.getId());
+    assertThat(state.getCurrentClientSpan().getParent_id()).isEqualTo(server.getId());
+    assertThat(brave.localTracer().startNewSpan("dao", "select").parentId)
+        .isEqualTo(server.getId());
+    assertThat(state.getCurrentLocalSpan().getParent_id()).isEqualTo(server.getId());
+  }
+}
@@ -0,0 +1,51 @@
+package com.github.kristofa.brave.internal;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LowerCaseNamesTest {
+  LowerCaseNames names = new LowerCaseNames(2);
+
+  @Test
+  public void lowerCase() {
+    assertThat(LowerCaseNames.lowerCase("helloworld.Greeter/SayHello"))
+        .isEqualTo("helloworld.greeter/sayhello");
+  }
+
+  @Test
+  public void lowerCase_null() {
+    assertThat(LowerCaseNames.lowerCase(null))
+        .isNull();
+  }
+
+  @Test
+  public void returnsCachedInstance() {
+    String first = names.get("GET");
+
+    assertThat(names.get(new String("GET")))
+        .isEqualTo("get")
+        .isSameAs(first);
+  }
+
+  @Test
+  public void doesntCacheLowercaseNames() {
+    String name = "get";
+
+    assertThat(names.get(name))
+        .isSameAs(name);
+    assertThat(names.cache)
+        .isEmpty();
+  }
+
+  @Test
+  public void stopsCachingAtMaxSize() {
+    names.get("GET");
+    names.get("POST");
+
+    assertThat(names.get("PUT"))
+        .isEqualTo("put");
+    assertThat(names.cache)
+        .containsOnlyKeys("GET", "POST");
+  }
+}
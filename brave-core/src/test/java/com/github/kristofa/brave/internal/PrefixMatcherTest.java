@@ -0,0 +1,66 @@
+package com.github.kristofa.brave.internal;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PrefixMatcherTest {
+  PrefixMatcher<String> matcher = PrefixMatcher.<String>builder()
+      .put("/api", "api")
+      .put("/api/users", "users")
+      .put("/health", "health")
+      .put("/healthz", "healthz")
+      .build();
+
+  @Test
+  public void noMatch() {
+    assertThat(matcher.longestMatch("/")).isNull();
+    assertThat(matcher.longestMatch("")).isNull();
+    assertThat(matcher.longestMatch("/ap")).isNull();
+    assertThat(matcher.longestMatch("/other")).isNull();
+  }
+
+  @Test
+  public void exactMatch() {
+    assertThat(matcher.longestMatch("/api")).isEqualTo("api");
+    assertThat(matcher.longestMatch("/health")).isEqualTo("health");
+    assertThat(matcher.longestMatch("/healthz")).isEqualTo("healthz");
+  }
+
+  @Test
+  public void longestPrefixWins() {
+    assertThat(matcher.longestMatch("/api/users/1")).isEqualTo("users");
+    assertThat(matcher.longestMatch("/api/user")).isEqualTo("api");
+    assertThat(matcher.longestMatch("/api/orders")).isEqualTo("api");
+  }
+
+  @Test
+  public void emptyPrefixMatchesEverything() {
+    matcher = PrefixMatcher.<String>builder().put("", "all").put("/api", "api").build();
+
+    assertThat(matcher.longestMatch("")).isEqualTo("all");
+    assertThat(matcher.longestMatch("/other")).isEqualTo("all");
+    assertThat(matcher.longestMatch("/api/users")).isEqualTo("api");
+  }
+
+  @Test
+  public void firstValueWins() {
+    matcher = PrefixMatcher.<String>builder().put("/api", "first").put("/api", "second").build();
+
+    assertThat(matcher.longestMatch("/api")).isEqualTo("first");
+  }
+
+  @Test
+  public void manyChildren() {
+    PrefixMatcher.Builder<String> builder = PrefixMatcher.builder();
+    for (char c = 'a'; c <= 'z'; c++) {
+      builder.put("/" + c, String.valueOf(c));
+    }
+    matcher = builder.build();
+
+    for (char c = 'a'; c <= 'z'; c++) {
+      assertThat(matcher.longestMatch("/" + c + "/foo")).isEqualTo(String.valueOf(c));
+    }
+    assertThat(matcher.longestMatch("/A")).isNull();
+  }
+}
@@ -1,9 +1,15 @@
 package com.twitter.zipkin.gen;
 
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Test;
 import zipkin.Constants;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class SpanTest {
   @Test
@@ -24,6 +30,111 @@ public class SpanTest {
     assertEquals("{\"traceId\":\"f66529c8cc356aa0\",\"id\":\"f66529c8cc356aa0\",\"name\":\"get\",\"timestamp\":1444438900939000,\"duration\":376000}", span.toString());
   }
 
+  @Test
+  public void appendedAnnotationsArePublishedInOrder() {
+    Endpoint endpoint = Endpoint.create("foo", 127 << 24 | 1);
+    Span span = new Span().setName("get");
+    span.addToAnnotations(Annotation.create(1L, Constants.SERVER_RECV, endpoint));
+    span.appendAnnotation(Annotation.create(2L, "foo", endpoint));
+    span.appendBinaryAnnotation(BinaryAnnotation.create("key", "value", endpoint));
+    span.appendAnnotation(Annotation.create(3L, Constants.SERVER_SEND, endpoint));
+
+    assertEquals(asList(
+        Annotation.create(1L, Constants.SERVER_RECV, endpoint),
+        Annotation.create(2L, "foo", endpoint),
+        Annotation.create(3L, Constants.SERVER_SEND, endpoint)
+    ), span.getAnnotations());
+    assertEquals(asList(BinaryAnnotation.create("key", "value", endpoint)),
+        span.getBinary_annotations());
+  }
+
+  @Test
+  public void publishingDoesntModifyListsAlreadyRead() {
+    Endpoint endpoint = Endpoint.create("foo", 127 << 24 | 1);
+    Span span = new Span().setName("get");
+    span.appendAnnotation(Annotation.create(1L, Constants.SERVER_RECV, endpoint));
+    List<Annotation> firstRead = span.getAnnotations();
+
+    span.appendAnnotation(Annotation.create(2L, Constants.SERVER_SEND, endpoint));
+
+    assertEquals(1, firstRead.size());
+    assertEquals(2, span.getAnnotations().size());
+  }
+
+  @Test
+  public void addingDoesntModifyListsAlreadyPublished() {
+    Endpoint endpoint = Endpoint.create("foo", 127 << 24 | 1);
+    Span span = new Span().setName("get");
+    span.appendAnnotation(Annotation.create(1L, Constants.SERVER_RECV, endpoint));
+    span.appendBinaryAnnotation(BinaryAnnotation.create("key", "value", endpoint));
+    List<Annotation> annotations = span.getAnnotations();
+    List<BinaryAnnotation> binaryAnnotations = span.getBinary_annotations();
+
+    span.addToAnnotations(Annotation.create(2L, Constants.SERVER_SEND, endpoint));
+    span.addToBinary_annotations(BinaryAnnotation.create("key2", "value", endpoint));
+
+    assertEquals(1, annotations.size());
+    assertEquals(1, binaryAnnotations.size());
+    assertEquals(2, span.getAnnotations().size());
+    assertEquals(2, span.getBinary_annotations().size());
+  }
+
+  /** Nothing is pending, so reading doesn't wait for the span's monitor. */
+  @Test(timeout = 10000L)
+  public void readingWithoutPendingAppendsDoesntLock() throws Exception {
+    final Span span = new Span().setName("get")
+        .appendAnnotation(Annotation.create(1L, Constants.SERVER_RECV, null));
+    span.getAnnotations(); // publishes
+
+    final CountDownLatch locked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    Thread holder = new Thread() {
+      @Override public void run() {
+        synchronized (span) {
+          locked.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+    };
+    holder.start();
+    try {
+      locked.await();
+      assertEquals(1, span.getAnnotations().size());
+      assertEquals(0, span.getBinary_annotations().size());
+    } finally {
+      release.countDown();
+      holder.join();
+    }
+  }
+
+  /** A concurrent publish can make the count low, but never drop a value under the limit. */
+  @Test
+  public void appendWithLimit_neverDropsUnderLimitWhilePublishing() throws Exception {
+    Endpoint endpoint = Endpoint.create("foo", 127 << 24 | 1);
+    for (int round = 0; round < 100; round++) {
+      Span span = new Span().setName("get");
+      AtomicBoolean appending = new AtomicBoolean(true);
+      Thread reader = new Thread(() -> {
+        while (appending.get()) span.getAnnotations();
+      });
+      reader.start();
+      try {
+        for (int i = 0; i < 100; i++) {
+          assertTrue(span.appendAnnotation(Annotation.create(i, "foo", endpoint), 100));
+        }
+      } finally {
+        appending.set(false);
+        reader.join();
+      }
+      assertFalse(span.appendAnnotation(Annotation.create(100L, "foo", endpoint), 100));
+      assertEquals(100, span.getAnnotations().size());
+    }
+  }
+
   @Test
   public void canStoreNanoTimeForDurationCalculation() {
     Span span = new Span();
@@ -1,14 +1,15 @@
 package com.github.kristofa.brave.grpc;
 
+import com.github.kristofa.brave.B3SingleFormat;
 import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.ClientRequestAdapter;
 import com.github.kristofa.brave.ClientRequestInterceptor;
 import com.github.kristofa.brave.ClientResponseAdapter;
 import com.github.kristofa.brave.ClientResponseInterceptor;
 import com.github.kristofa.brave.ClientSpanThreadBinder;
-import com.github.kristofa.brave.IdConversion;
 import com.github.kristofa.brave.KeyValueAnnotation;
 import com.github.kristofa.brave.SpanId;
+import com.github.kristofa.brave.internal.LowerCaseNames;
 import com.github.kristofa.brave.internal.Nullable;
 import com.github.kristofa.brave.internal.Util;
 import com.twitter.zipkin.gen.Endpoint;
@@ -43,11 +44,33 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
 
     public static final class Builder {
         final Brave brave;
+        boolean b3SingleFormat;
+        boolean b3Binary;
 
         Builder(Brave brave) { // intentionally hidden
             this.brave = Util.checkNotNull(brave, "brave");
         }
 
+        /**
+         * When true, ids are propagated in the single {@link BravePropagationKeys#B3 b3} key,
+         * instead of four keys. Only use this when servers can read it. Defaults to false.
+         */
+        public Builder b3SingleFormat(boolean b3SingleFormat) {
+            this.b3SingleFormat = b3SingleFormat;
+            return this;
+        }
+
+        /**
+         * When true, ids are propagated in the binary {@link BravePropagationKeys#B3Binary b3-bin}
+         * key, as the 32 or 40 bytes of {@link SpanId#bytes()}. This avoids formatting ids as hex.
+         * Unsampled calls are still propagated in ASCII. Only use this when servers can read it.
+         * Defaults to false.
+         */
+        public Builder b3Binary(boolean b3Binary) {
+            this.b3Binary = b3Binary;
+            return this;
+        }
+
         public BraveGrpcClientInterceptor build() {
             return new BraveGrpcClientInterceptor(this);
         }
@@ -56,11 +79,15 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
     private final ClientRequestInterceptor clientRequestInterceptor;
     private final ClientResponseInterceptor clientResponseInterceptor;
     private final ClientSpanThreadBinder clientSpanThreadBinder;
+    private final boolean b3SingleFormat;
+    private final boolean b3Binary;
 
     BraveGrpcClientInterceptor(Builder b) { // intentionally hidden
         this.clientRequestInterceptor = b.brave.clientRequestInterceptor();
         this.clientResponseInterceptor = b.brave.clientResponseInterceptor();
         this.clientSpanThreadBinder = b.brave.clientSpanThreadBinder();
+        this.b3SingleFormat = b.b3SingleFormat;
+        this.b3Binary = b.b3Binary;
     }
 
     /**
@@ -71,6 +98,8 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
         this.clientRequestInterceptor = checkNotNull(brave.clientRequestInterceptor());
         this.clientResponseInterceptor = checkNotNull(brave.clientResponseInterceptor());
         this.clientSpanThreadBinder = checkNotNull(brave.clientSpanThreadBinder());
+        this.b3SingleFormat = false;
+        this.b3Binary = false;
     }
 
     @Override
@@ -80,7 +109,7 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
 
             @Override
             public void start(Listener<RespT> responseListener, Metadata headers) {
-                clientRequestInterceptor.handle(new GrpcClientRequestAdapter<>(method, headers));
+                clientRequestInterceptor.handle(new GrpcClientRequestAdapter<>(method, headers, b3SingleFormat, b3Binary));
                 final Span currentClientSpan = clientSpanThreadBinder.getCurrentClientSpan();
                 super.start(new SimpleForwardingClientCallListener<RespT>(responseListener) {
                     @Override
@@ -103,27 +132,42 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
 
         private final MethodDescriptor<ReqT, RespT> method;
         private final Metadata headers;
+        private final boolean b3SingleFormat;
+        private final boolean b3Binary;
 
         public GrpcClientRequestAdapter(MethodDescriptor<ReqT, RespT> method, Metadata headers) {
+            this(method, headers, false, false);
+        }
+
+        GrpcClientRequestAdapter(MethodDescriptor<ReqT, RespT> method, Metadata headers,
+            boolean b3SingleFormat, boolean b3Binary) {
             this.method = checkNotNull(method);
             this.headers = checkNotNull(headers);
+            this.b3SingleFormat = b3SingleFormat;
+            this.b3Binary = b3Binary;
         }
 
         @Override
         public String getSpanName() {
-            return method.getFullMethodName().toLowerCase();
+            return LowerCaseNames.lowerCase(method.getFullMethodName());
         }
 
         @Override
         public void addSpanIdToRequest(@Nullable SpanId spanId) {
-            if (spanId == null) {
+            if (b3Binary && spanId != null) {
+                headers.put(BravePropagationKeys.B3Binary, sampledBytes(spanId));
+            } else if (b3SingleFormat) {
+                headers.put(BravePropagationKeys.B3,
+                    spanId == null ? "0" : B3SingleFormat.writeB3SingleFormat(spanId));
+            } else if (spanId == null) {
                 headers.put(BravePropagationKeys.Sampled, "0");
             } else {
                 headers.put(BravePropagationKeys.Sampled, "1");
                 headers.put(BravePropagationKeys.TraceId, spanId.traceIdString());
-                headers.put(BravePropagationKeys.SpanId, IdConversion.convertToString(spanId.spanId));
-                if (spanId.nullableParentId() != null) {
-                    headers.put(BravePropagationKeys.ParentSpanId, IdConversion.convertToString(spanId.parentId));
+                headers.put(BravePropagationKeys.SpanId, spanId.spanIdString());
+                String parentId = spanId.parentIdString();
+                if (parentId != null) {
+                    headers.put(BravePropagationKeys.ParentSpanId, parentId);
                 }
             }
         }
@@ -139,6 +183,17 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
         }
     }
 
+    /**
+     * Ids are only propagated for sampled calls, but client span ids don't carry a sampling
+     * decision. This sets it, so that the server doesn't make its own.
+     */
+    static byte[] sampledBytes(SpanId spanId) {
+        if (spanId.sampled() != null) return spanId.bytes();
+        long flags = spanId.flags | SpanId.FLAG_SAMPLING_SET | SpanId.FLAG_SAMPLED;
+        return SpanId.create(spanId.traceIdHigh, spanId.traceId, spanId.parentId, spanId.spanId, flags)
+            .bytes();
+    }
+
     static final class GrpcClientResponseAdapter implements ClientResponseAdapter {
 
         private final Status status;
@@ -1,11 +1,13 @@
 package com.github.kristofa.brave.grpc;
 
+import static com.github.kristofa.brave.B3SingleFormat.parseB3SingleFormat;
 import static com.github.kristofa.brave.IdConversion.convertToLong;
 import static com.github.kristofa.brave.grpc.GrpcKeys.GRPC_STATUS_CODE;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.KeyValueAnnotation;
+import com.github.kristofa.brave.Sampler;
 import com.github.kristofa.brave.ServerRequestAdapter;
 import com.github.kristofa.brave.ServerRequestInterceptor;
 import com.github.kristofa.brave.ServerResponseAdapter;
@@ -13,6 +15,8 @@ import com.github.kristofa.brave.ServerResponseInterceptor;
 import com.github.kristofa.brave.SpanId;
 import com.github.kristofa.brave.TraceData;
 
+import com.github.kristofa.brave.internal.LowerCaseNames;
+import com.github.kristofa.brave.internal.Nullable;
 import com.github.kristofa.brave.internal.Util;
 import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
 import io.grpc.Metadata;
@@ -41,11 +45,21 @@ public final class BraveGrpcServerInterceptor implements ServerInterceptor {
 
     public static final class Builder {
         final Brave brave;
+        GrpcRuleSampler ruleSampler;
 
         Builder(Brave brave) { // intentionally hidden
             this.brave = Util.checkNotNull(brave, "brave");
         }
 
+        /**
+         * Chooses a sampler by method name, when the caller didn't decide whether to trace. Calls
+         * that match no rule use the trace sampler.
+         */
+        public Builder ruleSampler(GrpcRuleSampler ruleSampler) {
+            this.ruleSampler = Util.checkNotNull(ruleSampler, "ruleSampler");
+            return this;
+        }
+
         public BraveGrpcServerInterceptor build() {
             return new BraveGrpcServerInterceptor(this);
         }
@@ -53,10 +67,13 @@ public final class BraveGrpcServerInterceptor implements ServerInterceptor {
 
     private final ServerRequestInterceptor serverRequestInterceptor;
     private final ServerResponseInterceptor serverResponseInterceptor;
+    @Nullable // when not configured
+    private final GrpcRuleSampler ruleSampler;
 
     BraveGrpcServerInterceptor(Builder b) { // intentionally hidden
         this.serverRequestInterceptor = b.brave.serverRequestInterceptor();
         this.serverResponseInterceptor = b.brave.serverResponseInterceptor();
+        this.ruleSampler = b.ruleSampler;
     }
 
     /**
@@ -66,6 +83,7 @@ public final class BraveGrpcServerInterceptor implements ServerInterceptor {
     public BraveGrpcServerInterceptor(Brave brave) {
         this.serverRequestInterceptor = checkNotNull(brave.serverRequestInterceptor());
         this.serverResponseInterceptor = checkNotNull(brave.serverResponseInterceptor());
+        this.ruleSampler = null;
     }
 
     @Override
@@ -74,7 +92,10 @@ public final class BraveGrpcServerInterceptor implements ServerInterceptor {
         return next.startCall(new SimpleForwardingServerCall<ReqT, RespT>(call) {
             @Override
             public void request(int numMessages) {
-                serverRequestInterceptor.handle(new GrpcServerRequestAdapter<>(call, requestHeaders));
+                Sampler sampler = ruleSampler != null
+                    ? ruleSampler.sampler(call.getMethodDescriptor().getFullMethodName())
+                    : null;
+                serverRequestInterceptor.handle(new GrpcServerRequestAdapter<>(call, requestHeaders), sampler);
                 super.request(numMessages);
             }
 
@@ -100,21 +121,26 @@ public final class BraveGrpcServerInterceptor implements ServerInterceptor {
 
         @Override
         public TraceData getTraceData() {
+            // Prefer the binary key, then the single b3 key, then the multi-key form
+            byte[] b3Binary = requestHeaders.get(BravePropagationKeys.B3Binary);
+            if (b3Binary != null && (b3Binary.length == 32 || b3Binary.length == 40)) {
+                return TraceData.create(SpanId.fromBytes(b3Binary));
+            }
+
+            String b3 = requestHeaders.get(BravePropagationKeys.B3);
+            TraceData result = b3 != null ? parseB3SingleFormat(b3) : null;
+            if (result != null) return result;
+
             String sampled = requestHeaders.get(BravePropagationKeys.Sampled);
-            String parentSpanId = requestHeaders.get(BravePropagationKeys.ParentSpanId);
             String traceId = requestHeaders.get(BravePropagationKeys.TraceId);
-            String spanId = requestHeaders.get(BravePropagationKeys.SpanId);
-
-            // Official sampled value is 1, though some old instrumentation send true
-            Boolean parsedSampled = sampled != null
-                ? sampled.equals("1") || sampled.equalsIgnoreCase("true")
-                : null;
+            String spanId = traceId != null ? requestHeaders.get(BravePropagationKeys.SpanId) : null;
 
             if (traceId != null && spanId != null) {
-                return TraceData.create(getSpanId(traceId, spanId, parentSpanId, parsedSampled));
-            } else if (parsedSampled == null) {
+                String parentSpanId = requestHeaders.get(BravePropagationKeys.ParentSpanId);
+                return TraceData.create(getSpanId(traceId, spanId, parentSpanId, sampled));
+            } else if (sampled == null) {
                 return TraceData.EMPTY;
-            } else if (parsedSampled.booleanValue()) {
+            } else if (isSampled(sampled)) {
                 // Invalid: The caller requests the trace to be sampled, but didn't pass IDs
                 return TraceData.EMPTY;
             } else {
@@ -124,7 +150,7 @@ public final class BraveGrpcServerInterceptor implements ServerInterceptor {
 
         @Override
         public String getSpanName() {
-            return method.getFullMethodName().toLowerCase();
+            return LowerCaseNames.lowerCase(method.getFullMethodName());
         }
 
         @Override
@@ -159,12 +185,29 @@ public final class BraveGrpcServerInterceptor implements ServerInterceptor {
 
     }
 
-    static SpanId getSpanId(String traceId, String spanId, String parentSpanId, Boolean sampled) {
-        return SpanId.builder()
-            .traceIdHigh(traceId.length() == 32 ? convertToLong(traceId, 0) : 0)
-            .traceId(convertToLong(traceId))
-            .spanId(convertToLong(spanId))
-            .sampled(sampled)
-            .parentId(parentSpanId == null ? null : convertToLong(parentSpanId)).build();
+    static SpanId getSpanId(String traceId, String spanId, String parentSpanId, String sampled) {
+        long flags = 0;
+        if (sampled != null) {
+            flags |= SpanId.FLAG_SAMPLING_SET;
+            if (isSampled(sampled)) flags |= SpanId.FLAG_SAMPLED;
+        }
+        long parentId = 0;
+        if (parentSpanId == null) {
+            flags |= SpanId.FLAG_IS_ROOT;
+        } else {
+            parentId = convertToLong(parentSpanId);
+        }
+        return SpanId.create(
+            traceId.length() == 32 ? convertToLong(traceId, 0) : 0,
+            convertToLong(traceId),
+            parentId,
+            convertToLong(spanId),
+            flags
+        );
+    }
+
+    /** Official sampled value is 1, though some old instrumentation send true */
+    static boolean isSampled(String sampled) {
+        return sampled.equals("1") || sampled.equalsIgnoreCase("true");
     }
 }
@@ -15,5 +15,11 @@ class BravePropagationKeys {
         Metadata.Key.of(BraveHttpHeaders.TraceId.getName(), Metadata.ASCII_STRING_MARSHALLER);
     public static Metadata.Key<String> Sampled =
         Metadata.Key.of(BraveHttpHeaders.Sampled.getName(), Metadata.ASCII_STRING_MARSHALLER);
+    /** All of the above in one key, encoded as {@code traceid-spanid-sampled-parentid} */
+    public static Metadata.Key<String> B3 =
+        Metadata.Key.of(BraveHttpHeaders.B3.getName(), Metadata.ASCII_STRING_MARSHALLER);
+    /** The trace context encoded as {@link com.github.kristofa.brave.SpanId#bytes()} */
+    public static Metadata.Key<byte[]> B3Binary =
+        Metadata.Key.of("b3" + Metadata.BINARY_HEADER_SUFFIX, Metadata.BINARY_BYTE_MARSHALLER);
 
 }
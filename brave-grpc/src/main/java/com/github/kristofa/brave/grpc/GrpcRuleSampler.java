@@ -0,0 +1,72 @@
+package com.github.kristofa.brave.grpc;
+
+import com.github.kristofa.brave.Sampler;
+import com.github.kristofa.brave.internal.Nullable;
+import com.github.kristofa.brave.internal.PrefixMatcher;
+import io.grpc.MethodDescriptor;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * Chooses a sampler for a new trace based on the {@link MethodDescriptor#getFullMethodName() full
+ * method name} of the call. For example, this can drop health checks while keeping all calls to
+ * a payment service:
+ *
+ * <pre>{@code
+ * ruleSampler = GrpcRuleSampler.builder()
+ *     .addRule("grpc.health.v1.Health/", Sampler.NEVER_SAMPLE)
+ *     .addRule("shop.Payments/", Sampler.ALWAYS_SAMPLE)
+ *     .build();
+ *
+ * interceptor = BraveGrpcServerInterceptor.builder(brave).ruleSampler(ruleSampler).build();
+ * }</pre>
+ *
+ * <p>When no rule matches, the {@link com.github.kristofa.brave.Brave.Builder#traceSampler(Sampler)
+ * trace sampler} decides. Rules only apply when the caller didn't decide whether to sample.
+ *
+ * <p>Rules are compiled into a trie, and the rule with the longest matching prefix wins. The cost
+ * of choosing a rule is proportional to the length of the method name, not the count of rules.
+ */
+public final class GrpcRuleSampler {
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        final PrefixMatcher.Builder<Sampler> rules = PrefixMatcher.builder();
+
+        Builder() { // intentionally hidden
+        }
+
+        /**
+         * Adds a rule, which uses the given sampler for calls whose full method name starts with the
+         * prefix. If the same prefix is added twice, the first rule wins.
+         *
+         * @param methodPrefix prefix of the full method name, such as "helloworld.Greeter/" for all
+         * methods of a service, or "helloworld.Greeter/SayHello" for one method
+         * @param sampler for example {@link Sampler#create(float)} to sample a percentage of calls,
+         * or {@link com.github.kristofa.brave.RateLimitingSampler} to cap calls per second.
+         */
+        public Builder addRule(String methodPrefix, Sampler sampler) {
+            rules.put(checkNotNull(methodPrefix, "methodPrefix"), checkNotNull(sampler, "sampler"));
+            return this;
+        }
+
+        public GrpcRuleSampler build() {
+            return new GrpcRuleSampler(this);
+        }
+    }
+
+    final PrefixMatcher<Sampler> rules;
+
+    GrpcRuleSampler(Builder builder) {
+        this.rules = builder.rules.build();
+    }
+
+    /** Returns the sampler of the rule matching the method, or null if no rule matches. */
+    @Nullable
+    public Sampler sampler(String fullMethodName) {
+        return rules.longestMatch(fullMethodName);
+    }
+}
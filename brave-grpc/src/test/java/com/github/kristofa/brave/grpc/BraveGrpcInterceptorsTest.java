@@ -163,6 +163,75 @@ public class BraveGrpcInterceptorsTest {
         assertThat(span.getParent_id()).isEqualTo(spanId.spanId);
     }
 
+    @Test
+    public void ruleSamplerDecidesForUntracedCallers() throws Exception {
+        startUntracedCallerAndServer(GrpcRuleSampler.builder()
+            .addRule("helloworld.Greeter/", Sampler.NEVER_SAMPLE)
+            .build());
+
+        HelloReply reply = GreeterGrpc.newBlockingStub(channel).sayHello(HELLO_REQUEST);
+        assertThat(reply.getMessage()).isEqualTo("Hello brave");
+        assertThat(SpanCollectorForTesting.INSTANCE.getCollectedSpans()).isEmpty();
+    }
+
+    @Test
+    public void ruleSamplerFallsBackToTraceSampler() throws Exception {
+        startUntracedCallerAndServer(GrpcRuleSampler.builder()
+            .addRule("grpc.health.v1.Health/", Sampler.NEVER_SAMPLE)
+            .build());
+
+        HelloReply reply = GreeterGrpc.newBlockingStub(channel).sayHello(HELLO_REQUEST);
+        assertThat(reply.getMessage()).isEqualTo("Hello brave");
+        List<Span> spans = SpanCollectorForTesting.INSTANCE.getCollectedSpans();
+        assertThat(spans.size()).isEqualTo(1);
+        validateSpan(spans.get(0), Arrays.asList("sr", "ss"));
+    }
+
+    @Test
+    public void b3SingleFormat_usesExistingTraceId() throws Exception {
+        startClient(BraveGrpcClientInterceptor.builder(brave).b3SingleFormat(true).build());
+        assertUsesExistingTraceId();
+    }
+
+    @Test
+    public void b3Binary_usesExistingTraceId() throws Exception {
+        startClient(BraveGrpcClientInterceptor.builder(brave).b3Binary(true).build());
+        assertUsesExistingTraceId();
+    }
+
+    void startClient(BraveGrpcClientInterceptor interceptor) {
+        channel.shutdownNow();
+        channel = ManagedChannelBuilder.forAddress("localhost", server.getPort())
+            .intercept(interceptor)
+            .usePlaintext(true)
+            .build();
+    }
+
+    void assertUsesExistingTraceId() throws Exception {
+        SpanId spanId = brave.localTracer().startNewSpan("localSpan", "myop");
+        HelloReply reply = GreeterGrpc.newBlockingStub(channel).sayHello(HELLO_REQUEST);
+        assertThat(reply.getMessage()).isEqualTo("Hello brave");
+        validateSpans();
+
+        Span serverSpan = SpanCollectorForTesting.INSTANCE.getCollectedSpans().get(0);
+        assertThat(serverSpan.getTrace_id()).isEqualTo(spanId.traceId);
+        assertThat(serverSpan.getParent_id()).isEqualTo(spanId.spanId);
+    }
+
+    void startUntracedCallerAndServer(GrpcRuleSampler ruleSampler) throws IOException {
+        tearDown();
+        int serverPort = pickUnusedPort();
+        server = ServerBuilder.forPort(serverPort)
+            .addService(ServerInterceptors.intercept(new GreeterImpl(),
+                BraveGrpcServerInterceptor.builder(brave).ruleSampler(ruleSampler).build()))
+            .build()
+            .start();
+
+        channel = ManagedChannelBuilder.forAddress("localhost", serverPort)
+            .usePlaintext(true)
+            .build();
+    }
+
     /**
      * Validating that two spans were generated indicates that a span was generated by both the
      * server and the client.
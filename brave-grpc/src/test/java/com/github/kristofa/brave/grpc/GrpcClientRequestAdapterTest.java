@@ -37,7 +37,7 @@ public class GrpcClientRequestAdapterTest {
     assertThat(metadata.get(BravePropagationKeys.TraceId))
         .isEqualTo("00000000000004d2");
     assertThat(metadata.get(BravePropagationKeys.SpanId))
-        .isEqualTo("4d2");
+        .isEqualTo("00000000000004d2");
   }
 
   @Test
@@ -52,9 +52,9 @@ public class GrpcClientRequestAdapterTest {
     assertThat(metadata.get(BravePropagationKeys.TraceId))
         .isEqualTo("00000000000004d2");
     assertThat(metadata.get(BravePropagationKeys.ParentSpanId))
-        .isEqualTo("4d2");
+        .isEqualTo("00000000000004d2");
     assertThat(metadata.get(BravePropagationKeys.SpanId))
-        .isEqualTo("162e");
+        .isEqualTo("000000000000162e");
   }
 
   @Test
@@ -69,6 +69,68 @@ public class GrpcClientRequestAdapterTest {
     assertThat(metadata.get(BravePropagationKeys.TraceId))
         .isEqualTo("00000000000000010000000000000002");
     assertThat(metadata.get(BravePropagationKeys.SpanId))
-        .isEqualTo("2");
+        .isEqualTo("0000000000000002");
+  }
+
+  @Test
+  public void b3SingleFormat_childSpan() throws Exception {
+    adapter = new GrpcClientRequestAdapter(GreeterGrpc.METHOD_SAY_HELLO, metadata, true, false);
+    adapter.addSpanIdToRequest(SpanId.builder().traceId(1234L).parentId(1234L).spanId(5678L).build());
+
+    assertThat(metadata.keys())
+        .containsExactly("b3");
+
+    assertThat(metadata.get(BravePropagationKeys.B3))
+        .isEqualTo("00000000000004d2-000000000000162e-1-00000000000004d2");
+  }
+
+  @Test
+  public void b3SingleFormat_nullSpanIdMeansUnsampled() throws Exception {
+    adapter = new GrpcClientRequestAdapter(GreeterGrpc.METHOD_SAY_HELLO, metadata, true, false);
+    adapter.addSpanIdToRequest(null);
+
+    assertThat(metadata.keys())
+        .containsExactly("b3");
+
+    assertThat(metadata.get(BravePropagationKeys.B3))
+        .isEqualTo("0");
+  }
+
+  @Test
+  public void b3Binary_childSpan() throws Exception {
+    adapter = new GrpcClientRequestAdapter(GreeterGrpc.METHOD_SAY_HELLO, metadata, false, true);
+    SpanId id = SpanId.builder().traceId(1234L).parentId(1234L).spanId(5678L).build();
+    adapter.addSpanIdToRequest(id);
+
+    assertThat(metadata.keys())
+        .containsExactly("b3-bin");
+
+    SpanId propagated = SpanId.fromBytes(metadata.get(BravePropagationKeys.B3Binary));
+    assertThat(propagated).isEqualTo(id);
+    assertThat(propagated.sampled()).isTrue();
+  }
+
+  @Test
+  public void b3Binary_128bitRootSpan() throws Exception {
+    adapter = new GrpcClientRequestAdapter(GreeterGrpc.METHOD_SAY_HELLO, metadata, false, true);
+    SpanId id = SpanId.builder().traceIdHigh(1L).traceId(2L).parentId(null).spanId(3L).build();
+    adapter.addSpanIdToRequest(id);
+
+    byte[] bytes = metadata.get(BravePropagationKeys.B3Binary);
+    assertThat(bytes).hasSize(40);
+
+    SpanId propagated = SpanId.fromBytes(bytes);
+    assertThat(propagated).isEqualTo(id);
+    assertThat(propagated.root()).isTrue();
+    assertThat(propagated.sampled()).isTrue();
+  }
+
+  @Test
+  public void b3Binary_nullSpanIdUsesAscii() throws Exception {
+    adapter = new GrpcClientRequestAdapter(GreeterGrpc.METHOD_SAY_HELLO, metadata, false, true);
+    adapter.addSpanIdToRequest(null);
+
+    assertThat(metadata.keys())
+        .containsExactly("x-b3-sampled");
   }
 }
@@ -0,0 +1,32 @@
+package com.github.kristofa.brave.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.github.kristofa.brave.Sampler;
+import org.junit.Test;
+
+public class GrpcRuleSamplerTest {
+    Sampler greeter = mock(Sampler.class);
+    Sampler sayHello = mock(Sampler.class);
+
+    GrpcRuleSampler ruleSampler = GrpcRuleSampler.builder()
+        .addRule("helloworld.Greeter/", greeter)
+        .addRule("helloworld.Greeter/SayHello", sayHello)
+        .build();
+
+    @Test
+    public void noMatch() {
+        assertThat(ruleSampler.sampler("grpc.health.v1.Health/Check")).isNull();
+    }
+
+    @Test
+    public void matchesService() {
+        assertThat(ruleSampler.sampler("helloworld.Greeter/SayGoodbye")).isSameAs(greeter);
+    }
+
+    @Test
+    public void longestPrefixWins() {
+        assertThat(ruleSampler.sampler("helloworld.Greeter/SayHello")).isSameAs(sayHello);
+    }
+}
@@ -172,4 +172,47 @@ public class GrpcServerRequestAdapterTest {
     assertEquals(IdConversion.convertToLong(SPAN_ID), spanId.spanId);
     assertNull(spanId.nullableParentId());
   }
+
+  @Test
+  public void getTraceData_b3SingleFormat() {
+    metadata.put(BravePropagationKeys.B3, TRACE_ID + "-" + SPAN_ID + "-1-" + PARENT_SPAN_ID);
+    TraceData traceData = adapter.getTraceData();
+    assertTrue(traceData.getSample());
+    SpanId spanId = traceData.getSpanId();
+    assertEquals(IdConversion.convertToLong(TRACE_ID), spanId.traceId);
+    assertEquals(IdConversion.convertToLong(SPAN_ID), spanId.spanId);
+    assertEquals(IdConversion.convertToLong(PARENT_SPAN_ID), spanId.parentId);
+  }
+
+  @Test
+  public void getTraceData_b3SingleFormat_notSampled() {
+    metadata.put(BravePropagationKeys.B3, "0");
+    TraceData traceData = adapter.getTraceData();
+    assertFalse(traceData.getSample());
+    assertNull(traceData.getSpanId());
+  }
+
+  @Test
+  public void getTraceData_b3Binary() {
+    SpanId id = SpanId.builder().traceIdHigh(1L).traceId(2L).parentId(3L).spanId(4L)
+        .sampled(true).build();
+    metadata.put(BravePropagationKeys.B3Binary, id.bytes());
+    metadata.put(BravePropagationKeys.TraceId, TRACE_ID);
+    metadata.put(BravePropagationKeys.SpanId, SPAN_ID);
+
+    TraceData traceData = adapter.getTraceData();
+    assertTrue(traceData.getSample());
+    assertEquals(id, traceData.getSpanId());
+  }
+
+  @Test
+  public void getTraceData_b3Binary_wrongLengthFallsBackToAscii() {
+    metadata.put(BravePropagationKeys.B3Binary, new byte[7]);
+    metadata.put(BravePropagationKeys.TraceId, TRACE_ID);
+    metadata.put(BravePropagationKeys.SpanId, SPAN_ID);
+
+    SpanId spanId = adapter.getTraceData().getSpanId();
+    assertEquals(IdConversion.convertToLong(TRACE_ID), spanId.traceId);
+    assertEquals(IdConversion.convertToLong(SPAN_ID), spanId.spanId);
+  }
 }
@@ -28,7 +28,14 @@ public enum BraveHttpHeaders {
      * "1" means report this span to the tracing system, "0" means do not. (absent means defer the
      * decision to the receiver of this header).
      */
-    Sampled("X-B3-Sampled");
+    Sampled("X-B3-Sampled"),
+    /**
+     * All of the above in one header, encoded as {@code traceid-spanid-sampled-parentid}. When
+     * unsampled, this is just "0".
+     *
+     * @see com.github.kristofa.brave.B3SingleFormat
+     */
+    B3("b3");
 
     private final String name;
 
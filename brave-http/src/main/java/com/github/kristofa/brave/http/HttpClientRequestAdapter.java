@@ -1,7 +1,7 @@
 package com.github.kristofa.brave.http;
 
+import com.github.kristofa.brave.B3SingleFormat;
 import com.github.kristofa.brave.ClientRequestAdapter;
-import com.github.kristofa.brave.IdConversion;
 import com.github.kristofa.brave.KeyValueAnnotation;
 import com.github.kristofa.brave.SpanId;
 import com.github.kristofa.brave.internal.Nullable;
@@ -15,10 +15,21 @@ public class HttpClientRequestAdapter implements ClientRequestAdapter {
 
     private final HttpClientRequest request;
     private final SpanNameProvider spanNameProvider;
+    private final boolean b3SingleFormat;
 
     public HttpClientRequestAdapter(HttpClientRequest request, SpanNameProvider spanNameProvider) {
+        this(request, spanNameProvider, false);
+    }
+
+    /**
+     * @param b3SingleFormat true to propagate ids in the single {@link BraveHttpHeaders#B3 b3}
+     * header, instead of the multi-header form. Only use this when servers can read it.
+     */
+    public HttpClientRequestAdapter(HttpClientRequest request, SpanNameProvider spanNameProvider,
+        boolean b3SingleFormat) {
         this.request = request;
         this.spanNameProvider = spanNameProvider;
+        this.b3SingleFormat = b3SingleFormat;
     }
 
     @Override
@@ -28,14 +39,18 @@ public class HttpClientRequestAdapter implements ClientRequestAdapter {
 
     @Override
     public void addSpanIdToRequest(@Nullable SpanId spanId) {
-        if (spanId == null) {
+        if (b3SingleFormat) {
+            request.addHeader(BraveHttpHeaders.B3.getName(),
+                spanId == null ? "0" : B3SingleFormat.writeB3SingleFormat(spanId));
+        } else if (spanId == null) {
             request.addHeader(BraveHttpHeaders.Sampled.getName(), "0");
         } else {
             request.addHeader(BraveHttpHeaders.Sampled.getName(), "1");
             request.addHeader(BraveHttpHeaders.TraceId.getName(), spanId.traceIdString());
-            request.addHeader(BraveHttpHeaders.SpanId.getName(), IdConversion.convertToString(spanId.spanId));
-            if (spanId.nullableParentId() != null) {
-                request.addHeader(BraveHttpHeaders.ParentSpanId.getName(), IdConversion.convertToString(spanId.parentId));
+            request.addHeader(BraveHttpHeaders.SpanId.getName(), spanId.spanIdString());
+            String parentId = spanId.parentIdString();
+            if (parentId != null) {
+                request.addHeader(BraveHttpHeaders.ParentSpanId.getName(), parentId);
             }
         }
     }
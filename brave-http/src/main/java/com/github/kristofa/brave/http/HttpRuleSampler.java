@@ -0,0 +1,134 @@
+package com.github.kristofa.brave.http;
+
+import com.github.kristofa.brave.Sampler;
+import com.github.kristofa.brave.internal.Nullable;
+import com.github.kristofa.brave.internal.PrefixMatcher;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * Chooses a sampler for a new trace based on the http method and path of the request. For example,
+ * this can drop health checks while keeping all checkout requests:
+ *
+ * <pre>{@code
+ * ruleSampler = HttpRuleSampler.builder()
+ *     .addRule("GET", "/health", Sampler.NEVER_SAMPLE)
+ *     .addRule(null, "/checkout", Sampler.ALWAYS_SAMPLE)
+ *     .addRule(null, "/api", RateLimitingSampler.create(100))
+ *     .build();
+ *
+ * filter = BraveServletFilter.builder(brave).ruleSampler(ruleSampler).build();
+ * }</pre>
+ *
+ * <p>When no rule matches, the {@link com.github.kristofa.brave.Brave.Builder#traceSampler(Sampler)
+ * trace sampler} decides. Rules only apply when the caller didn't decide whether to sample.
+ *
+ * <h3>Implementation</h3>
+ *
+ * <p>Rules are compiled into a trie of path prefixes per http method, plus one for rules that
+ * match any method. The rule with the longest matching path prefix wins, preferring a rule for the
+ * request's method when prefixes are the same length. The cost of choosing a rule is proportional
+ * to the length of the path, not the count of rules.
+ */
+public final class HttpRuleSampler {
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        final Map<String, PrefixMatcher.Builder<Rule>> byMethod =
+            new LinkedHashMap<String, PrefixMatcher.Builder<Rule>>();
+        final PrefixMatcher.Builder<Rule> anyMethod = PrefixMatcher.builder();
+
+        Builder() { // intentionally hidden
+        }
+
+        /**
+         * Adds a rule, which uses the given sampler for requests whose path starts with the prefix.
+         * If the same method and prefix are added twice, the first rule wins.
+         *
+         * @param method http method, such as "GET", or null to match any method
+         * @param pathPrefix prefix of {@link URI#getPath() the request path}, such as "/api"
+         * @param sampler for example {@link Sampler#create(float)} to sample a percentage of
+         * requests, or {@link com.github.kristofa.brave.RateLimitingSampler} to cap requests per
+         * second.
+         */
+        public Builder addRule(@Nullable String method, String pathPrefix, Sampler sampler) {
+            checkNotNull(pathPrefix, "pathPrefix");
+            Rule rule = new Rule(pathPrefix.length(), checkNotNull(sampler, "sampler"));
+            if (method == null) {
+                anyMethod.put(pathPrefix, rule);
+            } else {
+                String key = method.toUpperCase(Locale.ROOT);
+                PrefixMatcher.Builder<Rule> matcher = byMethod.get(key);
+                if (matcher == null) byMethod.put(key, matcher = PrefixMatcher.builder());
+                matcher.put(pathPrefix, rule);
+            }
+            return this;
+        }
+
+        public HttpRuleSampler build() {
+            return new HttpRuleSampler(this);
+        }
+    }
+
+    final Map<String, PrefixMatcher<Rule>> byMethod;
+    final PrefixMatcher<Rule> anyMethod;
+
+    HttpRuleSampler(Builder builder) {
+        byMethod = new LinkedHashMap<String, PrefixMatcher<Rule>>();
+        for (Map.Entry<String, PrefixMatcher.Builder<Rule>> entry : builder.byMethod.entrySet()) {
+            byMethod.put(entry.getKey(), entry.getValue().build());
+        }
+        anyMethod = builder.anyMethod.build();
+    }
+
+    /**
+     * Returns the sampler of the rule matching the request, or null if no rule matches.
+     *
+     * @see com.github.kristofa.brave.ServerRequestInterceptor#handle(com.github.kristofa.brave.ServerRequestAdapter, Sampler)
+     */
+    @Nullable
+    public Sampler sampler(HttpRequest request) {
+        return sampler(request.getHttpMethod(), request.getUri().getPath());
+    }
+
+    /**
+     * Like {@link #sampler(HttpRequest)}, except the method and path are already parsed. The method
+     * is matched regardless of case, and the path should be decoded, like {@link URI#getPath()}.
+     */
+    @Nullable
+    public Sampler sampler(@Nullable String method, @Nullable String path) {
+        if (path == null) path = "";
+        Rule result = anyMethod.longestMatch(path);
+        PrefixMatcher<Rule> forMethod =
+            method != null ? byMethod.get(method.toUpperCase(Locale.ROOT)) : null;
+        if (forMethod != null) {
+            Rule methodRule = forMethod.longestMatch(path);
+            if (methodRule != null && (result == null || methodRule.length >= result.length)) {
+                result = methodRule;
+            }
+        }
+        return result != null ? result.sampler : null;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpRuleSampler(" + byMethod.keySet() + ")";
+    }
+
+    static final class Rule {
+        final int length;
+        final Sampler sampler;
+
+        Rule(int length, Sampler sampler) {
+            this.length = length;
+            this.sampler = sampler;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Collection;
 import java.util.Collections;
 import zipkin.TraceKeys;
 
+import static com.github.kristofa.brave.B3SingleFormat.parseB3SingleFormat;
 import static com.github.kristofa.brave.IdConversion.convertToLong;
 
 public class HttpServerRequestAdapter implements ServerRequestAdapter {
@@ -19,23 +20,31 @@ public class HttpServerRequestAdapter implements ServerRequestAdapter {
         this.spanNameProvider = spanNameProvider;
     }
 
+    /**
+     * Parses B3 headers directly into a {@link SpanId}, without intermediate boxed ids. When the
+     * request has no trace ids, one of the shared {@link TraceData} constants is returned.
+     *
+     * <p>The single {@link BraveHttpHeaders#B3 b3} header is read first. If it is absent or
+     * malformed, the multi-header form is read instead.
+     */
     @Override
     public TraceData getTraceData() {
+        String b3 = request.getHttpHeaderValue(BraveHttpHeaders.B3.getName());
+        TraceData result = b3 != null ? parseB3SingleFormat(b3) : null;
+        if (result != null) return result;
+
         String sampled = request.getHttpHeaderValue(BraveHttpHeaders.Sampled.getName());
-        String parentSpanId = request.getHttpHeaderValue(BraveHttpHeaders.ParentSpanId.getName());
         String traceId = request.getHttpHeaderValue(BraveHttpHeaders.TraceId.getName());
-        String spanId = request.getHttpHeaderValue(BraveHttpHeaders.SpanId.getName());
-
-        // Official sampled value is 1, though some old instrumentation send true
-        Boolean parsedSampled = sampled != null
-            ? sampled.equals("1") || sampled.equalsIgnoreCase("true")
+        String spanId = traceId != null
+            ? request.getHttpHeaderValue(BraveHttpHeaders.SpanId.getName())
             : null;
 
         if (traceId != null && spanId != null) {
-            return TraceData.create(getSpanId(traceId, spanId, parentSpanId, parsedSampled));
-        } else if (parsedSampled == null) {
+            String parentSpanId = request.getHttpHeaderValue(BraveHttpHeaders.ParentSpanId.getName());
+            return TraceData.create(getSpanId(traceId, spanId, parentSpanId, sampled));
+        } else if (sampled == null) {
             return TraceData.EMPTY;
-        } else if (parsedSampled.booleanValue()) {
+        } else if (isSampled(sampled)) {
             // Invalid: The caller requests the trace to be sampled, but didn't pass IDs
             return TraceData.EMPTY;
         } else {
@@ -55,12 +64,29 @@ public class HttpServerRequestAdapter implements ServerRequestAdapter {
         return Collections.singleton(uriAnnotation);
     }
 
-    static SpanId getSpanId(String traceId, String spanId, String parentSpanId, Boolean sampled) {
-        return SpanId.builder()
-            .traceIdHigh(traceId.length() == 32 ? convertToLong(traceId, 0) : 0)
-            .traceId(convertToLong(traceId))
-            .spanId(convertToLong(spanId))
-            .sampled(sampled)
-            .parentId(parentSpanId == null ? null : convertToLong(parentSpanId)).build();
-   }
+    static SpanId getSpanId(String traceId, String spanId, String parentSpanId, String sampled) {
+        long flags = 0;
+        if (sampled != null) {
+            flags |= SpanId.FLAG_SAMPLING_SET;
+            if (isSampled(sampled)) flags |= SpanId.FLAG_SAMPLED;
+        }
+        long parentId = 0;
+        if (parentSpanId == null) {
+            flags |= SpanId.FLAG_IS_ROOT;
+        } else {
+            parentId = convertToLong(parentSpanId);
+        }
+        return SpanId.create(
+            traceId.length() == 32 ? convertToLong(traceId, 0) : 0,
+            convertToLong(traceId),
+            parentId,
+            convertToLong(spanId),
+            flags
+        );
+    }
+
+    /** Official sampled value is 1, though some old instrumentation send true */
+    static boolean isSampled(String sampled) {
+        return sampled.equals("1") || sampled.equalsIgnoreCase("true");
+    }
 }
@@ -0,0 +1,76 @@
+package com.github.kristofa.brave.http;
+
+import com.github.kristofa.brave.Sampler;
+import java.net.URI;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HttpRuleSamplerTest {
+    Sampler health = mock(Sampler.class);
+    Sampler api = mock(Sampler.class);
+    Sampler apiPost = mock(Sampler.class);
+    Sampler users = mock(Sampler.class);
+
+    HttpRuleSampler ruleSampler = HttpRuleSampler.builder()
+        .addRule("GET", "/health", health)
+        .addRule(null, "/api", api)
+        .addRule("post", "/api", apiPost)
+        .addRule(null, "/api/users", users)
+        .build();
+
+    @Test
+    public void noRules() {
+        ruleSampler = HttpRuleSampler.builder().build();
+
+        assertThat(ruleSampler.sampler("GET", "/api")).isNull();
+    }
+
+    @Test
+    public void noMatch() {
+        assertThat(ruleSampler.sampler("GET", "/")).isNull();
+        assertThat(ruleSampler.sampler("GET", "/other")).isNull();
+        assertThat(ruleSampler.sampler("GET", null)).isNull();
+    }
+
+    @Test
+    public void matchesMethod() {
+        assertThat(ruleSampler.sampler("GET", "/health")).isSameAs(health);
+        assertThat(ruleSampler.sampler("POST", "/health")).isNull();
+    }
+
+    @Test
+    public void matchesMethodRegardlessOfCase() {
+        assertThat(ruleSampler.sampler("get", "/health")).isSameAs(health);
+        assertThat(ruleSampler.sampler("Post", "/api/orders")).isSameAs(apiPost);
+    }
+
+    @Test
+    public void anyMethod() {
+        assertThat(ruleSampler.sampler("GET", "/api/orders")).isSameAs(api);
+        assertThat(ruleSampler.sampler("DELETE", "/api/orders")).isSameAs(api);
+        assertThat(ruleSampler.sampler(null, "/api/orders")).isSameAs(api);
+    }
+
+    @Test
+    public void methodRuleWinsWhenPrefixIsSameLength() {
+        assertThat(ruleSampler.sampler("POST", "/api/orders")).isSameAs(apiPost);
+    }
+
+    @Test
+    public void longestPrefixWins() {
+        assertThat(ruleSampler.sampler("GET", "/api/users/1")).isSameAs(users);
+        assertThat(ruleSampler.sampler("POST", "/api/users/1")).isSameAs(users);
+    }
+
+    @Test
+    public void readsMethodAndPathFromRequest() {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getHttpMethod()).thenReturn("GET");
+        when(request.getUri()).thenReturn(URI.create("http://localhost:8080/health?verbose"));
+
+        assertThat(ruleSampler.sampler(request)).isSameAs(health);
+    }
+}
@@ -15,6 +15,8 @@ import zipkin.TraceKeys;
 import static junit.framework.Assert.assertNull;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class HttpServerRequestAdapterTest {
@@ -179,4 +181,60 @@ public class HttpServerRequestAdapterTest {
         assertEquals(IdConversion.convertToLong(SPAN_ID), spanId.spanId);
         assertNull(spanId.nullableParentId());
     }
+
+    @Test
+    public void getTraceData_128BitTraceId() {
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.TraceId.getName()))
+            .thenReturn("463ac35c9f6413ad" + TRACE_ID);
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.SpanId.getName())).thenReturn(SPAN_ID);
+        SpanId spanId = adapter.getTraceData().getSpanId();
+        assertEquals(IdConversion.convertToLong("463ac35c9f6413ad"), spanId.traceIdHigh);
+        assertEquals(IdConversion.convertToLong(TRACE_ID), spanId.traceId);
+    }
+
+    @Test
+    public void getTraceData_reusesConstants() {
+        assertSame(TraceData.EMPTY, adapter.getTraceData());
+
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.Sampled.getName())).thenReturn("0");
+        assertSame(TraceData.NOT_SAMPLED, adapter.getTraceData());
+    }
+
+    @Test
+    public void getTraceData_doesntReadParentWithoutIds() {
+        adapter.getTraceData();
+
+        verify(serverRequest, never()).getHttpHeaderValue(BraveHttpHeaders.SpanId.getName());
+        verify(serverRequest, never()).getHttpHeaderValue(BraveHttpHeaders.ParentSpanId.getName());
+    }
+
+    @Test
+    public void getTraceData_b3SingleFormat() {
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.B3.getName()))
+            .thenReturn(TRACE_ID + "-" + SPAN_ID + "-1-" + PARENT_SPAN_ID);
+        TraceData traceData = adapter.getTraceData();
+        assertTrue(traceData.getSample());
+        SpanId spanId = traceData.getSpanId();
+        assertEquals(IdConversion.convertToLong(TRACE_ID), spanId.traceId);
+        assertEquals(IdConversion.convertToLong(SPAN_ID), spanId.spanId);
+        assertEquals(IdConversion.convertToLong(PARENT_SPAN_ID), spanId.parentId);
+
+        verify(serverRequest, never()).getHttpHeaderValue(BraveHttpHeaders.TraceId.getName());
+    }
+
+    @Test
+    public void getTraceData_b3SingleFormat_notSampled() {
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.B3.getName())).thenReturn("0");
+        assertSame(TraceData.NOT_SAMPLED, adapter.getTraceData());
+    }
+
+    @Test
+    public void getTraceData_b3SingleFormat_malformedFallsBackToMultiHeader() {
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.B3.getName())).thenReturn("garbage");
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.TraceId.getName())).thenReturn(TRACE_ID);
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.SpanId.getName())).thenReturn(SPAN_ID);
+        SpanId spanId = adapter.getTraceData().getSpanId();
+        assertEquals(IdConversion.convertToLong(TRACE_ID), spanId.traceId);
+        assertEquals(IdConversion.convertToLong(SPAN_ID), spanId.spanId);
+    }
 }
@@ -2,6 +2,7 @@ package com.github.kristofa.brave.jaxrs2;
 
 import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.ClientRequestInterceptor;
+import com.github.kristofa.brave.http.BraveHttpHeaders;
 import com.github.kristofa.brave.http.DefaultSpanNameProvider;
 import com.github.kristofa.brave.http.HttpClientRequest;
 import com.github.kristofa.brave.http.HttpClientRequestAdapter;
@@ -35,6 +36,7 @@ public class BraveClientRequestFilter implements ClientRequestFilter {
     public static final class Builder {
         final Brave brave;
         SpanNameProvider spanNameProvider = new DefaultSpanNameProvider();
+        boolean b3SingleFormat;
 
         Builder(Brave brave) { // intentionally hidden
             this.brave = checkNotNull(brave, "brave");
@@ -45,6 +47,16 @@ public class BraveClientRequestFilter implements ClientRequestFilter {
             return this;
         }
 
+        /**
+         * When true, ids are propagated in the single {@link BraveHttpHeaders#B3 b3} header,
+         * instead of the {@code X-B3-*} headers. Only use this when servers can read it. Defaults to
+         * false.
+         */
+        public Builder b3SingleFormat(boolean b3SingleFormat) {
+            this.b3SingleFormat = b3SingleFormat;
+            return this;
+        }
+
         public BraveClientRequestFilter build() {
             return new BraveClientRequestFilter(this);
         }
@@ -52,10 +64,12 @@ public class BraveClientRequestFilter implements ClientRequestFilter {
 
     private final ClientRequestInterceptor requestInterceptor;
     private final SpanNameProvider spanNameProvider;
+    private final boolean b3SingleFormat;
 
     BraveClientRequestFilter(Builder b) { // intentionally hidden
         this.requestInterceptor = b.brave.clientRequestInterceptor();
         this.spanNameProvider = b.spanNameProvider;
+        this.b3SingleFormat = b.b3SingleFormat;
     }
 
     /**
@@ -66,12 +80,13 @@ public class BraveClientRequestFilter implements ClientRequestFilter {
     public BraveClientRequestFilter(SpanNameProvider spanNameProvider, ClientRequestInterceptor requestInterceptor) {
         this.requestInterceptor = requestInterceptor;
         this.spanNameProvider = spanNameProvider;
+        this.b3SingleFormat = false;
     }
 
 
     @Override
     public void filter(ClientRequestContext clientRequestContext) throws IOException {
         final HttpClientRequest req = new JaxRs2HttpClientRequest(clientRequestContext);
-        requestInterceptor.handle(new HttpClientRequestAdapter(req, spanNameProvider));
+        requestInterceptor.handle(new HttpClientRequestAdapter(req, spanNameProvider, b3SingleFormat));
     }
 }
@@ -2,9 +2,11 @@ package com.github.kristofa.brave.jaxrs2;
 
 import com.github.kristofa.brave.*;
 import com.github.kristofa.brave.http.DefaultSpanNameProvider;
+import com.github.kristofa.brave.http.HttpRuleSampler;
 import com.github.kristofa.brave.http.HttpServerRequest;
 import com.github.kristofa.brave.http.HttpServerRequestAdapter;
 import com.github.kristofa.brave.http.SpanNameProvider;
+import com.github.kristofa.brave.internal.Nullable;
 
 import java.io.IOException;
 
@@ -38,6 +40,7 @@ public class BraveContainerRequestFilter implements ContainerRequestFilter {
     public static final class Builder {
         final Brave brave;
         SpanNameProvider spanNameProvider = new DefaultSpanNameProvider();
+        HttpRuleSampler ruleSampler;
 
         Builder(Brave brave) { // intentionally hidden
             this.brave = checkNotNull(brave, "brave");
@@ -48,6 +51,15 @@ public class BraveContainerRequestFilter implements ContainerRequestFilter {
             return this;
         }
 
+        /**
+         * Chooses a sampler by http method and path, when the caller didn't decide whether to trace.
+         * Requests that match no rule use the trace sampler.
+         */
+        public Builder ruleSampler(HttpRuleSampler ruleSampler) {
+            this.ruleSampler = checkNotNull(ruleSampler, "ruleSampler");
+            return this;
+        }
+
         public BraveContainerRequestFilter build() {
             return new BraveContainerRequestFilter(this);
         }
@@ -55,10 +67,13 @@ public class BraveContainerRequestFilter implements ContainerRequestFilter {
 
     private final ServerRequestInterceptor requestInterceptor;
     private final SpanNameProvider spanNameProvider;
+    @Nullable // when not configured
+    private final HttpRuleSampler ruleSampler;
 
     BraveContainerRequestFilter(Builder b) { // intentionally hidden
         this.requestInterceptor = b.brave.serverRequestInterceptor();
         this.spanNameProvider = b.spanNameProvider;
+        this.ruleSampler = b.ruleSampler;
     }
 
     /**
@@ -69,13 +84,15 @@ public class BraveContainerRequestFilter implements ContainerRequestFilter {
     public BraveContainerRequestFilter(ServerRequestInterceptor interceptor, SpanNameProvider spanNameProvider) {
         this.requestInterceptor = interceptor;
         this.spanNameProvider = spanNameProvider;
+        this.ruleSampler = null;
     }
 
     @Override
     public void filter(ContainerRequestContext containerRequestContext) throws IOException {
 
         HttpServerRequest request = new JaxRs2HttpServerRequest(containerRequestContext);
-        requestInterceptor.handle(new HttpServerRequestAdapter(request, spanNameProvider));
+        Sampler sampler = ruleSampler != null ? ruleSampler.sampler(request) : null;
+        requestInterceptor.handle(new HttpServerRequestAdapter(request, spanNameProvider), sampler);
     }
 
 }
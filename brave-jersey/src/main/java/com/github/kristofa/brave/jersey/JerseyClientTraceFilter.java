@@ -3,6 +3,7 @@ package com.github.kristofa.brave.jersey;
 import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.ClientRequestInterceptor;
 import com.github.kristofa.brave.ClientResponseInterceptor;
+import com.github.kristofa.brave.http.BraveHttpHeaders;
 import com.github.kristofa.brave.http.DefaultSpanNameProvider;
 import com.github.kristofa.brave.http.HttpClientRequestAdapter;
 import com.github.kristofa.brave.http.HttpClientResponseAdapter;
@@ -39,6 +40,7 @@ public class JerseyClientTraceFilter extends ClientFilter {
     public static final class Builder {
         final Brave brave;
         SpanNameProvider spanNameProvider = new DefaultSpanNameProvider();
+        boolean b3SingleFormat;
 
         Builder(Brave brave) { // intentionally hidden
             this.brave = checkNotNull(brave, "brave");
@@ -49,6 +51,16 @@ public class JerseyClientTraceFilter extends ClientFilter {
             return this;
         }
 
+        /**
+         * When true, ids are propagated in the single {@link BraveHttpHeaders#B3 b3} header,
+         * instead of the {@code X-B3-*} headers. Only use this when servers can read it. Defaults to
+         * false.
+         */
+        public Builder b3SingleFormat(boolean b3SingleFormat) {
+            this.b3SingleFormat = b3SingleFormat;
+            return this;
+        }
+
         public JerseyClientTraceFilter build() {
             return new JerseyClientTraceFilter(this);
         }
@@ -57,11 +69,13 @@ public class JerseyClientTraceFilter extends ClientFilter {
     private final ClientRequestInterceptor clientRequestInterceptor;
     private final ClientResponseInterceptor clientResponseInterceptor;
     private final SpanNameProvider spanNameProvider;
+    private final boolean b3SingleFormat;
 
     JerseyClientTraceFilter(Builder b) { // intentionally hidden
         this.clientRequestInterceptor = b.brave.clientRequestInterceptor();
         this.clientResponseInterceptor = b.brave.clientResponseInterceptor();
         this.spanNameProvider = b.spanNameProvider;
+        this.b3SingleFormat = b.b3SingleFormat;
     }
 
     @Inject // internal dependency-injection constructor
@@ -75,6 +89,7 @@ public class JerseyClientTraceFilter extends ClientFilter {
     @Deprecated
     public JerseyClientTraceFilter(SpanNameProvider spanNameProvider, ClientRequestInterceptor requestInterceptor, ClientResponseInterceptor responseInterceptor) {
         this.spanNameProvider = spanNameProvider;
+        this.b3SingleFormat = false;
         this.clientRequestInterceptor = requestInterceptor;
         this.clientResponseInterceptor = responseInterceptor;
     }
@@ -82,7 +97,7 @@ public class JerseyClientTraceFilter extends ClientFilter {
     @Override
     public ClientResponse handle(final ClientRequest clientRequest) throws ClientHandlerException {
 
-        clientRequestInterceptor.handle(new HttpClientRequestAdapter(new JerseyHttpRequest(clientRequest), spanNameProvider));
+        clientRequestInterceptor.handle(new HttpClientRequestAdapter(new JerseyHttpRequest(clientRequest), spanNameProvider, b3SingleFormat));
         final ClientResponse clientResponse = getNext().handle(clientRequest);
         clientResponseInterceptor.handle(new HttpClientResponseAdapter(new JerseyHttpResponse(clientResponse)));
         return clientResponse;
@@ -11,12 +11,14 @@ import com.twitter.zipkin.gen.Endpoint;
 import zipkin.Constants;
 import zipkin.TraceKeys;
 
+import java.lang.ref.WeakReference;
 import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.sql.SQLException;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>
@@ -26,6 +28,11 @@ import java.util.Properties;
  *     To use it, append <code>?statementInterceptors=com.github.kristofa.brave.mysql.MySQLStatementInterceptor</code> to the end of the connection url.
  * </p>
  * <p>
+ *     To only trace statements that take at least a number of milliseconds, or that fail, also append
+ *     <code>&amp;zipkinLatencyThreshold=10</code>. Statements are then timed, and a span backdated to the start of the
+ *     statement is only recorded for slow or failed ones.
+ * </p>
+ * <p>
  *     Note that this class must be injected with the {@linkplain ClientTracer} to use to communicate with Zipkin via the {@linkplain #setClientTracer} method;
  *     this is normally done by the {@linkplain MySQLStatementInterceptorManagementBean}.
  * </p>
@@ -33,6 +40,7 @@ import java.util.Properties;
 public class MySQLStatementInterceptor implements StatementInterceptorV2 {
 	
 	private final static String SERVICE_NAME_KEY = "zipkinServiceName";
+	private final static String LATENCY_THRESHOLD_KEY = "zipkinLatencyThreshold";
 
     // TODO: is static scope best? ex. preferred to thread local etc?
     static volatile ClientTracer clientTracer;
@@ -41,6 +49,17 @@ public class MySQLStatementInterceptor implements StatementInterceptorV2 {
         clientTracer = tracer;
     }
 
+    /**
+     * The driver creates an interceptor per connection, so this usually only resolves once. The
+     * connection is weakly referenced, so a cached endpoint doesn't keep a closed connection alive.
+     */
+    private volatile CachedEndpoint cachedEndpoint;
+
+    /** Zero when all statements are traced. */
+    private long latencyThresholdNanos;
+    /** Statements on a connection don't overlap, and only top-level ones are intercepted. */
+    private long statementStartNanos;
+
     @Override
     public ResultSetInternalMethods preProcess(final String sql, final Statement interceptedStatement, final Connection connection) throws SQLException {
 
@@ -54,7 +73,11 @@ public class MySQLStatementInterceptor implements StatementInterceptorV2 {
                 sqlToLog = sql;
             }
 
-            beginTrace(clientTracer, sqlToLog, connection);
+            if (latencyThresholdNanos == 0) {
+                beginTrace(clientTracer, sqlToLog, connection);
+            } else {
+                statementStartNanos = System.nanoTime();
+            }
         }
 
         return null;
@@ -67,7 +90,17 @@ public class MySQLStatementInterceptor implements StatementInterceptorV2 {
 
         ClientTracer clientTracer = MySQLStatementInterceptor.clientTracer;
         if (clientTracer != null) {
-            endTrace(clientTracer, warningCount, statementException);
+            if (latencyThresholdNanos == 0) {
+                endTrace(clientTracer, warningCount, statementException);
+            } else {
+                long elapsedNanos = System.nanoTime() - statementStartNanos;
+                if (statementException != null || elapsedNanos >= latencyThresholdNanos) {
+                    final String sqlToLog = interceptedStatement instanceof PreparedStatement
+                        ? ((PreparedStatement) interceptedStatement).getPreparedSql()
+                        : sql;
+                    traceCompleted(clientTracer, sqlToLog, connection, elapsedNanos, warningCount, statementException);
+                }
+            }
         }
 
         return null;
@@ -84,11 +117,43 @@ public class MySQLStatementInterceptor implements StatementInterceptorV2 {
         }
     }
 
+    private void setClientSent(ClientTracer tracer, Connection connection) throws Exception {
+        tracer.setClientSent(serverEndpoint(connection));
+    }
+
+    /** Records a span for a statement that already finished, backdated by its elapsed time. */
+    private void traceCompleted(ClientTracer tracer, String sql, Connection connection, long elapsedNanos,
+                                int warningCount, SQLException statementException) {
+        if (tracer.startNewSpan("query") == null) {
+            return; // not sampled
+        }
+        tracer.submitBinaryAnnotation(TraceKeys.SQL_QUERY, sql);
+        Endpoint server;
+        try {
+            server = serverEndpoint(connection);
+        } catch (Exception e) { // logging the server address is optional
+            server = null;
+        }
+        submitResult(tracer, warningCount, statementException);
+        tracer.setClientSentAndReceived(server, elapsedNanos);
+    }
+
+    private Endpoint serverEndpoint(Connection connection) throws Exception {
+        // The default service name includes the catalog, which can change with "USE database".
+        String catalog = connection.getCatalog();
+        CachedEndpoint cached = cachedEndpoint;
+        if (cached == null || !cached.matches(connection, catalog)) {
+            cached = new CachedEndpoint(connection, catalog, parseServerEndpoint(connection, catalog));
+            cachedEndpoint = cached;
+        }
+        return cached.endpoint;
+    }
+
     /**
      * MySQL exposes the host connecting to, but not the port. This attempts to get the port from the
      * JDBC URL. Ex. 5555 from {@code jdbc:mysql://localhost:5555/isSampled}, or 3306 if absent.
      */
-    private void setClientSent(ClientTracer tracer, Connection connection) throws Exception {
+    static Endpoint parseServerEndpoint(Connection connection, String catalog) throws Exception {
         InetAddress address = Inet4Address.getByName(connection.getHost());
         int ipv4 = ByteBuffer.wrap(address.getAddress()).getInt();
         
@@ -99,29 +164,48 @@ public class MySQLStatementInterceptor implements StatementInterceptorV2 {
         String serviceName = props.getProperty(SERVICE_NAME_KEY);
         if (serviceName == null || "".equals(serviceName)) {
         	serviceName = "mysql";
-        	String databaseName = connection.getCatalog();
-        	if (databaseName != null && !"".equals(databaseName)) {
-        		serviceName += "-" + databaseName;
+        	if (catalog != null && !"".equals(catalog)) {
+        		serviceName += "-" + catalog;
         	}
         }
         
-        tracer.setClientSent(Endpoint.builder()
-            .ipv4(ipv4).port(port).serviceName(serviceName).build());
+        return Endpoint.builder().ipv4(ipv4).port(port).serviceName(serviceName).build();
+    }
+
+    static final class CachedEndpoint {
+        final WeakReference<Connection> connection;
+        final String catalog;
+        final Endpoint endpoint;
+
+        CachedEndpoint(Connection connection, String catalog, Endpoint endpoint) {
+            this.connection = new WeakReference<Connection>(connection);
+            this.catalog = catalog;
+            this.endpoint = endpoint;
+        }
+
+        boolean matches(Connection connection, String catalog) {
+            return this.connection.get() == connection
+                && (this.catalog == null ? catalog == null : this.catalog.equals(catalog));
+        }
     }
 
     private void endTrace(final ClientTracer tracer, final int warningCount, final SQLException statementException) {
         try {
-            if (warningCount > 0) {
-                tracer.submitBinaryAnnotation("warning.count", warningCount);
-            }
-            if (statementException != null) {
-                tracer.submitBinaryAnnotation(Constants.ERROR, statementException.getErrorCode());
-            }
+            submitResult(tracer, warningCount, statementException);
         } finally {
             tracer.setClientReceived();
         }
     }
 
+    private static void submitResult(final ClientTracer tracer, final int warningCount, final SQLException statementException) {
+        if (warningCount > 0) {
+            tracer.submitBinaryAnnotation("warning.count", warningCount);
+        }
+        if (statementException != null) {
+            tracer.submitBinaryAnnotation(Constants.ERROR, statementException.getErrorCode());
+        }
+    }
+
     @Override
     public boolean executeTopLevelOnly() {
         // True means that we don't get notified about queries that other interceptors issue
@@ -130,7 +214,13 @@ public class MySQLStatementInterceptor implements StatementInterceptorV2 {
 
     @Override
     public void init(final Connection connection, final Properties properties) throws SQLException {
-        // Don't care
+        String latencyThreshold = properties != null ? properties.getProperty(LATENCY_THRESHOLD_KEY) : null;
+        if (latencyThreshold != null && !"".equals(latencyThreshold)) {
+            try {
+                latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(latencyThreshold));
+            } catch (NumberFormatException ignored) { // tracing shouldn't prevent connecting
+            }
+        }
     }
 
     @Override
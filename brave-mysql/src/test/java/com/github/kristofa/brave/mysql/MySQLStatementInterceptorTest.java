@@ -3,14 +3,18 @@ package com.github.kristofa.brave.mysql;
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import com.github.kristofa.brave.ClientTracer;
+import com.github.kristofa.brave.SpanId;
 import com.mysql.jdbc.Connection;
 import com.mysql.jdbc.PreparedStatement;
 import com.mysql.jdbc.ResultSetInternalMethods;
@@ -19,6 +23,7 @@ import com.mysql.jdbc.Statement;
 import com.twitter.zipkin.gen.Endpoint;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 
 import zipkin.Constants;
@@ -131,6 +136,50 @@ public class MySQLStatementInterceptorTest {
             .ipv4(1 << 24 | 2 << 16 | 3 << 8 | 4).port(3306).serviceName("hello-brave").build());
     }
     
+    @Test
+    public void preProcessShouldResolveServerAddressOncePerConnection() throws Exception {
+        final Connection connection = mockConnection("jdbc:mysql://foo:9999/test", "test");
+
+        subject.preProcess("select 1", mock(Statement.class), connection);
+        subject.preProcess("select 2", mock(Statement.class), connection);
+
+        verify(connection, times(1)).getMetaData();
+        verify(clientTracer, times(2)).setClientSent(Endpoint.builder()
+            .ipv4(1 << 24 | 2 << 16 | 3 << 8 | 4).port(9999).serviceName("mysql-test").build());
+    }
+
+    @Test
+    public void preProcessShouldResolveServerAddressAgainWhenCatalogChanges() throws Exception {
+        final Connection connection = mockConnection("jdbc:mysql://foo:9999/test", "test");
+
+        subject.preProcess("use other", mock(Statement.class), connection);
+        when(connection.getCatalog()).thenReturn("other");
+        subject.preProcess("select 1", mock(Statement.class), connection);
+
+        verify(clientTracer).setClientSent(Endpoint.builder()
+            .ipv4(1 << 24 | 2 << 16 | 3 << 8 | 4).port(9999).serviceName("mysql-other").build());
+    }
+
+    @Test
+    public void preProcessShouldResolveServerAddressAgainForAnotherConnection() throws Exception {
+        subject.preProcess("select 1", mock(Statement.class), mockConnection("jdbc:mysql://foo:9999/test", "test"));
+        subject.preProcess("select 1", mock(Statement.class), mockConnection("jdbc:mysql://foo:5555/test", "test"));
+
+        verify(clientTracer).setClientSent(Endpoint.builder()
+            .ipv4(1 << 24 | 2 << 16 | 3 << 8 | 4).port(5555).serviceName("mysql-test").build());
+    }
+
+    private static Connection mockConnection(String url, String catalog) throws SQLException {
+        final Connection connection = mock(Connection.class);
+        when(connection.getHost()).thenReturn("1.2.3.4");
+        final DatabaseMetaData metadata = mock(DatabaseMetaData.class);
+        when(connection.getMetaData()).thenReturn(metadata);
+        when(metadata.getURL()).thenReturn(url);
+        when(connection.getProperties()).thenReturn(new Properties());
+        when(connection.getCatalog()).thenReturn(catalog);
+        return connection;
+    }
+
     @Test
     public void preProcessShouldIgnoreExceptionsLoggingServerAddress() throws Exception {
         final String sql = randomAlphanumeric(20);
@@ -201,6 +250,58 @@ public class MySQLStatementInterceptorTest {
         order.verifyNoMoreInteractions();
     }
 
+    @Test
+    public void latencyThresholdShouldNotTraceFastStatements() throws Exception {
+        final Connection connection = mockConnection("jdbc:mysql://foo:9999/test", "test");
+        subject.init(connection, latencyThreshold("1000"));
+
+        subject.preProcess("select 1", mock(Statement.class), connection);
+        subject.postProcess("select 1", mock(Statement.class), mock(ResultSetInternalMethods.class), connection, 0, true, true, null);
+
+        verifyZeroInteractions(clientTracer);
+    }
+
+    @Test
+    public void latencyThresholdShouldTraceSlowStatementsFromTheirStart() throws Exception {
+        final Connection connection = mockConnection("jdbc:mysql://foo:9999/test", "test");
+        subject.init(connection, latencyThreshold("10"));
+        when(clientTracer.startNewSpan("query")).thenReturn(SpanId.builder().spanId(1L).build());
+
+        subject.preProcess("select sleep(1)", mock(Statement.class), connection);
+        Thread.sleep(20);
+        subject.postProcess("select sleep(1)", mock(Statement.class), mock(ResultSetInternalMethods.class), connection, 0, true, true, null);
+
+        final ArgumentCaptor<Long> elapsedNanos = ArgumentCaptor.forClass(Long.class);
+        final InOrder order = inOrder(clientTracer);
+        order.verify(clientTracer).startNewSpan("query");
+        order.verify(clientTracer).submitBinaryAnnotation(TraceKeys.SQL_QUERY, "select sleep(1)");
+        order.verify(clientTracer).setClientSentAndReceived(eq(Endpoint.builder()
+            .ipv4(1 << 24 | 2 << 16 | 3 << 8 | 4).port(9999).serviceName("mysql-test").build()), elapsedNanos.capture());
+        order.verifyNoMoreInteractions();
+
+        assertTrue(elapsedNanos.getValue() >= 20000000L);
+    }
+
+    @Test
+    public void latencyThresholdShouldTraceFailedStatements() throws Exception {
+        final Connection connection = mockConnection("jdbc:mysql://foo:9999/test", "test");
+        subject.init(connection, latencyThreshold("1000"));
+        when(clientTracer.startNewSpan("query")).thenReturn(SpanId.builder().spanId(1L).build());
+
+        subject.preProcess("select 1", mock(Statement.class), connection);
+        subject.postProcess("select 1", mock(Statement.class), mock(ResultSetInternalMethods.class), connection, 0, true, true,
+            new SQLException("", "", 2));
+
+        verify(clientTracer).submitBinaryAnnotation(Constants.ERROR, 2);
+        verify(clientTracer).setClientSentAndReceived(any(Endpoint.class), anyLong());
+    }
+
+    private static Properties latencyThreshold(String millis) {
+        Properties properties = new Properties();
+        properties.setProperty("zipkinLatencyThreshold", millis);
+        return properties;
+    }
+
     @Test
     public void executeTopLevelOnlyShouldOnlyExecuteTopLevelQueries() throws Exception {
         assertTrue(subject.executeTopLevelOnly());
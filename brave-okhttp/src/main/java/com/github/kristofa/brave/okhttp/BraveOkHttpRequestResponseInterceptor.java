@@ -3,6 +3,7 @@ package com.github.kristofa.brave.okhttp;
 import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.ClientRequestInterceptor;
 import com.github.kristofa.brave.ClientResponseInterceptor;
+import com.github.kristofa.brave.http.BraveHttpHeaders;
 import com.github.kristofa.brave.http.DefaultSpanNameProvider;
 import com.github.kristofa.brave.http.HttpClientRequestAdapter;
 import com.github.kristofa.brave.http.HttpClientResponseAdapter;
@@ -29,6 +30,7 @@ public class BraveOkHttpRequestResponseInterceptor implements Interceptor {
   public static final class Builder {
     final Brave brave;
     SpanNameProvider spanNameProvider = new DefaultSpanNameProvider();
+    boolean b3SingleFormat;
 
     Builder(Brave brave) { // intentionally hidden
       this.brave = checkNotNull(brave, "brave");
@@ -39,6 +41,16 @@ public class BraveOkHttpRequestResponseInterceptor implements Interceptor {
       return this;
     }
 
+    /**
+     * When true, ids are propagated in the single {@link BraveHttpHeaders#B3 b3} header,
+     * instead of the {@code X-B3-*} headers. Only use this when servers can read it. Defaults to
+     * false.
+     */
+    public Builder b3SingleFormat(boolean b3SingleFormat) {
+      this.b3SingleFormat = b3SingleFormat;
+      return this;
+    }
+
     public BraveOkHttpRequestResponseInterceptor build() {
       return new BraveOkHttpRequestResponseInterceptor(this);
     }
@@ -47,11 +59,13 @@ public class BraveOkHttpRequestResponseInterceptor implements Interceptor {
   private final ClientRequestInterceptor requestInterceptor;
   private final ClientResponseInterceptor responseInterceptor;
   private final SpanNameProvider spanNameProvider;
+  private final boolean b3SingleFormat;
 
   BraveOkHttpRequestResponseInterceptor(Builder b) { // intentionally hidden
     this.requestInterceptor = b.brave.clientRequestInterceptor();
     this.responseInterceptor = b.brave.clientResponseInterceptor();
     this.spanNameProvider = b.spanNameProvider;
+    this.b3SingleFormat = b.b3SingleFormat;
   }
 
   /**
@@ -60,6 +74,7 @@ public class BraveOkHttpRequestResponseInterceptor implements Interceptor {
   @Deprecated
   public BraveOkHttpRequestResponseInterceptor(ClientRequestInterceptor requestInterceptor, ClientResponseInterceptor responseInterceptor, SpanNameProvider spanNameProvider) {
     this.spanNameProvider = spanNameProvider;
+    this.b3SingleFormat = false;
     this.requestInterceptor = requestInterceptor;
     this.responseInterceptor = responseInterceptor;
   }
@@ -69,7 +84,7 @@ public class BraveOkHttpRequestResponseInterceptor implements Interceptor {
     Request request = chain.request();
     Request.Builder builder = request.newBuilder();
     OkHttpRequest okHttpRequest = new OkHttpRequest(builder, request);
-    requestInterceptor.handle(new HttpClientRequestAdapter(okHttpRequest, spanNameProvider));
+    requestInterceptor.handle(new HttpClientRequestAdapter(okHttpRequest, spanNameProvider, b3SingleFormat));
     Response response = chain.proceed(builder.build());
     responseInterceptor.handle(new HttpClientResponseAdapter(new OkHttpResponse(response)));
     return response;
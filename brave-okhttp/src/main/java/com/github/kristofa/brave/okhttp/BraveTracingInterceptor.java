@@ -20,7 +20,8 @@ import okhttp3.Response;
 import zipkin.Constants;
 import zipkin.TraceKeys;
 
-import static com.github.kristofa.brave.IdConversion.convertToString;
+import static com.github.kristofa.brave.B3SingleFormat.writeB3SingleFormat;
+import static com.github.kristofa.brave.http.BraveHttpHeaders.B3;
 import static com.github.kristofa.brave.http.BraveHttpHeaders.Sampled;
 import static com.github.kristofa.brave.internal.Util.checkNotNull;
 
@@ -77,6 +78,7 @@ public final class BraveTracingInterceptor implements Interceptor {
     final Brave brave;
     String serverName = "";
     OkHttpParser parser = new OkHttpParser();
+    boolean b3SingleFormat;
 
     Builder(Brave brave) { // intentionally hidden
       this.brave = checkNotNull(brave, "brave");
@@ -101,6 +103,15 @@ public final class BraveTracingInterceptor implements Interceptor {
       return this;
     }
 
+    /**
+     * When true, ids are propagated in the single {@link BraveHttpHeaders#B3 b3} header, instead of
+     * the {@code X-B3-*} headers. Only use this when servers can read it. Defaults to false.
+     */
+    public Builder b3SingleFormat(boolean b3SingleFormat) {
+      this.b3SingleFormat = b3SingleFormat;
+      return this;
+    }
+
     public BraveTracingInterceptor build() {
       return new BraveTracingInterceptor(this);
     }
@@ -110,12 +121,14 @@ public final class BraveTracingInterceptor implements Interceptor {
   final ClientTracer clientTracer;
   final OkHttpParser parser;
   final String serverName;
+  final boolean b3SingleFormat;
 
   BraveTracingInterceptor(Builder builder) {
     localTracer = builder.brave.localTracer();
     clientTracer = builder.brave.clientTracer();
     parser = builder.parser;
     serverName = builder.serverName;
+    b3SingleFormat = builder.b3SingleFormat;
   }
 
   @Override
@@ -134,11 +147,14 @@ public final class BraveTracingInterceptor implements Interceptor {
     if (spanId == null) { // trace was unsampled
       return applicationRequest
           ? chain.proceed(request)
-          : chain.proceed(request.newBuilder().header(Sampled.getName(), "0").build());
+          : chain.proceed(request.newBuilder()
+              .header(b3SingleFormat ? B3.getName() : Sampled.getName(), "0").build());
     } else if (applicationRequest) {
       return traceApplicationRequest(chain, request);
     } else {
-      Request tracedRequest = addTraceHeaders(request, spanId).build();
+      Request tracedRequest = b3SingleFormat
+          ? request.newBuilder().header(B3.getName(), writeB3SingleFormat(spanId)).build()
+          : addTraceHeaders(request, spanId).build();
       return traceNetworkRequest(chain, tracedRequest);
     }
   }
@@ -146,10 +162,10 @@ public final class BraveTracingInterceptor implements Interceptor {
   static Request.Builder addTraceHeaders(Request request, SpanId spanId) {
     Request.Builder tracedRequest = request.newBuilder();
     tracedRequest.header(BraveHttpHeaders.TraceId.getName(), spanId.traceIdString());
-    tracedRequest.header(BraveHttpHeaders.SpanId.getName(), convertToString(spanId.spanId));
-    if (spanId.nullableParentId() != null) {
-      tracedRequest.header(BraveHttpHeaders.ParentSpanId.getName(),
-          convertToString(spanId.parentId));
+    tracedRequest.header(BraveHttpHeaders.SpanId.getName(), spanId.spanIdString());
+    String parentId = spanId.parentIdString();
+    if (parentId != null) {
+      tracedRequest.header(BraveHttpHeaders.ParentSpanId.getName(), parentId);
     }
     tracedRequest.header(BraveHttpHeaders.Sampled.getName(), "1");
     return tracedRequest;
@@ -4,6 +4,7 @@ import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.ClientRequestInterceptor;
 import com.github.kristofa.brave.ClientResponseInterceptor;
 import com.github.kristofa.brave.ClientTracer;
+import com.github.kristofa.brave.IdConversion;
 import com.github.kristofa.brave.SpanId;
 import com.github.kristofa.brave.http.BraveHttpHeaders;
 import okhttp3.OkHttpClient;
@@ -89,7 +90,7 @@ public class BraveOkHttpRequestResponseInterceptorTest {
     assertEquals(HTTP_METHOD_GET, serverRequest.getMethod());
     assertEquals("1", serverRequest.getHeader(BraveHttpHeaders.Sampled.getName()));
     assertEquals(TRACE_ID_STRING, serverRequest.getHeader(BraveHttpHeaders.TraceId.getName()));
-    assertEquals(Long.toString(SPAN_ID, 16), serverRequest.getHeader(BraveHttpHeaders.SpanId.getName()));
+    assertEquals(IdConversion.toLowerHex(SPAN_ID), serverRequest.getHeader(BraveHttpHeaders.SpanId.getName()));
   }
 
   @Test
@@ -122,7 +123,7 @@ public class BraveOkHttpRequestResponseInterceptorTest {
     assertEquals(HTTP_METHOD_GET, serverRequest.getMethod());
     assertEquals("1", serverRequest.getHeader(BraveHttpHeaders.Sampled.getName()));
     assertEquals(TRACE_ID_STRING, serverRequest.getHeader(BraveHttpHeaders.TraceId.getName()));
-    assertEquals(Long.toString(SPAN_ID, 16), serverRequest.getHeader(BraveHttpHeaders.SpanId.getName()));
+    assertEquals(IdConversion.toLowerHex(SPAN_ID), serverRequest.getHeader(BraveHttpHeaders.SpanId.getName()));
   }
 
   @Test
@@ -180,7 +181,7 @@ public class BraveOkHttpRequestResponseInterceptorTest {
     assertEquals(HTTP_METHOD_GET, serverRequest.getMethod());
     assertEquals("1", serverRequest.getHeader(BraveHttpHeaders.Sampled.getName()));
     assertEquals(TRACE_ID_STRING, serverRequest.getHeader(BraveHttpHeaders.TraceId.getName()));
-    assertEquals(Long.toString(SPAN_ID, 16), serverRequest.getHeader(BraveHttpHeaders.SpanId.getName()));
+    assertEquals(IdConversion.toLowerHex(SPAN_ID), serverRequest.getHeader(BraveHttpHeaders.SpanId.getName()));
   }
 
 }
\ No newline at end of file
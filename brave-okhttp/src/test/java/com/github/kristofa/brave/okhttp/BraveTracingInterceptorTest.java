@@ -2,6 +2,7 @@ package com.github.kristofa.brave.okhttp;
 
 import com.github.kristofa.brave.AnnotationSubmitter;
 import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.ExplicitTracer;
 import com.github.kristofa.brave.InheritableServerClientAndLocalSpanState;
 import com.github.kristofa.brave.KeyValueAnnotation;
 import com.github.kristofa.brave.LocalTracer;
@@ -35,6 +36,7 @@ import zipkin.TraceKeys;
 import zipkin.internal.TraceUtil;
 import zipkin.storage.InMemoryStorage;
 
+import static com.github.kristofa.brave.http.BraveHttpHeaders.B3;
 import static com.github.kristofa.brave.http.BraveHttpHeaders.ParentSpanId;
 import static com.github.kristofa.brave.http.BraveHttpHeaders.Sampled;
 import static com.github.kristofa.brave.http.BraveHttpHeaders.SpanId;
@@ -51,7 +53,7 @@ import static zipkin.TraceKeys.HTTP_URL;
 @RunWith(PowerMockRunner.class)
 // tell mock not to mess with our rules or loggers!
 @PowerMockIgnore({"okhttp3.*", "org.apache.logging.*", "com.sun.*"})
-@PrepareForTest({AnnotationSubmitter.class, LocalTracer.class})
+@PrepareForTest({AnnotationSubmitter.class, ExplicitTracer.class, LocalTracer.class})
 public class BraveTracingInterceptorTest {
   @Rule public ExpectedException thrown = ExpectedException.none();
   @Rule public MockWebServer server = new MockWebServer();
@@ -107,12 +109,12 @@ public class BraveTracingInterceptorTest {
 
     RecordedRequest request = server.takeRequest();
     Map<String, List<String>> headers = washIds(request.getHeaders().toMultimap());
-    assertThat(headers.get(TraceId.getName())).isEqualTo(asList("1"));
+    assertThat(headers.get(TraceId.getName())).isEqualTo(asList("0000000000000001"));
 
     assertThat(headers).contains(
-        entry(TraceId.getName(), asList("1")),
-        entry(ParentSpanId.getName(), asList("1")),
-        entry(SpanId.getName(), asList("2")),
+        entry(TraceId.getName(), asList("0000000000000001")),
+        entry(ParentSpanId.getName(), asList("0000000000000001")),
+        entry(SpanId.getName(), asList("0000000000000002")),
         entry(Sampled.getName(), asList("1"))
     );
   }
@@ -132,6 +134,37 @@ public class BraveTracingInterceptorTest {
     ).doesNotContainKeys(TraceId.getName(), SpanId.getName(), ParentSpanId.getName());
   }
 
+  @Test
+  public void propagates_b3SingleFormat() throws Exception {
+    interceptor = interceptorBuilder(Sampler.ALWAYS_SAMPLE).b3SingleFormat(true).build();
+    client = new OkHttpClient.Builder().
+        addInterceptor(interceptor).addNetworkInterceptor(interceptor).build();
+
+    server.enqueue(new MockResponse());
+    client.newCall(new Request.Builder().url(server.url("foo")).build()).execute();
+
+    RecordedRequest request = server.takeRequest();
+    // the local span is both the trace and the parent of the network span
+    assertThat(request.getHeader(B3.getName()))
+        .matches("([0-9a-f]{16})-[0-9a-f]{16}-1-\\1");
+    assertThat(request.getHeader(TraceId.getName())).isNull();
+    assertThat(request.getHeader(Sampled.getName())).isNull();
+  }
+
+  @Test
+  public void propagates_b3SingleFormat_sampledFalse() throws Exception {
+    interceptor = interceptorBuilder(Sampler.NEVER_SAMPLE).b3SingleFormat(true).build();
+    client = new OkHttpClient.Builder().
+        addInterceptor(interceptor).addNetworkInterceptor(interceptor).build();
+
+    server.enqueue(new MockResponse());
+    client.newCall(new Request.Builder().url(server.url("foo")).build()).execute();
+
+    RecordedRequest request = server.takeRequest();
+    assertThat(request.getHeader(B3.getName())).isEqualTo("0");
+    assertThat(request.getHeader(Sampled.getName())).isNull();
+  }
+
   @Test
   public void reportsToZipkin() throws Exception {
     server.enqueue(new MockResponse());
@@ -43,8 +43,8 @@ public class TraceUtil {
     Map<String, String> idMapping = new LinkedHashMap<>();
     for (int i = 0; i < unwashed.size(); i++) {
       idMapping.put(
-          IdConversion.convertToString(unwashed.get(i).id),
-          IdConversion.convertToString(washed.get(i).id)
+          IdConversion.toLowerHex(unwashed.get(i).id),
+          IdConversion.toLowerHex(washed.get(i).id)
       );
     }
 
@@ -14,7 +14,15 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.sql.SQLException;
-
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Traces each statement as a client span named "query".
+ *
+ * <p>When the {@code latencyThreshold} option is set, statements are only timed. A span is recorded
+ * after the statement, only if it took at least that many milliseconds or failed. Its timestamps
+ * are backdated to when the statement started.
+ */
 public final class BraveP6SpyListener extends JdbcEventListener {
     // TODO: Figure out a better approach
     static volatile ClientTracer clientTracer;
@@ -22,6 +30,7 @@ public final class BraveP6SpyListener extends JdbcEventListener {
     private int ipv4;
     private int port;
     private final String serviceName;
+    private long latencyThresholdNanos;
 
     public BraveP6SpyListener(P6BraveOptions options) {
         try {
@@ -34,6 +43,10 @@ public final class BraveP6SpyListener extends JdbcEventListener {
         } catch (Exception ignored) {
         }
         serviceName = options.getServiceName();
+        try {
+            latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(options.getLatencyThreshold()));
+        } catch (Exception ignored) {
+        }
     }
 
     public static void setClientTracer(ClientTracer tracer) {
@@ -47,7 +60,7 @@ public final class BraveP6SpyListener extends JdbcEventListener {
 
     @Override
     public void onAfterExecute(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
-        endTrace(e);
+        endTrace(statementInformation.getSql(), timeElapsedNanos, e);
     }
 
     @Override
@@ -57,7 +70,7 @@ public final class BraveP6SpyListener extends JdbcEventListener {
 
     @Override
     public void onAfterExecute(StatementInformation statementInformation, long timeElapsedNanos, String sql, SQLException e) {
-        endTrace(e);
+        endTrace(sql, timeElapsedNanos, e);
     }
 
     @Override
@@ -67,7 +80,7 @@ public final class BraveP6SpyListener extends JdbcEventListener {
 
     @Override
     public void onAfterExecuteBatch(StatementInformation statementInformation, long timeElapsedNanos, int[] updateCounts, SQLException e) {
-        endTrace(e);
+        endTrace(statementInformation.getSql(), timeElapsedNanos, e);
     }
 
     @Override
@@ -77,7 +90,7 @@ public final class BraveP6SpyListener extends JdbcEventListener {
 
     @Override
     public void onAfterExecuteUpdate(PreparedStatementInformation statementInformation, long timeElapsedNanos, int rowCount, SQLException e) {
-        endTrace(e);
+        endTrace(statementInformation.getSql(), timeElapsedNanos, e);
     }
 
     @Override
@@ -87,7 +100,7 @@ public final class BraveP6SpyListener extends JdbcEventListener {
 
     @Override
     public void onAfterExecuteUpdate(StatementInformation statementInformation, long timeElapsedNanos, String sql, int rowCount, SQLException e) {
-        endTrace(e);
+        endTrace(sql, timeElapsedNanos, e);
     }
 
     @Override
@@ -97,7 +110,7 @@ public final class BraveP6SpyListener extends JdbcEventListener {
 
     @Override
     public void onAfterExecuteQuery(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
-        endTrace(e);
+        endTrace(statementInformation.getSql(), timeElapsedNanos, e);
     }
 
     @Override
@@ -107,7 +120,7 @@ public final class BraveP6SpyListener extends JdbcEventListener {
 
     @Override
     public void onAfterExecuteQuery(StatementInformation statementInformation, long timeElapsedNanos, String sql, SQLException e) {
-        endTrace(e);
+        endTrace(sql, timeElapsedNanos, e);
     }
 
     private void startPreparedTrace(PreparedStatementInformation statementInformation) {
@@ -116,15 +129,20 @@ public final class BraveP6SpyListener extends JdbcEventListener {
 
     private void startTrace(String sql) {
         ClientTracer clientTracer = BraveP6SpyListener.clientTracer;
-        if (clientTracer != null) {
+        if (clientTracer != null && latencyThresholdNanos == 0) {
             beginTrace(clientTracer, sql);
         }
     }
 
-    private void endTrace(SQLException e) {
+    private void endTrace(String sql, long timeElapsedNanos, SQLException e) {
         ClientTracer clientTracer = BraveP6SpyListener.clientTracer;
-        if (clientTracer != null) {
+        if (clientTracer == null) {
+            return;
+        }
+        if (latencyThresholdNanos == 0) {
             endTrace(clientTracer, e);
+        } else if (e != null || timeElapsedNanos >= latencyThresholdNanos) {
+            traceCompleted(clientTracer, sql, timeElapsedNanos, e);
         }
     }
 
@@ -149,4 +167,19 @@ public final class BraveP6SpyListener extends JdbcEventListener {
             tracer.setClientReceived();
         }
     }
+
+    /** Records a span for a statement that already finished, backdated by its elapsed time. */
+    private void traceCompleted(ClientTracer tracer, String sql, long timeElapsedNanos, SQLException statementException) {
+        if (tracer.startNewSpan("query") == null) {
+            return; // not sampled
+        }
+        tracer.submitBinaryAnnotation(TraceKeys.SQL_QUERY, sql);
+        if (statementException != null) {
+            tracer.submitBinaryAnnotation(Constants.ERROR, statementException.getErrorCode());
+        }
+        Endpoint server = ipv4 != 0 && port > 0
+            ? Endpoint.builder().ipv4(ipv4).port(port).serviceName(serviceName).build()
+            : null; // logging the server address is optional
+        tracer.setClientSentAndReceived(server, timeElapsedNanos);
+    }
 }
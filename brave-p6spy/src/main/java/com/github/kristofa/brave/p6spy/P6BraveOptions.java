@@ -17,6 +17,7 @@ final class P6BraveOptions extends StandardMBean implements P6LoadableOptions, P
     private static final String HOST = "host";
     private static final String PORT = "port";
     private static final String SERVICE_NAME = "serviceName";
+    private static final String LATENCY_THRESHOLD = "latencyThreshold";
 
     private final P6OptionsRepository optionsRepository;
 
@@ -30,6 +31,7 @@ final class P6BraveOptions extends StandardMBean implements P6LoadableOptions, P
         setHost(options.get(HOST));
         setPort(options.get(PORT));
         setServiceName(options.get(SERVICE_NAME));
+        setLatencyThreshold(options.get(LATENCY_THRESHOLD));
     }
 
     @Override
@@ -64,4 +66,13 @@ final class P6BraveOptions extends StandardMBean implements P6LoadableOptions, P
       optionsRepository.set(String.class, SERVICE_NAME, serviceName);
     }
 
+    @Override
+    public String getLatencyThreshold() {
+      return optionsRepository.get(String.class, LATENCY_THRESHOLD);
+    }
+
+    public void setLatencyThreshold(String latencyThreshold) {
+      optionsRepository.set(String.class, LATENCY_THRESHOLD, latencyThreshold);
+    }
+
 }
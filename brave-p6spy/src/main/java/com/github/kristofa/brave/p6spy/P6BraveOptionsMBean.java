@@ -27,4 +27,12 @@ public interface P6BraveOptionsMBean {
      */
     String getServiceName();
 
+    /**
+     * Minimum duration in milliseconds of statements to trace. Faster statements are only traced
+     * if they fail. When unset, all statements are traced.
+     *
+     * @return the latency threshold
+     */
+    String getLatencyThreshold();
+
 }
@@ -0,0 +1,96 @@
+package com.github.kristofa.brave.p6spy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.ClientTracer;
+import com.p6spy.engine.spy.P6ModuleManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import zipkin.Constants;
+import zipkin.Span;
+import zipkin.TraceKeys;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Runs statements against an in-memory H2 database through p6spy, with the latency threshold set.
+ */
+public class BraveP6SpyLatencyThresholdTest {
+
+    private final List<Span> spans = new CopyOnWriteArrayList<>();
+    private P6BraveOptions options;
+    private Connection connection;
+
+    @Before
+    public void setup() throws SQLException {
+        ClientTracer clientTracer = new Brave.Builder("test").reporter(spans::add).build().clientTracer();
+        BraveP6SpyListener.setClientTracer(clientTracer);
+
+        // Listeners read options when a connection is opened.
+        options = P6ModuleManager.getInstance().getOptions(P6BraveOptions.class);
+        options.setLatencyThreshold("20");
+        connection = DriverManager.getConnection("jdbc:p6spy:h2:mem:latency", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE ALIAS IF NOT EXISTS SLEEP FOR \"java.lang.Thread.sleep\"");
+        }
+        spans.clear();
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        options.setLatencyThreshold("0");
+        connection.close();
+        BraveP6SpyListener.setClientTracer(null);
+    }
+
+    @Test
+    public void fastStatementIsNotTraced() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT 1").close();
+        }
+
+        assertEquals(0, spans.size());
+    }
+
+    @Test
+    public void slowStatementIsTracedFromItsStart() throws SQLException {
+        long beforeMicros = System.currentTimeMillis() * 1000;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CALL SLEEP(30)");
+        }
+        long afterMicros = System.currentTimeMillis() * 1000;
+
+        assertEquals(1, spans.size());
+        Span span = spans.get(0);
+        assertEquals("query", span.name);
+        assertEquals(Constants.CLIENT_SEND, span.annotations.get(0).value);
+        assertEquals(Constants.CLIENT_RECV, span.annotations.get(1).value);
+        assertTrue("duration was " + span.duration, span.duration >= 30000L);
+        assertTrue("backdated to the start of the statement",
+            span.timestamp >= beforeMicros - 1000 && span.timestamp + span.duration <= afterMicros);
+        assertTrue(span.binaryAnnotations.stream().anyMatch(b -> b.key.equals(TraceKeys.SQL_QUERY)));
+    }
+
+    @Test
+    public void failedStatementIsTraced() {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT * FROM missing");
+            fail();
+        } catch (SQLException expected) {
+        }
+
+        assertEquals(1, spans.size());
+        assertTrue(spans.get(0).binaryAnnotations.stream().anyMatch(b -> b.key.equals(Constants.ERROR)));
+    }
+}
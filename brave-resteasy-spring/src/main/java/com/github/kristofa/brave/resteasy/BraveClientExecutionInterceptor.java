@@ -9,6 +9,7 @@ import com.github.kristofa.brave.ClientResponseAdapter;
 import com.github.kristofa.brave.ClientResponseInterceptor;
 import com.github.kristofa.brave.ClientTracer;
 import com.github.kristofa.brave.NoAnnotationsClientResponseAdapter;
+import com.github.kristofa.brave.http.BraveHttpHeaders;
 import com.github.kristofa.brave.http.DefaultSpanNameProvider;
 import com.github.kristofa.brave.http.HttpClientRequest;
 import com.github.kristofa.brave.http.HttpClientRequestAdapter;
@@ -65,6 +66,7 @@ public class BraveClientExecutionInterceptor implements ClientExecutionIntercept
     public static final class Builder {
         final Brave brave;
         SpanNameProvider spanNameProvider = new DefaultSpanNameProvider();
+        boolean b3SingleFormat;
 
         Builder(Brave brave) { // intentionally hidden
             this.brave = checkNotNull(brave, "brave");
@@ -75,6 +77,16 @@ public class BraveClientExecutionInterceptor implements ClientExecutionIntercept
             return this;
         }
 
+        /**
+         * When true, ids are propagated in the single {@link BraveHttpHeaders#B3 b3} header,
+         * instead of the {@code X-B3-*} headers. Only use this when servers can read it. Defaults to
+         * false.
+         */
+        public Builder b3SingleFormat(boolean b3SingleFormat) {
+            this.b3SingleFormat = b3SingleFormat;
+            return this;
+        }
+
         public BraveClientExecutionInterceptor build() {
             return new BraveClientExecutionInterceptor(this);
         }
@@ -83,6 +95,7 @@ public class BraveClientExecutionInterceptor implements ClientExecutionIntercept
     private final ClientRequestInterceptor requestInterceptor;
     private final ClientResponseInterceptor responseInterceptor;
     private final SpanNameProvider spanNameProvider;
+    private final boolean b3SingleFormat;
 
     @Autowired // internal
     BraveClientExecutionInterceptor(SpanNameProvider spanNameProvider, Brave brave) {
@@ -93,6 +106,7 @@ public class BraveClientExecutionInterceptor implements ClientExecutionIntercept
         this.requestInterceptor = b.brave.clientRequestInterceptor();
         this.responseInterceptor = b.brave.clientResponseInterceptor();
         this.spanNameProvider = b.spanNameProvider;
+        this.b3SingleFormat = b.b3SingleFormat;
     }
 
     /**
@@ -107,6 +121,7 @@ public class BraveClientExecutionInterceptor implements ClientExecutionIntercept
     public BraveClientExecutionInterceptor(SpanNameProvider spanNameProvider, ClientRequestInterceptor requestInterceptor, ClientResponseInterceptor responseInterceptor) {
         this.requestInterceptor = requestInterceptor;
         this.spanNameProvider = spanNameProvider;
+        this.b3SingleFormat = false;
         this.responseInterceptor = responseInterceptor;
     }
 
@@ -119,7 +134,7 @@ public class BraveClientExecutionInterceptor implements ClientExecutionIntercept
         final ClientRequest request = ctx.getRequest();
 
         final HttpClientRequest httpClientRequest = new RestEasyHttpClientRequest(request);
-        final ClientRequestAdapter adapter = new HttpClientRequestAdapter(httpClientRequest, spanNameProvider);
+        final ClientRequestAdapter adapter = new HttpClientRequestAdapter(httpClientRequest, spanNameProvider, b3SingleFormat);
         requestInterceptor.handle(adapter);
 
         ClientResponse<?> response = null;
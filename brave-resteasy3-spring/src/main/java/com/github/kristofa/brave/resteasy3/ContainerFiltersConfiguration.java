@@ -1,6 +1,7 @@
 package com.github.kristofa.brave.resteasy3;
 
 import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.http.HttpRuleSampler;
 import com.github.kristofa.brave.http.SpanNameProvider;
 import com.github.kristofa.brave.jaxrs2.BraveContainerRequestFilter;
 import com.github.kristofa.brave.jaxrs2.BraveContainerResponseFilter;
@@ -20,9 +21,15 @@ public class ContainerFiltersConfiguration {
     @Autowired
     private SpanNameProvider spanNameProvider;
 
+    @Autowired(required = false)
+    private HttpRuleSampler ruleSampler;
+
     @Bean
     public BraveContainerRequestFilter getContainerRequestFilter() {
-        return BraveContainerRequestFilter.builder(brave).spanNameProvider(spanNameProvider).build();
+        BraveContainerRequestFilter.Builder builder =
+            BraveContainerRequestFilter.builder(brave).spanNameProvider(spanNameProvider);
+        if (ruleSampler != null) builder.ruleSampler(ruleSampler);
+        return builder.build();
     }
 
     @Bean
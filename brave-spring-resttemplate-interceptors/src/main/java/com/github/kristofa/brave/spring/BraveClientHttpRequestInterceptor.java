@@ -4,6 +4,7 @@ import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.ClientRequestInterceptor;
 import com.github.kristofa.brave.ClientResponseInterceptor;
 import com.github.kristofa.brave.NoAnnotationsClientResponseAdapter;
+import com.github.kristofa.brave.http.BraveHttpHeaders;
 import com.github.kristofa.brave.http.DefaultSpanNameProvider;
 import com.github.kristofa.brave.http.HttpClientRequestAdapter;
 import com.github.kristofa.brave.http.HttpClientResponseAdapter;
@@ -44,6 +45,7 @@ public class BraveClientHttpRequestInterceptor implements ClientHttpRequestInter
     public static final class Builder {
         final Brave brave;
         SpanNameProvider spanNameProvider = new DefaultSpanNameProvider();
+        boolean b3SingleFormat;
 
         Builder(Brave brave) { // intentionally hidden
             this.brave = checkNotNull(brave, "brave");
@@ -54,6 +56,16 @@ public class BraveClientHttpRequestInterceptor implements ClientHttpRequestInter
             return this;
         }
 
+        /**
+         * When true, ids are propagated in the single {@link BraveHttpHeaders#B3 b3} header,
+         * instead of the {@code X-B3-*} headers. Only use this when servers can read it. Defaults to
+         * false.
+         */
+        public Builder b3SingleFormat(boolean b3SingleFormat) {
+            this.b3SingleFormat = b3SingleFormat;
+            return this;
+        }
+
         public BraveClientHttpRequestInterceptor build() {
             return new BraveClientHttpRequestInterceptor(this);
         }
@@ -62,11 +74,13 @@ public class BraveClientHttpRequestInterceptor implements ClientHttpRequestInter
     private final ClientRequestInterceptor requestInterceptor;
     private final ClientResponseInterceptor responseInterceptor;
     private final SpanNameProvider spanNameProvider;
+    private final boolean b3SingleFormat;
 
     BraveClientHttpRequestInterceptor(Builder b) { // intentionally hidden
         this.requestInterceptor = b.brave.clientRequestInterceptor();
         this.responseInterceptor = b.brave.clientResponseInterceptor();
         this.spanNameProvider = b.spanNameProvider;
+        this.b3SingleFormat = b.b3SingleFormat;
     }
 
     /**
@@ -83,12 +97,13 @@ public class BraveClientHttpRequestInterceptor implements ClientHttpRequestInter
         this.requestInterceptor = requestInterceptor;
         this.responseInterceptor = responseInterceptor;
         this.spanNameProvider = spanNameProvider;
+        this.b3SingleFormat = false;
     }
 
     @Override
     public ClientHttpResponse intercept(final HttpRequest request, final byte[] body, final ClientHttpRequestExecution execution) throws IOException {
 
-        requestInterceptor.handle(new HttpClientRequestAdapter(new SpringHttpClientRequest(request), spanNameProvider));
+        requestInterceptor.handle(new HttpClientRequestAdapter(new SpringHttpClientRequest(request), spanNameProvider, b3SingleFormat));
 
         final ClientHttpResponse response;
 
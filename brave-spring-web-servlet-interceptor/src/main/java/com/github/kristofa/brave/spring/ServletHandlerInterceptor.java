@@ -1,16 +1,19 @@
 package com.github.kristofa.brave.spring;
 
 import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.Sampler;
 import com.github.kristofa.brave.ServerRequestInterceptor;
 import com.github.kristofa.brave.ServerResponseInterceptor;
 import com.github.kristofa.brave.ServerSpan;
 import com.github.kristofa.brave.ServerSpanThreadBinder;
 import com.github.kristofa.brave.http.DefaultSpanNameProvider;
 import com.github.kristofa.brave.http.HttpResponse;
+import com.github.kristofa.brave.http.HttpRuleSampler;
 import com.github.kristofa.brave.http.HttpServerRequest;
 import com.github.kristofa.brave.http.HttpServerRequestAdapter;
 import com.github.kristofa.brave.http.HttpServerResponseAdapter;
 import com.github.kristofa.brave.http.SpanNameProvider;
+import com.github.kristofa.brave.internal.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
 import org.springframework.context.annotation.Configuration;
@@ -39,6 +42,7 @@ public class ServletHandlerInterceptor extends HandlerInterceptorAdapter {
     public static final class Builder {
         final Brave brave;
         SpanNameProvider spanNameProvider = new DefaultSpanNameProvider();
+        HttpRuleSampler ruleSampler;
 
         Builder(Brave brave) { // intentionally hidden
             this.brave = checkNotNull(brave, "brave");
@@ -49,6 +53,15 @@ public class ServletHandlerInterceptor extends HandlerInterceptorAdapter {
             return this;
         }
 
+        /**
+         * Chooses a sampler by http method and path, when the caller didn't decide whether to trace.
+         * Requests that match no rule use the trace sampler.
+         */
+        public Builder ruleSampler(HttpRuleSampler ruleSampler) {
+            this.ruleSampler = checkNotNull(ruleSampler, "ruleSampler");
+            return this;
+        }
+
         public ServletHandlerInterceptor build() {
             return new ServletHandlerInterceptor(this);
         }
@@ -58,6 +71,8 @@ public class ServletHandlerInterceptor extends HandlerInterceptorAdapter {
     private final ServerResponseInterceptor responseInterceptor;
     private final ServerSpanThreadBinder serverThreadBinder;
     private final SpanNameProvider spanNameProvider;
+    @Nullable // when not configured
+    private final HttpRuleSampler ruleSampler;
 
     @Autowired // internal
     ServletHandlerInterceptor(SpanNameProvider spanNameProvider, Brave brave) {
@@ -69,6 +84,7 @@ public class ServletHandlerInterceptor extends HandlerInterceptorAdapter {
         this.responseInterceptor = b.brave.serverResponseInterceptor();
         this.serverThreadBinder = b.brave.serverSpanThreadBinder();
         this.spanNameProvider = b.spanNameProvider;
+        this.ruleSampler = b.ruleSampler;
     }
 
     /**
@@ -80,11 +96,12 @@ public class ServletHandlerInterceptor extends HandlerInterceptorAdapter {
         this.spanNameProvider = spanNameProvider;
         this.responseInterceptor = responseInterceptor;
         this.serverThreadBinder = serverThreadBinder;
+        this.ruleSampler = null;
     }
 
     @Override
     public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler) {
-        requestInterceptor.handle(new HttpServerRequestAdapter(new HttpServerRequest() {
+        HttpServerRequest serverRequest = new HttpServerRequest() {
             @Override
             public String getHttpHeaderValue(String headerName) {
                 return request.getHeader(headerName);
@@ -103,7 +120,10 @@ public class ServletHandlerInterceptor extends HandlerInterceptorAdapter {
             public String getHttpMethod() {
                 return request.getMethod();
             }
-        }, spanNameProvider));
+        };
+        // matches rules against the decoded path, like other adapters
+        Sampler sampler = ruleSampler != null ? ruleSampler.sampler(serverRequest) : null;
+        requestInterceptor.handle(new HttpServerRequestAdapter(serverRequest, spanNameProvider), sampler);
 
         return true;
     }
@@ -1,11 +1,14 @@
 package com.github.kristofa.brave.spring;
 
 import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.Sampler;
+import com.github.kristofa.brave.ServerRequestAdapter;
 import com.github.kristofa.brave.ServerRequestInterceptor;
 import com.github.kristofa.brave.ServerResponseAdapter;
 import com.github.kristofa.brave.ServerResponseInterceptor;
 import com.github.kristofa.brave.ServerSpan;
 import com.github.kristofa.brave.ServerSpanThreadBinder;
+import com.github.kristofa.brave.http.HttpRuleSampler;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InOrder;
@@ -76,4 +79,20 @@ public class ServletHandlerInterceptorTest {
 
         verify(serverThreadBinder).setCurrentSpan(null);
     }
-}
\ No newline at end of file
+
+    /** Rules match the decoded path, as they do with other adapters, and any method case. */
+    @Test
+    public void preHandleShouldMatchRulesOnDecodedPath() {
+        final Sampler sampler = mock(Sampler.class);
+        final Brave brave = mock(Brave.class);
+        when(brave.serverRequestInterceptor()).thenReturn(requestInterceptor);
+        subject = ServletHandlerInterceptor.builder(brave)
+            .ruleSampler(HttpRuleSampler.builder().addRule("GET", "/caf\u00e9", sampler).build())
+            .build();
+
+        final MockHttpServletRequest request = new MockHttpServletRequest("get", "/caf%C3%A9/menu");
+        subject.preHandle(request, new MockHttpServletResponse(), this);
+
+        verify(requestInterceptor).handle(any(ServerRequestAdapter.class), same(sampler));
+    }
+}
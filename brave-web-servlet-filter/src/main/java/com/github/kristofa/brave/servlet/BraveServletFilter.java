@@ -1,14 +1,23 @@
 package com.github.kristofa.brave.servlet;
 
+import com.github.kristofa.brave.AnnotationSubmitter;
 import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.Sampler;
 import com.github.kristofa.brave.ServerRequestInterceptor;
 import com.github.kristofa.brave.ServerResponseInterceptor;
+import com.github.kristofa.brave.ServerSpan;
+import com.github.kristofa.brave.ServerSpanThreadBinder;
 import com.github.kristofa.brave.http.DefaultSpanNameProvider;
 import com.github.kristofa.brave.http.HttpResponse;
+import com.github.kristofa.brave.http.HttpRuleSampler;
 import com.github.kristofa.brave.http.HttpServerRequestAdapter;
 import com.github.kristofa.brave.http.HttpServerResponseAdapter;
 import com.github.kristofa.brave.http.SpanNameProvider;
+import com.github.kristofa.brave.internal.Nullable;
+import zipkin.Constants;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
@@ -25,9 +34,20 @@ import static com.github.kristofa.brave.internal.Util.checkNotNull;
 /**
  * Servlet filter that will extract trace headers from the request and send
  * sr (server received) and ss (server sent) annotations.
+ *
+ * <p>On Servlet 3 containers, requests that {@link ServletRequest#startAsync() start async
+ * processing} are finished when the response completes, not when the filter chain returns. The
+ * server span is bound to the request thread only until then. To trace from the thread that
+ * completes the response, bind the span in the {@link #SERVER_SPAN_ATTRIBUTE request attribute}
+ * with {@link ServerSpanThreadBinder#setCurrentSpan(ServerSpan)}.
  */
 public class BraveServletFilter implements Filter {
 
+    /** Request attribute holding the {@link ServerSpan} of the request. */
+    public static final String SERVER_SPAN_ATTRIBUTE = ServerSpan.class.getName();
+
+    static final boolean SERVLET_3 = hasAsyncSupport();
+
     /** Creates a tracing filter with defaults. Use {@link #builder(Brave)} to customize. */
     public static BraveServletFilter create(Brave brave) {
         return new Builder(brave).build();
@@ -40,6 +60,7 @@ public class BraveServletFilter implements Filter {
     public static final class Builder {
         final Brave brave;
         SpanNameProvider spanNameProvider = new DefaultSpanNameProvider();
+        HttpRuleSampler ruleSampler;
 
         Builder(Brave brave) { // intentionally hidden
             this.brave = checkNotNull(brave, "brave");
@@ -50,6 +71,15 @@ public class BraveServletFilter implements Filter {
             return this;
         }
 
+        /**
+         * Chooses a sampler by http method and path, when the caller didn't decide whether to trace.
+         * Requests that match no rule use the trace sampler.
+         */
+        public Builder ruleSampler(HttpRuleSampler ruleSampler) {
+            this.ruleSampler = checkNotNull(ruleSampler, "ruleSampler");
+            return this;
+        }
+
         public BraveServletFilter build() {
             return new BraveServletFilter(this);
         }
@@ -58,6 +88,12 @@ public class BraveServletFilter implements Filter {
     private final ServerRequestInterceptor requestInterceptor;
     private final ServerResponseInterceptor responseInterceptor;
     private final SpanNameProvider spanNameProvider;
+    @Nullable // when not configured
+    private final HttpRuleSampler ruleSampler;
+    @Nullable // when created with the deprecated constructor, which doesn't support async
+    private final ServerSpanThreadBinder threadBinder;
+    @Nullable
+    private final AnnotationSubmitter annotationSubmitter;
 
     private FilterConfig filterConfig;
 
@@ -65,6 +101,9 @@ public class BraveServletFilter implements Filter {
         this.requestInterceptor = b.brave.serverRequestInterceptor();
         this.responseInterceptor = b.brave.serverResponseInterceptor();
         this.spanNameProvider = b.spanNameProvider;
+        this.ruleSampler = b.ruleSampler;
+        this.threadBinder = b.brave.serverSpanThreadBinder();
+        this.annotationSubmitter = b.brave.serverSpanAnnotationSubmitter();
     }
 
     /**
@@ -75,6 +114,9 @@ public class BraveServletFilter implements Filter {
         this.requestInterceptor = requestInterceptor;
         this.responseInterceptor = responseInterceptor;
         this.spanNameProvider = spanNameProvider;
+        this.ruleSampler = null;
+        this.threadBinder = null;
+        this.annotationSubmitter = null;
     }
 
     @Override
@@ -92,20 +134,107 @@ public class BraveServletFilter implements Filter {
             // Proceed without invoking this filter...
             filterChain.doFilter(request, response);
         } else {
+            // also guards async and forward dispatches of the same request
+            request.setAttribute(alreadyFilteredAttributeName, Boolean.TRUE);
 
             final StatusExposingServletResponse statusExposingServletResponse = new StatusExposingServletResponse((HttpServletResponse) response);
-            requestInterceptor.handle(new HttpServerRequestAdapter(new ServletHttpServerRequest((HttpServletRequest) request), spanNameProvider));
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            ServletHttpServerRequest serverRequest = new ServletHttpServerRequest(httpRequest);
+            // matches rules against the decoded path, like other adapters
+            Sampler sampler = ruleSampler != null ? ruleSampler.sampler(serverRequest) : null;
+            requestInterceptor.handle(new HttpServerRequestAdapter(serverRequest, spanNameProvider), sampler);
 
+            ServerSpan serverSpan = null;
+            if (SERVLET_3 && threadBinder != null) {
+                serverSpan = threadBinder.getCurrentServerSpan();
+                request.setAttribute(SERVER_SPAN_ATTRIBUTE, serverSpan);
+            }
+
+            boolean async = false;
             try {
                 filterChain.doFilter(request, statusExposingServletResponse);
+                async = serverSpan != null && request.isAsyncStarted();
             } finally {
-                responseInterceptor.handle(new HttpServerResponseAdapter(new HttpResponse() {
-                    @Override
-                    public int getHttpStatusCode() {
-                        return statusExposingServletResponse.getStatus();
-                    }
-                }));
+                if (async) {
+                    // The response completes on another thread, which finishes the span. Until then,
+                    // the span travels with the request, not this thread.
+                    request.getAsyncContext().addListener(
+                        new TracingAsyncListener(serverSpan, statusExposingServletResponse));
+                    threadBinder.setCurrentSpan(null);
+                } else {
+                    finishSpan(statusExposingServletResponse.getStatus());
+                }
+            }
+        }
+    }
+
+    void finishSpan(final int status) {
+        responseInterceptor.handle(new HttpServerResponseAdapter(new HttpResponse() {
+            @Override
+            public int getHttpStatusCode() {
+                return status;
             }
+        }));
+    }
+
+    /**
+     * Finishes the server span when an async response completes. As {@link #onComplete} is called
+     * after a timeout or error too, the span is finished there, tagged with the error if any.
+     */
+    final class TracingAsyncListener implements AsyncListener {
+        final ServerSpan serverSpan;
+        final StatusExposingServletResponse response;
+        volatile String error;
+
+        TracingAsyncListener(ServerSpan serverSpan, StatusExposingServletResponse response) {
+            this.serverSpan = serverSpan;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            ServerSpan previous = threadBinder.getCurrentServerSpan();
+            threadBinder.setCurrentSpan(serverSpan);
+            try {
+                String error = this.error;
+                if (error != null) annotationSubmitter.submitBinaryAnnotation(Constants.ERROR, error);
+                // Read the status from the container, as it sets one on timeout or error.
+                finishSpan(((HttpServletResponse) response.getResponse()).getStatus());
+            } finally {
+                threadBinder.setCurrentSpan(previous);
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            error = "timeout";
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            Throwable throwable = event.getThrowable();
+            if (throwable == null) {
+                error = "error";
+            } else {
+                error = throwable.getMessage() != null
+                    ? throwable.getMessage()
+                    : throwable.getClass().getSimpleName();
+            }
+        }
+
+        /** Listeners are cleared when async processing restarts, for example after a dispatch. */
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    static boolean hasAsyncSupport() {
+        try {
+            ServletRequest.class.getMethod("isAsyncStarted");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
         }
     }
 
@@ -2,11 +2,14 @@ package com.github.kristofa.brave.servlet;
 
 import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.IdConversion;
+import com.github.kristofa.brave.ServerSpan;
 import com.github.kristofa.brave.http.BraveHttpHeaders;
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.BinaryAnnotation;
 import com.twitter.zipkin.gen.Span;
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.Server;
-import org.eclipse.jetty.server.bio.SocketConnector;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
 import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletHolder;
 import org.eclipse.jetty.webapp.WebAppContext;
@@ -14,18 +17,25 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.DispatcherType;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  *
@@ -36,15 +46,16 @@ import static org.junit.Assert.assertEquals;
 public class ITBraveServletFilter {
 
     private Server server;
+    private Brave brave;
 
     @Before
     public void setup() {
 
-        Brave brave = new Brave.Builder("BraveServletFilterService").spanCollector(SpanCollectorForTesting.getInstance()).build();
+        brave = new Brave.Builder("BraveServletFilterService").spanCollector(SpanCollectorForTesting.getInstance()).build();
 
         server = new Server();
 
-        final SocketConnector connector = new SocketConnector();
+        final SelectChannelConnector connector = new SelectChannelConnector();
 
         connector.setMaxIdleTime(1000 * 60 * 60);
         connector.setPort(8080);
@@ -54,9 +65,17 @@ public class ITBraveServletFilter {
         context.setServer(server);
         context.setContextPath("/BraveServletFilter");
 
-        context.addFilter(new FilterHolder(BraveServletFilter.create(brave)), "/*", EnumSet.allOf(DispatcherType.class));
+        FilterHolder filterHolder = new FilterHolder(BraveServletFilter.create(brave));
+        filterHolder.setAsyncSupported(true);
+        context.addFilter(filterHolder, "/*", EnumSet.allOf(DispatcherType.class));
         context.addServlet(new ServletHolder(new ForwardServlet()), "/test");
         context.addServlet(new ServletHolder(new PingServlet()), "/forwardTo");
+        ServletHolder asyncHolder = new ServletHolder(new AsyncServlet());
+        asyncHolder.setAsyncSupported(true);
+        context.addServlet(asyncHolder, "/async");
+        ServletHolder timeoutHolder = new ServletHolder(new TimeoutServlet());
+        timeoutHolder.setAsyncSupported(true);
+        context.addServlet(timeoutHolder, "/timeout");
         context.setWar("src/test/webapp");
         server.setHandler(context);
 
@@ -90,22 +109,68 @@ public class ITBraveServletFilter {
         }
     }
 
+    /** Completes the response on another thread, which records an annotation on the server span. */
+    private class AsyncServlet extends HttpServlet {
+
+        @Override
+        protected void doGet(final HttpServletRequest req, HttpServletResponse resp) {
+            final ServerSpan serverSpan = (ServerSpan) req.getAttribute(BraveServletFilter.SERVER_SPAN_ATTRIBUTE);
+            final AsyncContext asyncContext = req.startAsync();
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(50);
+                        brave.serverSpanThreadBinder().setCurrentSpan(serverSpan);
+                        brave.serverSpanAnnotationSubmitter().submitAnnotation("async");
+                        ((HttpServletResponse) asyncContext.getResponse()).setStatus(202);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        brave.serverSpanThreadBinder().setCurrentSpan(null);
+                        asyncContext.complete();
+                    }
+                }
+            }).start();
+        }
+    }
+
+    /** Starts async processing and only completes it when it times out. */
+    private static class TimeoutServlet extends HttpServlet {
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) {
+            AsyncContext asyncContext = req.startAsync();
+            asyncContext.setTimeout(100);
+            asyncContext.addListener(new AsyncListener() {
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                    ((HttpServletResponse) event.getSuppliedResponse()).setStatus(503);
+                    event.getAsyncContext().complete();
+                }
+
+                @Override
+                public void onComplete(AsyncEvent event) {
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        }
+    }
+
     @Test
-    public void test() throws IOException {
-        URL url = new URL("http://localhost:8080/BraveServletFilter/test");
-        HttpURLConnection connection = (HttpURLConnection)url.openConnection();
-        connection.setRequestMethod("GET");
-        connection.addRequestProperty(BraveHttpHeaders.Sampled.getName(), "1");
-        connection.addRequestProperty(BraveHttpHeaders.TraceId.getName(), IdConversion.convertToString(1L));
-        connection.addRequestProperty(BraveHttpHeaders.SpanId.getName(), IdConversion.convertToString(2L));
-        connection.addRequestProperty(BraveHttpHeaders.ParentSpanId.getName(), IdConversion.convertToString(3L));
-        connection.connect();
+    public void test() throws Exception {
+        HttpURLConnection connection = openConnection("test");
 
         try {
             assertEquals(200, connection.getResponseCode());
-            final List<Span> collectedSpans = SpanCollectorForTesting.getInstance().getCollectedSpans();
-            assertEquals(1, collectedSpans.size());
-            final Span serverSpan = collectedSpans.get(0);
+            final Span serverSpan = awaitSpan();
 
             assertEquals("Expected trace id", serverSpan.getTrace_id(), 1L);
             assertEquals("Expected span id", serverSpan.getId(), 2L);
@@ -120,4 +185,72 @@ public class ITBraveServletFilter {
         }
     }
 
+    @Test
+    public void async_finishesSpanWhenResponseCompletes() throws Exception {
+        HttpURLConnection connection = openConnection("async");
+
+        try {
+            assertEquals(202, connection.getResponseCode());
+            final Span serverSpan = awaitSpan();
+
+            assertEquals("Expected span id", serverSpan.getId(), 2L);
+            List<String> annotations = new ArrayList<String>();
+            for (Annotation annotation : serverSpan.getAnnotations()) {
+                annotations.add(annotation.value);
+            }
+            assertEquals(asList("sr", "async", "ss"), annotations);
+            long elapsed = serverSpan.getAnnotations().get(2).timestamp - serverSpan.getAnnotations().get(0).timestamp;
+            assertTrue("Expected ss after async processing", elapsed >= 50000L);
+            assertTrue(tags(serverSpan).toString(), tags(serverSpan).contains("http.status_code=202"));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    public void async_tagsTimeout() throws Exception {
+        HttpURLConnection connection = openConnection("timeout");
+
+        try {
+            assertEquals(503, connection.getResponseCode());
+            final Span serverSpan = awaitSpan();
+
+            assertEquals("Expect 2 annotations.", 2, serverSpan.getAnnotations().size());
+            List<String> tags = tags(serverSpan);
+            assertTrue(tags.toString(), tags.contains("error=timeout"));
+            assertTrue(tags.toString(), tags.contains("http.status_code=503"));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection openConnection(String path) throws IOException {
+        URL url = new URL("http://localhost:8080/BraveServletFilter/" + path);
+        HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+        connection.setRequestMethod("GET");
+        connection.addRequestProperty(BraveHttpHeaders.Sampled.getName(), "1");
+        connection.addRequestProperty(BraveHttpHeaders.TraceId.getName(), IdConversion.convertToString(1L));
+        connection.addRequestProperty(BraveHttpHeaders.SpanId.getName(), IdConversion.convertToString(2L));
+        connection.addRequestProperty(BraveHttpHeaders.ParentSpanId.getName(), IdConversion.convertToString(3L));
+        connection.connect();
+        return connection;
+    }
+
+    private static List<String> tags(Span span) throws UnsupportedEncodingException {
+        List<String> tags = new ArrayList<String>();
+        for (BinaryAnnotation binaryAnnotation : span.getBinary_annotations()) {
+            tags.add(binaryAnnotation.getKey() + "=" + new String(binaryAnnotation.getValue(), "UTF-8"));
+        }
+        return tags;
+    }
+
+    /** Spans can be reported after the client has read the response. */
+    private Span awaitSpan() throws InterruptedException {
+        List<Span> collectedSpans = SpanCollectorForTesting.getInstance().getCollectedSpans();
+        for (int i = 0; i < 100 && collectedSpans.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, collectedSpans.size());
+        return collectedSpans.get(0);
+    }
 }
@@ -3,15 +3,15 @@ package com.github.kristofa.brave.servlet;
 import com.github.kristofa.brave.SpanCollector;
 import com.twitter.zipkin.gen.Span;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
 public class SpanCollectorForTesting implements SpanCollector {
 
     private final static Logger LOGGER = Logger.getLogger(SpanCollectorForTesting.class.getName());
 
-    private final List<Span> spans = new ArrayList<Span>();
+    private final List<Span> spans = new CopyOnWriteArrayList<Span>();
 
     private static SpanCollectorForTesting INSTANCE;
 